@@ -0,0 +1,94 @@
+/*
+ * see license.txt
+ */
+package bench.harenet;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import harenet.BitPacker;
+import harenet.ByteBufferIOBuffer;
+import harenet.IOBuffer;
+
+/**
+ * Writes and reads back a packet's worth of mixed sized values, through the {@link BitPacker}
+ * directly and through the {@link ByteBufferIOBuffer} that wraps it.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class IOBufferBenchmark {
+
+    private static final int NUMBER_OF_VALUES = 128;
+
+    private int[] values;
+    private int[] sizes;
+
+    private BitPacker packer;
+    private IOBuffer buffer;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+
+        this.values = new int[NUMBER_OF_VALUES];
+        this.sizes = new int[NUMBER_OF_VALUES];
+        for(int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.sizes[i] = 1 + random.nextInt(32);
+            this.values[i] = random.nextInt() & (int)((1L << this.sizes[i]) - 1);
+        }
+
+        this.packer = new BitPacker(1500 * 8, 1500 * 8);
+        this.buffer = new ByteBufferIOBuffer(1500);
+    }
+
+    @Benchmark
+    public int bitPackerPutGet() {
+        this.packer.clear();
+        for(int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.packer.putInteger(this.values[i], this.sizes[i]);
+        }
+
+        this.packer.flip();
+
+        int sum = 0;
+        for(int i = 0; i < NUMBER_OF_VALUES; i++) {
+            sum += this.packer.getInteger(this.sizes[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int ioBufferPutGet() {
+        this.buffer.clear();
+        for(int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.buffer.putIntBits(this.values[i], this.sizes[i]);
+        }
+
+        this.buffer.sendSync().asByteBuffer().flip();
+        this.buffer.receiveSync();
+
+        int sum = 0;
+        for(int i = 0; i < NUMBER_OF_VALUES; i++) {
+            sum += this.buffer.getIntBits(this.sizes[i]);
+        }
+        return sum;
+    }
+}
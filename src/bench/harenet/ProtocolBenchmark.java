@@ -0,0 +1,128 @@
+/*
+ * see license.txt
+ */
+package bench.harenet;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import harenet.IOBuffer;
+import harenet.Protocol;
+import harenet.messages.NetMessage;
+import harenet.messages.NetMessageFactory;
+
+/**
+ * Writes out a packet through the {@link Protocol} the same way the Host does before sending, and
+ * reads it back in.  Payloads over the compression threshold are deflated on the way out and
+ * inflated on the way in.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ProtocolBenchmark {
+
+    private static final int MTU = 1500;
+
+    /**
+     * The default compression threshold of the NetConfig
+     */
+    private static final int COMPRESSION_THRESHOLD = 500;
+
+    private static final NetMessageFactory NO_MESSAGES = new NetMessageFactory() {
+        @Override
+        public NetMessage readNetMessage(IOBuffer buffer) {
+            return null;
+        }
+    };
+
+    /**
+     * Under and over the compression threshold, so both the plain and the compressed
+     * packets are measured
+     */
+    @Param({"128", "480", "1000"})
+    public int payloadSize;
+
+    private byte[] payload;
+
+    private Protocol writeProtocol;
+    private Protocol readProtocol;
+    private IOBuffer writeBuffer;
+    private IOBuffer readBuffer;
+
+    @Setup
+    public void setup() {
+        /* entity states are mostly small numbers, so keep the
+         * payload about as compressible as a game update
+         */
+        Random random = new Random(7);
+        this.payload = new byte[this.payloadSize];
+        for(int i = 0; i < this.payload.length; i++) {
+            this.payload[i] = (byte)random.nextInt(16);
+        }
+
+        this.writeProtocol = new Protocol(COMPRESSION_THRESHOLD, MTU);
+        this.readProtocol = new Protocol(COMPRESSION_THRESHOLD, MTU);
+        this.writeBuffer = IOBuffer.Factory.allocate(MTU);
+        this.readBuffer = IOBuffer.Factory.allocate(MTU);
+    }
+
+    private ByteBuffer writePacket() {
+        this.writeBuffer.clear();
+        this.writeProtocol.reset();
+        this.writeBuffer.position(this.writeProtocol.size());
+
+        for(int i = 0; i < this.payload.length; i++) {
+            this.writeBuffer.putByte(this.payload[i]);
+        }
+
+        this.writeProtocol.setPeerId((byte)1);
+        this.writeProtocol.setNumberOfMessages((byte)1);
+        this.writeProtocol.setSendSequence(12);
+        this.writeProtocol.setAcknowledge(10);
+        this.writeProtocol.setAckHistory(0xff);
+        this.writeProtocol.writeTo(this.writeBuffer);
+
+        ByteBuffer out = this.writeBuffer.sendSync().asByteBuffer();
+        out.flip();
+        return out;
+    }
+
+    @Benchmark
+    public int write() {
+        return writePacket().limit();
+    }
+
+    @Benchmark
+    public int writeAndRead() {
+        ByteBuffer out = writePacket();
+
+        ByteBuffer in = this.readBuffer.clear().asByteBuffer();
+        in.clear();
+        in.put(out);
+        in.flip();
+        this.readBuffer.receiveSync();
+
+        this.readProtocol.reset();
+        this.readProtocol.readFrom(this.readBuffer, NO_MESSAGES);
+        return this.readProtocol.getSendSequence();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * see license.txt
+ */
+package bench.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seventh.map.Map;
+import seventh.map.Tile;
+import seventh.math.Rectangle;
+import seventh.math.Vector2f;
+import seventh.shared.Geom;
+import seventh.shared.SeventhConstants;
+import seventh.shared.WeaponConstants;
+
+/**
+ * Collision and line of sight queries against a {@link SyntheticMap}, cycling through a fixed set
+ * of seeded positions so each invocation does a comparable amount of work.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MapCollisionBenchmark {
+
+    private static final int NUMBER_OF_SAMPLES = 256;
+
+    /**
+     * How far apart the ends of each line are, about the range of a bullet check
+     */
+    private static final int LINE_LENGTH = 400;
+
+    private Map map;
+
+    private Rectangle[] rects;
+    private Vector2f[] starts;
+    private Vector2f[] ends;
+    private Vector2f[] facings;
+
+    private List<Tile> tiles;
+    private Vector2f cache;
+
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        this.map = SyntheticMap.create(128, 128, 0.15f, 7);
+
+        Random random = new Random(7);
+        int mapWidth = this.map.getMapWidth();
+        int mapHeight = this.map.getMapHeight();
+
+        this.rects = new Rectangle[NUMBER_OF_SAMPLES];
+        this.starts = new Vector2f[NUMBER_OF_SAMPLES];
+        this.ends = new Vector2f[NUMBER_OF_SAMPLES];
+        this.facings = new Vector2f[NUMBER_OF_SAMPLES];
+
+        for(int i = 0; i < NUMBER_OF_SAMPLES; i++) {
+            int x = LINE_LENGTH + random.nextInt(mapWidth - LINE_LENGTH * 2);
+            int y = LINE_LENGTH + random.nextInt(mapHeight - LINE_LENGTH * 2);
+
+            this.rects[i] = new Rectangle(x, y, SeventhConstants.PLAYER_WIDTH, SeventhConstants.PLAYER_HEIGHT);
+
+            double angle = random.nextDouble() * Math.PI * 2;
+            this.facings[i] = new Vector2f((float)Math.cos(angle), (float)Math.sin(angle));
+            this.starts[i] = new Vector2f(x, y);
+            this.ends[i] = new Vector2f(x + this.facings[i].x * LINE_LENGTH, y + this.facings[i].y * LINE_LENGTH);
+        }
+
+        this.tiles = new ArrayList<Tile>();
+        this.cache = new Vector2f();
+    }
+
+    private int nextIndex() {
+        this.index = (this.index + 1) % NUMBER_OF_SAMPLES;
+        return this.index;
+    }
+
+    @Benchmark
+    public boolean rectCollides() {
+        return this.map.rectCollides(this.rects[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean lineCollides() {
+        int i = nextIndex();
+        return this.map.lineCollides(this.starts[i], this.ends[i]);
+    }
+
+    @Benchmark
+    public int calculateLineOfSight() {
+        int i = nextIndex();
+        this.tiles.clear();
+        return Geom.calculateLineOfSight(this.tiles, this.starts[i], this.facings[i], WeaponConstants.DEFAULT_LINE_OF_SIGHT,
+                                         this.map, 0, this.cache).size();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * see license.txt
+ */
+package bench.map;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seventh.map.Map;
+import seventh.map.MapGraph;
+import seventh.map.MapGraphSearch;
+import seventh.map.Tile;
+
+/**
+ * Searches for paths between seeded pairs of walkable tiles of a {@link SyntheticMap}.  Only
+ * pairs that have a path between them are used, so each search ends at its goal.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PathfindingBenchmark {
+
+    private static final int NUMBER_OF_PAIRS = 64;
+
+    /**
+     * The distance between the start and goal of each pair, in tiles
+     */
+    @Param({"8", "24"})
+    public int distance;
+
+    private MapGraph graph;
+    private MapGraphSearch search;
+
+    private int[] starts;
+    private int[] goals;
+
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        Map map = SyntheticMap.create(64, 64, 0.15f, 7);
+        this.graph = map.createMapGraph();
+
+        this.search = new MapGraphSearch();
+        this.starts = new int[NUMBER_OF_PAIRS];
+        this.goals = new int[NUMBER_OF_PAIRS];
+
+        Random random = new Random(7);
+        int width = map.getTileWorldWidth();
+        int height = map.getTileWorldHeight();
+
+        int numberOfPairs = 0;
+        while(numberOfPairs < NUMBER_OF_PAIRS) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            int goalX = x + (random.nextBoolean() ? this.distance : -this.distance);
+            int goalY = y + random.nextInt(this.distance + 1) - this.distance / 2;
+            if(goalX < 0 || goalY < 0 || goalX >= width || goalY >= height) {
+                continue;
+            }
+
+            int start = this.graph.getNodeByIndex(x, y);
+            int goal = this.graph.getNodeByIndex(goalX, goalY);
+            if(start == MapGraph.NO_NODE || goal == MapGraph.NO_NODE) {
+                continue;
+            }
+
+            List<Tile> path = this.graph.search(this.search, start, goal);
+            if(path != null && !path.isEmpty()) {
+                this.starts[numberOfPairs] = start;
+                this.goals[numberOfPairs] = goal;
+                numberOfPairs++;
+            }
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        this.index = (this.index + 1) % NUMBER_OF_PAIRS;
+        List<Tile> path = this.graph.search(this.search, this.starts[this.index], this.goals[this.index]);
+        return path.size();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * see license.txt
+ */
+package bench.map;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import seventh.map.Layer;
+import seventh.map.Map;
+import seventh.map.Map.SceneDef;
+import seventh.map.MapObject;
+import seventh.map.OrthoMap;
+import seventh.map.Tile;
+import seventh.map.Tile.CollisionMask;
+import seventh.map.Tile.SurfaceType;
+
+/**
+ * Builds a headless {@link OrthoMap} without any map file: a ground layer covering the whole map
+ * and a collidable layer with a solid border and seeded, randomly placed blocks of wall.
+ *
+ * @author Tony
+ *
+ */
+public class SyntheticMap {
+
+    public static final int TILE_SIZE = 32;
+
+    /**
+     * @param width the number of tiles across
+     * @param height the number of tiles down
+     * @param wallDensity the fraction of tiles that are walls, between 0 and 1
+     * @param seed
+     * @return the map
+     * @throws Exception
+     */
+    public static Map create(int width, int height, float wallDensity, long seed) throws Exception {
+        Random random = new Random(seed);
+
+        Layer ground = new Layer("ground", false, false, false, true, 0, 0, height);
+        Layer walls = new Layer("walls", true, false, false, true, 1, 0, height);
+
+        SurfaceType[][] surfaces = new SurfaceType[height][width];
+        for(int y = 0; y < height; y++) {
+            Tile[] groundRow = new Tile[width];
+            for(int x = 0; x < width; x++) {
+                groundRow[x] = newTile(1, 0, x, y);
+                surfaces[y][x] = SurfaceType.CEMENT;
+            }
+            ground.addRow(y, groundRow);
+
+            Tile[] wallRow = new Tile[width];
+            for(int x = 0; x < width; x++) {
+                if(x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                    wallRow[x] = newWall(x, y);
+                }
+            }
+            walls.addRow(y, wallRow);
+        }
+
+        /* place 2x2 blocks until the density is reached */
+        int numberOfBlocks = (int)((width - 2) * (height - 2) * wallDensity) / 4;
+        for(int i = 0; i < numberOfBlocks; i++) {
+            int x = 1 + random.nextInt(width - 3);
+            int y = 1 + random.nextInt(height - 3);
+            for(int by = y; by < y + 2; by++) {
+                for(int bx = x; bx < x + 2; bx++) {
+                    walls.getRow(by)[bx] = newWall(bx, by);
+                }
+            }
+        }
+
+        SceneDef def = new SceneDef();
+        def.setDimensionX(width);
+        def.setDimensionY(height);
+        def.setTileWidth(TILE_SIZE);
+        def.setTileHeight(TILE_SIZE);
+        def.setSurfaces(surfaces);
+        def.setBackgroundLayers(new Layer[] { ground, walls });
+        def.setForegroundLayers(new Layer[0]);
+        def.setMapObjects(new ArrayList<MapObject>());
+
+        OrthoMap map = new OrthoMap(false);
+        map.init(def);
+        return map;
+    }
+
+    private static Tile newTile(int tileId, int layer, int x, int y) {
+        Tile tile = new Tile(null, tileId, layer, TILE_SIZE, TILE_SIZE);
+        tile.setPosition(x * TILE_SIZE, y * TILE_SIZE);
+        return tile;
+    }
+
+    private static Tile newWall(int x, int y) {
+        Tile tile = newTile(2, 1, x, y);
+        tile.setCollisionMask(CollisionMask.ALL_SOLID);
+        return tile;
+    }
+}
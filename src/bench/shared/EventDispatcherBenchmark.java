@@ -0,0 +1,70 @@
+/*
+ * see license.txt
+ */
+package bench.shared;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seventh.game.events.SoundEmittedEvent;
+import seventh.game.events.SoundEmitterListener;
+import seventh.math.Vector2f;
+import seventh.shared.EventDispatcher;
+import seventh.shared.EventMethod;
+import seventh.shared.SoundType;
+
+/**
+ * Sends an event straight to its listeners through the {@link EventDispatcher}.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class EventDispatcherBenchmark {
+
+    @Param({"1", "4"})
+    public int numberOfListeners;
+
+    private EventDispatcher dispatcher;
+    private SoundEmittedEvent event;
+    private int numberOfEventsReceived;
+
+    @Setup
+    public void setup() {
+        this.dispatcher = new EventDispatcher();
+        for(int i = 0; i < this.numberOfListeners; i++) {
+            this.dispatcher.addEventListener(SoundEmittedEvent.class, new SoundEmitterListener() {
+
+                @Override
+                @EventMethod
+                public void onSoundEmitted(SoundEmittedEvent event) {
+                    numberOfEventsReceived++;
+                }
+            });
+        }
+
+        this.event = new SoundEmittedEvent(this, 1, SoundType.M1_GARAND_FIRE, new Vector2f(100, 100));
+    }
+
+    @Benchmark
+    public int sendNow() {
+        this.dispatcher.sendNow(this.event);
+        return this.numberOfEventsReceived;
+    }
+}
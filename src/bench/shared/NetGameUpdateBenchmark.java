@@ -0,0 +1,108 @@
+/*
+ * see license.txt
+ */
+package bench.shared;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import harenet.IOBuffer;
+import seventh.game.entities.Entity;
+import seventh.game.entities.Entity.Type;
+import seventh.game.net.NetGameUpdate;
+import seventh.game.net.NetPlayerPartial;
+import seventh.game.net.NetWeapon;
+import seventh.game.weapons.Weapon.WeaponState;
+
+/**
+ * Serializes and deserializes a {@link NetGameUpdate} holding a fixed load of players.
+ *
+ * @author Tony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class NetGameUpdateBenchmark {
+
+    private static final Type[] WEAPONS = { Type.THOMPSON, Type.KAR98, Type.M1_GARAND, Type.SHOTGUN, Type.MP40 };
+
+    @Param({"8", "32"})
+    public int numberOfPlayers;
+
+    private NetGameUpdate netUpdate;
+    private NetGameUpdate readUpdate;
+
+    private IOBuffer writeBuffer;
+    private IOBuffer readBuffer;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+
+        this.netUpdate = new NetGameUpdate();
+        for(int i = 0; i < this.numberOfPlayers; i++) {
+            NetPlayerPartial player = new NetPlayerPartial();
+            player.id = i;
+            player.posX = random.nextInt(4096);
+            player.posY = random.nextInt(4096);
+            player.orientation = (short)random.nextInt(360);
+            player.state = Entity.State.values()[random.nextInt(5)];
+            player.health = (byte)(1 + random.nextInt(100));
+            player.weapon = new NetWeapon();
+            player.weapon.type = WEAPONS[random.nextInt(WEAPONS.length)];
+            player.weapon.weaponState = WeaponState.READY;
+
+            this.netUpdate.entities[i] = player;
+        }
+        this.netUpdate.time = 123456;
+
+        this.readUpdate = new NetGameUpdate();
+        this.writeBuffer = IOBuffer.Factory.allocate(16 * 1024);
+        this.readBuffer = IOBuffer.Factory.allocate(16 * 1024);
+    }
+
+    private ByteBuffer writeUpdate() {
+        this.writeBuffer.clear();
+        this.netUpdate.write(this.writeBuffer);
+
+        ByteBuffer out = this.writeBuffer.sendSync().asByteBuffer();
+        out.flip();
+        return out;
+    }
+
+    @Benchmark
+    public int write() {
+        return writeUpdate().limit();
+    }
+
+    @Benchmark
+    public int writeAndRead() {
+        ByteBuffer out = writeUpdate();
+
+        ByteBuffer in = this.readBuffer.clear().asByteBuffer();
+        in.clear();
+        in.put(out);
+        in.flip();
+        this.readBuffer.receiveSync();
+
+        this.readUpdate.read(this.readBuffer);
+        return this.readUpdate.time;
+    }
+}
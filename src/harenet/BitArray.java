@@ -17,12 +17,18 @@ public class BitArray {
     
     private byte[] data;
     
+    /**
+     * The number of bits required to encode the number of bytes in use
+     */
+    private int lengthBits;
+    
     /**
      * @param maxNumberOfBits
      */
     public BitArray(int maxNumberOfBits) {
         int leftOver = maxNumberOfBits % WORD_SIZE;
         this.data = new byte[(maxNumberOfBits / WORD_SIZE) + ((leftOver>0) ? 1 : 0)];
+        this.lengthBits = 32 - Integer.numberOfLeadingZeros(this.data.length);
     }
     
     private int bitIndex(int b) {
@@ -119,6 +125,48 @@ public class BitArray {
         return this.data.length;
     }
     
+    /**
+     * The number of bytes up to (and including) the last byte that has a bit set.  
+     * 
+     * @return the number of bytes that are in use
+     */
+    public int numberOfBytesInUse() {
+        for(int i = this.data.length - 1; i >= 0; i--) {
+            if(this.data[i] != 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Writes out only the bytes that are in use, prefixed by the number of bytes written.  This
+     * keeps the bit array sparse on the wire, a large bit array with only the first few bits set
+     * only costs the bytes of the first few bits.
+     * 
+     * @param buffer
+     */
+    public void write(IOBuffer buffer) {
+        int bytesInUse = numberOfBytesInUse();
+        buffer.putIntBits(bytesInUse, this.lengthBits);
+        for(int i = 0; i < bytesInUse; i++) {
+            buffer.putByte(this.data[i]);
+        }
+    }
+    
+    /**
+     * Reads in a bit array that was written out by {@link #write(IOBuffer)}, the bytes that were
+     * not written out are cleared.
+     * 
+     * @param buffer
+     */
+    public void read(IOBuffer buffer) {
+        int bytesInUse = buffer.getIntBits(this.lengthBits);
+        for(int i = 0; i < this.data.length; i++) {
+            this.data[i] = (i < bytesInUse) ? buffer.getByte() : 0;
+        }
+    }
+    
     /**
      * The number of bits used in this bit array
      * 
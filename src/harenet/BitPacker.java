@@ -173,7 +173,8 @@ public class BitPacker {
     public BitPacker writeTo(ByteBuffer buffer) {
         pad();
         
-        int numberOfBytes = getNumberOfBytes();
+        /* the limit may have been pulled in, such as when the bytes were compressed */
+        int numberOfBytes = Math.min(getNumberOfBytes(), (this.limit + 7) / 8);
         for (int i = 0; i < numberOfBytes; i++) {
             buffer.put(getByte());
         }
@@ -381,7 +382,7 @@ public class BitPacker {
     }
 
     public BitPacker putBytes(byte[] value, int offset, int length) {
-        for (int i = offset; i < length; i++) {
+        for (int i = offset; i < offset + length; i++) {
             putByte(value[i]);
         }
 
@@ -183,11 +183,11 @@ public class ByteBufferIOBuffer implements IOBuffer {
      */
     @Override
     public IOBuffer put(IOBuffer src) {
-        //buffer.put(src.array(), src.arrayOffset(), src.capacity());
-        //buffer.put(src.asByteBuffer());
-        //ByteBuffer buffer = src.asByteBuffer();
-        // TODO: Think about this more
-        packer.putBytes(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+        /* copy the remaining bytes of the source, as ByteBuffer.put(ByteBuffer) does */
+        int position = src.position();
+        int length = src.remaining();
+        packer.putBytes(src.array(), src.arrayOffset() + position, length);
+        src.position(position + length);
         return this;
     }
 
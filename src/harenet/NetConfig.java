@@ -179,7 +179,8 @@ public class NetConfig {
      * @param maxConnections the maxConnections to set
      */
     public void setMaxConnections(int maxConnections) {
-        this.maxConnections = maxConnections;
+        /* peer ids are sent as a single (signed) byte */
+        this.maxConnections = Math.min(maxConnections, Byte.MAX_VALUE);
     }
 
     /**
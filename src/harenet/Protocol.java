@@ -71,6 +71,10 @@ public class Protocol implements Transmittable {
         this.deflater = new Deflater(Deflater.BEST_COMPRESSION);
         this.deflater.setStrategy(Deflater.HUFFMAN_ONLY);
         
+        /* the strategy is only applied on the next deflate, which then doesn't
+         * compress anything; get that out of the way so the first packet is compressed */
+        this.deflater.deflate(new byte[16]);
+        
         this.inflater = new Inflater();
         
         this.compressionBuffer = IOBuffer.Factory.allocate(mtu);
@@ -286,7 +290,7 @@ public class Protocol implements Transmittable {
             this.numberOfBytesCompressed = (size-numberOfBytesToSkip)-len;
             
             this.compressionBuffer.position(numberOfBytesToSkip);
-            this.compressionBuffer.limit(len);
+            this.compressionBuffer.limit(len+numberOfBytesToSkip);
             
             buffer.limit(len+numberOfBytesToSkip);
             buffer.position(numberOfBytesToSkip);
@@ -316,8 +320,8 @@ public class Protocol implements Transmittable {
             
             this.numberOfBytesCompressed = len-(buffer.limit()-numberOfBytesToSkip);
             
-            this.compressionBuffer.position(2);
-            this.compressionBuffer.limit(len);
+            this.compressionBuffer.position(numberOfBytesToSkip);
+            this.compressionBuffer.limit(len+numberOfBytesToSkip);
             
             buffer.limit(len+numberOfBytesToSkip);
             buffer.position(numberOfBytesToSkip);
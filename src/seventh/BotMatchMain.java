@@ -0,0 +1,53 @@
+/*
+ * see license.txt
+ */
+package seventh;
+
+import leola.vm.Leola;
+import seventh.server.BotMatchSimulator;
+import seventh.server.ServerSeventhConfig;
+import seventh.shared.Config;
+import seventh.shared.Scripting;
+
+/**
+ * Runs a headless match between bots, and prints out how fast the server simulated it.  This is
+ * meant for comparing the performance of server changes, so the match is seeded and played out the
+ * same way on each run.
+ *
+ * <pre>
+ * BotMatchMain [map file] [number of bots] [ticks] [seed]
+ * </pre>
+ *
+ * @author Tony
+ *
+ */
+public class BotMatchMain {
+
+    /**
+     * The server frame time, in milliseconds
+     */
+    private static final long FRAME_TIME = 20;
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 1) {
+            System.out.println("<usage> BotMatchMain [map file] [number of bots] [ticks] [seed]");
+            return;
+        }
+
+        int numberOfBots = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 15_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 7L;
+
+        Leola runtime = Scripting.newRuntime();
+        ServerSeventhConfig config = new ServerSeventhConfig(new Config("./assets/server_config.leola", "server_config", runtime));
+
+        BotMatchSimulator simulator = new BotMatchSimulator(config, runtime, args[0], numberOfBots, seed);
+        try {
+            System.out.println("Simulating " + numberOfBots + " bots on " + args[0] + " with seed " + seed);
+            simulator.run(ticks, FRAME_TIME).print(System.out);
+        }
+        finally {
+            simulator.destroy();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * see license.txt
+ */
+package seventh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+import seventh.shared.DemoKillHeatmap;
+import seventh.shared.DemoPlayer;
+import seventh.shared.DemoReader;
+
+/**
+ * Scans a recorded demo without rendering it, and writes out a kill heatmap as CSV.
+ *
+ * <pre>
+ * DemoHeatmapMain [demo file] [cell size] [output file]
+ * </pre>
+ *
+ * @author Tony
+ *
+ */
+public class DemoHeatmapMain {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 1) {
+            System.out.println("<usage> DemoHeatmapMain [demo file] [cell size] [output file]");
+            return;
+        }
+
+        int cellSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        long startTime = System.nanoTime();
+
+        DemoKillHeatmap heatmap = new DemoKillHeatmap(cellSize);
+        try(DemoReader reader = new DemoReader(new File(args[0]))) {
+            DemoPlayer player = new DemoPlayer(reader, heatmap);
+            player.playToEnd();
+
+            long elapsed = (System.nanoTime() - startTime) / 1_000_000;
+            System.out.println("Scanned " + (reader.getDuration() / 1000) + " seconds of " + reader.getMapFileName()
+                                + " in " + elapsed + " ms, " + heatmap.getNumberOfKills() + " kills");
+        }
+
+        if(args.length > 2) {
+            try(PrintStream out = new PrintStream(new FileOutputStream(args[2]))) {
+                heatmap.write(out);
+            }
+        }
+        else {
+            heatmap.write(System.out);
+        }
+    }
+}
@@ -28,9 +28,10 @@ public class AIConfig {
         return this.config.getInt(300, "ai", "sightPollTime");
     }
     
-    public long getSoundPollTime() {
-        return this.config.getInt(200, "ai", "soundPollTime");
+    public long getSightRefreshTime() {
+        return this.config.getInt(1_000, "ai", "sightRefreshTime");
     }
+    
     public long getSoundExpireTime() {
         return this.config.getInt(1_000, "ai", "soundExpireTime");
     }
@@ -3,11 +3,12 @@
  */
 package seventh.ai.basic;
 
+import leola.vm.types.LeoObject;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.teamstrategy.TeamStrategy;
 import seventh.game.PlayerInfo;
 import seventh.game.entities.PlayerEntity;
-import seventh.graph.GraphNode;
+import seventh.map.MapGraph;
 import seventh.map.Tile;
 import seventh.math.Vector2f;
 import seventh.shared.DebugDraw;
@@ -38,6 +39,11 @@ public class Brain implements Debugable {
     
     private PersonalityTraits personality;
     
+    private BrainInputs inputs;
+    private EvaluatorProfile evaluatorProfile;
+    
+    private LeoObject scriptObj;
+    
     /**
      * @param runtime
      * @param world
@@ -57,6 +63,18 @@ public class Brain implements Debugable {
         this.communicator = new Communicator(world);
         
         this.targetingSystem = new TargetingSystem(this);
+        
+        this.inputs = new BrainInputs(this);
+        this.evaluatorProfile = new EvaluatorProfile();
+        
+        this.scriptObj = LeoObject.valueOf(this);
+    }
+    
+    /**
+     * @return this {@link Brain} as a {@link LeoObject}
+     */
+    public LeoObject asScriptObject() {
+        return this.scriptObj;
     }
     
     /**
@@ -66,6 +84,7 @@ public class Brain implements Debugable {
     public void spawned(TeamStrategy strategy) {
         this.entityOwner = player.getEntity();
         
+        this.inputs.invalidate();
         this.targetingSystem.reset(this);
         this.communicator.reset(this);
         this.sensors.reset(this);
@@ -156,6 +175,7 @@ public class Brain implements Debugable {
          * bound to this Brain
          */
         if(entityOwner!=null&&entityOwner.isAlive()) {            
+            this.inputs.invalidate();
             this.memory.update(timeStep);
             this.sensors.update(timeStep);        
             this.motion.update(timeStep);
@@ -212,9 +232,10 @@ public class Brain implements Debugable {
     private void debugDrawPathPlanner() {
         int x = (int) entityOwner.getCenterPos().x;
         int y = (int) entityOwner.getCenterPos().y;
-        GraphNode<Tile, ?> snode = world.getGraph().getNodeByWorld(x,y);
-        if(snode != null) {
-            DebugDraw.fillRectRelative(snode.getValue().getX(), snode.getValue().getY(), snode.getValue().getWidth(), snode.getValue().getHeight(), 0x3b00ff00);
+        int snode = world.getGraph().getNodeByWorld(x,y);
+        if(snode != MapGraph.NO_NODE) {
+            Tile stile = world.getGraph().getTile(snode);
+            DebugDraw.fillRectRelative(stile.getX(), stile.getY(), stile.getWidth(), stile.getHeight(), 0x3b00ff00);
         }
         
         Tile t = world.getMap().getWorldTile(0, x, y);
@@ -222,22 +243,21 @@ public class Brain implements Debugable {
             DebugDraw.fillRectRelative(t.getX(), t.getY(), t.getWidth(), t.getHeight(), 0x1b0000ff);
         }
         
-//        MapGraph<?> tt = world.getGraph();
-//        for(int yy = 0; yy < tt.graph.length; yy++) {
-//            for(int xx = 0; xx < tt.graph[0].length; xx++) {
-//                snode =  (GraphNode<Tile, ?>) tt.graph[yy][xx];
-//                if(snode != null) {
-//                    DebugDraw.fillRectRelative(snode.getValue().getX(), snode.getValue().getY(), snode.getValue().getWidth(), snode.getValue().getHeight(), 0x1fffff00);
-//                    DebugDraw.drawRectRelative(snode.getValue().getX(), snode.getValue().getY(), snode.getValue().getWidth(), snode.getValue().getHeight(), 0xffffffff);
+//        MapGraph tt = world.getGraph();
+//        for(int yy = 0; yy < tt.getHeight(); yy++) {
+//            for(int xx = 0; xx < tt.getWidth(); xx++) {
+//                if(tt.isWalkable(xx, yy)) {
+//                    Tile tile = world.getMap().getTile(0, xx, yy);
+//                    DebugDraw.fillRectRelative(tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(), 0x1fffff00);
+//                    DebugDraw.drawRectRelative(tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(), 0xffffffff);
 //                }
 //            }
 //        }
         
         
-        PathPlanner<?> pathPlanner = motion.getPathPlanner();
+        PathPlanner pathPlanner = motion.getPathPlanner();
         if(pathPlanner != null) {
-            for(GraphNode<Tile, ?> node : pathPlanner.getPath()) {
-                Tile tile = node.getValue();
+            for(Tile tile : pathPlanner.getPath()) {
                 if(tile != null) {
                     DebugDraw.fillRectRelative(tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(), 0x0600ff00);
                 }
@@ -252,6 +272,20 @@ public class Brain implements Debugable {
         return targetingSystem;
     }
     
+    /**
+     * @return the inputs the {@link seventh.ai.basic.actions.evaluators.ActionEvaluator}s depend on
+     */
+    public BrainInputs getInputs() {
+        return inputs;
+    }
+    
+    /**
+     * @return the breakdown of the time spent scoring {@link seventh.ai.basic.actions.evaluators.ActionEvaluator}s
+     */
+    public EvaluatorProfile getEvaluatorProfile() {
+        return evaluatorProfile;
+    }
+    
     /**
      * @return the motion
      */
@@ -310,7 +344,8 @@ public class Brain implements Debugable {
         DebugInformation me = new DebugInformation();
         me.add("entity_id", (this.entityOwner!=null) ? getEntityOwner().getId() : null)
           .add("locomotion", this.motion)
-          .add("thoughts", getThoughtProcess());
+          .add("thoughts", getThoughtProcess())
+          .add("evaluators", this.evaluatorProfile);
         return me;
     }
     
@@ -0,0 +1,206 @@
+/*
+ * see license.txt
+ */
+package seventh.ai.basic;
+
+import seventh.ai.basic.memory.FeelMemory.FeelMemoryRecord;
+import seventh.ai.basic.memory.SightMemory.SightMemoryRecord;
+import seventh.ai.basic.memory.SoundMemory.SoundMemoryRecord;
+import seventh.game.Inventory;
+import seventh.game.entities.PlayerEntity;
+import seventh.game.weapons.Weapon;
+import seventh.map.Map;
+import seventh.math.Vector2f;
+
+/**
+ * Tracks the inputs of a {@link Brain} that the {@link seventh.ai.basic.actions.evaluators.ActionEvaluator}s
+ * base their desirability scores on.  Each input is summarized by a fingerprint, when the fingerprint
+ * differs from the last one taken, the version of that input is bumped.  An evaluator can then compare
+ * the {@link #stampOf(int)} of its dependencies against the stamp of its last score to know if it needs
+ * to be re-scored.
+ *
+ * @author Tony
+ *
+ */
+public class BrainInputs {
+
+    /**
+     * The current target, its position relative to the bot and the bots aim
+     */
+    public static final int TARGETING = (1<<0);
+
+    /**
+     * The sight, sound and feel memory records
+     */
+    public static final int MEMORY    = (1<<1);
+
+    /**
+     * The bots health
+     */
+    public static final int HEALTH    = (1<<2);
+
+    /**
+     * The bots weapon state (current weapon, ammo, grenades)
+     */
+    public static final int WEAPON    = (1<<3);
+
+    /**
+     * Depends on none of the tracked inputs, the score is constant
+     */
+    public static final int NONE      = 0;
+
+    /**
+     * Depends on state that is not tracked (world scans, randomness, etc.) and
+     * therefore must always be re-scored
+     */
+    public static final int UNTRACKED = -1;
+
+    private static final int NUMBER_OF_INPUTS = 4;
+
+    /**
+     * The granularity of the aim, in radians, before it is considered a change
+     */
+    private static final float AIM_PRECISION = (float)Math.toRadians(10);
+
+    private Brain brain;
+
+    private long[] fingerprints;
+    private long[] versions;
+    private boolean isStale;
+
+    /**
+     * @param brain
+     */
+    public BrainInputs(Brain brain) {
+        this.brain = brain;
+        this.fingerprints = new long[NUMBER_OF_INPUTS];
+        this.versions = new long[NUMBER_OF_INPUTS];
+        this.isStale = true;
+    }
+
+    /**
+     * Marks the inputs as stale, the fingerprints will be taken again the next time
+     * they are asked for.  This should be called once per game tick.
+     */
+    public void invalidate() {
+        this.isStale = true;
+    }
+
+    /**
+     * Determines the stamp of the supplied inputs.  If the stamp differs from a previously
+     * retrieved stamp (for the same inputs), one of the inputs has changed.
+     *
+     * @param inputs the bit mask of inputs (i.e., {@link #TARGETING} | {@link #HEALTH})
+     * @return the stamp of the inputs
+     */
+    public long stampOf(int inputs) {
+        if(this.isStale) {
+            refresh();
+            this.isStale = false;
+        }
+
+        long stamp = 0;
+        for(int i = 0; i < NUMBER_OF_INPUTS; i++) {
+            if( (inputs & (1<<i)) != 0 ) {
+                stamp += this.versions[i];
+            }
+        }
+        return stamp;
+    }
+
+    private void refresh() {
+        PlayerEntity bot = brain.getEntityOwner();
+        if(bot == null) {
+            return;
+        }
+
+        check(0, targetingFingerprint(bot));
+        check(1, memoryFingerprint());
+        check(2, bot.getHealth());
+        check(3, weaponFingerprint(bot));
+    }
+
+    private void check(int input, long fingerprint) {
+        if(this.fingerprints[input] != fingerprint) {
+            this.fingerprints[input] = fingerprint;
+            this.versions[input]++;
+        }
+    }
+
+    private long tileOf(Map map, Vector2f pos) {
+        return ((long)map.worldToTileX((int)pos.x) << 16) | map.worldToTileY((int)pos.y);
+    }
+
+    private long targetingFingerprint(PlayerEntity bot) {
+        Map map = brain.getWorld().getMap();
+
+        long hash = tileOf(map, bot.getCenterPos());
+        hash = 31 * hash + (long)(bot.getOrientation() / AIM_PRECISION);
+
+        TargetingSystem system = brain.getTargetingSystem();
+        if(system.hasTarget()) {
+            PlayerEntity target = system.getCurrentTarget();
+            hash = 31 * hash + target.getId();
+            hash = 31 * hash + tileOf(map, target.getCenterPos());
+            hash = 31 * hash + (target.isOperatingVehicle() ? 1 : 0);
+
+            Vector2f lastSeenAt = system.getLastRemeberedPosition();
+            if(lastSeenAt != null) {
+                hash = 31 * hash + tileOf(map, lastSeenAt);
+            }
+        }
+        else {
+            hash = 31 * hash - 1;
+        }
+
+        return hash;
+    }
+
+    private long memoryFingerprint() {
+        Memory memory = brain.getMemory();
+        long hash = 0;
+
+        SightMemoryRecord[] sightRecords = memory.getSightMemory().getEntityRecords();
+        for(int i = 0; i < sightRecords.length; i++) {
+            if(sightRecords[i].isValid()) {
+                hash = 31 * hash + sightRecords[i].getTimeSeen();
+            }
+        }
+
+        SoundMemoryRecord[] soundRecords = memory.getSoundMemory().getSoundRecords();
+        for(int i = 0; i < soundRecords.length; i++) {
+            if(soundRecords[i].isValid()) {
+                hash = 31 * hash + soundRecords[i].getTimeHeard();
+            }
+        }
+
+        FeelMemoryRecord[] feelRecords = memory.getFeelMemory().getFeelRecords();
+        for(int i = 0; i < feelRecords.length; i++) {
+            if(feelRecords[i].isValid()) {
+                hash = 31 * hash + feelRecords[i].getTimeFelt();
+            }
+        }
+
+        return hash;
+    }
+
+    private long weaponFingerprint(PlayerEntity bot) {
+        Inventory inventory = bot.getInventory();
+
+        long hash = inventory.numberOfItems();
+        Weapon weapon = inventory.currentItem();
+        if(weapon != null) {
+            hash = 31 * hash + System.identityHashCode(weapon);
+            hash = 31 * hash + weapon.getState().ordinal();
+            hash = 31 * hash + weapon.getBulletsInClip();
+            hash = 31 * hash + weapon.getTotalAmmo();
+        }
+
+        if(inventory.hasGrenades()) {
+            hash = 31 * hash + inventory.getGrenades().getNumberOfGrenades();
+        }
+
+        hash = 31 * hash + (bot.isThrowingGrenade() ? 1 : 0);
+        return hash;
+    }
+}
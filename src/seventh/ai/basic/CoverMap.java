@@ -0,0 +1,389 @@
+/*
+ * see license.txt
+ */
+package seventh.ai.basic;
+
+import java.util.List;
+
+import seventh.game.GameInfo;
+import seventh.map.Map;
+import seventh.map.MapChangeJournal;
+import seventh.map.MapChangeListener;
+import seventh.math.Vector2f;
+
+/**
+ * A precomputed cover database.  For every walkable tile we store, for each of the
+ * {@link #NUMBER_OF_DIRECTIONS} directions, how far a line of fire can travel before
+ * it is blocked by the map.  This allows cover and attack direction queries to be simple
+ * table look ups rather than casting rays through the map every time a bot wants to
+ * hide.
+ *
+ * <p>
+ * The table is built when the map is loaded.  When tiles change, as recorded by the {@link MapChangeJournal},
+ * only the cells within range of the changed tile are marked as dirty, and they are lazily recalculated
+ * the next time they are queried.
+ *
+ * @author Tony
+ *
+ */
+public class CoverMap implements MapChangeListener {
+
+    /**
+     * The number of directions sampled for each tile
+     */
+    public static final int NUMBER_OF_DIRECTIONS = 16;
+
+    /**
+     * The max distance (in pixels) a direction is checked for obstructions
+     */
+    public static final int MAX_RANGE = 320;
+
+    private static final float DEGREES_PER_DIRECTION = 360f / NUMBER_OF_DIRECTIONS;
+
+    private static final float[] DIR_X = new float[NUMBER_OF_DIRECTIONS];
+    private static final float[] DIR_Y = new float[NUMBER_OF_DIRECTIONS];
+    static {
+        for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+            double radians = Math.toRadians(i * DEGREES_PER_DIRECTION);
+            DIR_X[i] = (float)Math.cos(radians);
+            DIR_Y[i] = (float)Math.sin(radians);
+        }
+    }
+
+    private Map map;
+
+    private final int tileWidth, tileHeight;
+    private final int numberOfCols, numberOfRows;
+
+    /**
+     * The distance an obstruction must be within in order to count as cover
+     */
+    private final int coverDistance;
+    private final int sampleStep;
+    private final int dirtyRadiusX, dirtyRadiusY;
+
+    /**
+     * The distance to the first obstruction, indexed by [cell * NUMBER_OF_DIRECTIONS + direction]
+     */
+    private short[] clearance;
+
+    /**
+     * The shielded directions of each cell, bit N is set if direction N has cover
+     */
+    private int[] coverMasks;
+    private boolean[] walkable;
+    private boolean[] dirty;
+
+    /**
+     * @param game
+     */
+    public CoverMap(GameInfo game) {
+        this.map = game.getMap();
+
+        this.tileWidth = map.getTileWidth();
+        this.tileHeight = map.getTileHeight();
+
+        this.numberOfCols = map.getTileWorldWidth();
+        this.numberOfRows = map.getTileWorldHeight();
+
+        this.coverDistance = Math.max(tileWidth, tileHeight) * 2;
+        this.sampleStep = Math.max(1, Math.min(tileWidth, tileHeight) / 4);
+        this.dirtyRadiusX = (MAX_RANGE / tileWidth) + 1;
+        this.dirtyRadiusY = (MAX_RANGE / tileHeight) + 1;
+
+        int numberOfCells = numberOfCols * numberOfRows;
+        this.clearance = new short[numberOfCells * NUMBER_OF_DIRECTIONS];
+        this.coverMasks = new int[numberOfCells];
+        this.walkable = new boolean[numberOfCells];
+        this.dirty = new boolean[numberOfCells];
+
+        for(int y = 0; y < numberOfRows; y++) {
+            for(int x = 0; x < numberOfCols; x++) {
+                calculateCell(x, y);
+            }
+        }
+
+        map.getChangeJournal().addListener(this);
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.map.MapChangeListener#onMapChanged(seventh.map.MapChangeJournal)
+     */
+    @Override
+    public void onMapChanged(MapChangeJournal changes) {
+        for(int i = 0; i < changes.getNumberOfChangedTiles(); i++) {
+            tileChanged(changes.getTileX(i), changes.getTileY(i));
+        }
+    }
+
+    /**
+     * A tile has changed at the supplied tile index
+     *
+     * @param tileX
+     * @param tileY
+     */
+    public void tileChanged(int tileX, int tileY) {
+        if(map.checkTileBounds(tileX, tileY)) {
+            return;
+        }
+
+        invalidateAround(tileX, tileY);
+    }
+
+    /**
+     * Marks all the cells that can be impacted by the tile at the supplied index
+     * as dirty
+     *
+     * @param tileX
+     * @param tileY
+     */
+    private void invalidateAround(int tileX, int tileY) {
+        int minX = Math.max(0, tileX - dirtyRadiusX);
+        int maxX = Math.min(numberOfCols - 1, tileX + dirtyRadiusX);
+        int minY = Math.max(0, tileY - dirtyRadiusY);
+        int maxY = Math.min(numberOfRows - 1, tileY + dirtyRadiusY);
+
+        for(int y = minY; y <= maxY; y++) {
+            int rowIndex = y * numberOfCols;
+            for(int x = minX; x <= maxX; x++) {
+                dirty[rowIndex + x] = true;
+            }
+        }
+    }
+
+    /**
+     * Ensures the cell is up to date
+     *
+     * @param tileX
+     * @param tileY
+     * @return the cell index
+     */
+    private int cellAt(int tileX, int tileY) {
+        int index = tileY * numberOfCols + tileX;
+        if(dirty[index]) {
+            calculateCell(tileX, tileY);
+        }
+        return index;
+    }
+
+    /**
+     * Calculates the clearance for each direction of the cell
+     *
+     * @param tileX
+     * @param tileY
+     */
+    private void calculateCell(int tileX, int tileY) {
+        int index = tileY * numberOfCols + tileX;
+        int offset = index * NUMBER_OF_DIRECTIONS;
+
+        dirty[index] = false;
+
+        boolean isWalkable = map.getCollidableTile(tileX, tileY) == null && map.getTile(0, tileX, tileY) != null;
+        walkable[index] = isWalkable;
+
+        if(!isWalkable) {
+            coverMasks[index] = 0;
+            for(int dir = 0; dir < NUMBER_OF_DIRECTIONS; dir++) {
+                clearance[offset + dir] = 0;
+            }
+            return;
+        }
+
+        float originX = tileX * tileWidth + tileWidth / 2f;
+        float originY = tileY * tileHeight + tileHeight / 2f;
+
+        int mask = 0;
+        for(int dir = 0; dir < NUMBER_OF_DIRECTIONS; dir++) {
+            float dx = DIR_X[dir];
+            float dy = DIR_Y[dir];
+
+            int distance = sampleStep;
+            for(; distance < MAX_RANGE; distance += sampleStep) {
+                if(map.pointCollides((int)(originX + dx * distance), (int)(originY + dy * distance))) {
+                    break;
+                }
+            }
+
+            distance = Math.min(distance, MAX_RANGE);
+            clearance[offset + dir] = (short)distance;
+
+            if(distance <= coverDistance) {
+                mask |= (1 << dir);
+            }
+        }
+
+        coverMasks[index] = mask;
+    }
+
+    /**
+     * @param dx
+     * @param dy
+     * @return the direction index closest to the supplied direction
+     */
+    private static int directionIndex(float dx, float dy) {
+        double degrees = Math.toDegrees(Math.atan2(dy, dx));
+        if(degrees < 0) {
+            degrees += 360;
+        }
+
+        return ((int)Math.round(degrees / DEGREES_PER_DIRECTION)) % NUMBER_OF_DIRECTIONS;
+    }
+
+    /**
+     * @param tileX
+     * @param tileY
+     * @return true if the tile is walkable
+     */
+    public boolean isWalkable(int tileX, int tileY) {
+        if(map.checkTileBounds(tileX, tileY)) {
+            return false;
+        }
+
+        return walkable[cellAt(tileX, tileY)];
+    }
+
+    /**
+     * @param tileX
+     * @param tileY
+     * @return the bit mask of directions in which the supplied tile is shielded
+     */
+    public int getCoverMask(int tileX, int tileY) {
+        if(map.checkTileBounds(tileX, tileY)) {
+            return 0;
+        }
+
+        return coverMasks[cellAt(tileX, tileY)];
+    }
+
+    /**
+     * Determines if the supplied world position is shielded from the attack position
+     *
+     * @param pos
+     * @param attackPos
+     * @return true if there is cover between the position and the attack position
+     */
+    public boolean hasCover(Vector2f pos, Vector2f attackPos) {
+        int tileX = map.worldToTileX((int)pos.x);
+        int tileY = map.worldToTileY((int)pos.y);
+        if(map.checkTileBounds(tileX, tileY)) {
+            return false;
+        }
+
+        return hasCover(cellAt(tileX, tileY), pos.x, pos.y, attackPos);
+    }
+
+    private boolean hasCover(int index, float x, float y, Vector2f attackPos) {
+        if(!walkable[index]) {
+            return false;
+        }
+
+        float dx = attackPos.x - x;
+        float dy = attackPos.y - y;
+
+        int dir = directionIndex(dx, dy);
+        if((coverMasks[index] & (1 << dir)) == 0) {
+            return false;
+        }
+
+        /* make sure the obstruction is actually between us and the attacker */
+        int distance = clearance[index * NUMBER_OF_DIRECTIONS + dir];
+        return distance * distance < (dx * dx + dy * dy);
+    }
+
+    /**
+     * Finds the closest position to the supplied position that is shielded from the attack position
+     *
+     * @param pos the agents current position
+     * @param attackPos the position in which to hide from
+     * @param radius the max distance (in pixels) to search
+     * @param result the result
+     * @return the result, set to the ZERO vector if no cover could be found
+     */
+    public Vector2f findClosestCover(Vector2f pos, Vector2f attackPos, int radius, Vector2f result) {
+        result.zeroOut();
+
+        int centerX = map.worldToTileX((int)pos.x);
+        int centerY = map.worldToTileY((int)pos.y);
+
+        int minX = Math.max(0, centerX - radius / tileWidth);
+        int maxX = Math.min(numberOfCols - 1, centerX + radius / tileWidth);
+        int minY = Math.max(0, centerY - radius / tileHeight);
+        int maxY = Math.min(numberOfRows - 1, centerY + radius / tileHeight);
+
+        final float radiusSq = radius * radius;
+        float bestDistanceSq = Float.MAX_VALUE;
+
+        for(int y = minY; y <= maxY; y++) {
+            float cellY = y * tileHeight + tileHeight / 2f;
+            for(int x = minX; x <= maxX; x++) {
+                float cellX = x * tileWidth + tileWidth / 2f;
+
+                float dx = cellX - pos.x;
+                float dy = cellY - pos.y;
+                float distanceSq = dx * dx + dy * dy;
+                if(distanceSq > radiusSq || distanceSq >= bestDistanceSq) {
+                    continue;
+                }
+
+                if(hasCover(cellAt(x, y), cellX, cellY, attackPos)) {
+                    bestDistanceSq = distanceSq;
+                    result.set(cellX, cellY);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates the possible {@link AttackDirection}'s from the supplied position.  If the distance to check
+     * is larger than the {@link #MAX_RANGE}, this will fall back to casting rays through the map.
+     *
+     * @param pos
+     * @param distanceToCheck
+     * @param numberOfDirectionsToCheck
+     * @param result the list of possible {@link AttackDirection}s
+     * @return the result
+     */
+    public List<AttackDirection> getAttackDirections(Vector2f pos, float distanceToCheck, int numberOfDirectionsToCheck, List<AttackDirection> result) {
+        int tileX = map.worldToTileX((int)pos.x);
+        int tileY = map.worldToTileY((int)pos.y);
+
+        int index = -1;
+        if(distanceToCheck <= MAX_RANGE && !map.checkTileBounds(tileX, tileY)) {
+            index = cellAt(tileX, tileY);
+            if(!walkable[index]) {
+                index = -1;
+            }
+        }
+
+        Vector2f attackDir = new Vector2f();
+
+        float currentAngle = 0;
+        for(int i = 0; i < numberOfDirectionsToCheck; i++) {
+            attackDir.set(1,0);
+
+            Vector2f.Vector2fRotate(attackDir, Math.toRadians(currentAngle), attackDir);
+
+            boolean isOpen = false;
+            if(index > -1) {
+                int dir = directionIndex(attackDir.x, attackDir.y);
+                isOpen = clearance[index * NUMBER_OF_DIRECTIONS + dir] >= distanceToCheck;
+
+                Vector2f.Vector2fMA(pos, attackDir, distanceToCheck, attackDir);
+            }
+            else {
+                Vector2f.Vector2fMA(pos, attackDir, distanceToCheck, attackDir);
+                isOpen = !map.lineCollides(pos, attackDir);
+            }
+
+            if(isOpen) {
+                result.add(new AttackDirection(attackDir.createClone()));
+            }
+
+            currentAngle += 360f/(float)numberOfDirectionsToCheck;
+        }
+
+        return result;
+    }
+}
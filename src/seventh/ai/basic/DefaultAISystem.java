@@ -29,6 +29,7 @@ import seventh.game.PlayerInfos.PlayerInfoIterator;
 import seventh.game.game_types.GameType;
 import seventh.game.game_types.cmd.CommanderGameType;
 import seventh.game.Team;
+import seventh.map.MapChangeJournal;
 import seventh.math.Rectangle;
 import seventh.shared.AssetLoader;
 import seventh.shared.AssetWatcher;
@@ -58,6 +59,7 @@ public class DefaultAISystem implements AISystem {
     private Brain[] brains;
     
     private Zones zones;
+    private CoverMap coverMap;
     private Stats stats;
     
     private Randomizer random;
@@ -95,7 +97,7 @@ public class DefaultAISystem implements AISystem {
                 public File loadAsset(String filename) throws IOException {
                     try {
                         Cons.println("Evaluating: " + filename);
-                        runtime.eval(new File(filename));
+                        Scripting.eval(runtime, new File(filename));
                         Cons.println("Successfully evaluated: " + filename);
                     } 
                     catch (Exception e) {
@@ -112,7 +114,7 @@ public class DefaultAISystem implements AISystem {
                 public File loadAsset(String filename) throws IOException {
                     try {
                         Cons.println("Evaluating: " + filename);
-                        runtime.eval(new File(filename));
+                        Scripting.eval(runtime, new File(filename));
                         
                         LeoObject config = runtime.get("personalities");
                         if(LeoObject.isTrue(config) && config.isMap()) {
@@ -160,12 +162,13 @@ public class DefaultAISystem implements AISystem {
         this.config = new AIConfig(game.getConfig().getConfig());
         
         this.zones = new Zones(game);
+        this.coverMap = new CoverMap(game);
         this.stats = new Stats(game, this.zones);
         
         initScriptingEngine();
         
         this.aiCommands = new AICommands(this);
-        this.world = new World(config, game, zones, goals, random);
+        this.world = new World(config, game, zones, coverMap, goals, random);
         
         GameType gameType = game.getGameType();
         
@@ -215,7 +218,7 @@ public class DefaultAISystem implements AISystem {
             AILeolaLibrary aiLib = new AILeolaLibrary(this);
             this.runtime.loadLibrary(aiLib, "ai");            
 
-            this.runtime.eval(new File("./assets/ai/goals.leola"));
+            Scripting.eval(this.runtime, new File("./assets/ai/goals.leola"));
             
             this.goals = aiLib.getActionFactory();            
         }
@@ -282,6 +285,13 @@ public class DefaultAISystem implements AISystem {
         return zones;
     }
     
+    /**
+     * @return the coverMap
+     */
+    public CoverMap getCoverMap() {
+        return coverMap;
+    }
+    
     /**
      * @return the stats
      */
@@ -317,6 +327,10 @@ public class DefaultAISystem implements AISystem {
     public void destroy() {
         this.watcher.stopWatching();
         
+        MapChangeJournal journal = this.game.getMap().getChangeJournal();
+        journal.removeListener(this.zones);
+        journal.removeListener(this.coverMap);
+        
         for(int i = 0; i < this.brains.length; i++) {
             this.brains[i] = null;
         }                
@@ -379,6 +393,7 @@ public class DefaultAISystem implements AISystem {
     @Override
     public void update(TimeStep timeStep) {
         this.stats.update(timeStep);
+        this.world.update(timeStep, brains);
         
         for(int i = 0; i < brains.length; i++) {
             Brain brain = brains[i];
@@ -0,0 +1,159 @@
+/*
+ * see license.txt
+ */
+package seventh.ai.basic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import seventh.ai.basic.actions.evaluators.ActionEvaluator;
+import seventh.shared.Debugable;
+
+/**
+ * Keeps a per bot breakdown of how much CPU time is spent calculating the desirability of
+ * each type of {@link ActionEvaluator}, and how often a calculation was avoided because
+ * the inputs of the evaluator did not change.
+ *
+ * @author Tony
+ *
+ */
+public class EvaluatorProfile implements Debugable {
+
+    /**
+     * The accumulated statistics of one type of {@link ActionEvaluator}
+     *
+     * @author Tony
+     *
+     */
+    public static class Entry {
+        private String name;
+        private long totalTimeNanos;
+        private long maxTimeNanos;
+        private int numberOfScores;
+        private int numberOfCacheHits;
+
+        public Entry(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the name of the evaluator
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the total time spent calculating the desirability, in nanoseconds
+         */
+        public long getTotalTimeNanos() {
+            return totalTimeNanos;
+        }
+
+        /**
+         * @return the longest single desirability calculation, in nanoseconds
+         */
+        public long getMaxTimeNanos() {
+            return maxTimeNanos;
+        }
+
+        /**
+         * @return the number of times the desirability was calculated
+         */
+        public int getNumberOfScores() {
+            return numberOfScores;
+        }
+
+        /**
+         * @return the number of times the cached desirability was used
+         */
+        public int getNumberOfCacheHits() {
+            return numberOfCacheHits;
+        }
+    }
+
+    private HashMap<Class<?>, Entry> entries;
+
+    /**
+     *
+     */
+    public EvaluatorProfile() {
+        this.entries = new HashMap<>();
+    }
+
+    private Entry entryFor(ActionEvaluator evaluator) {
+        Class<?> type = evaluator.getClass();
+        Entry entry = this.entries.get(type);
+        if(entry == null) {
+            entry = new Entry(type.getSimpleName());
+            this.entries.put(type, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Records the time it took to calculate the desirability of the supplied evaluator
+     *
+     * @param evaluator
+     * @param timeNanos
+     */
+    public void scored(ActionEvaluator evaluator, long timeNanos) {
+        Entry entry = entryFor(evaluator);
+        entry.numberOfScores++;
+        entry.totalTimeNanos += timeNanos;
+        if(timeNanos > entry.maxTimeNanos) {
+            entry.maxTimeNanos = timeNanos;
+        }
+    }
+
+    /**
+     * Records that the cached desirability of the supplied evaluator was used
+     *
+     * @param evaluator
+     */
+    public void cacheHit(ActionEvaluator evaluator) {
+        entryFor(evaluator).numberOfCacheHits++;
+    }
+
+    /**
+     * @return the entries of this profile
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<>(this.entries.values());
+    }
+
+    /**
+     * @return the total time spent calculating desirability scores, in nanoseconds
+     */
+    public long getTotalTimeNanos() {
+        long total = 0;
+        for(Entry entry : this.entries.values()) {
+            total += entry.totalTimeNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Clears out the profile
+     */
+    public void reset() {
+        this.entries.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.Debugable#getDebugInformation()
+     */
+    @Override
+    public DebugInformation getDebugInformation() {
+        DebugInformation me = new DebugInformation();
+        for(Entry entry : this.entries.values()) {
+            me.add(entry.name, new DebugInformation()
+                        .add("scores", entry.numberOfScores)
+                        .add("cache_hits", entry.numberOfCacheHits)
+                        .add("total_us", entry.totalTimeNanos / 1000L)
+                        .add("max_us", entry.maxTimeNanos / 1000L));
+        }
+        return me;
+    }
+}
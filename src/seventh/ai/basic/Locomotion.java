@@ -30,7 +30,6 @@ import seventh.game.entities.Entity.Type;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.weapons.GrenadeBelt;
 import seventh.game.weapons.Weapon;
-import seventh.graph.GraphNode;
 import seventh.map.MapGraph;
 import seventh.map.Tile;
 import seventh.math.Vector2f;
@@ -57,7 +56,7 @@ public class Locomotion implements Debugable {
     
     private PlayerEntity me;
     
-    private final PathPlanner<?> pathPlanner;
+    private final PathPlanner pathPlanner;
     private Vector2f moveDelta;
     
     private Randomizer random;
@@ -85,7 +84,7 @@ public class Locomotion implements Debugable {
     public Locomotion(Brain brain) {
         this.brain = brain;
         
-        this.pathPlanner = new PathPlanner<>(brain, brain.getWorld().getGraph());
+        this.pathPlanner = new PathPlanner(brain, brain.getWorld().getGraph());
         
         this.random = brain.getWorld().getRandom();
         this.destinationGoal = new DecoratorAction(brain);
@@ -132,7 +131,7 @@ public class Locomotion implements Debugable {
     /**
      * @return the pathFeeder
      */
-    public PathPlanner<?> getPathPlanner() {
+    public PathPlanner getPathPlanner() {
         return pathPlanner;
     }
     
@@ -156,12 +155,12 @@ public class Locomotion implements Debugable {
 //        text = String.format(message, "Hands", handsGoal.getAction() != null ? handsGoal.getAction().getClass().getSimpleName():"[none]", handsGoal.isFinished(brain));                
 //        DebugDraw.drawString(text, x, y += yOffset, color);
         
-        MapGraph<?> graph = brain.getWorld().getGraph();
-        for(int y = 0; y < graph.graph.length; y++) {
-            for(int x = 0; x < graph.graph[0].length; x++) {
-                GraphNode<Tile, ?> node = graph.getNodeByIndex(x, y);
-                if(node != null) {
-                    Tile t = node.getValue();
+        MapGraph graph = brain.getWorld().getGraph();
+        for(int y = 0; y < graph.getHeight(); y++) {
+            for(int x = 0; x < graph.getWidth(); x++) {
+                int node = graph.getNodeByIndex(x, y);
+                if(node != MapGraph.NO_NODE) {
+                    Tile t = graph.getTile(node);
                     //DebugDraw.fillRectRelative(t.getX(), t.getY(), t.getWidth(), t.getHeight(), 0x1f00ff00);
                     //DebugDraw.drawRectRelative(t.getX(), t.getY(), t.getWidth(), t.getHeight(), 0x8f00ffff);
                 }
@@ -13,9 +13,8 @@ import seventh.game.entities.Door;
 import seventh.game.entities.Entity;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.entities.vehicles.Vehicle;
-import seventh.graph.AStarGraphSearch;
-import seventh.graph.GraphNode;
 import seventh.map.MapGraph;
+import seventh.map.MapGraphSearch;
 import seventh.map.Tile;
 import seventh.math.Vector2f;
 
@@ -27,10 +26,11 @@ import seventh.math.Vector2f;
  * @author Tony
  *
  */
-public class PathPlanner<E> {
+public class PathPlanner {
     
-    private MapGraph<E> graph;
-    private List<GraphNode<Tile, E>> path;
+    private MapGraph graph;
+    private int graphVersion;
+    private List<Tile> path;
     private int currentNode;
     private int currentNodeCount;
     private Vector2f nextWaypoint;
@@ -84,17 +84,14 @@ public class PathPlanner<E> {
         return null;
     }
         
-    public static class SearchPath<E> extends AStarGraphSearch<Tile, E> {
+    public static class SearchPath extends MapGraphSearch {
         public List<Tile> tilesToAvoid = new ArrayList<>();
         
         @Override
         protected int heuristicEstimateDistance(
-                GraphNode<Tile, E> startNode,
-                GraphNode<Tile, E> currentNode,
-                GraphNode<Tile, E> goal) {
-            Tile startTile = startNode.getValue();
-            Tile currentTile = currentNode.getValue();
-            Tile goalTile = goal.getValue();
+                Tile startTile,
+                Tile currentTile,
+                Tile goalTile) {
                         
             int dx = Math.abs(currentTile.getX() - goalTile.getX());
             int dy = Math.abs(currentTile.getY() - goalTile.getY());                        
@@ -112,28 +109,28 @@ public class PathPlanner<E> {
         }
         
         @Override
-        protected boolean shouldIgnore(GraphNode<Tile, E> node) {
-            boolean ignore = this.tilesToAvoid.contains(node.getValue());
+        protected boolean shouldIgnore(Tile tile) {
+            boolean ignore = this.tilesToAvoid.contains(tile);
             if(ignore) {
-                //System.out.println("Ignoring: " + node.getValue().getXIndex() + "," + node.getValue().getYIndex());
+                //System.out.println("Ignoring: " + tile.getXIndex() + "," + tile.getYIndex());
                 return true;
             }
             return false;
         }
     }
     
-    public static class AvoidSearchPath<E> extends AStarGraphSearch<Tile,E> {
+    /**
+     * The zones to avoid are accounted for by the {@link MapGraph} search itself, see
+     * {@link MapGraph#findPathAvoidZones(MapGraphSearch, Vector2f, Vector2f, List)}
+     */
+    public static class AvoidSearchPath extends MapGraphSearch {
         public List<Tile> tilesToAvoid = new ArrayList<>();
-        public List<Zone> zonesToAvoid;
         
         @Override
         protected int heuristicEstimateDistance(
-                GraphNode<Tile, E> startNode,
-                GraphNode<Tile, E> currentNode,
-                GraphNode<Tile, E> goal) {            
-            Tile currentTile = currentNode.getValue();
-            Tile goalTile = goal.getValue();
-            
+                Tile startTile,
+                Tile currentTile,
+                Tile goalTile) {            
             int dx = Math.abs(currentTile.getX() - goalTile.getX());
             int dy = Math.abs(currentTile.getY() - goalTile.getY());                        
             
@@ -143,65 +140,67 @@ public class PathPlanner<E> {
             //distance = D * (dx+dy) + (D2 - 2 * D) * Math.min(dx, dy);
             int distance = D * (dx+dy);
             
-            if(shouldBeAvoided(currentTile)||shouldBeAvoided(goalTile)) {
-                distance = Integer.MAX_VALUE;
-            }
-            
             return distance;
         }
         
-        private boolean shouldBeAvoided(Tile tile) {
-            for(int i = 0; i < zonesToAvoid.size(); i++) {
-                Zone zone = zonesToAvoid.get(i);
-                if(zone.getBounds().intersects(tile.getBounds())) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
         @Override
-        protected boolean shouldIgnore(GraphNode<Tile, E> node) {
-            /*Tile tile = node.getValue();
-            for(int i = 0; i < zonesToAvoid.size(); i++) {
-                Zone zone = zonesToAvoid.get(i);
-                if(zone.getBounds().intersects(tile.getBounds())) {
-                    return true;
-                }
-            }*/
-            
-            return this.tilesToAvoid.contains(node.getValue());
+        protected boolean shouldIgnore(Tile tile) {
+            return this.tilesToAvoid.contains(tile);
         }
     }
     
-    private SearchPath<E> fuzzySearchPath;     
-    private AvoidSearchPath<E> avoidSearchPath;
+    private SearchPath fuzzySearchPath;     
+    private AvoidSearchPath avoidSearchPath;
     
     /**
      * @param path
      */
-    public PathPlanner(Brain brain, MapGraph<E> graph) {
+    public PathPlanner(Brain brain, MapGraph graph) {
         this.brain = brain;
         this.world = brain.getWorld();
         this.graph = graph;
         this.finalDestination = new Vector2f();
         this.nextWaypoint = new Vector2f();
         
-        this.path = new ArrayList<GraphNode<Tile, E>>();
+        this.path = new ArrayList<Tile>();
         this.tilesToAvoid = new ArrayList<Tile>();
         this.currentNode = 0;
         
-        this.fuzzySearchPath = new SearchPath<E>();
-        this.avoidSearchPath = new AvoidSearchPath<E>();        
+        this.fuzzySearchPath = new SearchPath();
+        this.avoidSearchPath = new AvoidSearchPath();        
     } 
     
-    private void setPath(List<GraphNode<Tile, E>> newPath) {
+    private void setPath(List<Tile> newPath) {
         clearPath();
         if(newPath != null) {
             for(int i = 0; i < newPath.size(); i++) {
                 this.path.add(newPath.get(i));
             }
         }
+        
+        this.graphVersion = this.graph.getVersion();
+    }
+    
+    /**
+     * Determines if the rest of the path has been blocked by the map changing (such
+     * as a tile being added), this is only checked if the graph changed since the path was found
+     * 
+     * @return true if the remaining path goes through a tile that is no longer walkable
+     */
+    private boolean isPathBlocked() {
+        if(this.graphVersion == this.graph.getVersion()) {
+            return false;
+        }
+        
+        this.graphVersion = this.graph.getVersion();
+        for(int i = this.currentNode; i < this.path.size(); i++) {
+            Tile tile = this.path.get(i);
+            if(!this.graph.isWalkable(tile.getXIndex(), tile.getYIndex())) {
+                return true;
+            }
+        }
+        
+        return false;
     }
     
     /**
@@ -219,10 +218,15 @@ public class PathPlanner<E> {
      * 
      * @param start
      * @param destination
-     * @return the estimated cost of moving from start to destination
+     * @return the estimated cost of moving from start to destination, or {@link MapGraph#NO_PATH_COST}
+     * if there is no path
      */
     public int pathCost(Vector2f start, Vector2f destination) {
-        List<GraphNode<Tile, E>> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
+        List<Tile> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
+        if(newPath == null) {
+            return MapGraph.NO_PATH_COST;
+        }
+        
         int cost = newPath.size() * 32;
         return cost;
     }
@@ -234,7 +238,7 @@ public class PathPlanner<E> {
      * @param destination
      */
     public void findPath(Vector2f start, Vector2f destination) {                
-        List<GraphNode<Tile, E>> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
+        List<Tile> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
         setPath(newPath);
         
         this.finalDestination.set(destination);
@@ -244,7 +248,7 @@ public class PathPlanner<E> {
         this.fuzzySearchPath.tilesToAvoid.clear();
         this.fuzzySearchPath.tilesToAvoid.addAll(tilesToAvoid);
         
-        List<GraphNode<Tile, E>> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
+        List<Tile> newPath = this.graph.findPath(this.fuzzySearchPath, start, destination);
         setPath(newPath);
         
         this.finalDestination.set(destination);
@@ -260,9 +264,7 @@ public class PathPlanner<E> {
      * @param zonesToAvoid
      */
     public void findAvoidancePath(Vector2f start, Vector2f destination, List<Zone> zonesToAvoid) {
-        this.avoidSearchPath.zonesToAvoid = zonesToAvoid;
-
-        List<GraphNode<Tile, E>> newPath = this.graph.findPathAvoidZones(this.avoidSearchPath, start, destination, zonesToAvoid);
+        List<Tile> newPath = this.graph.findPathAvoidZones(this.avoidSearchPath, start, destination, zonesToAvoid);
         setPath(newPath);
         
         this.finalDestination.set(destination);        
@@ -285,14 +287,14 @@ public class PathPlanner<E> {
     /**
      * @return the path
      */
-    public List<GraphNode<Tile, E>> getPath() {
+    public List<Tile> getPath() {
         return path;
     }
 
     /**
      * @return the current node that the entity is trying to reach
      */
-    public GraphNode<Tile, E> getCurrentNode() {
+    public Tile getCurrentNode() {
         if (!path.isEmpty() && currentNode < path.size()) {
             return path.get(currentNode);
         }
@@ -326,9 +328,12 @@ public class PathPlanner<E> {
         
         nextWaypoint.zeroOut();
         
+        if(isPathBlocked()) {
+            findPath(cPos, this.finalDestination.createClone(), tilesToAvoid);
+        }
+        
         if(! path.isEmpty() && currentNode < path.size() ) {
-            GraphNode<Tile, E> node = path.get(currentNode);
-            Tile tile = node.getValue();
+            Tile tile = path.get(currentNode);
         
             int centerX = tile.getX() + tile.getWidth()/2;
             int centerY = tile.getY() + tile.getHeight()/2;
@@ -341,12 +346,12 @@ public class PathPlanner<E> {
             
 //                if(ent.isSprinting()) {
 //                    if(currentNode < path.size()) {
-//                        tile = path.get(currentNode).getValue();
+//                        tile = path.get(currentNode);
 //                    }
 //                }            
 
                 if(currentNode < path.size()) {
-                    tile = path.get(currentNode).getValue();
+                    tile = path.get(currentNode);
                 
                     Entity entOnTile = isEntityOnTile(tile);
                     if(entOnTile != null) {                        
@@ -367,7 +372,7 @@ public class PathPlanner<E> {
             // area to get to the destination
             if(currentNodeCount > 50) {
                 currentNodeCount = 0;
-                tilesToAvoid.add(path.get(currentNode).getValue());
+                tilesToAvoid.add(path.get(currentNode));
                 
                 int size = world.getDoors().size();
                 for(int i = 0; i < size; i++ ) {
@@ -391,7 +396,7 @@ public class PathPlanner<E> {
 //                
 //                if(ent.isSprinting()) {
 //                    if(currentNode < path.size()) {
-//                        tile = path.get(currentNode).getValue();
+//                        tile = path.get(currentNode);
 //                    }
 //                }
 //            }
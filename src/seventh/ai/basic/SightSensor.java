@@ -16,7 +16,11 @@ import seventh.shared.TimeStep;
 import seventh.shared.Timer;
 
 /**
- * The bots vision
+ * The bots vision.  Rather than polling the world on a fixed interval, the {@link World}
+ * notifies this sensor when something in view may have changed (the bot or another
+ * player within view range moved or turned).  Changes are looked at no more often than the
+ * sight poll time, so a busy view doesn't cost a look every frame.  A slow refresh timer still
+ * runs to catch changes that aren't caused by players, such as doors opening.
  * 
  * @author Tony
  *
@@ -27,7 +31,11 @@ public class SightSensor implements Sensor {
     private PlayerEntity entity;    
     private World world;
     
-    private Timer updateSight;
+    private Timer refreshSight;
+    private boolean visibilityChanged;
+    
+    private final long pollTime;
+    private long timeSinceLastLook;
         
     private List<PlayerEntity> entitiesInView;
     
@@ -40,8 +48,13 @@ public class SightSensor implements Sensor {
         this.entity = brain.getEntityOwner();
         this.world = brain.getWorld();
                 
-        this.updateSight = new Timer(true, brain.getConfig().getSightPollTime());
-        this.updateSight.start();
+        this.refreshSight = new Timer(true, brain.getConfig().getSightRefreshTime());
+        this.refreshSight.start();
+        
+        this.pollTime = brain.getConfig().getSightPollTime();
+        this.timeSinceLastLook = this.pollTime;
+        
+        this.visibilityChanged = true;
         
         this.entitiesInView = new ArrayList<PlayerEntity>();    
     }        
@@ -212,8 +225,18 @@ public class SightSensor implements Sensor {
     public void reset(Brain brain) {
         this.entitiesInView.clear();
         this.entity = brain.getEntityOwner();
-        this.updateSight.reset();
+        this.refreshSight.reset();
         this.memory.clear();
+        this.visibilityChanged = true;
+        this.timeSinceLastLook = this.pollTime;
+    }
+    
+    /**
+     * Something within the view of this bot has changed, the bot 
+     * will take a look on the next update
+     */
+    public void onVisibilityChanged() {
+        this.visibilityChanged = true;
     }
     
     /* (non-Javadoc)
@@ -221,9 +244,14 @@ public class SightSensor implements Sensor {
      */
     @Override
     public void update(TimeStep timeStep) {
-        this.updateSight.update(timeStep);
+        this.refreshSight.update(timeStep);
+        this.timeSinceLastLook += timeStep.getDeltaTime();
                 
-        if(this.updateSight.isTime()) {
+        if((this.visibilityChanged && this.timeSinceLastLook >= this.pollTime) || this.refreshSight.isTime()) {
+            this.visibilityChanged = false;
+            this.timeSinceLastLook = 0;
+            this.refreshSight.reset();
+            
             see(timeStep);
         }
         
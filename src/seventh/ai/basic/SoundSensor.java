@@ -16,10 +16,10 @@ import seventh.game.events.SoundEmittedEvent;
 import seventh.math.Vector2f;
 import seventh.shared.SoundType;
 import seventh.shared.TimeStep;
-import seventh.shared.Timer;
 
 /**
- * Listens for sounds
+ * Listens for sounds.  The {@link World} pushes the sounds emitted each frame to 
+ * this sensor, so there is no need to poll for them.
  * 
  * @author Tony
  *
@@ -39,8 +39,6 @@ public class SoundSensor implements Sensor {
     private PlayerEntity entity;    
     private World world;
     
-    private Timer updateEar;
-            
     private List<SoundEmittedEvent> sounds;
     
     
@@ -51,9 +49,6 @@ public class SoundSensor implements Sensor {
         this.memory = brain.getMemory().getSoundMemory();
         this.entity = brain.getEntityOwner();
         this.world = brain.getWorld();
-                
-        this.updateEar = new Timer(true, brain.getConfig().getSoundPollTime());
-        this.updateEar.start();
         
         this.sounds = new ArrayList<SoundEmittedEvent>();
     }
@@ -123,23 +118,23 @@ public class SoundSensor implements Sensor {
      */
     @Override
     public void update(TimeStep timeStep) {
-        this.updateEar.update(timeStep);
-        if(this.updateEar.isTime()) {        
-            listen(timeStep);
-        }
+        /* sounds are pushed to us by the World */
     }
 
     /**
-     * Listen for sounds
+     * Sounds were emitted in the last frame, listen for the ones
+     * this bot can hear
+     * 
+     * @param timeStep
+     * @param emittedSounds
      */
-    private void listen(TimeStep timeStep) {    
-            
-        this.sounds.clear();
-        SoundEventPool emittedSounds = world.getSoundEvents();
-        if(emittedSounds.hasSounds()) {
+    public void onSoundsEmitted(TimeStep timeStep, SoundEventPool emittedSounds) {    
+        if(this.entity != null && this.entity.isAlive()) {
+            this.sounds.clear();
             this.entity.getHeardSounds(emittedSounds, this.sounds);
-            this.memory.hear(timeStep, sounds);
+            if(!this.sounds.isEmpty()) {
+                this.memory.hear(timeStep, sounds);
+            }
         }
-        
     }
 }
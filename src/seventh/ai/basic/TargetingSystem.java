@@ -4,6 +4,7 @@
 package seventh.ai.basic;
 
 import seventh.ai.basic.memory.SightMemory.SightMemoryRecord;
+import seventh.game.EntityTable;
 import seventh.game.entities.Entity;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.entities.Entity.Type;
@@ -21,7 +22,7 @@ import seventh.shared.Updatable;
 public class TargetingSystem implements Updatable {
 
     private Brain brain;
-    private PlayerEntity currentTarget;
+    private long currentTargetHandle;
     
     private Timer checkTimer;
     private Timer reactionTimeTimer;
@@ -57,8 +58,8 @@ public class TargetingSystem implements Updatable {
             PlayerEntity closestEnemyInSight = sensors.getSightSensor().getClosestEnemy();
     //        SoundEmittedEvent closestSound = sensors.getSoundSensor().getClosestSound();
             
-            PlayerEntity newTarget = this.currentTarget;
-            this.currentTarget = null;
+            long oldTargetHandle = this.currentTargetHandle;
+            PlayerEntity currentTarget = null;
             
             /* if we are being attacked, this is fairly high priority */
             if(recentAttacker != null && recentAttacker.getType().equals(Type.PLAYER)) {
@@ -69,7 +70,7 @@ public class TargetingSystem implements Updatable {
                      * the choice is obvious
                      */
                     if(closestEnemyInSight == recentAttacker) {
-                        this.currentTarget = closestEnemyInSight;
+                        currentTarget = closestEnemyInSight;
                     }
                     else {
                         
@@ -78,26 +79,27 @@ public class TargetingSystem implements Updatable {
                         float sightDis = Vector2f.Vector2fDistanceSq(botPos, closestEnemyInSight.getCenterPos());
                         
                         if(sightDis < attackerDis) {
-                            this.currentTarget = closestEnemyInSight;
+                            currentTarget = closestEnemyInSight;
                         }
                         else {
-                            this.currentTarget = (PlayerEntity)recentAttacker;        
+                            currentTarget = (PlayerEntity)recentAttacker;        
                         }
                     }
                 }
                 else {                
-                    this.currentTarget = (PlayerEntity)recentAttacker;            
+                    currentTarget = (PlayerEntity)recentAttacker;            
                 }
             }
             else {
                 
                 if(closestEnemyInSight != null) {
-                    this.currentTarget = closestEnemyInSight;
+                    currentTarget = closestEnemyInSight;
                 }
                 
             }
             
-            if(newTarget != this.currentTarget) {
+            this.currentTargetHandle = (currentTarget != null) ? currentTarget.getEntityHandle() : EntityTable.NO_HANDLE;
+            if(oldTargetHandle != this.currentTargetHandle) {
                 this.reactionTimeTimer.reset();
             }
         }
@@ -126,7 +128,8 @@ public class TargetingSystem implements Updatable {
      * @return
      */
     public boolean hasTarget() {
-        return this.currentTarget != null && this.currentTarget.isAlive() && this.reactionTimeTimer.isTime();
+        PlayerEntity currentTarget = getCurrentTarget();
+        return currentTarget != null && currentTarget.isAlive() && this.reactionTimeTimer.isTime();
     }
     
     
@@ -134,14 +137,14 @@ public class TargetingSystem implements Updatable {
      * Clears the target
      */
     public void clearTarget() {
-        this.currentTarget = null;
+        this.currentTargetHandle = EntityTable.NO_HANDLE;
     }
     
     /**
-     * @return the currentTarget
+     * @return the currentTarget, or null if there is none (or it is no longer in the game)
      */
     public PlayerEntity getCurrentTarget() {
-        return currentTarget;
+        return (PlayerEntity)brain.getWorld().getEntityByHandle(this.currentTargetHandle);
     }
     
     
@@ -152,7 +155,7 @@ public class TargetingSystem implements Updatable {
      */
     public Vector2f getLastRemeberedPosition() {
         if(hasTarget()) {
-            SightMemoryRecord record = this.brain.getSensors().getSightSensor().getMemoryRecordFor(currentTarget);
+            SightMemoryRecord record = this.brain.getSensors().getSightSensor().getMemoryRecordFor(getCurrentTarget());
             if(record.isValid()) {
                 return record.getLastSeenAt();
             }
@@ -180,6 +183,7 @@ public class TargetingSystem implements Updatable {
     public boolean currentTargetInLineOfFire() {
         if(hasTarget()) {
             PlayerEntity bot = brain.getEntityOwner();
+            PlayerEntity currentTarget = getCurrentTarget();
             float distanceSq = bot.distanceFromSq(currentTarget);
             if(distanceSq <= bot.getCurrentWeaponDistanceSq()) {            
                 return brain.getWorld().inLineOfFire(bot, currentTarget);
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import seventh.ai.basic.actions.Actions;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.GameInfo;
 import seventh.game.Player;
 import seventh.game.SoundEventPool;
@@ -14,6 +15,7 @@ import seventh.game.Team;
 import seventh.game.entities.BombTarget;
 import seventh.game.entities.Door;
 import seventh.game.entities.Entity;
+import seventh.game.entities.Entity.Type;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.entities.vehicles.Vehicle;
 import seventh.game.game_types.GameType;
@@ -25,7 +27,7 @@ import seventh.math.OBB;
 import seventh.math.Rectangle;
 import seventh.math.Vector2f;
 import seventh.shared.Randomizer;
-import seventh.shared.SeventhConstants;
+import seventh.shared.TimeStep;
 
 /**
  * Just a collection of data so that the {@link Brain}s 
@@ -36,22 +38,42 @@ import seventh.shared.SeventhConstants;
  */
 public class World {
 
-    private Entity[] entities;
+    /**
+     * The orientation (in radians) a player must turn before 
+     * sight sensors are notified
+     */
+    private static final float FACING_PRECISION = (float)Math.toRadians(10);
+    
+    /**
+     * The number of reachable random spots tried before giving up on finding
+     * a free one
+     */
+    private static final int MAX_RANDOM_SPOT_ATTEMPTS = 16;
+
     private PlayerEntity[] players;
     private Map map;
-    private MapGraph<?> graph;
+    private MapGraph graph;
     private Randomizer random;
     
     private List<Tile> tiles;
     
     private Rectangle tileBounds;
     private GameInfo game;
-    private SoundEventPool lastFramesSounds;
+    
+    /*
+     * The last known state of each player, used to determine
+     * if anything changed that the sensors should know about
+     */
+    private int[] lastPlayerTiles;
+    private int[] lastPlayerFacing;
+    private boolean[] playerChanged;
+    private int numberOfChangedPlayers;
     
     private List<AttackDirection> attackDirections;
     private List<BombTarget> activeBombs;
     
     private Zones zones;
+    private CoverMap coverMap;
     
     private Actions goals;
     
@@ -62,16 +84,16 @@ public class World {
      * @param map
      * @param graph
      */
-    public World(AIConfig config, GameInfo game, Zones zones, Actions goals, Randomizer randomizer) {
+    public World(AIConfig config, GameInfo game, Zones zones, CoverMap coverMap, Actions goals, Randomizer randomizer) {
         super();
                 
         this.config = config;
         this.game = game;
         this.zones = zones;
+        this.coverMap = coverMap;
         this.goals = goals;
         this.random = randomizer;
         
-        this.entities = game.getEntities();
         this.players = game.getPlayerEntities();
         
         this.map = game.getMap();
@@ -83,7 +105,13 @@ public class World {
         this.tileBounds.setWidth(map.getTileWidth());
         this.tileBounds.setHeight(map.getTileHeight());
         
-        this.lastFramesSounds = new SoundEventPool(SeventhConstants.MAX_SOUNDS);
+        this.lastPlayerTiles = new int[this.players.length];
+        this.lastPlayerFacing = new int[this.players.length];
+        this.playerChanged = new boolean[this.players.length];
+        for(int i = 0; i < this.players.length; i++) {
+            this.lastPlayerTiles[i] = -1;
+        }
+        
         this.attackDirections = new ArrayList<AttackDirection>();
         
         this.activeBombs = new ArrayList<BombTarget>();
@@ -111,21 +139,144 @@ public class World {
     }
     
     /**
-     * @return the soundEvents
+     * @return the coverMap
+     */
+    public CoverMap getCoverMap() {
+        return coverMap;
+    }
+    
+    /**
+     * @return the sounds emitted in the last frame
      */
     public SoundEventPool getSoundEvents() {        
-        this.lastFramesSounds.clear();
-        this.lastFramesSounds.set(this.game.getLastFramesSoundEvents());
-        this.lastFramesSounds.set(this.game.getSoundEvents());
+        return this.game.getLastFramesSoundEvents();
+    }
+    
+    /**
+     * Determines what has changed in the world since the last frame and notifies
+     * the {@link Sensor}s of the supplied {@link Brain}s that have something new 
+     * to sense.  Bots which have nothing new to see or hear cost nothing.
+     * 
+     * @param timeStep
+     * @param brains
+     */
+    public void update(TimeStep timeStep, Brain[] brains) {
+        detectPlayerChanges();
+        
+        SoundEventPool sounds = getSoundEvents();
+        boolean hasSounds = sounds.hasSounds();
+        
+        if(!hasSounds && this.numberOfChangedPlayers == 0) {
+            return;
+        }
+        
+        for(int i = 0; i < brains.length; i++) {
+            Brain brain = brains[i];
+            if(brain == null) {
+                continue;
+            }
+            
+            PlayerEntity entity = brain.getEntityOwner();
+            if(entity == null || !entity.isAlive()) {
+                continue;
+            }
+            
+            Sensors sensors = brain.getSensors();
+            if(hasSounds) {
+                sensors.getSoundSensor().onSoundsEmitted(timeStep, sounds);
+            }
+            
+            if(isVisibilityChangedFor(entity)) {
+                sensors.getSightSensor().onVisibilityChanged();
+            }
+        }
+    }
+    
+    /**
+     * Records which players have moved to a new tile, turned or have spawned/died
+     */
+    private void detectPlayerChanges() {
+        this.numberOfChangedPlayers = 0;
+        
+        for(int i = 0; i < this.players.length; i++) {
+            PlayerEntity ent = this.players[i];
+            
+            int tileIndex = -1;
+            int facing = 0;
+            if(ent != null && ent.isAlive()) {
+                Vector2f pos = ent.getCenterPos();
+                tileIndex = map.worldToTileY((int)pos.y) * map.getTileWorldWidth() + map.worldToTileX((int)pos.x);
+                
+                /* quantize the orientation, small turns don't change what can be seen */
+                facing = (int)(ent.getOrientation() / FACING_PRECISION);
+            }
+            
+            boolean changed = tileIndex != this.lastPlayerTiles[i] || facing != this.lastPlayerFacing[i];
+            this.playerChanged[i] = changed;
+            if(changed) {
+                this.numberOfChangedPlayers++;
+            }
+            
+            this.lastPlayerTiles[i] = tileIndex;
+            this.lastPlayerFacing[i] = facing;
+        }
+    }
+    
+    /**
+     * @param entity
+     * @return true if the supplied entity or any player within its view range
+     * has changed since the last frame
+     */
+    private boolean isVisibilityChangedFor(PlayerEntity entity) {
+        int id = entity.getId();
+        if(id >= 0 && id < this.playerChanged.length && this.playerChanged[id]) {
+            return true;
+        }
+        
+        /* pad the range, so players moving into view are picked up */
+        float range = entity.getLineOfSight() + map.getTileWidth();
+        float rangeSq = range * range;
+        
+        Vector2f pos = entity.getCenterPos();
+        for(int i = 0; i < this.players.length; i++) {
+            if(this.playerChanged[i] && i != id) {
+                PlayerEntity other = this.players[i];
+                
+                /* a player that just died or left must be forgotten */
+                if(other == null) {
+                    return true;
+                }
+                
+                if(Vector2f.Vector2fDistanceSq(pos, other.getCenterPos()) <= rangeSq) {
+                    return true;
+                }
+            }
+        }
         
-        return this.lastFramesSounds;
+        return false;
     }
     
     /**
      * @return the entities
      */
     public Entity[] getEntities() {
-        return entities;
+        return game.getEntities();
+    }
+    
+    /**
+     * @param type
+     * @return the live entities of the supplied type
+     */
+    public EntityList getEntitiesOfType(Type type) {
+        return game.getEntitiesOfType(type);
+    }
+    
+    /**
+     * @param handle
+     * @return the entity referenced by the handle, or null if it is no longer in the game
+     */
+    public Entity getEntityByHandle(long handle) {
+        return game.getEntityByHandle(handle);
     }
     
     /**
@@ -166,7 +317,7 @@ public class World {
     /**
      * @return the graph
      */
-    public MapGraph<?> getGraph() {
+    public MapGraph getGraph() {
         return graph;
     }
     
@@ -318,21 +469,82 @@ public class World {
     }
     
     /**
+     * Picks a random free spot within the bounds that the entity can walk to.  The spot is taken from the
+     * nodes of the region of the graph the entity is in, so a spot the entity can't reach is never picked.
+     * 
      * @param entity
-     * @return a random position anywhere in the game world
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param notIn an area the spot must not be in, may be null
+     * @return a random reachable position in the bounds, or null if none was found
+     */
+    private Vector2f findReachableSpot(Entity entity, int x, int y, int width, int height, Rectangle notIn) {
+        int start = graph.getNearestNodeByWorld(entity.getCenterPos());
+        if(start == MapGraph.NO_NODE) {
+            /* the entity isn't on the graph, so there is no telling what it can reach */
+            return (notIn != null) ? game.findFreeRandomSpotNotIn(entity, x, y, width, height, notIn)
+                                   : game.findFreeRandomSpot(entity, x, y, width, height);
+        }
+        
+        int component = graph.getComponent(start);
+        
+        int tileWidth = map.getTileWidth();
+        int tileHeight = map.getTileHeight();
+        int tileX = x / tileWidth;
+        int tileY = y / tileHeight;
+        int tilesWide = (x + width - 1) / tileWidth - tileX + 1;
+        int tilesHigh = (y + height - 1) / tileHeight - tileY + 1;
+        
+        Rectangle bounds = entity.getBounds();
+        Rectangle temp = new Rectangle(bounds);
+        Vector2f pos = new Vector2f();
+        
+        for(int i = 0; i < MAX_RANDOM_SPOT_ATTEMPTS; i++) {
+            int node = graph.getRandomNode(component, tileX, tileY, tilesWide, tilesHigh);
+            if(node == MapGraph.NO_NODE) {
+                break;
+            }
+            
+            Tile tile = graph.getTile(node);
+            pos.x = tile.getX() + random.nextInt(Math.max(1, tile.getWidth() - bounds.width));
+            pos.y = tile.getY() + random.nextInt(Math.max(1, tile.getHeight() - bounds.height));
+            
+            /* the tile may only partly overlap the bounds */
+            pos.x = Math.max(x, Math.min(pos.x, x + width - 1));
+            pos.y = Math.max(y, Math.min(pos.y, y + height - 1));
+            temp.setLocation(pos);
+            
+            if(!map.rectCollides(temp) && 
+               !map.hasWorldCollidableTile(temp.x, temp.y) &&
+               !game.doesTouchEntity(temp) &&
+               (notIn == null || !notIn.intersects(temp))) {
+                return pos;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * @param entity
+     * @return a random position anywhere in the game world the entity can reach, or null if
+     * none was found
      */
     public Vector2f getRandomSpot(Entity entity) {
-        return game.findFreeRandomSpot(entity);
+        return findReachableSpot(entity, 0, 0, map.getMapWidth()-20, map.getMapHeight()-20, null);
     }
     
     
     /**
      * @param entity
      * @param bounds
-     * @return a random position anywhere in the supplied bounds
+     * @return a random position anywhere in the supplied bounds the entity can reach, or null if
+     * none was found
      */
     public Vector2f getRandomSpot(Entity entity, Rectangle bounds) {
-        return game.findFreeRandomSpot(entity, bounds);
+        return getRandomSpot(entity, bounds.x, bounds.y, bounds.width, bounds.height);
     }
     
     /**
@@ -342,10 +554,11 @@ public class World {
      * @param y
      * @param width
      * @param height
-     * @return a random position anywhere in the supplied bounds
+     * @return a random position anywhere in the supplied bounds the entity can reach, or null if
+     * none was found
      */
     public Vector2f getRandomSpot(Entity entity, int x, int y, int width, int height) {
-        return game.findFreeRandomSpot(entity, x, y, width, height);
+        return findReachableSpot(entity, x, y, width, height, null);
     }
     
     /**
@@ -356,10 +569,11 @@ public class World {
      * @param width
      * @param height
      * @param notIn
-     * @return a random position anywhere in the supplied bounds and not in the supplied {@link Rectangle}
+     * @return a random position anywhere in the supplied bounds and not in the supplied {@link Rectangle} the
+     * entity can reach, or null if none was found
      */
     public Vector2f getRandomSpotNotIn(Entity entity, int x, int y, int width, int height, Rectangle notIn) {
-        return game.findFreeRandomSpotNotIn(entity, x, y, width, height, notIn);
+        return findReachableSpot(entity, x, y, width, height, notIn);
     }
     
     /**
@@ -617,12 +831,7 @@ public class World {
      * @return the position to take cover
      */
     public Vector2f getClosestCoverPosition(Entity entity, Vector2f attackDir) {
-        Vector2f pos = entity.getCenterPos();
-        map.getTilesInCircle( (int)pos.x, (int)pos.y, 250, tiles);
-        List<Tile> collidableTiles = map.getCollisionTilesAt(tiles, new ArrayList<Tile>());
-        
-        Vector2f bestHidingSpot = findBestHidingPosition(collidableTiles, pos, attackDir);    
-        return bestHidingSpot;
+        return coverMap.findClosestCover(entity.getCenterPos(), attackDir, 250, new Vector2f());
     }
     
     /**
@@ -643,27 +852,7 @@ public class World {
      */
     public List<AttackDirection> getAttackDirections(Vector2f pos, float distanceToCheck, int numberOfDirectionsToCheck) {
         this.attackDirections.clear();
-        
-        Vector2f attackDir = new Vector2f();
-        
-        /* check each direction and see if a wall is providing us some
-         * cover
-         */
-        float currentAngle = 0;
-        for(int i = 0; i < numberOfDirectionsToCheck; i++) {
-            attackDir.set(1,0);
-            
-            Vector2f.Vector2fRotate(attackDir, Math.toRadians(currentAngle), attackDir);
-            Vector2f.Vector2fMA(pos, attackDir, distanceToCheck, attackDir);
-            
-            if(!map.lineCollides(pos, attackDir)) {
-                this.attackDirections.add(new AttackDirection(attackDir.createClone()));
-            }
-            
-            currentAngle += 360f/(float)numberOfDirectionsToCheck;
-        }                       
-        
-        return this.attackDirections;
+        return this.coverMap.getAttackDirections(pos, distanceToCheck, numberOfDirectionsToCheck, this.attackDirections);
     }
 
     public void tilesTouchingEntity(Entity entOnTile, List<Tile> tilesToAvoid) {
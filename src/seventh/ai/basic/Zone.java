@@ -50,6 +50,13 @@ public class Zone implements Debugable {
         return isHabitable;
     }
     
+    /**
+     * @param isHabitable the isHabitable to set
+     */
+    public void setHabitable(boolean isHabitable) {
+        this.isHabitable = isHabitable;
+    }
+    
     /**
      * @return the stats
      */
@@ -12,16 +12,19 @@ import java.util.List;
 import seventh.game.GameInfo;
 import seventh.game.entities.BombTarget;
 import seventh.map.Map;
+import seventh.map.MapChangeJournal;
+import seventh.map.MapChangeListener;
 import seventh.math.Rectangle;
 import seventh.math.Vector2f;
 
 /**
- * A container for all the {@link Zone}s in a map
+ * A container for all the {@link Zone}s in a map.  When tiles of the map change, only the
+ * {@link Zone}s holding the changed tiles are checked again.
  * 
  * @author Tony
  *
  */
-public class Zones {
+public class Zones implements MapChangeListener {
 
     private Zone[][] zones;
     
@@ -31,6 +34,9 @@ public class Zones {
     private final int numberOfZones;
     private List<Zone> bombTargetZones;
     private GameInfo game;
+    
+    private Rectangle entityBounds;
+    private boolean[] changedZones;
         
     /**
      * @param game
@@ -57,7 +63,8 @@ public class Zones {
         
         zones = new Zone[numberOfRows][numberOfCols];
         
-        Rectangle entityBounds = new Rectangle(PLAYER_WIDTH, PLAYER_HEIGHT);
+        entityBounds = new Rectangle(PLAYER_WIDTH, PLAYER_HEIGHT);
+        changedZones = new boolean[numberOfZones];
         
         int id = 0;
         for(int y = 0; y < numberOfRows; y++) {
@@ -68,6 +75,33 @@ public class Zones {
                 zones[y][x] = new Zone(id++, bounds, isHabitable);
             }
         }            
+        
+        map.getChangeJournal().addListener(this);
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.map.MapChangeListener#onMapChanged(seventh.map.MapChangeJournal)
+     */
+    @Override
+    public void onMapChanged(MapChangeJournal changes) {
+        Map map = game.getMap();
+        int tileWidth = map.getTileWidth();
+        int tileHeight = map.getTileHeight();
+        
+        for(int i = 0; i < changes.getNumberOfChangedTiles(); i++) {
+            int worldX = changes.getTileX(i) * tileWidth + tileWidth / 2;
+            int worldY = changes.getTileY(i) * tileHeight + tileHeight / 2;
+            
+            Zone zone = getZone(worldX, worldY);
+            if(zone != null && !changedZones[zone.getId()]) {
+                changedZones[zone.getId()] = true;
+                zone.setHabitable(hasHabitableLocation(entityBounds, zone.getBounds(), map));
+            }
+        }
+        
+        for(int i = 0; i < changedZones.length; i++) {
+            changedZones[i] = false;
+        }
     }
 
     /**
@@ -3,6 +3,7 @@
  */
 package seventh.ai.basic.actions;
 
+import leola.vm.types.LeoObject;
 
 /**
  * The result of completing an {@link Action}
@@ -23,6 +24,8 @@ public class ActionResult {
     /* Any stored value */
     private Object value;
     
+    private LeoObject scriptObj;
+    
     /**
      * @param result
      * @param value
@@ -45,6 +48,16 @@ public class ActionResult {
         this(Result.NONE, null);
     }
     
+    /**
+     * @return this {@link ActionResult} as a {@link LeoObject}
+     */
+    public LeoObject asScriptObject() {
+        if(this.scriptObj == null) {
+            this.scriptObj = LeoObject.valueOf(this);
+        }
+        return this.scriptObj;
+    }
+    
     /**
      * Sets this state from the supplied one
      * @param r
@@ -231,7 +231,11 @@ public class Actions {
     }
     
     public Action moveToRandomSpot(Brain brain) {        
-        return new MoveAction(brain.getWorld().getRandomSpot(brain.getEntityOwner()));
+        Vector2f spot = brain.getWorld().getRandomSpot(brain.getEntityOwner());
+        if(spot == null) {
+            return new WaitAction(100);
+        }
+        return new MoveAction(spot);
     }
     
     public Action takeCover(Vector2f attackDir) {
@@ -3,10 +3,11 @@
  */
 package seventh.ai.basic.actions;
 
-import leola.vm.Leola;
 import leola.vm.types.LeoObject;
 import seventh.ai.basic.Brain;
 import seventh.shared.Cons;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
 import seventh.shared.TimeStep;
 
 /**
@@ -18,10 +19,12 @@ import seventh.shared.TimeStep;
 public class ScriptedAction extends AdapterAction {
 
     private CompositeAction goal;
+    private LeoObject goalObject;
     private LeoObject goalFunction;
     private boolean isFunctionDone;
     
     private String name;
+    private ScriptProfiler.Entry profile;
     
     /**
      * @param name
@@ -31,6 +34,8 @@ public class ScriptedAction extends AdapterAction {
         this.goalFunction = goalFunction;
         this.name = name;
         this.goal = new CompositeAction(name);
+        this.goalObject = LeoObject.valueOf(this.goal);
+        this.profile = Scripting.getProfiler().getEntry("action:" + name);
         
         this.isFunctionDone = false;
     }
@@ -59,8 +64,9 @@ public class ScriptedAction extends AdapterAction {
         goal.update(brain, timeStep);
         
         if(goal.isFinished(brain)) {
+            profile.begin();
             try {
-                LeoObject result = goalFunction.xcall(Leola.toLeoObject(brain), Leola.toLeoObject(goal), Leola.toLeoObject(goal.getActionResult()));
+                LeoObject result = goalFunction.xcall(brain.asScriptObject(), goalObject, goal.getActionResult().asScriptObject());
                 if(!LeoObject.isTrue(result)) {
                     this.isFunctionDone = true;
                 }
@@ -75,6 +81,9 @@ public class ScriptedAction extends AdapterAction {
             catch(Throwable e) {
                 Cons.println("Unable to execute scripted goal: " + e);
             }
+            finally {
+                profile.end();
+            }
         }
     }
     
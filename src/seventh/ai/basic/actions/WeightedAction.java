@@ -8,13 +8,16 @@ import java.util.List;
 
 import seventh.ai.basic.AIConfig;
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
+import seventh.ai.basic.EvaluatorProfile;
 import seventh.ai.basic.actions.evaluators.ActionEvaluator;
-import seventh.ai.basic.actions.evaluators.Evaluators;
 import seventh.shared.TimeStep;
 import seventh.shared.Timer;
 
 /**
- * Determines the best course of action to take based on {@link ActionEvaluator}s
+ * Determines the best course of action to take based on {@link ActionEvaluator}s.  The desirability 
+ * score of each {@link ActionEvaluator} is cached, and only re-calculated when one of the
+ * {@link BrainInputs} it depends on has changed.
  * 
  * 
  * @author Tony
@@ -25,6 +28,9 @@ public class WeightedAction extends CompositeAction {
     private List<ActionEvaluator> evaluators;
     private Timer updateEval;
     
+    private double[] scores;
+    private long[] stamps;
+    
     
     private ActionEvaluator currentActiveEvaluator;
         
@@ -41,16 +47,63 @@ public class WeightedAction extends CompositeAction {
             this.evaluators.add(e);
         }
         
+        this.scores = new double[this.evaluators.size()];
+        this.stamps = new long[this.evaluators.size()];
+        for(int i = 0; i < this.stamps.length; i++) {
+            this.stamps[i] = -1;
+        }
+        
         this.updateEval = new Timer(true, config.getEvaluationPollTime());    
         this.updateEval.start();
     }
 
+    /**
+     * Evaluate the best possible action, only re-calculating the desirability of the
+     * {@link ActionEvaluator}s whose inputs have changed since the last evaluation.
+     * 
+     * @param brain
+     * @return the best {@link ActionEvaluator} of the bunch
+     */
+    private ActionEvaluator evaluate(Brain brain) {
+        BrainInputs inputs = brain.getInputs();
+        EvaluatorProfile profile = brain.getEvaluatorProfile();
+        
+        double highestDesire = 0;
+        ActionEvaluator bestEval = null;
+        
+        int size = this.evaluators.size();
+        for(int i = 0; i < size; i++) {
+            ActionEvaluator eval = this.evaluators.get(i);
+            
+            int dependencies = eval.getDependencies();
+            long stamp = (dependencies == BrainInputs.UNTRACKED) ? -1 : inputs.stampOf(dependencies);
+            if(stamp < 0 || stamp != this.stamps[i]) {
+                long startTime = System.nanoTime();
+                this.scores[i] = eval.calculateDesirability(brain);
+                profile.scored(eval, System.nanoTime() - startTime);
+                
+                this.stamps[i] = stamp;
+            }
+            else {
+                profile.cacheHit(eval);
+            }
+            
+            double desire = this.scores[i];
+            if(bestEval == null || desire > highestDesire) {
+                bestEval = eval;
+                highestDesire = desire;
+            }
+        }
+        
+        return bestEval;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.Goal#start(seventh.ai.basic.Brain)
      */
     @Override
     public void start(Brain brain) {
-        this.currentActiveEvaluator = Evaluators.evaluate(brain, evaluators);
+        this.currentActiveEvaluator = evaluate(brain);
         replace(this.currentActiveEvaluator.getAction(brain));
     }
     
@@ -61,7 +114,7 @@ public class WeightedAction extends CompositeAction {
     public void update(Brain brain, TimeStep timeStep) {
         this.updateEval.update(timeStep);
         if(this.updateEval.isTime()) {
-            ActionEvaluator newEvaluator = Evaluators.evaluate(brain, evaluators);
+            ActionEvaluator newEvaluator = evaluate(brain);
             
             boolean isFinished = isFinished(brain);
             if( this.currentActiveEvaluator == null ||
@@ -70,7 +70,7 @@ public class CoverEntityAction extends AdapterAction {
             this.lastVisibleTime = 0;
         }
         
-        PathPlanner<?> feeder = brain.getMotion().getPathPlanner();
+        PathPlanner feeder = brain.getMotion().getPathPlanner();
         if(!feeder.hasPath() || !feeder.onFirstNode()) {
             Vector2f newPosition = this.followMe.getPos();
             Vector2f start = brain.getEntityOwner().getPos();
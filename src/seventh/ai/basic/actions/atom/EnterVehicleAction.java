@@ -19,15 +19,25 @@ import seventh.shared.TimeStep;
  */
 public class EnterVehicleAction extends AdapterAction {
 
-    private Vehicle vehicle;
+    private long vehicleHandle;
+    private int vehicleId;
     /**
      * 
      */
     public EnterVehicleAction(Vehicle vehicle) {
-        this.vehicle = vehicle;
+        this.vehicleHandle = vehicle.getEntityHandle();
+        this.vehicleId = vehicle.getId();
         this.getActionResult().setFailure();
     }
     
+    /**
+     * @param brain
+     * @return the vehicle to enter, or null if it is no longer in the game
+     */
+    private Vehicle getVehicle(Brain brain) {
+        return (Vehicle)brain.getWorld().getEntityByHandle(this.vehicleHandle);
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.AdapterAction#interrupt(seventh.ai.basic.Brain)
      */
@@ -47,9 +57,9 @@ public class EnterVehicleAction extends AdapterAction {
     /**
      * @return true if the bot is in the vehicle
      */
-    protected boolean isInVehicle(PlayerEntity bot) {        
-        if(this.vehicle.hasOperator() && bot.isOperatingVehicle()) {
-            return this.vehicle == bot.getVehicle();
+    protected boolean isInVehicle(Vehicle vehicle, PlayerEntity bot) {        
+        if(vehicle.hasOperator() && bot.isOperatingVehicle()) {
+            return vehicle == bot.getVehicle();
         }
         
         return false;
@@ -61,7 +71,11 @@ public class EnterVehicleAction extends AdapterAction {
     @Override
     public void update(Brain brain, TimeStep timeStep) {
         PlayerEntity bot = brain.getEntityOwner();
-        if(isInVehicle(bot)) {
+        Vehicle vehicle = getVehicle(brain);
+        if(vehicle == null) {
+            getActionResult().setFailure();
+        }
+        else if(isInVehicle(vehicle, bot)) {
             this.getActionResult().setSuccess();
         }
         else {
@@ -90,7 +104,8 @@ public class EnterVehicleAction extends AdapterAction {
         getActionResult().setFailure();
         
         /* error cases, we must finish then */
-        if(!vehicle.isAlive()) {
+        Vehicle vehicle = getVehicle(brain);
+        if(vehicle == null || !vehicle.isAlive()) {
             return true;
         }
         
@@ -99,7 +114,7 @@ public class EnterVehicleAction extends AdapterAction {
         }
         
         PlayerEntity bot = brain.getEntityOwner();
-        if(isInVehicle(bot)) {
+        if(isInVehicle(vehicle, bot)) {
             getActionResult().setSuccess();
             return true;
         }
@@ -109,6 +124,6 @@ public class EnterVehicleAction extends AdapterAction {
     
     @Override
     public DebugInformation getDebugInformation() {    
-        return super.getDebugInformation().add("vehicle", this.vehicle.getId());
+        return super.getDebugInformation().add("vehicle", this.vehicleId);
     }
 }
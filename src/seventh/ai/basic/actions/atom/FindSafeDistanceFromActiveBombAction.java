@@ -47,6 +47,11 @@ public class FindSafeDistanceFromActiveBombAction extends AdapterAction {
         coverBounds.centerAround(target.getCenterPos());
         
         Vector2f moveTo = world.getRandomSpotNotIn(bot, coverBounds.x, coverBounds.y, coverBounds.width, coverBounds.height, bomb.getBlastRadius());
+        if(moveTo == null) {
+            getActionResult().setFailure();
+            return;
+        }
+        
         getActionResult().setSuccess(moveTo);
     }
     
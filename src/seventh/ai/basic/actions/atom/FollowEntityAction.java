@@ -88,7 +88,7 @@ public class FollowEntityAction extends AdapterAction {
     @Override
     public void update(Brain brain, TimeStep timeStep) {
                         
-        PathPlanner<?> feeder = brain.getMotion().getPathPlanner();
+        PathPlanner feeder = brain.getMotion().getPathPlanner();
         SightSensor sight = brain.getSensors().getSightSensor();
         if(!feeder.hasPath() || !feeder.onFirstNode()) {
 
@@ -3,10 +3,11 @@
  */
 package seventh.ai.basic.actions.atom;
 
-import leola.vm.Leola;
 import leola.vm.types.LeoObject;
 import seventh.ai.basic.Brain;
 import seventh.ai.basic.actions.AdapterAction;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
 import seventh.shared.TimeStep;
 
 /**
@@ -15,6 +16,8 @@ import seventh.shared.TimeStep;
  */
 public class GuardUntilAction extends AdapterAction {
     
+    private static final ScriptProfiler.Entry profile = Scripting.getProfiler().getEntry("action:guardUntil");
+    
     private LeoObject isFinished;
     private LeoObject result;
     
@@ -46,7 +49,13 @@ public class GuardUntilAction extends AdapterAction {
      */
     @Override
     public void update(Brain brain, TimeStep timeStep) {
-        result = isFinished.xcall(Leola.toLeoObject(timeStep));        
+        profile.begin();
+        try {
+            result = this.isFinished.xcall(timeStep.asScriptObject());
+        }
+        finally {
+            profile.end();
+        }
     }
     
     /* (non-Javadoc)
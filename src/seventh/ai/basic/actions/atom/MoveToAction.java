@@ -88,7 +88,7 @@ public class MoveToAction extends AdapterAction {
      */
     @Override
     public boolean isFinished(Brain brain) {
-        PathPlanner<?> path = brain.getMotion().getPathPlanner();        
+        PathPlanner path = brain.getMotion().getPathPlanner();        
         boolean isFinished = path.atDestination();
         if(isFinished) {
             getActionResult().setSuccess();
@@ -12,13 +12,13 @@ import seventh.game.entities.vehicles.Vehicle;
  */
 public class MoveToVehicleAction extends MoveToAction {
     
-    private Vehicle vehicle;
+    private long vehicleHandle;
     /**
      * @param target 
      */
     public MoveToVehicleAction(Vehicle vehicle) {
         super(vehicle.getCenterPos());
-        this.vehicle = vehicle;
+        this.vehicleHandle = vehicle.getEntityHandle();
     }    
     
     /* (non-Javadoc)
@@ -27,15 +27,17 @@ public class MoveToVehicleAction extends MoveToAction {
     @Override
     public boolean isFinished(Brain brain) {
         getActionResult().setFailure();
-        if(!this.vehicle.isAlive()) {
+        
+        Vehicle vehicle = (Vehicle)brain.getWorld().getEntityByHandle(this.vehicleHandle);
+        if(vehicle == null || !vehicle.isAlive()) {
             return true;
         }
         
-        if(this.vehicle.hasOperator()) {
+        if(vehicle.hasOperator()) {
             return true;
         }
         
-        if(this.vehicle.canOperate(vehicle)) {
+        if(vehicle.canOperate(vehicle)) {
             getActionResult().setSuccess();
             return true;
         }
@@ -3,12 +3,13 @@
  */
 package seventh.ai.basic.actions.atom;
 
-import leola.vm.Leola;
 import leola.vm.types.LeoObject;
 import seventh.ai.basic.Brain;
 import seventh.ai.basic.Locomotion;
 import seventh.ai.basic.actions.AdapterAction;
 import seventh.math.Vector2f;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
 import seventh.shared.TimeStep;
 
 /**
@@ -17,6 +18,8 @@ import seventh.shared.TimeStep;
  */
 public class SupressFireUntilAction extends AdapterAction {
     
+    private static final ScriptProfiler.Entry profile = Scripting.getProfiler().getEntry("action:supressFireUntil");
+    
     private LeoObject isFinished;
     private LeoObject result;
     
@@ -53,7 +56,13 @@ public class SupressFireUntilAction extends AdapterAction {
      */
     @Override
     public void update(Brain brain, TimeStep timeStep) {
-        result = this.isFinished.xcall(Leola.toLeoObject(timeStep));        
+        profile.begin();
+        try {
+            result = this.isFinished.xcall(timeStep.asScriptObject());
+        }
+        finally {
+            profile.end();
+        }
         
         Locomotion motion = brain.getMotion();
         if (brain.getEntityOwner().isFacing(target)) {
@@ -73,7 +73,7 @@ public class HeadScanAction extends AdapterAction {
         this.pickAttackDirectionTime += timeStep.getDeltaTime();
         
         if(this.sampleTime < 0) {
-            PathPlanner<?> feeder = brain.getMotion().getPathPlanner();
+            PathPlanner feeder = brain.getMotion().getPathPlanner();
             
             Vector2f dest = null;
             if(feeder.hasPath()) {
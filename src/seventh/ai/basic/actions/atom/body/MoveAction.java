@@ -66,7 +66,7 @@ public class MoveAction extends AdapterAction {
     public void start(Brain brain) {
         Vector2f position = brain.getEntityOwner().getCenterPos();
         
-        PathPlanner<?> feeder = brain.getMotion().getPathPlanner(); 
+        PathPlanner feeder = brain.getMotion().getPathPlanner(); 
                 
         if(this.zonesToAvoid.isEmpty()) { 
             feeder.findPath(position, this.destination);
@@ -98,7 +98,7 @@ public class MoveAction extends AdapterAction {
      */
     @Override
     public boolean isFinished(Brain brain) {                
-        PathPlanner<?> path = brain.getMotion().getPathPlanner();
+        PathPlanner path = brain.getMotion().getPathPlanner();
         return !path.hasPath() || path.atDestination();
     }
 
@@ -4,6 +4,7 @@
 package seventh.ai.basic.actions.evaluators;
 
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
 
@@ -60,6 +61,18 @@ public abstract class ActionEvaluator {
         return false;
     }
     
+    /**
+     * The {@link BrainInputs} this evaluator bases its desirability on.  The desirability is only
+     * re-calculated when one of these inputs change.  By default, the evaluator depends on 
+     * {@link BrainInputs#UNTRACKED} state and is re-calculated on every evaluation, which an evaluator
+     * that rolls random numbers in its desirability must keep, or its roll would be frozen.
+     * 
+     * @return the bit mask of {@link BrainInputs} 
+     */
+    public int getDependencies() {
+        return BrainInputs.UNTRACKED;
+    }
+    
     /**
      * Calculates the desirability
      * 
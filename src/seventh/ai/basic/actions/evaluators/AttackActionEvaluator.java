@@ -4,6 +4,7 @@
 package seventh.ai.basic.actions.evaluators;
 
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
 
@@ -21,6 +22,14 @@ public class AttackActionEvaluator extends ActionEvaluator {
         super(goals, characterBias, keepBias);
     }
 
+    /* (non-Javadoc)
+     * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#getDependencies()
+     */
+    @Override
+    public int getDependencies() {
+        return BrainInputs.TARGETING | BrainInputs.HEALTH | BrainInputs.WEAPON;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.ActionEvaluator#calculateDesirability(seventh.ai.basic.Brain)
      */
@@ -7,13 +7,14 @@ import seventh.ai.basic.Brain;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
 import seventh.ai.basic.actions.atom.MoveToAction;
+import seventh.game.EntityTable;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.entities.Entity;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.entities.Entity.Type;
 import seventh.map.Map;
 import seventh.math.Rectangle;
 import seventh.math.Vector2f;
-import seventh.shared.SeventhConstants;
 
 /**
  * If the bot is shot, see if it can defend itself
@@ -26,7 +27,7 @@ public class AvoidGrenadeActionEvaluator extends ActionEvaluator {
     private MoveToAction moveToAction;
     private Rectangle dangerArea;
     private Vector2f ray;
-    private Entity danger;
+    private long dangerHandle;
     private long frameLinger;
     
     /**
@@ -40,6 +41,17 @@ public class AvoidGrenadeActionEvaluator extends ActionEvaluator {
         this.ray = new Vector2f();
     }
 
+    private Entity findDanger(EntityList entities, PlayerEntity me) {
+        for(int i = 0; i < entities.size(); i++) {
+            Entity ent = entities.get(i);
+            this.dangerArea.centerAround(ent.getCenterPos());
+            if(this.dangerArea.intersects(me.getBounds())) {
+                return ent;
+            }
+        }
+        return null;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#calculateDesirability(seventh.ai.basic.Brain)
      */
@@ -48,22 +60,15 @@ public class AvoidGrenadeActionEvaluator extends ActionEvaluator {
         double desirability = 0.0;
                 
         PlayerEntity me = brain.getEntityOwner();
-        Entity[] entities = brain.getWorld().getEntities();
-        for(int i = SeventhConstants.MAX_PERSISTANT_ENTITIES; i < entities.length; i++) {
-            Entity ent = entities[i];
-            if(ent!=null) {
-                if(ent.getType().equals(Type.GRENADE)||
-                   ent.getType().equals(Type.EXPLOSION)) {
-                    
-                    this.dangerArea.centerAround(ent.getCenterPos());
-                    if(this.dangerArea.intersects(me.getBounds())) {
-                        desirability += brain.getRandomRange(0.90f, 1.0f);
-                        danger = ent;
-                        frameLinger = 2;
-                        break;
-                    }
-                }
-            }
+        Entity ent = findDanger(brain.getWorld().getEntitiesOfType(Type.GRENADE), me);
+        if(ent == null) {
+            ent = findDanger(brain.getWorld().getEntitiesOfType(Type.EXPLOSION), me);
+        }
+        
+        if(ent != null) {
+            desirability += brain.getRandomRange(0.90f, 1.0f);
+            dangerHandle = ent.getEntityHandle();
+            frameLinger = 2;
         }
         
         // because it takes a frame or two to register
@@ -76,6 +81,10 @@ public class AvoidGrenadeActionEvaluator extends ActionEvaluator {
             frameLinger--;
         }
         
+        if(desirability==0) {
+            dangerHandle = EntityTable.NO_HANDLE;
+        }
+        
         desirability *= getCharacterBias();
         return desirability;
     }
@@ -85,7 +94,15 @@ public class AvoidGrenadeActionEvaluator extends ActionEvaluator {
      */
     @Override
     public Action getAction(Brain brain) {        
-        if(danger!=null) {
+        if(dangerHandle!=EntityTable.NO_HANDLE) {
+            
+            // the grenade may have already gone off, in which case
+            // run from where it was last seen
+            Entity danger = brain.getWorld().getEntityByHandle(dangerHandle);
+            if(danger!=null) {
+                this.dangerArea.centerAround(danger.getCenterPos());
+            }
+            
             // shoot a ray in a number of directions to see which ones are able
             // to be used for running out of the danger zone
             PlayerEntity me = brain.getEntityOwner();
@@ -56,8 +56,13 @@ public class DefendSelfActionEvaluator extends ActionEvaluator {
         if(attacker != null) {
             if(attacker instanceof Bullet) {
                 Bullet bullet = (Bullet)attacker;
+                
+                /* the shooter may have since been removed, in which case 
+                 * head towards where the bullet came from
+                 */
                 Entity owner = bullet.getOwner();
-                this.moveToAction.reset(brain, owner.getCenterPos());
+                Vector2f pos = (owner != null) ? owner.getCenterPos() : bullet.getOrigin();
+                this.moveToAction.reset(brain, pos);
                 brain.getMotion().lookAt(this.moveToAction.getDestination());
             }
             else {
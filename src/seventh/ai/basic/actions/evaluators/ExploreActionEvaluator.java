@@ -4,9 +4,12 @@
 package seventh.ai.basic.actions.evaluators;
 
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
+import seventh.ai.basic.actions.WaitAction;
 import seventh.ai.basic.actions.atom.body.MoveAction;
+import seventh.math.Vector2f;
 
 /**
  * @author Tony
@@ -25,6 +28,14 @@ public class ExploreActionEvaluator extends ActionEvaluator {
         this.moveAction = new MoveAction();
     }
 
+    /* (non-Javadoc)
+     * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#getDependencies()
+     */
+    @Override
+    public int getDependencies() {
+        return BrainInputs.NONE;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#calculateDesirability(seventh.ai.basic.Brain)
      */
@@ -43,7 +54,12 @@ public class ExploreActionEvaluator extends ActionEvaluator {
     @Override
     public Action getAction(Brain brain) {
         brain.getMotion().scanArea();
-        this.moveAction.setDestination(brain.getWorld().getRandomSpot(brain.getEntityOwner()));
+        Vector2f spot = brain.getWorld().getRandomSpot(brain.getEntityOwner());
+        if(spot == null) {
+            return new WaitAction(100);
+        }
+        
+        this.moveAction.setDestination(spot);
         return this.moveAction;
 //        return getGoals().goToRandomSpot(brain);
     }
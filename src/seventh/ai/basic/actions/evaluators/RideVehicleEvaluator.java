@@ -9,6 +9,7 @@ import java.util.List;
 import seventh.ai.basic.Brain;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
+import seventh.game.EntityTable;
 import seventh.game.entities.vehicles.Vehicle;
 
 /**
@@ -18,7 +19,7 @@ import seventh.game.entities.vehicles.Vehicle;
 public class RideVehicleEvaluator extends ActionEvaluator {
 
     private List<Vehicle> vehiclesToRide;
-    private Vehicle vehicleToRide;
+    private long vehicleToRideHandle;
     
     /**
      * @param goals
@@ -38,6 +39,7 @@ public class RideVehicleEvaluator extends ActionEvaluator {
         List<Vehicle> vehicles = brain.getWorld().getVehicles();
         
         double score = 0;
+        this.vehicleToRideHandle = EntityTable.NO_HANDLE;
         if(!vehicles.isEmpty()) {
             vehiclesToRide.clear();
             for(int i = 0; i < vehicles.size(); i++) {
@@ -53,7 +55,7 @@ public class RideVehicleEvaluator extends ActionEvaluator {
                 float reasonableDistance = (32f*10f) * (32f*10f);
                 score = 1.0 - (distanceToVehicle/reasonableDistance);
                 score = Math.max(0, score);
-                this.vehicleToRide = v;
+                this.vehicleToRideHandle = v.getEntityHandle();
             }
         }
         
@@ -65,7 +67,11 @@ public class RideVehicleEvaluator extends ActionEvaluator {
      */
     @Override
     public Action getAction(Brain brain) {
-        return getGoals().operateVehicle(vehicleToRide);
+        Vehicle vehicleToRide = (Vehicle)brain.getWorld().getEntityByHandle(this.vehicleToRideHandle);
+        if(vehicleToRide != null) {
+            return getGoals().operateVehicle(vehicleToRide);
+        }
+        return null;
     }
 
 }
@@ -4,6 +4,7 @@
 package seventh.ai.basic.actions.evaluators;
 
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
 import seventh.ai.basic.TargetingSystem;
 import seventh.ai.basic.actions.Action;
 import seventh.ai.basic.actions.Actions;
@@ -29,6 +30,14 @@ public class ShootWeaponEvaluator extends ActionEvaluator {
         this.shootAction = new ShootAtAction();
     }
 
+    /* (non-Javadoc)
+     * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#getDependencies()
+     */
+    @Override
+    public int getDependencies() {
+        return BrainInputs.TARGETING | BrainInputs.WEAPON;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#calculateDesirability(seventh.ai.basic.Brain)
      */
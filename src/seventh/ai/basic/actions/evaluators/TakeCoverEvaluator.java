@@ -4,6 +4,7 @@
 package seventh.ai.basic.actions.evaluators;
 
 import seventh.ai.basic.Brain;
+import seventh.ai.basic.BrainInputs;
 import seventh.ai.basic.Cover;
 import seventh.ai.basic.TargetingSystem;
 import seventh.ai.basic.actions.Action;
@@ -27,6 +28,14 @@ public class TakeCoverEvaluator extends ActionEvaluator {
         this.cover = new Cover(new Vector2f(), new Vector2f());
     }
 
+    /* (non-Javadoc)
+     * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#getDependencies()
+     */
+    @Override
+    public int getDependencies() {
+        return BrainInputs.TARGETING | BrainInputs.HEALTH | BrainInputs.WEAPON;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.ai.basic.actions.evaluators.ActionEvaluator#calculateDesirability(seventh.ai.basic.Brain)
      */
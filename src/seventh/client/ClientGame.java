@@ -152,6 +152,14 @@ public class ClientGame {
 
     
     private long gameClock;
+    
+    private SnapshotClock snapshotClock;
+    private long snapshotTime;
+    
+    private int inputSequence;
+    private float lastMisprediction;
+    private float averageMisprediction;
+    private float maxMisprediction;
     private boolean gameEnded, roundEnded;
     
     
@@ -230,6 +238,7 @@ public class ClientGame {
         
         this.localPlayer = players.getPlayer(session.getSessionPlayerId());        
         this.entities = new ClientEntities(SeventhConstants.MAX_ENTITIES);    
+        this.snapshotClock = new SnapshotClock();
         this.backgroundEntities = new ClientEntity[SeventhConstants.MAX_ENTITIES];
         this.foregroundEntities = new ClientEntity[SeventhConstants.MAX_ENTITIES];
         
@@ -420,6 +429,7 @@ public class ClientGame {
      * @param timeStep
      */
     public void update(TimeStep timeStep) {
+        this.snapshotClock.update(timeStep);
         this.gameEffects.update(timeStep);
         
         long gameClock = timeStep.getGameClock();
@@ -1165,7 +1175,7 @@ public class ClientGame {
         }
         
         if(entity != null) {
-            entity.updateState(ent, gameClock);
+            entity.updateState(ent, snapshotTime);
             entities.addEntity(ent.id, entity);
                         
             entityListener.onEntityCreated(entity);
@@ -1313,6 +1323,7 @@ public class ClientGame {
         NetGameUpdate netUpdate = msg.netUpdate;
 
         gameClock = netUpdate.time;
+        snapshotTime = snapshotClock.onSnapshot(netUpdate.time);
         
         if(netUpdate.entities != null) {
             int size = netUpdate.entities.length;
@@ -1322,7 +1333,7 @@ public class ClientGame {
                     if(entities.containsEntity(netEnt.id)) {
                         ClientEntity ent = entities.getEntity(netEnt.id);
                         if(netEnt.type == ent.getType()) {                        
-                            ent.updateState(netEnt, gameClock);
+                            ent.updateState(netEnt, snapshotTime);
                         }
                         else {
                             removeEntity(i);
@@ -1343,7 +1354,7 @@ public class ClientGame {
                             removeEntity(i);
                         }
                     }
-                    else {
+                    else if(!netUpdate.isDeferred(i)) {
                         removeEntity(i);
                     }
                 }
@@ -1430,6 +1441,58 @@ public class ClientGame {
         else {
             localPlayer.setSpectatingPlayerId(Entity.INVALID_ENTITY_ID);
         }
+        
+        if(netUpdate.lastInputSequence > 0 && localPlayer.isAlive()) {
+            float misprediction = localPlayer.getEntity().reconcile(netUpdate.lastInputSequence);
+            if(misprediction > -1) {
+                this.lastMisprediction = misprediction;
+                this.averageMisprediction = this.averageMisprediction * 0.95f + misprediction * 0.05f;
+                this.maxMisprediction = Math.max(this.maxMisprediction, misprediction);
+            }
+        }
+    }
+    
+    /**
+     * @return the timeline of the received snapshots, used for interpolating remote entities
+     */
+    public SnapshotClock getSnapshotClock() {
+        return snapshotClock;
+    }
+    
+    /**
+     * @param inputSequence the sequence of the input currently being applied by the local player
+     */
+    public void setInputSequence(int inputSequence) {
+        this.inputSequence = inputSequence;
+    }
+    
+    /**
+     * @return the sequence of the input currently being applied by the local player
+     */
+    public int getInputSequence() {
+        return inputSequence;
+    }
+    
+    /**
+     * @return the distance, in pixels, between the last predicted position of the local player and
+     * where the server actually had the player
+     */
+    public float getLastMisprediction() {
+        return lastMisprediction;
+    }
+    
+    /**
+     * @return the moving average of the misprediction distance, in pixels
+     */
+    public float getAverageMisprediction() {
+        return averageMisprediction;
+    }
+    
+    /**
+     * @return the largest misprediction distance, in pixels
+     */
+    public float getMaxMisprediction() {
+        return maxMisprediction;
     }
     
     public void applyGameStats(NetGameStats stats) {
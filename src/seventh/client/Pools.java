@@ -33,14 +33,14 @@ public class Pools {
     public Pools(ClientGame game) {
         this.bulletPool = new ClientBulletPool(game, SeventhConstants.MAX_ENTITIES);
         
-        this.alliedBackDeath = new AnimationPool("AlliedBackDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.alliedBackDeath = new AnimationPool("AlliedBackDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
                 return Art.newAlliedBackDeathAnim();
             }
         });
-        this.alliedFrontDeath = new AnimationPool("AlliedFrontDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.alliedFrontDeath = new AnimationPool("AlliedFrontDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -48,14 +48,14 @@ public class Pools {
             }
         });
         
-        this.axisBackDeath = new AnimationPool("AxisBackDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.axisBackDeath = new AnimationPool("AxisBackDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
                 return Art.newAxisBackDeathAnim();
             }
         });
-        this.axisFrontDeath = new AnimationPool("AxisFrontDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.axisFrontDeath = new AnimationPool("AxisFrontDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -63,7 +63,7 @@ public class Pools {
             }
         });
         
-        this.explosion = new AnimationPool("Explosion", SeventhConstants.MAX_PLAYERS*32, new AnimationFactory() {
+        this.explosion = new AnimationPool("Explosion", SeventhConstants.DEFAULT_MAX_PLAYERS*32, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -71,7 +71,7 @@ public class Pools {
             }
         });
         
-        this.missle = new AnimationPool("Missle", SeventhConstants.MAX_PLAYERS*32, new AnimationFactory() {
+        this.missle = new AnimationPool("Missle", SeventhConstants.DEFAULT_MAX_PLAYERS*32, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
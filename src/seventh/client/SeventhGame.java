@@ -4,6 +4,7 @@
  */
 package seventh.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.IntBuffer;
 import java.util.Date;
@@ -41,6 +42,7 @@ import seventh.client.inputs.Inputs;
 import seventh.client.inputs.KeyMap;
 import seventh.client.network.ClientConnection;
 import seventh.client.screens.AnimationEditorScreen;
+import seventh.client.screens.DemoScreen;
 import seventh.client.screens.LoadingScreen;
 import seventh.client.screens.MenuScreen;
 import seventh.client.screens.Screen;
@@ -201,6 +203,23 @@ public class SeventhGame implements ApplicationListener {
             }
         });
         
+        console.addCommand(new Command("demo") {            
+            @Override
+            public void execute(Console console, String... args) {
+                if(args.length<1) {
+                    console.println("<usage> demo [file] \n   Ex. demo ./demos/20160101_120000_level1.s7d");
+                }
+                else {
+                    try {
+                        setScreen(new DemoScreen(SeventhGame.this, new File(this.mergeArgsDelim(" ", args))));
+                    }
+                    catch(Exception e) {
+                        console.println("*** Error attempting to play the demo: \n" + e);
+                    }
+                }
+            }
+        });
+        
         console.addCommand(new Command("help") {
             @Override
             public void execute(Console console, String... args) {
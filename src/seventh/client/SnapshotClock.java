@@ -0,0 +1,142 @@
+/*
+ * see license.txt
+ */
+package seventh.client;
+
+import seventh.shared.TimeStep;
+
+/**
+ * Keeps a timeline of the snapshots ({@link seventh.game.net.NetGameUpdate}) received from the server, and the
+ * time at which remote entities should be rendered.
+ *
+ * <p>
+ * The snapshot time is driven by the {@link seventh.game.net.NetGameUpdate#time} field, which is the remaining match
+ * time and therefore counts down.  When the server clock does not move (warm up, round restarts) the arrival time of the
+ * snapshot is used instead, so that the timeline always moves forward.
+ *
+ * <p>
+ * Entities are rendered at the snapshot time minus an interpolation delay.  The delay adapts to the measured jitter of the
+ * snapshot arrival times, so that under normal conditions there is always a newer snapshot to interpolate towards.
+ *
+ * @author Tony
+ *
+ */
+public class SnapshotClock {
+
+    private static final long MIN_DELAY = 50;
+    private static final long MAX_DELAY = 250;
+
+    /**
+     * If the render time drifts this far from where it should be, jump to it
+     */
+    private static final long RESYNC_THRESHOLD = 250;
+
+    private boolean hasSnapshot;
+
+    private long lastServerTime;
+    private long lastArrivalTime;
+    private long snapshotTime;
+
+    private float averageInterval;
+    private float jitter;
+    private float delay;
+
+    private long clientTime;
+    private long renderTime;
+
+    /**
+     *
+     */
+    public SnapshotClock() {
+        this.averageInterval = 50;
+        this.delay = 100;
+    }
+
+    /**
+     * A snapshot has been received
+     *
+     * @param serverTime the {@link seventh.game.net.NetGameUpdate#time}
+     * @return the time of the snapshot on the snapshot timeline
+     */
+    public long onSnapshot(long serverTime) {
+        if(!this.hasSnapshot) {
+            this.hasSnapshot = true;
+            this.snapshotTime = 0;
+            this.renderTime = -(long)this.delay;
+        }
+        else {
+            long arrivalDelta = this.clientTime - this.lastArrivalTime;
+            long serverDelta = this.lastServerTime - serverTime;
+
+            if(serverDelta <= 0 || serverDelta > RESYNC_THRESHOLD) {
+                serverDelta = Math.max(1, arrivalDelta);
+            }
+
+            this.snapshotTime += serverDelta;
+
+            this.averageInterval += (serverDelta - this.averageInterval) / 16f;
+            this.jitter += (Math.abs(arrivalDelta - serverDelta) - this.jitter) / 16f;
+
+            float targetDelay = Math.max(MIN_DELAY, Math.min(MAX_DELAY, this.averageInterval + 2f * this.jitter));
+            this.delay += (targetDelay - this.delay) * 0.1f;
+        }
+
+        this.lastServerTime = serverTime;
+        this.lastArrivalTime = this.clientTime;
+
+        return this.snapshotTime;
+    }
+
+    /**
+     * Advances the render time
+     *
+     * @param timeStep
+     */
+    public void update(TimeStep timeStep) {
+        this.clientTime = timeStep.getGameClock();
+        if(!this.hasSnapshot) {
+            return;
+        }
+
+        this.renderTime += timeStep.getDeltaTime();
+
+        long estimatedServerTime = this.snapshotTime + (this.clientTime - this.lastArrivalTime);
+        long targetTime = estimatedServerTime - (long)this.delay;
+        long error = targetTime - this.renderTime;
+
+        if(Math.abs(error) > RESYNC_THRESHOLD) {
+            this.renderTime = targetTime;
+        }
+        else {
+            this.renderTime += error / 10;
+        }
+    }
+
+    /**
+     * @return the time on the snapshot timeline at which remote entities should be rendered
+     */
+    public long getRenderTime() {
+        return renderTime;
+    }
+
+    /**
+     * @return the time of the latest snapshot
+     */
+    public long getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    /**
+     * @return the current interpolation delay, in milliseconds
+     */
+    public long getDelay() {
+        return (long)delay;
+    }
+
+    /**
+     * @return the measured jitter of the snapshot arrival times, in milliseconds
+     */
+    public long getJitter() {
+        return (long)jitter;
+    }
+}
@@ -9,6 +9,7 @@ import seventh.client.ClientGame;
 import seventh.client.entities.vehicles.ClientVehicle;
 import seventh.game.entities.Entity;
 import seventh.game.entities.Entity.State;
+import seventh.game.entities.Movement;
 import seventh.game.entities.PlayerEntity.Keys;
 import seventh.game.net.NetEntity;
 import seventh.map.Map;
@@ -27,6 +28,17 @@ import seventh.shared.TimeStep;
 public abstract class ClientControllableEntity extends ClientEntity {
     private static final int WALK_TIME = 150;
     
+    /**
+     * The maximum number of inputs that have not been acknowledged by the server
+     */
+    private static final int MAX_PENDING_INPUTS = 64;
+    
+    /**
+     * If the prediction is further off than this, snap to the corrected position rather 
+     * than smoothing out the correction
+     */
+    private static final float SNAP_DISTANCE_SQ = 62 * 62;
+    
     private int walkingTime;
     protected State currentState;
     protected State predictedState;
@@ -45,10 +57,21 @@ public abstract class ClientControllableEntity extends ClientEntity {
     protected Rectangle hearingBounds;
     protected Rectangle visualBounds;
     
-    private Vector2f xCollisionTilePos, 
-                     yCollisionTilePos;
+    private Movement movement;
+    
+    /*
+     * The inputs that have been predicted but not yet acknowledged
+     * by the server, kept as a ring buffer
+     */
+    private int[] pendingSequences;
+    private float[] pendingVelX, pendingVelY, pendingDeltaTimes;
+    private float[] pendingPosX, pendingPosY;
+    private int pendingHead, numberOfPendingInputs;
     
-    private Rectangle collisionRect;
+    private Vector2f serverPos;
+    private Vector2f correctionOffset;
+    private boolean hasServerPos;
+    private boolean isReconciling;
     
     /**
      * @param game
@@ -61,9 +84,6 @@ public abstract class ClientControllableEntity extends ClientEntity {
         this.renderPos = new Vector2f(pos);
         this.cache = new Vector2f();
         
-        this.xCollisionTilePos = new Vector2f();
-        this.yCollisionTilePos = new Vector2f();
-        
         this.isControlledByLocalPlayer = false;
         
 
@@ -73,7 +93,33 @@ public abstract class ClientControllableEntity extends ClientEntity {
         this.visualBounds = new Rectangle(5000,5000);
         this.visualBounds.centerAround(pos);
         
-        this.collisionRect = new Rectangle();
+        this.movement = new Movement() {
+            
+            @Override
+            protected boolean collidesAgainstEntity(Rectangle bounds) {
+                return ClientControllableEntity.this.collidesAgainstEntity(bounds);
+            }
+            
+            @Override
+            protected boolean collidesAgainstMapObject(Rectangle bounds) {
+                return ClientControllableEntity.this.collidesAgainstMapObject(bounds);
+            }
+            
+            @Override
+            protected boolean continueIfBlock() {
+                return ClientControllableEntity.this.continueIfBlock();
+            }
+        };
+        
+        this.pendingSequences = new int[MAX_PENDING_INPUTS];
+        this.pendingVelX = new float[MAX_PENDING_INPUTS];
+        this.pendingVelY = new float[MAX_PENDING_INPUTS];
+        this.pendingDeltaTimes = new float[MAX_PENDING_INPUTS];
+        this.pendingPosX = new float[MAX_PENDING_INPUTS];
+        this.pendingPosY = new float[MAX_PENDING_INPUTS];
+        
+        this.serverPos = new Vector2f();
+        this.correctionOffset = new Vector2f();
     }
 
     @Override
@@ -87,6 +133,102 @@ public abstract class ClientControllableEntity extends ClientEntity {
             this.predictedOrientation = this.orientation;
             this.predictedState = this.currentState;            
         }
+        else {
+            this.serverPos.set(state.posX, state.posY);
+            this.hasServerPos = true;
+        }
+    }
+    
+    /**
+     * Reconciles the client side prediction with the authoritative server state.  The predicted position 
+     * is reset to the last received server position, and the inputs the server has not yet applied are
+     * replayed on top of it.
+     * 
+     * @param acknowledgedSequence the sequence of the last input the server applied
+     * @return the distance between where we predicted the entity to be at the acknowledged input and where
+     * the server had it, or -1 if no reconciliation was done
+     */
+    public float reconcile(int acknowledgedSequence) {
+        if(!isControlledByLocalPlayer() || !this.hasServerPos) {
+            return -1;
+        }
+        
+        this.hasServerPos = false;
+        
+        float misprediction = -1;
+        while(this.numberOfPendingInputs > 0) {
+            int index = this.pendingHead;
+            if(this.pendingSequences[index] > acknowledgedSequence) {
+                break;
+            }
+            
+            if(this.pendingSequences[index] == acknowledgedSequence) {
+                float dx = this.pendingPosX[index] - this.serverPos.x;
+                float dy = this.pendingPosY[index] - this.serverPos.y;
+                misprediction = (float)Math.sqrt(dx * dx + dy * dy);
+            }
+            
+            this.pendingHead = (this.pendingHead + 1) % MAX_PENDING_INPUTS;
+            this.numberOfPendingInputs--;
+        }
+        
+        float previousX = this.predictedPos.x;
+        float previousY = this.predictedPos.y;
+        
+        this.predictedPos.set(this.serverPos);
+        
+        Map map = game.getMap();
+        for(int i = 0; i < this.numberOfPendingInputs; i++) {
+            int index = (this.pendingHead + i) % MAX_PENDING_INPUTS;
+            if(isAlive() && (this.pendingVelX[index] != 0 || this.pendingVelY[index] != 0)) {
+                predictMovement(map, this.pendingDeltaTimes[index], this.pendingVelX[index], this.pendingVelY[index]);
+            }
+            
+            this.pendingPosX[index] = this.predictedPos.x;
+            this.pendingPosY[index] = this.predictedPos.y;
+        }
+        
+        /* smooth out the correction when rendering, unless we 
+         * are way off
+         */
+        if(this.isReconciling) {
+            this.correctionOffset.x += previousX - this.predictedPos.x;
+            this.correctionOffset.y += previousY - this.predictedPos.y;
+            if(this.correctionOffset.lengthSquared() > SNAP_DISTANCE_SQ) {
+                this.correctionOffset.zeroOut();
+            }
+        }
+        
+        this.isReconciling = true;
+        
+        return misprediction;
+    }
+    
+    /**
+     * Remembers the input, so that it may be replayed if the server corrects us
+     * 
+     * @param sequence
+     * @param vel
+     * @param dt
+     */
+    private void addPendingInput(int sequence, Vector2f vel, float dt) {
+        if(sequence <= 0) {
+            return;
+        }
+        
+        if(this.numberOfPendingInputs == MAX_PENDING_INPUTS) {
+            this.pendingHead = (this.pendingHead + 1) % MAX_PENDING_INPUTS;
+            this.numberOfPendingInputs--;
+        }
+        
+        int index = (this.pendingHead + this.numberOfPendingInputs) % MAX_PENDING_INPUTS;
+        this.pendingSequences[index] = sequence;
+        this.pendingVelX[index] = vel.x;
+        this.pendingVelY[index] = vel.y;
+        this.pendingDeltaTimes[index] = dt;
+        this.pendingPosX[index] = this.predictedPos.x;
+        this.pendingPosY[index] = this.predictedPos.y;
+        this.numberOfPendingInputs++;
     }
     
     /**
@@ -118,6 +260,15 @@ public abstract class ClientControllableEntity extends ClientEntity {
         return isControlledByLocalPlayer;
     }
     
+    /* (non-Javadoc)
+     * @see seventh.client.entities.ClientEntity#isInterpolatedFromSnapshots()
+     */
+    @Override
+    protected boolean isInterpolatedFromSnapshots() {
+        // the local player is predicted, not rendered in the past
+        return !isControlledByLocalPlayer();
+    }
+    
     /**
      * @return the lineOfSight
      */
@@ -144,7 +295,14 @@ public abstract class ClientControllableEntity extends ClientEntity {
      * @return the renderPos
      */
     public Vector2f getRenderPos(float alpha) {
-        if(isControlledByLocalPlayer()) {
+        if(isControlledByLocalPlayer() && this.isReconciling) {
+            renderPos.x = predictedPos.x + correctionOffset.x;
+            renderPos.y = predictedPos.y + correctionOffset.y;
+            
+            correctionOffset.x *= 0.8f;
+            correctionOffset.y *= 0.8f;
+        }
+        else if(isControlledByLocalPlayer()) {
             //Vector2f.Vector2fLerp(predictedPos, pos, alpha, renderPos);
             
 //            renderPos.x = predictedPos.x * 0.6f + pos.x * 0.4f;
@@ -193,114 +351,6 @@ public abstract class ClientControllableEntity extends ClientEntity {
     }
     
     
-    /**
-     * Adjusts the y movement if the player is at the edge of a collidable tile and there
-     * is a free space
-     * 
-     * @param collisionTilePos
-     * @param deltaX
-     * @param currentX
-     * @param currentY
-     * @return the adjusted y to move
-     */
-    private int adjustY(Vector2f collisionTilePos, float deltaX, int currentX, int currentY) {
-        Map map = game.getMap();
-        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
-        if(collisionTile != null) {
-            //DebugDraw.drawRectRelative(collisionTile.getBounds(), 0xff00ff00);
-            
-            int xIndex = collisionTile.getXIndex();
-            int yIndex = collisionTile.getYIndex();
-            
-            int offset = 32;
-            
-            if(!map.checkTileBounds(xIndex, yIndex - 1) && !map.hasCollidableTile(xIndex, yIndex - 1)) {
-                if(currentY < (collisionTile.getY() - (bounds.height - offset))) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex, yIndex-1).getBounds(), 0xafff0000);
-                    return currentY - 1;
-                }
-            }
-            
-            if(!map.checkTileBounds(xIndex, yIndex + 1) && !map.hasCollidableTile(xIndex, yIndex + 1)) {
-                if(currentY > (collisionTile.getY() + (collisionTile.getHeight() - offset))) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex, yIndex+1).getBounds(), 0xaf0000ff);
-                    return currentY + 1;
-                }
-            }            
-        }
-        else {
-            // we're colliding with a map object            
-            collisionRect.set(bounds);
-            collisionRect.x = currentX;
-            collisionRect.y = currentY - 10;
-            
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentY - 1;
-            }
-            
-            collisionRect.y = currentY + 10;
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentY + 1;
-            }
-        }
-        return currentY;
-    }
-    
-    
-    /**
-     * Adjusts the x movement if the player is at the edge of a collidable tile and there
-     * is a free space
-     * 
-     * @param collisionTilePos
-     * @param deltaY
-     * @param currentX
-     * @param currentY
-     * @return the adjusted x to move
-     */
-    private int adjustX(Vector2f collisionTilePos, float deltaY, int currentX, int currentY) {
-        Map map = game.getMap();
-        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
-        if(collisionTile != null) {
-            //DebugDraw.drawRectRelative(collisionTile.getBounds(), 0xff00ff00);
-            
-            int xIndex = collisionTile.getXIndex();
-            int yIndex = collisionTile.getYIndex();
-            
-            int offset = 32;
-            
-            if(!map.checkTileBounds(xIndex - 1, yIndex) && !map.hasCollidableTile(xIndex - 1, yIndex)) {
-                if(currentX+bounds.width < (collisionTile.getX() + offset)) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex-1, yIndex).getBounds(), 0xafff0000);
-                    return currentX - 1;
-                }
-            }
-            
-            if(!map.checkTileBounds(xIndex + 1, yIndex) && !map.hasCollidableTile(xIndex + 1, yIndex)) {
-                if(currentX > (collisionTile.getX() + collisionTile.getWidth() - offset)) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex+1, yIndex).getBounds(), 0xaf0000ff);
-                    return currentX + 1;
-                }
-            }            
-        }
-        else {
-            // we're colliding with a map object
-            collisionRect.set(bounds);
-            collisionRect.x = currentX - 10;
-            collisionRect.y = currentY;
-            
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentX - 1;
-            }
-            
-            collisionRect.x = currentX + 10;
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentX + 1;
-            }
-        }
-        
-        return currentX;
-    }
-    
     /**
      * Continue to check Y coordinate if X was blocked
      * @return true if we should continue collision checks
@@ -349,77 +399,21 @@ public abstract class ClientControllableEntity extends ClientEntity {
         calculatePredictedState(timeStep, vel, keys);
         predictedOrientation = game.calcPlayerOrientation(mousePos.x, mousePos.y);
         
+        float dt = (float)timeStep.asFraction();
+        
         if(isAlive() && !vel.isZero()) {            
-            int movementSpeed = calculateMovementSpeed();
-                                    
-            float dt = (float)timeStep.asFraction();            
-            float deltaX = (vel.x * movementSpeed * dt);
-            float deltaY = (vel.y * movementSpeed * dt);
-            
-            float newX = predictedPos.x + deltaX;
-            float newY = predictedPos.y + deltaY;
-            
-            boolean isBlocked = false;
-            boolean isBlockedByEntity = false;
+            predictMovement(map, dt, vel.x, vel.y);
             
-            bounds.x = (int)newX;            
-            if(map.rectCollides(bounds, 1, xCollisionTilePos)) {
-                bounds.x = (int)predictedPos.x;
-                newX = predictedPos.x;
-                isBlocked = true;
-            }
-            else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
-                bounds.x = (int)predictedPos.x;
-                newX = predictedPos.x;
-                isBlocked = true;
-                isBlockedByEntity = true;
-            }
-            
-            bounds.y = (int)newY;            
-            if(map.rectCollides(bounds, 1, yCollisionTilePos)) {
-                bounds.y = (int)predictedPos.y;
-                newY = predictedPos.y;
-                isBlocked = true;
-            }
-            else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
-                bounds.y = (int)predictedPos.y;
-                newY = predictedPos.y;
-                isBlocked = true;
-                isBlockedByEntity = true;
+            /* if the server isn't acknowledging our inputs, the best
+             * we can do is drift towards the last known server position
+             */
+            if(!this.isReconciling) {
+                clientSideCorrection(pos, predictedPos, predictedPos, 0.15f);
             }
             
-            if(isBlocked) {
-                /* some things want to stop dead it their tracks
-                 * if a component is blocked
-                 */
-                if(!continueIfBlock()) {
-                    bounds.setLocation(pos);
-                    
-                    newX = pos.x;
-                    newY = pos.y;
-                }  
-                
-                /*
-                 * Otherwise determine if the character
-                 * is a couple pixels off and is snagged on
-                 * a corner, if so auto adjust them
-                 */
-                else if (!isBlockedByEntity) {
-                    if(deltaX != 0 && deltaY == 0) {                
-                        newY = adjustY(xCollisionTilePos, deltaX, (int)(predictedPos.x + deltaX), bounds.y);
-                    }
-                    else if(deltaX == 0 && deltaY != 0) {
-                        newX = adjustX(yCollisionTilePos, deltaY, bounds.x, (int)(predictedPos.y + deltaY));
-                    }
-                }
-            }
-            
-            predictedPos.set(newX, newY);
-            clientSideCorrection(pos, predictedPos, predictedPos, 0.15f);
-            
             lastMoveTime = timeStep.getGameClock();
         }        
-        else {
+        else if(!this.isReconciling) {
             float alpha = 0.15f + 0.108f * (float)((timeStep.getGameClock() - lastMoveTime) / timeStep.getDeltaTime());
             if(alpha > 0.75f) {
                 alpha = 0.75f;
@@ -428,6 +422,32 @@ public abstract class ClientControllableEntity extends ClientEntity {
             clientSideCorrection(pos, predictedPos, predictedPos, alpha);
         }
         
+        addPendingInput(game.getInputSequence(), isAlive() ? vel : Vector2f.ZERO_VECTOR, dt);
+    }
+    
+    /**
+     * Moves the predicted position by the supplied velocity, taking into account
+     * collisions.  This is the same {@link Movement} step the server moves the entity
+     * with, for the same amount of time (the time the input covers), split in to the
+     * same frame sized steps.
+     * 
+     * @param map
+     * @param dt the fraction of a second to move
+     * @param velX
+     * @param velY
+     */
+    protected void predictMovement(Map map, float dt, float velX, float velY) {
+        int movementSpeed = calculateMovementSpeed();
+                                
+        int numberOfSteps = Movement.numberOfSteps(dt);
+        float stepTime = dt / numberOfSteps;
+        
+        float deltaX = (velX * movementSpeed * stepTime);
+        float deltaY = (velY * movementSpeed * stepTime);
+        
+        for(int i = 0; i < numberOfSteps; i++) {
+            this.movement.move(map, bounds, 1, predictedPos, deltaX, deltaY);
+        }
     }
     
     protected boolean collidesAgainstEntity(Rectangle bounds) {
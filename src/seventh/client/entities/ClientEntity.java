@@ -42,6 +42,7 @@ public abstract class ClientEntity implements Renderable {
     
     protected NetEntity prevState, nextState;
     protected long prevTime, nextTime;
+    protected SnapshotBuffer snapshots;
     
     private boolean isAlive;
     
@@ -90,6 +91,8 @@ public abstract class ClientEntity implements Renderable {
         this.bounds = new Rectangle();        
         this.isAlive = true;
         
+        this.snapshots = new SnapshotBuffer();
+        
         this.zOrder = 100;
         
         this.scriptObj = LeoObject.valueOf(this);
@@ -136,6 +139,8 @@ public abstract class ClientEntity implements Renderable {
         this.movementDir.zeroOut();
         this.bounds.setLocation(this.pos);
         
+        this.snapshots.clear();
+        
         if(this.attachedSounds != null) {
             for(int i = 0; i < this.attachedSounds.length; i++) {
                 this.attachedSounds[i] = null;
@@ -155,6 +160,8 @@ public abstract class ClientEntity implements Renderable {
         this.prevTime = this.nextTime;
         this.nextTime = time;
         
+        this.snapshots.add(time, state.posX, state.posY, state.orientation);
+        
         this.id = state.id;
         this.type = state.type;
                 
@@ -306,6 +313,14 @@ public abstract class ClientEntity implements Renderable {
     }
     
     
+    /**
+     * @return true if this entity should be rendered in the past at the {@link seventh.client.SnapshotClock#getRenderTime()}, 
+     * interpolating between the received snapshots
+     */
+    protected boolean isInterpolatedFromSnapshots() {
+        return true;
+    }
+    
     /**
      * Interpolates between the previous and current state sent
      * from the server.
@@ -313,7 +328,16 @@ public abstract class ClientEntity implements Renderable {
      * @param timeStep
      */
     protected void interpolate(TimeStep timeStep) {
-        if(this.prevState != null && this.nextState != null) {
+        if(isInterpolatedFromSnapshots() && this.snapshots.sample(game.getSnapshotClock().getRenderTime(), this.pos)) {
+            this.bounds.setLocation(pos);
+            this.orientation = (float)Math.toRadians(this.snapshots.getSampledOrientation());
+            
+            if(this.prevState != null && this.nextState != null) {
+                this.movementDir.x = nextState.posX - prevState.posX;
+                this.movementDir.y = nextState.posY - prevState.posY;
+            }
+        }
+        else if(this.prevState != null && this.nextState != null) {
             // TODO :: figure out ping time
             float alpha = 0.75f;             
             float dist = (pos.x - nextState.posX) * (pos.x - nextState.posX) + 
@@ -0,0 +1,208 @@
+/*
+ * see license.txt
+ */
+package seventh.client.entities;
+
+import seventh.math.Vector2f;
+
+/**
+ * A small ring buffer of the position and orientation of an entity as received from the server,
+ * stamped with the snapshot time (see {@link seventh.client.SnapshotClock}).  The entity can then be
+ * rendered at any point in time between the received snapshots, smoothing out any network jitter.
+ *
+ * @author Tony
+ *
+ */
+public class SnapshotBuffer {
+
+    private static final int MAX_SNAPSHOTS = 16;
+
+    /**
+     * How far passed the last snapshot we are willing to guess where the entity is, in milliseconds
+     */
+    private static final long MAX_EXTRAPOLATION = 100;
+
+    /**
+     * Any movement faster than this (pixels per second) between two snapshots is considered
+     * a teleport (i.e., respawn) and is not interpolated
+     */
+    private static final float TELEPORT_SPEED = 3200f;
+
+    private long[] times;
+    private float[] posX, posY;
+    private float[] orientations;
+
+    private int head, size;
+
+    private float sampledOrientation;
+
+    /**
+     *
+     */
+    public SnapshotBuffer() {
+        this.times = new long[MAX_SNAPSHOTS];
+        this.posX = new float[MAX_SNAPSHOTS];
+        this.posY = new float[MAX_SNAPSHOTS];
+        this.orientations = new float[MAX_SNAPSHOTS];
+    }
+
+    /**
+     * Removes all snapshots
+     */
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * @return true if there are no snapshots
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @param age 0 being the latest snapshot
+     * @return the index into the ring buffer
+     */
+    private int index(int age) {
+        int index = this.head - age;
+        if(index < 0) {
+            index += MAX_SNAPSHOTS;
+        }
+        return index;
+    }
+
+    /**
+     * Adds a snapshot.  Snapshots older than the latest are ignored, a snapshot with the same
+     * time as the latest replaces it.
+     *
+     * @param time the snapshot time
+     * @param x
+     * @param y
+     * @param orientation in degrees
+     */
+    public void add(long time, float x, float y, float orientation) {
+        if(this.size > 0) {
+            long latest = this.times[this.head];
+            if(time < latest) {
+                return;
+            }
+
+            if(time > latest) {
+                this.head = (this.head + 1) % MAX_SNAPSHOTS;
+                if(this.size < MAX_SNAPSHOTS) {
+                    this.size++;
+                }
+            }
+        }
+        else {
+            this.size = 1;
+        }
+
+        this.times[this.head] = time;
+        this.posX[this.head] = x;
+        this.posY[this.head] = y;
+        this.orientations[this.head] = orientation;
+    }
+
+    /**
+     * Determines the position and orientation of the entity at the supplied time, interpolating between
+     * the snapshots surrounding it.  If the time is passed the latest snapshot, the position is extrapolated
+     * for a short while.
+     *
+     * @param time the time to sample at
+     * @param pos the sampled position is stored here
+     * @return true if a sample was taken
+     */
+    public boolean sample(long time, Vector2f pos) {
+        if(this.size == 0) {
+            return false;
+        }
+
+        int newer = this.head;
+        int older = this.head;
+
+        for(int age = 0; age < this.size; age++) {
+            older = index(age);
+            if(this.times[older] <= time) {
+                break;
+            }
+            newer = older;
+        }
+
+        // before any of our snapshots, or the only snapshot
+        if(older == newer) {
+            if(this.size > 1 && this.times[newer] < time) {
+                extrapolate(time, pos);
+            }
+            else {
+                pos.set(this.posX[newer], this.posY[newer]);
+                this.sampledOrientation = this.orientations[newer];
+            }
+            return true;
+        }
+
+        long span = this.times[newer] - this.times[older];
+        float alpha = (float)(time - this.times[older]) / (float)span;
+
+        if(isTeleport(older, newer, span)) {
+            // stay put until we reach the time of the teleport
+            pos.set(this.posX[older], this.posY[older]);
+            this.sampledOrientation = this.orientations[older];
+        }
+        else {
+            pos.x = this.posX[older] + (alpha * (this.posX[newer] - this.posX[older]));
+            pos.y = this.posY[older] + (alpha * (this.posY[newer] - this.posY[older]));
+            this.sampledOrientation = lerpOrientation(this.orientations[older], this.orientations[newer], alpha);
+        }
+
+        return true;
+    }
+
+    /**
+     * Guess where the entity is, based on the last two snapshots
+     *
+     * @param time
+     * @param pos
+     */
+    private void extrapolate(long time, Vector2f pos) {
+        int newer = this.head;
+        int older = index(1);
+
+        long span = this.times[newer] - this.times[older];
+        long ahead = Math.min(time - this.times[newer], MAX_EXTRAPOLATION);
+
+        this.sampledOrientation = this.orientations[newer];
+
+        if(isTeleport(older, newer, span)) {
+            pos.set(this.posX[newer], this.posY[newer]);
+        }
+        else {
+            float alpha = (float)ahead / (float)span;
+            pos.x = this.posX[newer] + (alpha * (this.posX[newer] - this.posX[older]));
+            pos.y = this.posY[newer] + (alpha * (this.posY[newer] - this.posY[older]));
+        }
+    }
+
+    private boolean isTeleport(int older, int newer, long span) {
+        float dx = this.posX[newer] - this.posX[older];
+        float dy = this.posY[newer] - this.posY[older];
+        float maxDistance = TELEPORT_SPEED * (span / 1000f);
+        return (dx * dx + dy * dy) > Math.max(64 * 64, maxDistance * maxDistance);
+    }
+
+    private float lerpOrientation(float from, float to, float alpha) {
+        if(Math.abs(from - to) > 30) {
+            return alpha < 0.5f ? from : to;
+        }
+        return from + (alpha * (to - from));
+    }
+
+    /**
+     * @return the orientation (in degrees) of the last {@link #sample(long, Vector2f)}
+     */
+    public float getSampledOrientation() {
+        return sampledOrientation;
+    }
+}
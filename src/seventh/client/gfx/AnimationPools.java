@@ -27,14 +27,14 @@ public class AnimationPools {
      * 
      */
     public AnimationPools() {
-        this.alliedBackDeath = new AnimationPool("AlliedBackDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.alliedBackDeath = new AnimationPool("AlliedBackDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
                 return Art.newAlliedBackDeathAnim();
             }
         });
-        this.alliedFrontDeath = new AnimationPool("AlliedFrontDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.alliedFrontDeath = new AnimationPool("AlliedFrontDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -42,14 +42,14 @@ public class AnimationPools {
             }
         });
         
-        this.axisBackDeath = new AnimationPool("AxisBackDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.axisBackDeath = new AnimationPool("AxisBackDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
                 return Art.newAxisBackDeathAnim();
             }
         });
-        this.axisFrontDeath = new AnimationPool("AxisFrontDeath", SeventhConstants.MAX_PLAYERS*2, new AnimationFactory() {
+        this.axisFrontDeath = new AnimationPool("AxisFrontDeath", SeventhConstants.DEFAULT_MAX_PLAYERS*2, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -57,7 +57,7 @@ public class AnimationPools {
             }
         });
         
-        this.explosion = new AnimationPool("Explosion", SeventhConstants.MAX_PLAYERS*32, new AnimationFactory() {
+        this.explosion = new AnimationPool("Explosion", SeventhConstants.DEFAULT_MAX_PLAYERS*32, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
@@ -65,7 +65,7 @@ public class AnimationPools {
             }
         });
         
-        this.missle = new AnimationPool("Missle", SeventhConstants.MAX_PLAYERS*32, new AnimationFactory() {
+        this.missle = new AnimationPool("Missle", SeventhConstants.DEFAULT_MAX_PLAYERS*32, new AnimationFactory() {
             
             @Override
             public AnimatedImage newAnimation() {
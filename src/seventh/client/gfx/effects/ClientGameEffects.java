@@ -61,7 +61,7 @@ public class ClientGameEffects {
         this.backgroundEffects = new Effects();
         this.foregroundEffects = new Effects();
 
-        this.playerBloodEmitters = new Emitter[SeventhConstants.MAX_PLAYERS*3];
+        this.playerBloodEmitters = new Emitter[SeventhConstants.DEFAULT_MAX_PLAYERS*3];
         for(int i = 0; i < this.playerBloodEmitters.length; i++) {
             this.playerBloodEmitters[i] = Emitters.newBloodEmitter(new Vector2f(), 5, 20_000, 30)                                                   
                                                   .kill();             
@@ -693,6 +693,8 @@ public class Hud implements Renderable {
                                     client.getNumberOfBytesCompressed()/1024 + " KiB" : 
                                     client.getNumberOfBytesCompressed() + " B";
         canvas.drawString("Comp B: " + compressedBytes, x, y - 100, color);
+        canvas.drawString("Interp: " + game.getSnapshotClock().getDelay() + " ms (jitter " + game.getSnapshotClock().getJitter() + " ms)", x, y - 130, color);
+        canvas.drawString("Pred E: " + (int)game.getAverageMisprediction() + " / " + (int)game.getMaxMisprediction() + " px", x, y - 115, color);
     }
     
     
@@ -0,0 +1,415 @@
+/*
+ * see license.txt
+ */
+package seventh.client.screens;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.badlogic.gdx.Input.Keys;
+
+import harenet.messages.NetMessage;
+import seventh.client.ClientGame;
+import seventh.client.ClientPlayer;
+import seventh.client.ClientPlayers;
+import seventh.client.SeventhGame;
+import seventh.client.gfx.Canvas;
+import seventh.client.inputs.Inputs;
+import seventh.client.network.LocalSession;
+import seventh.map.Map;
+import seventh.map.MapLoaderUtil;
+import seventh.network.messages.BombDisarmedMessage;
+import seventh.network.messages.BombExplodedMessage;
+import seventh.network.messages.BombPlantedMessage;
+import seventh.network.messages.FlagCapturedMessage;
+import seventh.network.messages.FlagReturnedMessage;
+import seventh.network.messages.FlagStolenMessage;
+import seventh.network.messages.GameEndedMessage;
+import seventh.network.messages.GameEventMessage;
+import seventh.network.messages.GameReadyMessage;
+import seventh.network.messages.GameUpdateMessage;
+import seventh.network.messages.PlayerAwardMessage;
+import seventh.network.messages.PlayerCommanderMessage;
+import seventh.network.messages.PlayerConnectedMessage;
+import seventh.network.messages.PlayerDisconnectedMessage;
+import seventh.network.messages.PlayerKilledMessage;
+import seventh.network.messages.PlayerSpawnedMessage;
+import seventh.network.messages.PlayerSpeechMessage;
+import seventh.network.messages.PlayerSwitchTeamMessage;
+import seventh.network.messages.RoundEndedMessage;
+import seventh.network.messages.RoundStartedMessage;
+import seventh.network.messages.TextMessage;
+import seventh.network.messages.TileAddedMessage;
+import seventh.network.messages.TileRemovedMessage;
+import seventh.network.messages.TilesAddedMessage;
+import seventh.network.messages.TilesRemovedMessage;
+import seventh.shared.Command;
+import seventh.shared.Cons;
+import seventh.shared.Console;
+import seventh.shared.DemoPlayer;
+import seventh.shared.DemoReader;
+import seventh.shared.Scripting;
+import seventh.shared.SeventhConstants;
+import seventh.shared.TimeStep;
+
+/**
+ * Plays back a recorded demo through a {@link ClientGame}, as if the recorded messages were
+ * received from the server.
+ *
+ * <p>
+ * Controls: SPACE pauses, UP/DOWN doubles/halves the speed, LEFT/RIGHT seeks back/forward
+ * {@link #SEEK_STEP} and F follows the next player.
+ *
+ * @author Tony
+ *
+ */
+public class DemoScreen implements Screen {
+
+    private static final long SEEK_STEP = 10_000;
+
+    /**
+     * When playing faster than real time, the client game is updated in steps of
+     * at most this size
+     */
+    private static final long MAX_STEP = 33;
+
+    /**
+     * The viewer of the demo is a spectator which does not take up one of the players slots
+     */
+    private static final int VIEWER_ID = SeventhConstants.MAX_PLAYERS;
+
+    private SeventhGame app;
+    private DemoReader reader;
+    private DemoPlayer player;
+
+    private ClientGame game;
+    private ClientPlayers players;
+    private LocalSession session;
+
+    private int followingPlayerId;
+    private TimeStep playbackTimeStep;
+
+    private Inputs inputs = new Inputs() {
+
+        @Override
+        public boolean keyUp(int key) {
+            switch(key) {
+                case Keys.ESCAPE:
+                    app.goToMenuScreen();
+                    return true;
+                case Keys.SPACE:
+                    player.setPaused(!player.isPaused());
+                    return true;
+                case Keys.UP:
+                    player.setSpeed(player.getSpeed() * 2f);
+                    return true;
+                case Keys.DOWN:
+                    player.setSpeed(player.getSpeed() / 2f);
+                    return true;
+                case Keys.LEFT:
+                    player.seek(player.getTime() - SEEK_STEP);
+                    return true;
+                case Keys.RIGHT:
+                    player.seek(player.getTime() + SEEK_STEP);
+                    return true;
+                case Keys.F:
+                    followNextPlayer();
+                    return true;
+            }
+
+            return super.keyUp(key);
+        }
+    };
+
+    /**
+     * @param app
+     * @param demoFile
+     * @throws IOException
+     */
+    public DemoScreen(SeventhGame app, File demoFile) throws IOException {
+        this.app = app;
+        this.reader = new DemoReader(demoFile);
+        this.player = new DemoPlayer(this.reader, new DemoPlayer.DemoListener() {
+
+            @Override
+            public void onKeyframe(GameReadyMessage msg) {
+                applyKeyframe(msg);
+            }
+
+            @Override
+            public void onMessage(NetMessage msg) {
+                applyMessage(msg);
+            }
+        });
+
+        this.session = new LocalSession();
+        this.session.newSessionPlayerId(VIEWER_ID);
+
+        this.players = new ClientPlayers(SeventhConstants.MAX_PLAYERS + 1);
+        this.players.addPlayer(new ClientPlayer("Demo", VIEWER_ID));
+
+        this.followingPlayerId = -1;
+        this.playbackTimeStep = new TimeStep();
+    }
+
+    private void applyKeyframe(GameReadyMessage msg) {
+        if(this.game == null) {
+            try {
+                String mapFile = msg.gameState.map.path;
+                Map map = MapLoaderUtil.loadMap(Scripting.newSandboxedRuntime(), mapFile, true);
+
+                this.game = new ClientGame(this.app, this.players, map, this.session);
+                this.game.prepareGame(mapFile, msg.gameState);
+                this.game.gameReady(msg);
+            }
+            catch(Exception e) {
+                Cons.println("*** Unable to load the demo: " + e);
+                this.app.goToMenuScreen();
+            }
+        }
+        else {
+            /* the keyframe holds all of the destroyed and added tiles */
+            Map map = this.game.getMap();
+            map.restoreDestroyedTiles();
+            map.removeAddedTiles();
+
+            this.game.applyFullGameState(msg.gameState);
+        }
+    }
+
+    private void applyMessage(NetMessage message) {
+        if(this.game == null) {
+            return;
+        }
+
+        if(message instanceof GameUpdateMessage) {
+            GameUpdateMessage msg = (GameUpdateMessage)message;
+            msg.netUpdate.spectatingPlayerId = this.followingPlayerId;
+            this.game.applyGameUpdate(msg);
+        }
+        else if(message instanceof PlayerKilledMessage) {
+            this.game.playerKilled((PlayerKilledMessage)message);
+        }
+        else if(message instanceof PlayerSpawnedMessage) {
+            this.game.playerSpawned((PlayerSpawnedMessage)message);
+        }
+        else if(message instanceof GameEndedMessage) {
+            this.game.gameEnded((GameEndedMessage)message);
+        }
+        else if(message instanceof PlayerSwitchTeamMessage) {
+            this.game.playerSwitchedTeam((PlayerSwitchTeamMessage)message);
+        }
+        else if(message instanceof RoundStartedMessage) {
+            this.game.roundStarted((RoundStartedMessage)message);
+        }
+        else if(message instanceof RoundEndedMessage) {
+            this.game.roundEnded((RoundEndedMessage)message);
+        }
+        else if(message instanceof BombPlantedMessage) {
+            this.game.bombPlanted((BombPlantedMessage)message);
+        }
+        else if(message instanceof BombDisarmedMessage) {
+            this.game.bombDisarmed((BombDisarmedMessage)message);
+        }
+        else if(message instanceof BombExplodedMessage) {
+            this.game.bombExploded((BombExplodedMessage)message);
+        }
+        else if(message instanceof FlagCapturedMessage) {
+            this.game.flagCaptured((FlagCapturedMessage)message);
+        }
+        else if(message instanceof FlagReturnedMessage) {
+            this.game.flagReturned((FlagReturnedMessage)message);
+        }
+        else if(message instanceof FlagStolenMessage) {
+            this.game.flagStolen((FlagStolenMessage)message);
+        }
+        else if(message instanceof TileRemovedMessage) {
+            this.game.removeTile((TileRemovedMessage)message);
+        }
+        else if(message instanceof TilesRemovedMessage) {
+            this.game.removeTiles((TilesRemovedMessage)message);
+        }
+        else if(message instanceof TileAddedMessage) {
+            this.game.addTile((TileAddedMessage)message);
+        }
+        else if(message instanceof TilesAddedMessage) {
+            this.game.addTiles((TilesAddedMessage)message);
+        }
+        else if(message instanceof PlayerCommanderMessage) {
+            this.game.playerCommander((PlayerCommanderMessage)message);
+        }
+        else if(message instanceof PlayerAwardMessage) {
+            this.game.playerReceiveAward((PlayerAwardMessage)message);
+        }
+        else if(message instanceof GameEventMessage) {
+            this.game.gameEventMessage((GameEventMessage)message);
+        }
+        else if(message instanceof PlayerConnectedMessage) {
+            this.game.playerConnected((PlayerConnectedMessage)message);
+        }
+        else if(message instanceof PlayerDisconnectedMessage) {
+            this.game.playerDisconnected((PlayerDisconnectedMessage)message);
+        }
+        else if(message instanceof TextMessage) {
+            this.game.textMessage((TextMessage)message);
+        }
+        else if(message instanceof PlayerSpeechMessage) {
+            this.game.playerSpeech((PlayerSpeechMessage)message);
+        }
+    }
+
+    /**
+     * Follows the next alive player, or goes back to roaming once
+     * all players have been followed
+     */
+    private void followNextPlayer() {
+        List<ClientPlayer> playerList = this.players.asList();
+
+        int nextPlayerId = -1;
+        for(int i = 0; i < playerList.size(); i++) {
+            ClientPlayer p = playerList.get(i);
+            if(p.getId() != VIEWER_ID && p.isAlive() && p.getId() > this.followingPlayerId) {
+                if(nextPlayerId < 0 || p.getId() < nextPlayerId) {
+                    nextPlayerId = p.getId();
+                }
+            }
+        }
+
+        this.followingPlayerId = nextPlayerId;
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.State#enter()
+     */
+    @Override
+    public void enter() {
+        Console console = this.app.getConsole();
+        console.addCommand(new Command("demo_speed") {
+
+            @Override
+            public void execute(Console console, String... args) {
+                if(args.length > 0) {
+                    player.setSpeed(Float.parseFloat(args[0]));
+                }
+
+                console.println("demo_speed: " + player.getSpeed());
+            }
+        });
+
+        console.addCommand(new Command("demo_seek") {
+
+            @Override
+            public void execute(Console console, String... args) {
+                if(args.length > 0) {
+                    player.seek((long)(Float.parseFloat(args[0]) * 1000f));
+                }
+
+                console.println("demo_seek: " + (player.getTime() / 1000) + " / " + (reader.getDuration() / 1000) + " seconds");
+            }
+        });
+
+        console.addCommand(new Command("demo_pause") {
+
+            @Override
+            public void execute(Console console, String... args) {
+                player.setPaused(!player.isPaused());
+            }
+        });
+
+        /* load up the first keyframe */
+        this.player.advance(0);
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.State#exit()
+     */
+    @Override
+    public void exit() {
+        Console console = this.app.getConsole();
+        console.removeCommand("demo_speed");
+        console.removeCommand("demo_seek");
+        console.removeCommand("demo_pause");
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.client.screens.Screen#destroy()
+     */
+    @Override
+    public void destroy() {
+        if(this.game != null) {
+            this.game.destroy();
+            this.game = null;
+        }
+
+        try {
+            this.reader.close();
+        }
+        catch(IOException e) {
+            Cons.println("*** Unable to close the demo: " + e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.State#update(seventh.shared.TimeStep)
+     */
+    @Override
+    public void update(TimeStep timeStep) {
+        if(this.game == null) {
+            return;
+        }
+
+        this.game.showScoreBoard(this.inputs.isKeyDown(Keys.TAB));
+
+        long playbackTime = this.player.elapsedPlaybackTime(timeStep);
+
+        /* the client game is stepped in real time sized steps, so that
+         * playing faster doesn't change what is simulated on the client
+         */
+        do {
+            long step = Math.min(playbackTime, MAX_STEP);
+            playbackTime -= step;
+
+            this.player.advance(step);
+
+            this.playbackTimeStep.setDeltaTime(step);
+            this.playbackTimeStep.setGameClock(this.playbackTimeStep.getGameClock() + step);
+            this.game.update(this.playbackTimeStep);
+        }
+        while(playbackTime > 0 && this.game != null);
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.client.screens.Screen#render(seventh.client.gfx.Canvas, float)
+     */
+    @Override
+    public void render(Canvas canvas, float alpha) {
+        if(this.game == null) {
+            return;
+        }
+
+        this.game.render(canvas, alpha);
+
+        String status = String.format("Demo %s / %s  x%.2f%s",
+                formatTime(this.player.getTime()),
+                formatTime(this.reader.getDuration()),
+                this.player.getSpeed(),
+                this.player.isFinished() ? "  [end]" : this.player.isPaused() ? "  [paused]" : "");
+
+        canvas.setFont("Consola", 14);
+        canvas.drawString(status, 10, canvas.getHeight() - 10, 0xffffffff);
+    }
+
+    private static String formatTime(long time) {
+        long seconds = time / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.client.screens.Screen#getInputs()
+     */
+    @Override
+    public Inputs getInputs() {
+        return this.inputs;
+    }
+}
@@ -766,19 +766,19 @@ public class InGameScreen implements Screen {
         /* capture the inputs for moving the camera if
          * we are in freeform mode
          */
-        if(!game.isFreeformCamera()) {
-            inputMessage.keys = inputKeys;
-        }
-        else {
-            inputMessage.keys = 0;
-        }
-        
-        inputMessage.orientation = game.calcPlayerOrientation(mousePos.x, mousePos.y);                 
+        inputMessage.nextInput(!game.isFreeformCamera() ? inputKeys : 0, 
+                               game.calcPlayerOrientation(mousePos.x, mousePos.y),
+                               (int)timeStep.getDeltaTime());                 
+        inputMessage.interpolationDelay = (int)game.getSnapshotClock().getDelay();
         connection.getClientProtocol().sendPlayerInputMessage(inputMessage);
         connection.updateNetwork(timeStep);
-                        
-        game.update(timeStep);
+        
+        /* apply the input before updating, so that the predicted
+         * movement matches the input sequence sent to the server
+         */
+        game.setInputSequence(inputMessage.sequence);
         game.applyPlayerInput(mousePos.x, mousePos.y, inputKeys);
+        game.update(timeStep);
                 
         inputKeys = 0;
         
@@ -73,7 +73,7 @@ public class ServerSetupScreen extends AbstractServerSetupScreen {
         this.mapPreviews = buildMapPreviews(mapListings);
         
         this.gameSettings.currentMap = mapListings.isEmpty() ? null : this.mapListings.get(0);
-        this.gameSettings.maxPlayers = SeventhConstants.MAX_PLAYERS;
+        this.gameSettings.maxPlayers = SeventhConstants.DEFAULT_MAX_PLAYERS;
         this.gameSettings.gameType = GameType.Type.TDM;
         
         this.gameSettings.maxScore = 50;
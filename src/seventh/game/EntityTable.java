@@ -0,0 +1,556 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import static seventh.shared.SeventhConstants.MAX_PERSISTANT_ENTITIES;
+
+import java.util.Arrays;
+
+import seventh.game.entities.Entity;
+import seventh.game.entities.Entity.Type;
+
+/**
+ * A slot-map of the {@link Entity}s in the game.  The slot index is the entity id (which is what
+ * is sent over the wire); along side the slots, a dense array of the occupied slots is kept so that
+ * update loops only touch the entities that exist, and a dense view per {@link Type} is maintained
+ * as entities are added and removed.
+ *
+ * <p>
+ * Ids are handed out from free lists rather than by scanning the slots.  Volatile ids are recycled
+ * in the order they were freed, and only after they have been dead for {@link #ID_REUSE_DELAY} frames,
+ * because clients need time to time out the previous owner of the id (only player and persistent
+ * entities are explicitly told when they are dead).
+ *
+ * <p>
+ * Each slot has a generation, which is bumped every time an entity is placed in it.  A handle
+ * ({@link #handleOf(int)}) combines the id and the generation, and can be used to detect stale
+ * references to an entity whose id has since been reused.  Entities are given their handle when they
+ * are added ({@link Entity#getEntityHandle()}); long lived references between entities hold on to the handle,
+ * and resolve it with {@link #getByHandle(long)}.
+ *
+ * @author Tony
+ *
+ */
+public class EntityTable {
+
+    /**
+     * The number of frames an id must be dead before it can be reused
+     */
+    public static final int ID_REUSE_DELAY = 10;
+
+    /**
+     * A handle that never references an entity
+     */
+    public static final long NO_HANDLE = 0;
+
+    /**
+     * A dense list of entities
+     *
+     * @author Tony
+     *
+     */
+    public static class EntityList {
+        private Entity[] entities;
+        private int size;
+
+        EntityList(int capacity) {
+            this.entities = new Entity[capacity];
+        }
+
+        /**
+         * @return the number of entities in this list
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index
+         * @return the entity at the supplied index
+         */
+        public Entity get(int index) {
+            return entities[index];
+        }
+
+        int add(Entity ent) {
+            if(size >= entities.length) {
+                entities = Arrays.copyOf(entities, entities.length * 2);
+            }
+            entities[size] = ent;
+            return size++;
+        }
+
+        /**
+         * Removes the entity at the supplied index by swapping in the last entity
+         *
+         * @param index
+         * @return the entity that was moved into the index, or null if none
+         */
+        Entity removeAt(int index) {
+            size--;
+            Entity moved = null;
+            if(index < size) {
+                moved = entities[size];
+                entities[index] = moved;
+            }
+            entities[size] = null;
+            return moved;
+        }
+
+        void clear() {
+            for(int i = 0; i < size; i++) {
+                entities[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * A queue of freed ids, in the order they were freed
+     */
+    private static class IdQueue {
+        private int[] ids;
+        private int head, size;
+
+        IdQueue(int capacity) {
+            this.ids = new int[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return ids[head];
+        }
+
+        int poll() {
+            int id = ids[head];
+            head = (head + 1) % ids.length;
+            size--;
+            return id;
+        }
+
+        void push(int id) {
+            if(size >= ids.length) {
+                int[] newIds = new int[ids.length * 2];
+                for(int i = 0; i < size; i++) {
+                    newIds[i] = ids[(head + i) % ids.length];
+                }
+                ids = newIds;
+                head = 0;
+            }
+            ids[(head + size) % ids.length] = id;
+            size++;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    private static final int NOT_LISTED = -1;
+
+    private final int maxCapacity;
+    private final int firstPersistantId, endPersistantId;
+    private final int firstVolatileId;
+
+    private Entity[] slots;
+    private int[] generations;
+    private int[] diedAtFrame;
+    private int[] activeIndex;
+    private int[] typeIndex;
+
+    private EntityList active;
+    private EntityList[] byType;
+
+    /* the free persistent ids, each id is in the stack at most once */
+    private int[] freePersistantIds;
+    private int numberOfFreePersistantIds;
+    private boolean[] isPersistantIdFree;
+
+    private IdQueue freeVolatileIds;
+    private int nextUnusedVolatileId;
+
+    /* one past the highest player or persistent id that has held an entity */
+    private int persistantIdsInUse;
+
+    private int frame;
+
+    /**
+     * @param initialCapacity the initial number of slots
+     * @param maxCapacity the maximum number of slots
+     * @param firstPersistantId the first persistent id (all ids below are player ids)
+     * @param endPersistantId the last persistent id (exclusive)
+     * @param firstVolatileId the first volatile id
+     */
+    public EntityTable(int initialCapacity, int maxCapacity, int firstPersistantId, int endPersistantId, int firstVolatileId) {
+        this.maxCapacity = maxCapacity;
+        this.firstPersistantId = firstPersistantId;
+        this.endPersistantId = endPersistantId;
+        this.firstVolatileId = firstVolatileId;
+
+        this.slots = new Entity[initialCapacity];
+        this.generations = new int[initialCapacity];
+        this.diedAtFrame = new int[initialCapacity];
+        this.activeIndex = new int[initialCapacity];
+        this.typeIndex = new int[initialCapacity];
+
+        this.active = new EntityList(64);
+
+        Type[] types = Type.values();
+        this.byType = new EntityList[types.length];
+        for(int i = 0; i < types.length; i++) {
+            this.byType[i] = new EntityList(16);
+        }
+
+        // room for every persistent id, so a freed id is never lost
+        this.freePersistantIds = new int[Math.max(MAX_PERSISTANT_ENTITIES, endPersistantId - firstPersistantId)];
+        this.isPersistantIdFree = new boolean[endPersistantId - firstPersistantId];
+        this.freeVolatileIds = new IdQueue(64);
+
+        clear();
+    }
+
+    /**
+     * Removes all of the entities, all ids are immediately available for reuse
+     */
+    public void clear() {
+        for(int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+            activeIndex[i] = NOT_LISTED;
+            typeIndex[i] = NOT_LISTED;
+            diedAtFrame[i] = frame - ID_REUSE_DELAY - 1;
+        }
+
+        active.clear();
+        for(int i = 0; i < byType.length; i++) {
+            byType[i].clear();
+        }
+
+        // push in reverse order, so that the lowest ids are handed out first
+        numberOfFreePersistantIds = 0;
+        for(int i = endPersistantId - 1; i >= firstPersistantId; i--) {
+            freePersistantIds[numberOfFreePersistantIds++] = i;
+            isPersistantIdFree[i - firstPersistantId] = true;
+        }
+
+        freeVolatileIds.clear();
+        nextUnusedVolatileId = firstVolatileId;
+    }
+
+    /**
+     * Makes the ids of all of the empty slots immediately available for reuse (i.e., 
+     * at the start of a round, when there are no clients holding on to the previous 
+     * owners of the ids)
+     */
+    public void releaseDeadIds() {
+        for(int i = 0; i < slots.length; i++) {
+            if(slots[i] == null) {
+                diedAtFrame[i] = frame - ID_REUSE_DELAY - 1;
+            }
+        }
+    }
+    
+    /**
+     * Advances the frame counter, this should be called once per game update
+     */
+    public void nextFrame() {
+        frame++;
+    }
+
+    /**
+     * @return the sparse array of slots, indexed by entity id.  The array is replaced
+     * when the table grows, so it should not be held on to.
+     */
+    public Entity[] getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return the dense list of entities currently in the table
+     */
+    public EntityList getActive() {
+        return active;
+    }
+
+    /**
+     * @param type
+     * @return the dense list of entities of the supplied type
+     */
+    public EntityList getByType(Type type) {
+        return byType[type.ordinal()];
+    }
+
+    /**
+     * @param id
+     * @return the entity in the slot, or null if empty
+     */
+    public Entity get(int id) {
+        if(id >= 0 && id < slots.length) {
+            return slots[id];
+        }
+        return null;
+    }
+
+    /**
+     * @param id
+     * @return a handle to the entity currently in the supplied slot
+     */
+    public long handleOf(int id) {
+        return ((long)generations[id] << 32) | (id & 0xffffffffL);
+    }
+
+    /**
+     * @param handle
+     * @return the entity referenced by the handle, or null if the entity
+     * has since been removed (and potentially replaced)
+     */
+    public Entity getByHandle(long handle) {
+        if(handle == NO_HANDLE) {
+            return null;
+        }
+        
+        int id = (int)handle;
+        int generation = (int)(handle >>> 32);
+        if(id >= 0 && id < slots.length && generations[id] == generation) {
+            return slots[id];
+        }
+        return null;
+    }
+
+    /**
+     * The player and persistent ids below this are the only ones that have held an entity, so the
+     * only ones a client could have to be told are dead.  This isn't reset when the table is
+     * cleared, as clients may still hold on to the entities that were in it.
+     *
+     * @return one past the highest player or persistent id that has held an entity
+     */
+    public int getPersistantIdsInUse() {
+        return persistantIdsInUse;
+    }
+
+    /**
+     * @param id
+     * @return true if the slot is empty or holds a dead entity
+     */
+    public boolean isDead(int id) {
+        Entity ent = get(id);
+        return ent == null || !ent.isAlive();
+    }
+
+    private boolean grow(int minCapacity) {
+        int capacity = slots.length;
+        if(capacity >= maxCapacity || minCapacity <= capacity) {
+            return false;
+        }
+
+        int newCapacity = capacity;
+        while(newCapacity < minCapacity) {
+            newCapacity *= 2;
+        }
+        newCapacity = Math.min(newCapacity, maxCapacity);
+
+        slots = Arrays.copyOf(slots, newCapacity);
+        generations = Arrays.copyOf(generations, newCapacity);
+        diedAtFrame = Arrays.copyOf(diedAtFrame, newCapacity);
+        activeIndex = Arrays.copyOf(activeIndex, newCapacity);
+        typeIndex = Arrays.copyOf(typeIndex, newCapacity);
+
+        for(int i = capacity; i < newCapacity; i++) {
+            activeIndex[i] = NOT_LISTED;
+            typeIndex[i] = NOT_LISTED;
+            diedAtFrame[i] = frame - ID_REUSE_DELAY - 1;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the next available persistent id, or -1 if none are available
+     */
+    public int nextPersistantId() {
+        if(numberOfFreePersistantIds > 0) {
+            return freePersistantIds[numberOfFreePersistantIds - 1];
+        }
+        return -1;
+    }
+
+    /**
+     * The id is not claimed until the entity is {@link #add(Entity)}ed
+     *
+     * @return the next available volatile id, or -1 if none are available
+     * (the table is at its max capacity)
+     */
+    public int nextVolatileId() {
+        while(!freeVolatileIds.isEmpty()) {
+            int id = freeVolatileIds.peek();
+            if(slots[id] != null) {
+                freeVolatileIds.poll();
+                continue;
+            }
+
+            if(frame - diedAtFrame[id] > ID_REUSE_DELAY) {
+                return id;
+            }
+
+            // ids are queued in the order they died, so none of the
+            // remaining ids are ready either
+            break;
+        }
+
+        if(nextUnusedVolatileId >= slots.length) {
+            grow(nextUnusedVolatileId + 1);
+        }
+
+        if(nextUnusedVolatileId < slots.length) {
+            return nextUnusedVolatileId;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Adds the entity in the slot of its id; if there already is an entity in the slot
+     * it is replaced
+     *
+     * @param ent
+     * @return true if added
+     */
+    public boolean add(Entity ent) {
+        int id = ent.getId();
+        if(id < 0 || id >= maxCapacity) {
+            return false;
+        }
+
+        grow(id + 1);
+
+        Entity existing = slots[id];
+        if(existing == ent) {
+            return true;
+        }
+
+        if(existing != null) {
+            unlist(id, existing);
+        }
+
+        claim(id);
+
+        if(id < endPersistantId && id >= persistantIdsInUse) {
+            persistantIdsInUse = id + 1;
+        }
+
+        slots[id] = ent;
+        generations[id]++;
+        diedAtFrame[id] = Integer.MAX_VALUE;
+        ent.setEntityHandle(handleOf(id));
+
+        activeIndex[id] = active.add(ent);
+        typeIndex[id] = byType[ent.getType().ordinal()].add(ent);
+        return true;
+    }
+
+    private void claim(int id) {
+        if(id >= firstVolatileId) {
+            if(!freeVolatileIds.isEmpty() && freeVolatileIds.peek() == id) {
+                freeVolatileIds.poll();
+            }
+            else if(id >= nextUnusedVolatileId) {
+                nextUnusedVolatileId = id + 1;
+            }
+        }
+        else if(id >= firstPersistantId && id < endPersistantId) {
+            if(!isPersistantIdFree[id - firstPersistantId]) {
+                return;
+            }
+            isPersistantIdFree[id - firstPersistantId] = false;
+            
+            // the id is usually the one on top (handed out by nextPersistantId), but 
+            // an entity can also be added directly with any free id
+            for(int i = numberOfFreePersistantIds - 1; i >= 0; i--) {
+                if(freePersistantIds[i] == id) {
+                    numberOfFreePersistantIds--;
+                    System.arraycopy(freePersistantIds, i + 1, freePersistantIds, i, numberOfFreePersistantIds - i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void unlist(int id, Entity ent) {
+        Entity moved = active.removeAt(activeIndex[id]);
+        if(moved != null) {
+            activeIndex[moved.getId()] = activeIndex[id];
+        }
+        activeIndex[id] = NOT_LISTED;
+
+        moved = byType[ent.getType().ordinal()].removeAt(typeIndex[id]);
+        if(moved != null) {
+            typeIndex[moved.getId()] = typeIndex[id];
+        }
+        typeIndex[id] = NOT_LISTED;
+    }
+
+    /**
+     * Removes the entity from the table, freeing up its id
+     *
+     * @param id
+     */
+    public void remove(int id) {
+        Entity ent = get(id);
+        if(ent == null) {
+            return;
+        }
+
+        unlist(id, ent);
+        slots[id] = null;
+
+        if(diedAtFrame[id] > frame) {
+            diedAtFrame[id] = frame;
+        }
+
+        if(id >= firstVolatileId) {
+            freeVolatileIds.push(id);
+        }
+        else if(id >= firstPersistantId && id < endPersistantId) {
+            // guard against the id being freed twice, so the stack never 
+            // holds more than the persistent ids
+            if(!isPersistantIdFree[id - firstPersistantId]) {
+                isPersistantIdFree[id - firstPersistantId] = true;
+                freePersistantIds[numberOfFreePersistantIds++] = id;
+            }
+        }
+    }
+
+    /**
+     * Marks the entity as alive for this frame
+     *
+     * @param id
+     */
+    public void markAlive(int id) {
+        diedAtFrame[id] = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Marks the entity as dead.  The entity lingers in the table for one frame after
+     * it is first marked as dead, after which it is removed.
+     *
+     * @param id
+     * @return true if the entity was removed
+     */
+    public boolean markDead(int id) {
+        if(diedAtFrame[id] > frame) {
+            diedAtFrame[id] = frame;
+            return false;
+        }
+
+        if(frame - diedAtFrame[id] >= 1) {
+            remove(id);
+            return true;
+        }
+
+        return false;
+    }
+}
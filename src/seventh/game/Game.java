@@ -3,6 +3,7 @@
  */
 package seventh.game;
 
+import static seventh.shared.SeventhConstants.INITIAL_ENTITY_CAPACITY;
 import static seventh.shared.SeventhConstants.MAX_ENTITIES;
 import static seventh.shared.SeventhConstants.MAX_PERSISTANT_ENTITIES;
 import static seventh.shared.SeventhConstants.MAX_PLAYERS;
@@ -10,7 +11,9 @@ import static seventh.shared.SeventhConstants.MAX_TIMERS;
 import static seventh.shared.SeventhConstants.SPAWN_INVINCEABLILITY_TIME;
 
 import java.io.File;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
@@ -20,6 +23,7 @@ import leola.vm.types.LeoObject;
 import seventh.ai.AISystem;
 import seventh.ai.basic.AILeolaLibrary;
 import seventh.ai.basic.DefaultAISystem;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.entities.Base;
 import seventh.game.entities.Bomb;
 import seventh.game.entities.BombTarget;
@@ -64,6 +68,7 @@ import seventh.game.net.NetMapAdditions;
 import seventh.game.net.NetMapDestructables;
 import seventh.game.net.NetSound;
 import seventh.game.net.NetSoundByEntity;
+import seventh.game.weapons.Bullet;
 import seventh.game.weapons.Explosion;
 import seventh.game.weapons.Fire;
 import seventh.game.weapons.FlameThrower;
@@ -78,8 +83,6 @@ import seventh.game.weapons.Smoke;
 import seventh.game.weapons.Springfield;
 import seventh.game.weapons.Thompson;
 import seventh.game.weapons.Weapon;
-import seventh.graph.GraphNode;
-import seventh.map.GraphNodeFactory;
 import seventh.map.Map;
 import seventh.map.MapGraph;
 import seventh.map.MapObject;
@@ -92,12 +95,14 @@ import seventh.math.Vector4f;
 import seventh.network.messages.AICommandMessage;
 import seventh.network.messages.PlayerInputMessage;
 import seventh.server.GameServerLeolaLibrary;
-import seventh.server.SeventhScriptingCommonLibrary;
 import seventh.shared.Cons;
 import seventh.shared.Debugable;
 import seventh.shared.EventDispatcher;
 import seventh.shared.EventListener;
 import seventh.shared.EventMethod;
+import seventh.shared.EventPool;
+import seventh.shared.EventPool.EventFactory;
+import seventh.shared.ScriptProfiler;
 import seventh.shared.Scripting;
 import seventh.shared.SeventhConfig;
 import seventh.shared.SeventhConstants;
@@ -115,21 +120,6 @@ import seventh.shared.Updatable;
 public class Game implements GameInfo, Debugable, Updatable {
     
     
-    /**
-     * Null Node Data.
-     * 
-     * @author Tony
-     *
-     */
-    private static class NodeData implements GraphNodeFactory<Void> {        
-        @Override
-        public Void createEdgeData(Map map, GraphNode<Tile, Void> left,
-                GraphNode<Tile, Void> right) {        
-            return null;
-        }                
-    }
-        
-    
     public static final Type[] alliedWeapons = {
         Type.THOMPSON,
         Type.SHOTGUN,
@@ -154,12 +144,11 @@ public class Game implements GameInfo, Debugable, Updatable {
         Type.FLAME_THROWER,
     };
     
-    private Entity[] entities;    
+    private EntityTable entityTable;    
     private PlayerEntity[] playerEntities;
-    private int[] deadFrames;    
     
     private Map map;    
-    private MapGraph<Void> graph;
+    private MapGraph graph;
     private GameMap gameMap;
     private GameType gameType;
     private List<MapObject> collidableMapObjects;
@@ -175,10 +164,17 @@ public class Game implements GameInfo, Debugable, Updatable {
     private Players players;
                 
     private EventDispatcher dispatcher;
+    
+    private EventPool<PlayerKilledEvent> playerKilledEvents;
+    private EventPool<PlayerSpawnedEvent> playerSpawnedEvents;
+    private EventPool<TileRemovedEvent> tileRemovedEvents;
+    private EventPool<TileAddedEvent> tileAddedEvents;
             
     private long time;
+    private long gameClock;
     
     private Random random;
+    private Clock wallClock;
     
     private SoundEventPool soundEvents
                          , lastFramesSoundEvents;        
@@ -198,9 +194,6 @@ public class Game implements GameInfo, Debugable, Updatable {
     private final int TILE_WIDTH, TILE_HEIGHT;
     
     private SeventhConfig config;
-
-    
-    private int lastValidId;
     
     private AISystem aiSystem;
     private PlayerAwardSystem awardSystem;
@@ -209,6 +202,18 @@ public class Game implements GameInfo, Debugable, Updatable {
     private EventRegistration eventRegistration;
     private LeoObject scriptObj;
     
+    private PlayerHistory playerHistory;
+    private PlayerInputBuffer[] inputBuffers;
+    private SnapshotPacker[] snapshotPackers;
+    private NetEntitySizes netEntitySizes;
+    private int snapshotBudget;
+    private long entityUpdateTime;
+    private long[] entityTypeUpdateTimes;
+    private long aiUpdateTime;
+    private boolean lagCompensation;
+    private Rectangle rewoundBounds;
+    private Vector2f rewoundCenter;
+    
     /**
      * @param config
      * @param players
@@ -227,21 +232,59 @@ public class Game implements GameInfo, Debugable, Updatable {
         
         this.dispatcher = dispatcher;
         
+        /* the events that are queued during combat are pooled */
+        this.playerKilledEvents = new EventPool<PlayerKilledEvent>(SeventhConstants.MAX_PLAYERS, new EventFactory<PlayerKilledEvent>() {
+            @Override
+            public PlayerKilledEvent newEvent() {
+                return new PlayerKilledEvent();
+            }
+        });
+        this.playerSpawnedEvents = new EventPool<PlayerSpawnedEvent>(SeventhConstants.MAX_PLAYERS, new EventFactory<PlayerSpawnedEvent>() {
+            @Override
+            public PlayerSpawnedEvent newEvent() {
+                return new PlayerSpawnedEvent();
+            }
+        });
+        this.tileRemovedEvents = new EventPool<TileRemovedEvent>(32, new EventFactory<TileRemovedEvent>() {
+            @Override
+            public TileRemovedEvent newEvent() {
+                return new TileRemovedEvent();
+            }
+        });
+        this.tileAddedEvents = new EventPool<TileAddedEvent>(8, new EventFactory<TileAddedEvent>() {
+            @Override
+            public TileAddedEvent newEvent() {
+                return new TileAddedEvent();
+            }
+        });
+        
         this.gameMap = gameMap;
         this.map = gameMap.getMap();
         this.collidableMapObjects = new ArrayList<MapObject>();
         
-        this.graph = map.createMapGraph(new NodeData());
+        this.graph = map.createMapGraph();
+        this.map.getChangeJournal().addListener(this.graph);
         this.gameTimers = new Timers(MAX_TIMERS);
         this.gameTriggers = new Triggers(this);
+        this.gameTriggers.setBudget(config.getConfig().getInt(2, "sv_script_budget"));
         
-        this.entities = new Entity[MAX_ENTITIES];
+        this.entityTable = new EntityTable(INITIAL_ENTITY_CAPACITY, MAX_ENTITIES, 
+                                           MAX_PLAYERS, MAX_PERSISTANT_ENTITIES, MAX_PLAYERS + MAX_PERSISTANT_ENTITIES);
         this.playerEntities = new PlayerEntity[MAX_PLAYERS];
         
-        this.scriptObj = LeoObject.valueOf(this);
+        this.playerHistory = new PlayerHistory(MAX_PLAYERS, 
+                                               config.getConfig().getInt((int)PlayerHistory.DEFAULT_HISTORY_TIME, "sv_lag_compensation_window"),
+                                               Math.max(1, Math.abs(config.getConfig().getInt(20, "sv_framerate"))));
+        this.inputBuffers = new PlayerInputBuffer[MAX_PLAYERS];
+        this.snapshotPackers = new SnapshotPacker[MAX_PLAYERS];
+        this.netEntitySizes = new NetEntitySizes();
+        this.snapshotBudget = Integer.MAX_VALUE;
+        this.entityTypeUpdateTimes = new long[Type.values().length];
+        this.lagCompensation = config.getConfig().getBool(true, "sv_lag_compensation");
+        this.rewoundBounds = new Rectangle();
+        this.rewoundCenter = new Vector2f();
         
-        this.deadFrames = new int[MAX_ENTITIES];
-        markDeadFrames();
+        this.scriptObj = LeoObject.valueOf(this);
                 
         this.bombTargets = new ArrayList<BombTarget>();
         this.vehicles = new ArrayList<Vehicle>();
@@ -257,8 +300,10 @@ public class Game implements GameInfo, Debugable, Updatable {
         this.aiSystem = new DefaultAISystem();
         
         this.random = new Random();
+        this.wallClock = Clock.systemUTC();
         
         this.players = players;                
+        this.players.setRandom(this.random);
         
         this.enableFOW = true;
         this.time = gameType.getMatchTime();
@@ -305,18 +350,16 @@ public class Game implements GameInfo, Debugable, Updatable {
             
             @Override
             public void onRoundStarted(RoundStartedEvent event) {
-                markDeadFrames();
-                
-                // remove any nodes we may have created by destructable
-                // terrain
-                for(Tile tile : map.getRemovedTiles()) {
-                    graph.removeNode(tile.getXIndex(), tile.getYIndex());
-                }
-                
+                entityTable.releaseDeadIds();
+                playerHistory.clear();
                 
                 map.restoreDestroyedTiles();
                 map.removeAddedTiles();
                 
+                // bring the navigation graph (and anything else
+                // derived from the map) back to the restored map
+                map.getChangeJournal().flush();
+                
                 loadMapScripts();
                 
                 aiSystem.startOfRound(Game.this);
@@ -354,57 +397,42 @@ public class Game implements GameInfo, Debugable, Updatable {
      * @return the next available slot for an entity
      */
     public int getNextPersistantId() {
-        for(int i = MAX_PLAYERS; i < MAX_PERSISTANT_ENTITIES; i++) {
-            if(entities[i] == null) {
-                return i;
-            }
-        }
-        
-        return -1;
+        return this.entityTable.nextPersistantId();
     }
     
     /**
      * Calculates the next valid ID.  If there are no entity slots available, 
+     * the entity table is grown; if the table is already at {@link SeventhConstants#MAX_ENTITIES}
      * this will create room by destroying a volatile object.
      *  
      * @return a valid id.
      */
     public int getNextEntityId() {
-        // NOTE: Maybe we want to keep track of the last 
-        // assigned ID, so that we can more quickly find a new valid
-        // one -- for now we also start from the beginning.
-        lastValidId = 0;  
-        
-        for(int i = MAX_PLAYERS + MAX_PERSISTANT_ENTITIES + lastValidId; i < MAX_ENTITIES; i++) {            
-            // We the delay the ability to reuse a volatile entity id
-            // because clients need time to timeout the current entity
-            // NOTE: Only persistent and player entities are told when 
-            // they are dead
-            //
-            // The delay is 10 frames (at normal 20 fps ~500 ms delay)
-            if(entities[i] == null && deadFrames[i] > 10) { 
-                lastValidId++;                
-                return i;
-            }
-        }                
+        int id = this.entityTable.nextVolatileId();
+        if(id > -1) {
+            return id;
+        }
                 
         /* if we ran out of id's, lets find a
          * volatile object so we can respawn this
          * latest object.
          */
-        for(int i = MAX_PLAYERS; i < MAX_ENTITIES; i++) {
-            Entity ent = entities[i];
-            if(ent!=null) {
-                Type type = ent.getType();
-                if(type == Type.DROPPED_ITEM || type == Type.BULLET) {
-                    ent.softKill();                
-                    return i;
-                }
-            }
+        EntityList bullets = this.entityTable.getByType(Type.BULLET);
+        if(bullets.size() > 0) {
+            Entity ent = bullets.get(0);
+            ent.softKill();
+            return ent.getId();
+        }
+        
+        EntityList droppedItems = this.entityTable.getByType(Type.DROPPED_ITEM);
+        if(droppedItems.size() > 0) {
+            Entity ent = droppedItems.get(0);
+            ent.softKill();
+            return ent.getId();
         }
         
         // Should we throw an error
-        return MAX_ENTITIES-1;
+        return this.entityTable.getSlots().length-1;
     }
     
     /**
@@ -525,6 +553,56 @@ public class Game implements GameInfo, Debugable, Updatable {
         return random;
     }
     
+    /**
+     * Seeds the random number generators of the game, so that a match between bots
+     * can be played out the same way again
+     * 
+     * @param seed
+     */
+    public void setRandomSeed(long seed) {
+        this.random.setSeed(seed);
+        this.graph.setRandomSeed(seed);
+    }
+    
+    /**
+     * Sets the clock the wall times of the game (such as when players joined) are taken from, so that a
+     * match between bots can be played out without depending on when it was run
+     * 
+     * @param wallClock
+     */
+    public void setWallClock(Clock wallClock) {
+        this.wallClock = wallClock;
+    }
+    
+    /**
+     * @return the time the last {@link #update(TimeStep)} spent updating the entities, in nanoseconds
+     */
+    public long getEntityUpdateTime() {
+        return entityUpdateTime;
+    }
+    
+    /**
+     * @param type
+     * @return the time the last {@link #update(TimeStep)} spent updating the entities of the supplied type, in nanoseconds
+     */
+    public long getEntityUpdateTime(Type type) {
+        return this.entityTypeUpdateTimes[type.ordinal()];
+    }
+    
+    /**
+     * @return the time the last {@link #update(TimeStep)} spent updating the AI, in nanoseconds
+     */
+    public long getAIUpdateTime() {
+        return aiUpdateTime;
+    }
+    
+    /**
+     * @return the game clock of the last {@link #update(TimeStep)}
+     */
+    public long getGameClock() {
+        return gameClock;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.game.GameInfo#getDispatcher()
      */
@@ -603,21 +681,18 @@ public class Game implements GameInfo, Debugable, Updatable {
             
             @Override
             public boolean checkCondition(Game game) {
-                for(int i = 0; i < entities.length; i++) {
-                    Entity ent = entities[i];
-                    if(ent!=null) {
-                        Type entType = ent.getType();
-                        
-                        if(entType.equals(Type.BULLET) || 
-                           entType.equals(Type.EXPLOSION) || 
-                           entType.equals(Type.ROCKET)) {
-                            
-                            if(bounds.intersects(ent.getBounds())) {
-                                trigger = ent;
-                                return true;
-                            }
-                        }
-                        
+                return checkProjectiles(Type.BULLET) || 
+                       checkProjectiles(Type.EXPLOSION) || 
+                       checkProjectiles(Type.ROCKET);
+            }
+            
+            private boolean checkProjectiles(Type type) {
+                EntityList projectiles = entityTable.getByType(type);
+                for(int i = 0; i < projectiles.size(); i++) {
+                    Entity ent = projectiles.get(i);
+                    if(bounds.intersects(ent.getBounds())) {
+                        trigger = ent;
+                        return true;
                     }
                 }
                 return false;
@@ -629,6 +704,10 @@ public class Game implements GameInfo, Debugable, Updatable {
                     game.newBigExplosion(new Vector2f(bounds.x, bounds.y), trigger, 15, 25, 1);
                 }
             }
+            
+            @Override
+            public void onRemoved(Game game) {
+            }
         });
     }
     
@@ -642,6 +721,13 @@ public class Game implements GameInfo, Debugable, Updatable {
         this.eventRegistration.addEventListener(eventName, function);
     }
     
+    /**
+     * @return the triggers of the game world
+     */
+    public Triggers getTriggers() {
+        return this.gameTriggers;
+    }
+    
     /**
      * Adds a trigger to the game world
      * 
@@ -654,23 +740,11 @@ public class Game implements GameInfo, Debugable, Updatable {
     /**
      * Adds a trigger to the game world.
      * 
+     * @see ScriptedTrigger
      * @param function
      */
     public void addTrigger(final LeoObject function) {
-        final LeoObject gameClass = asScriptObject();
-        final LeoObject cond = function.getObject("checkCondition");
-        final LeoObject exe = function.getObject("execute");
-        
-        addTrigger(new Trigger() {            
-            @Override
-            public boolean checkCondition(Game game) {            
-                return LeoObject.isTrue(cond.call(gameClass));
-            }            
-            @Override
-            public void execute(Game game) {
-                exe.call(gameClass);
-            }
-        });
+        addTrigger(new ScriptedTrigger(this, function));
     }
     
     /**
@@ -691,10 +765,14 @@ public class Game implements GameInfo, Debugable, Updatable {
      * @return true if the timer was added;false otherwise
      */
     public boolean addGameTimer(boolean loop, long endTime, final LeoObject function) {
+        final ScriptProfiler.Entry profile = Scripting.getProfiler().getEntry("timer");
         return addGameTimer(new Timer(loop, endTime) {            
             @Override
             public void onFinish(Timer timer) {
+                profile.begin();
                 LeoObject result = function.call();
+                profile.end();
+                
                 if(result.isError()) {
                     Cons.println("*** ERROR: Script error in GameTimer: " + result);
                 }
@@ -712,10 +790,14 @@ public class Game implements GameInfo, Debugable, Updatable {
      * @return true if the timer was added;false otherwise
      */
     public boolean addRandomGameTimer(boolean loop, final long minStartTime, final long maxEndTime, final LeoObject function) {
+        final ScriptProfiler.Entry profile = Scripting.getProfiler().getEntry("timer");
         return addGameTimer(new Timer(loop, minStartTime) {            
             @Override
             public void onFinish(Timer timer) {
+                profile.begin();
                 LeoObject result = function.call();
+                profile.end();
+                
                 if(result.isError()) {
                     Cons.println("*** ERROR: Script error in GameTimer: " + result);
                 }
@@ -758,13 +840,11 @@ public class Game implements GameInfo, Debugable, Updatable {
             data.type = type;
             Tile tile = map.getMapObjectFactory().createMapTile(map.geTilesetAtlas(), data);
             if(tile != null) {
-                // add the tile to the world map
+                // add the tile to the world map, the change journal
+                // makes the tile unwalkable for path finding
                 map.addTile(tile);
                 
-                // make this tile unwalkable, so that pathfinding works correctly
-                graph.removeNode(data.tileX, data.tileY);
-                
-                dispatcher.queueEvent(new TileAddedEvent(this, data.type, data.tileX, data.tileY));                
+                dispatcher.queueEvent(tileAddedEvents.obtain().set(this, data.type, data.tileX, data.tileY));                
                 return true;
             }
         }
@@ -898,31 +978,51 @@ public class Game implements GameInfo, Debugable, Updatable {
      */
     @Override
     public void update(TimeStep timeStep) {        
-        for(int i = 0; i < entities.length; i++) {
-            Entity ent = entities[i];            
-            if(ent!=null) {
-                if(ent.isAlive()) {
-                    deadFrames[i] = 0;
-                    ent.update(timeStep);
-                }
-                else {
-                    deadFrames[i]++;
-                    if(deadFrames[i] > 1) {
-                        entities[i] = null;
-                    }
-                }
-            }    
-            else {                
-                deadFrames[i]++;
+        this.gameClock = timeStep.getGameClock();
+        this.entityTable.nextFrame();
+        this.netEntitySizes.nextFrame();
+        
+        consumePlayerInputs(timeStep);
+        
+        long startTime = System.nanoTime();
+        Arrays.fill(this.entityTypeUpdateTimes, 0);
+        
+        EntityList active = this.entityTable.getActive();
+        for(int i = 0; i < active.size(); ) {
+            Entity ent = active.get(i);            
+            if(ent.isAlive()) {
+                this.entityTable.markAlive(ent.getId());
+                
+                /* only the update is charged to the type, not the book keeping around it */
+                long entityStartTime = System.nanoTime();
+                ent.update(timeStep);
+                this.entityTypeUpdateTimes[ent.getType().ordinal()] += System.nanoTime() - entityStartTime;
+            }
+            else if(this.entityTable.markDead(ent.getId())) {
+                // the last entity was swapped into this index
+                continue;
             }
+            
+            i++;
         }            
         
+        this.playerHistory.record(timeStep.getGameClock(), this.playerEntities);
+        
+        long aiStartTime = System.nanoTime();
+        this.entityUpdateTime = aiStartTime - startTime;
+        
         this.aiSystem.update(timeStep);
+        this.aiUpdateTime = System.nanoTime() - aiStartTime;
+        
         this.gameTimers.update(timeStep);
         this.gameTriggers.update(timeStep);
         
         this.gameType.update(this, timeStep);
         this.time = this.gameType.getRemainingTime();
+        
+        // update the navigation graph, zones and cover for
+        // the tiles that changed this tick
+        this.map.getChangeJournal().flush();
     }
         
     /**
@@ -933,9 +1033,6 @@ public class Game implements GameInfo, Debugable, Updatable {
         lastFramesSoundEvents.clear();
         lastFramesSoundEvents.set(soundEvents);
         soundEvents.clear();
-        
-        lastValidId = 0;
-        
     }
     
     /**
@@ -950,7 +1047,6 @@ public class Game implements GameInfo, Debugable, Updatable {
         if(propertiesFile.exists()) {
             try {   
                 Leola runtime = Scripting.newSandboxedRuntime();                   
-                runtime.loadStatics(SeventhScriptingCommonLibrary.class);
                 
                 GameServerLeolaLibrary gLib = new GameServerLeolaLibrary(this);             
                 runtime.loadLibrary(gLib, "game2");
@@ -959,7 +1055,7 @@ public class Game implements GameInfo, Debugable, Updatable {
                 runtime.loadLibrary(aiLib, "ai");
                 
                 runtime.put("game", this);
-                runtime.eval(propertiesFile);
+                Scripting.eval(runtime, propertiesFile);
             }
             catch(Exception e) {
                 Cons.println("*** ERROR -> Loading map properties file: " + propertiesFile.getName() + " -> ");
@@ -989,12 +1085,39 @@ public class Game implements GameInfo, Debugable, Updatable {
         return map;
     }
     
-    /* (non-Javadoc)
+    /**
+     * The entity table, indexed by entity id.  Note that the table grows as 
+     * more entities are added, so the returned array should not be held on to
+     * across game ticks.
+     * 
      * @see seventh.game.GameInfo#getEntities()
      */
     @Override
     public Entity[] getEntities() {
-        return entities;
+        return this.entityTable.getSlots();
+    }
+    
+    /**
+     * @return the table of entities
+     */
+    public EntityTable getEntityTable() {
+        return entityTable;
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.game.GameInfo#getEntitiesOfType(seventh.game.entities.Entity.Type)
+     */
+    @Override
+    public EntityList getEntitiesOfType(Type type) {
+        return this.entityTable.getByType(type);
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.game.GameInfo#getEntityByHandle(long)
+     */
+    @Override
+    public Entity getEntityByHandle(long handle) {
+        return this.entityTable.getByHandle(handle);
     }
     
     /* (non-Javadoc)
@@ -1010,7 +1133,7 @@ public class Game implements GameInfo, Debugable, Updatable {
      * @see seventh.game.GameInfo#getGraph()
      */
     @Override
-    public MapGraph<Void> getGraph() {
+    public MapGraph getGraph() {
         return graph;
     }
     
@@ -1177,11 +1300,22 @@ public class Game implements GameInfo, Debugable, Updatable {
      * @param player
      */
     public void playerJoined(Player player) {
-        Cons.println("Player " + player.getName() + " has joined the game @ " + new Date());
+        player.setJoinTime(this.wallClock.millis());
+        Cons.println("Player " + player.getName() + " has joined the game @ " + new Date(player.getJoinTime()));
         
         this.players.addPlayer(player);
         this.gameType.playerJoin(player);
         
+        PlayerInputBuffer inputBuffer = getInputBuffer(player.getId());
+        if(inputBuffer != null) {
+            inputBuffer.reset();
+        }
+        
+        SnapshotPacker snapshotPacker = getSnapshotPacker(player.getId());
+        if(snapshotPacker != null) {
+            snapshotPacker.reset();
+        }
+        
         this.aiSystem.playerJoined(player);
         
         this.dispatcher.queueEvent(new PlayerJoinedEvent(this, player));
@@ -1219,10 +1353,7 @@ public class Game implements GameInfo, Debugable, Updatable {
      */
     public void destroy() {        
         
-        for(int i = 0; i < this.entities.length;i++) {
-            this.entities[i] = null;
-            this.deadFrames[i] = 0;
-        }
+        this.entityTable.clear();
         
         for(int i = 0; i < this.playerEntities.length;i++) {
             this.playerEntities[i] = null;
@@ -1238,6 +1369,8 @@ public class Game implements GameInfo, Debugable, Updatable {
         this.players.resetStats();
         this.aiSystem.destroy();
         
+        this.map.getChangeJournal().removeListener(this.graph);
+        
         this.gameTimers.removeTimers();
         
         this.dispatcher.removeAllEventListeners();
@@ -1285,7 +1418,7 @@ public class Game implements GameInfo, Debugable, Updatable {
             
             @Override
             public void onKill(Entity entity, Entity killer) {
-                dispatcher.queueEvent(new PlayerKilledEvent(this, player, killer, entity.getCenterPos()));
+                dispatcher.queueEvent(playerKilledEvents.obtain().set(this, player, killer, entity.getCenterPos()));
                 
                 removePlayer(entity);                
                 //entities.remove(entity); // we want them to be picked up via deadEntities
@@ -1315,7 +1448,7 @@ public class Game implements GameInfo, Debugable, Updatable {
         addEntity(playerEntity);
         addPlayer(playerEntity);
         
-        dispatcher.queueEvent(new PlayerSpawnedEvent(this, player, spawnPosition));        
+        dispatcher.queueEvent(playerSpawnedEvents.obtain().set(this, player, spawnPosition));        
         aiSystem.playerSpawned(player);
         
         return playerEntity;
@@ -1329,9 +1462,7 @@ public class Game implements GameInfo, Debugable, Updatable {
     public void addEntity(Entity ent) {
         int id = ent.getId();
         
-        if(id >= 0 && id < MAX_ENTITIES) {            
-            entities[id] = ent;
-        }
+        this.entityTable.add(ent);
     }
     
     public boolean playerSwitchedTeam(int playerId, byte teamId) {
@@ -1496,20 +1627,103 @@ public class Game implements GameInfo, Debugable, Updatable {
     }
     
     /**
-     * Applies the remote {@link PlayerInputMessage} to the {@link PlayerEntity}
+     * @param playerId
+     * @return the {@link PlayerInputBuffer} of the player, or null if the id is invalid
+     */
+    public PlayerInputBuffer getInputBuffer(int playerId) {
+        if(playerId < 0 || playerId >= this.inputBuffers.length) {
+            return null;
+        }
+        
+        PlayerInputBuffer inputBuffer = this.inputBuffers[playerId];
+        if(inputBuffer == null) {
+            inputBuffer = new PlayerInputBuffer();
+            this.inputBuffers[playerId] = inputBuffer;
+        }
+        return inputBuffer;
+    }
+    
+    /**
+     * @param playerId
+     * @return the {@link SnapshotPacker} of the player, or null if the id is invalid
+     */
+    public SnapshotPacker getSnapshotPacker(int playerId) {
+        if(playerId < 0 || playerId >= this.snapshotPackers.length) {
+            return null;
+        }
+        
+        SnapshotPacker snapshotPacker = this.snapshotPackers[playerId];
+        if(snapshotPacker == null) {
+            snapshotPacker = new SnapshotPacker(this.netEntitySizes);
+            this.snapshotPackers[playerId] = snapshotPacker;
+        }
+        return snapshotPacker;
+    }
+    
+    /**
+     * @param snapshotBudget the number of bytes each {@link NetGameUpdate} may use for entity states
+     */
+    public void setSnapshotBudget(int snapshotBudget) {
+        this.snapshotBudget = snapshotBudget;
+    }
+    
+    /**
+     * @return the number of bytes each {@link NetGameUpdate} may use for entity states
+     */
+    public int getSnapshotBudget() {
+        return snapshotBudget;
+    }
+    
+    /**
+     * Queues the remote {@link PlayerInputMessage} to be applied to the {@link PlayerEntity}, as the
+     * game time the inputs cover elapses
      * 
      * @param playerId
      * @param msg
      */
     public void applyPlayerInput(int playerId, PlayerInputMessage msg) {
+        PlayerInputBuffer inputBuffer = getInputBuffer(playerId);
+        if(inputBuffer != null) {
+            inputBuffer.receive(msg);
+        }
+    }
+    
+    /**
+     * Applies every buffered input of each remote player that is due this tick, in order, so
+     * that no key presses are lost when more than one input arrives per tick
+     * 
+     * @param timeStep
+     */
+    private void consumePlayerInputs(TimeStep timeStep) {
+        for(int i = 0; i < this.inputBuffers.length; i++) {
+            PlayerInputBuffer inputBuffer = this.inputBuffers[i];
+            if(inputBuffer != null) {
+                inputBuffer.advance(timeStep.getDeltaTime());
+                while(inputBuffer.consume()) {
+                    applyPlayerInput(i, inputBuffer.getKeys(), inputBuffer.getOrientation(), inputBuffer.getDuration());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies the input to the {@link PlayerEntity}, and moves it for the time the input covers
+     * 
+     * @param playerId
+     * @param keys
+     * @param orientation
+     * @param duration the time the input covers, in milliseconds
+     */
+    private void applyPlayerInput(int playerId, int keys, float orientation, int duration) {
         Player player = this.players.getPlayer(playerId);
         if(player != null) {            
             if(player.isAlive()) {
                 PlayerEntity entity = player.getEntity();                
-                entity.handleUserCommand(msg.keys, msg.orientation);                                
+                entity.handleUserCommand(keys, orientation);
+                entity.moveByInput(duration);
             }
             else {                
-                player.handleInput(this, msg.keys);
+                player.handleInput(this, keys);
             }
         }
     }
@@ -1519,14 +1733,11 @@ public class Game implements GameInfo, Debugable, Updatable {
      * all active game entities
      */
     public void killAll() {
-        for(int i = 0; i < entities.length; i++) {
-            Entity ent = entities[i];
-            if(ent!=null) {
-                ent.softKill();
-            }
-            
-            entities[i] = null;
-        }    
+        EntityList active = this.entityTable.getActive();
+        for(int i = 0; i < active.size(); i++) {
+            active.get(i).softKill();
+        }
+        this.entityTable.clear();
         
         for(int i = 0; i < playerEntities.length; i++) {
             playerEntities[i] = null;
@@ -1538,16 +1749,6 @@ public class Game implements GameInfo, Debugable, Updatable {
         this.doors.clear();
         this.smokeEntities.clear();
         this.bases.clear();
-        
-        markDeadFrames();        
-    }
-    
-    private void markDeadFrames() {
-        // mark all entities as dead, so that we can reload them
-        // on start up
-        for(int i = MAX_PLAYERS; i < deadFrames.length; i++) {
-            deadFrames[i] = 999;
-        }
     }
     
     /**
@@ -1561,10 +1762,7 @@ public class Game implements GameInfo, Debugable, Updatable {
             int tileX = map.worldToTileX(x);
             int tileY = map.worldToTileY(y);
             
-            // Add in a graph node so this terrain object 
-            // can be traversed for path finding for bots
-            this.graph.addNode(tileX, tileY);
-            this.dispatcher.queueEvent(new TileRemovedEvent(this, tileX, tileY));
+            this.dispatcher.queueEvent(this.tileRemovedEvents.obtain().set(this, tileX, tileY));
         }
     }
     
@@ -2113,12 +2311,11 @@ public class Game implements GameInfo, Debugable, Updatable {
     
     @Override
     public boolean doesTouchEntity(Rectangle bounds) {
-        for(int i = 0; i < this.entities.length; i++) {
-            Entity other = this.entities[i];
-            if(other != null) {
-                if(bounds.intersects(other.getBounds())) {
-                    return true;
-                }
+        EntityList active = this.entityTable.getActive();
+        for(int i = 0; i < active.size(); i++) {
+            Entity other = active.get(i);
+            if(bounds.intersects(other.getBounds())) {
+                return true;
             }
         }
         
@@ -2233,18 +2430,56 @@ public class Game implements GameInfo, Debugable, Updatable {
      */
     @Override
     public boolean doesTouchPlayers(Entity ent, Vector2f origin, Vector2f dir) {        
-        if(ent.onTouch != null) {
+        return doesTouchPlayers(ent, origin, dir, 0);
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.game.GameInfo#doesTouchPlayers(seventh.game.entities.Entity, seventh.math.Vector2f, seventh.math.Vector2f, long)
+     */
+    @Override
+    public boolean doesTouchPlayers(Entity ent, Vector2f origin, Vector2f dir, long viewLag) {
+        if(ent.onTouch == null) {
+            return false;
+        }
+        
+        // a projectile never hits the one who fired it, whether or not it is rewound
+        Entity owner = (ent instanceof Bullet) ? ((Bullet)ent).getOwner() : null;
+        
+        if(viewLag > 0) {
+            long viewTime = this.playerHistory.getLatestTime() - viewLag;
+            
             for(int i = 0; i < this.playerEntities.length; i++) {
                 Entity other = this.playerEntities[i];
                 if(other != null) {
-                    if(other != ent && other.canTakeDamage() && /*other.bounds.intersects(ent.bounds)*/ ent.isTouching(other)) {                                
-                        if(isEntityReachable(other, origin, dir)) {
+                    if(other != ent && other != owner && other.canTakeDamage()) {
+                        int heightMask = this.playerHistory.rewind(i, viewTime, this.rewoundBounds);
+                        if(heightMask < 0 || !ent.getBounds().intersects(this.rewoundBounds)) {
+                            continue;
+                        }
+                        
+                        this.rewoundCenter.set(this.rewoundBounds.x + this.rewoundBounds.width/2, 
+                                               this.rewoundBounds.y + this.rewoundBounds.height/2);
+                        if(isReachable(heightMask, this.rewoundCenter, origin, dir)) {
                             ent.onTouch.onTouch(ent, other);
-                            return true;                                        
+                            return true;
                         }
                     }
                 }
             }
+            
+            return false;
+        }
+        
+        for(int i = 0; i < this.playerEntities.length; i++) {
+            Entity other = this.playerEntities[i];
+            if(other != null) {
+                if(other != ent && other != owner && other.canTakeDamage() && /*other.bounds.intersects(ent.bounds)*/ ent.isTouching(other)) {                                
+                    if(isEntityReachable(other, origin, dir)) {
+                        ent.onTouch.onTouch(ent, other);
+                        return true;                                        
+                    }
+                }
+            }
         }
         
         return false;
@@ -2255,11 +2490,24 @@ public class Game implements GameInfo, Debugable, Updatable {
      */
     @Override
     public boolean isEntityReachable(Entity other, Vector2f origin, Vector2f dir) {
+        return isReachable(other.getHeightMask(), other.getCenterPos(), origin, dir);
+    }
+    
+    /**
+     * Determines if a target with the supplied height mask and position can be touched by a 
+     * projectile traveling from the origin in the supplied direction
+     * 
+     * @param heightMask
+     * @param otherPos
+     * @param origin
+     * @param dir
+     * @return true if reachable
+     */
+    private boolean isReachable(int heightMask, Vector2f otherPos, Vector2f origin, Vector2f dir) {
         // we only have to do weird checks if the target entity is
         // ducking
-        if(other.getHeightMask() != Entity.STANDING_HEIGHT_MASK) {
+        if(heightMask != Entity.STANDING_HEIGHT_MASK) {
             
-            Vector2f otherPos = other.getCenterPos();
             // if the bullet came from another tile, we must
             // check and see if this entity is being sheltered by
             // a heightMask tile                        
@@ -2285,8 +2533,9 @@ public class Game implements GameInfo, Debugable, Updatable {
     }
     
     public void foreachEntity(final LeoObject func) {
-        for(int i = 0; i < this.entities.length; i++) {
-            Entity ent = this.entities[i];
+        Entity[] entities = this.entityTable.getSlots();
+        for(int i = 0; i < entities.length; i++) {
+            Entity ent = entities[i];
             if(ent!=null) {
                 if (LeoObject.isTrue(func.call(ent.asScriptObject()))) {
                     break;
@@ -2306,6 +2555,53 @@ public class Game implements GameInfo, Debugable, Updatable {
         }
     }
     
+    /**
+     * @return the history of the player positions, used for lag compensation
+     */
+    public PlayerHistory getPlayerHistory() {
+        return playerHistory;
+    }
+    
+    /**
+     * @return true if bullets are tested against the players as the shooter saw them
+     */
+    public boolean isLagCompensation() {
+        return lagCompensation;
+    }
+    
+    /**
+     * @param lagCompensation enable/disable lag compensation
+     */
+    public void setLagCompensation(boolean lagCompensation) {
+        this.lagCompensation = lagCompensation;
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.game.GameInfo#getViewLag(seventh.game.entities.Entity)
+     */
+    @Override
+    public long getViewLag(Entity shooter) {
+        if(!this.lagCompensation || shooter.getType() != Type.PLAYER) {
+            return 0;
+        }
+        
+        Player player = this.players.getPlayer(shooter.getId());
+        if(player == null || player.isBot()) {
+            return 0;
+        }
+        
+        // the snapshot the client was looking at took half the round trip to arrive, 
+        // and its input took the other half to get back to us; on top of that, the client
+        // renders the other players behind the latest snapshot by its interpolation delay
+        long viewLag = player.getPing();
+        PlayerInputBuffer inputBuffer = getInputBuffer(shooter.getId());
+        if(inputBuffer != null) {
+            viewLag += inputBuffer.getInterpolationDelay();
+        }
+        
+        return Math.min(viewLag, this.playerHistory.getHistoryTime());
+    }
+    
     /**
      * @return the enableFOW
      */
@@ -2325,14 +2621,10 @@ public class Game implements GameInfo, Debugable, Updatable {
      */
     public NetGameState getNetGameState() {      
         NetGameState gameState = new NetGameState();
-        for(int i = 0; i < this.entities.length; i++) {
-            Entity other = this.entities[i];
-            if(other != null) {
-                gameState.entities[i] = other.getNetEntity();
-            }
-            else {
-                gameState.entities[i] = null;
-            }
+        EntityList active = this.entityTable.getActive();
+        for(int i = 0; i < active.size(); i++) {
+            Entity other = active.get(i);
+            gameState.entities[other.getId()] = other.getNetEntity();
         }
 
         gameState.gameType = this.gameType.getNetGameTypeInfo();
@@ -2436,7 +2728,7 @@ public class Game implements GameInfo, Debugable, Updatable {
         NetGameUpdate netUpdate =  new NetGameUpdate();
         
         if (player.isPureSpectator()) {
-            NetEntity.toNetEntities(entities, netUpdate.entities);
+            NetEntity.toNetEntities(this.entityTable.getSlots(), netUpdate.entities);
             netUpdate.setNetSounds(NetSound.toNetSounds(soundEvents));
                         
             /*
@@ -2503,14 +2795,52 @@ public class Game implements GameInfo, Debugable, Updatable {
             }
         }
         
-        for(int i = 0; i < MAX_PERSISTANT_ENTITIES; i++) {
-            if(deadFrames[i] > 0) {
+        /* keep the update within the clients bandwidth */
+        SnapshotPacker snapshotPacker = getSnapshotPacker(playerId);
+        if(snapshotPacker != null) {
+            PlayerEntity viewer = player.isAlive() ? player.getEntity() : player.getSpectatingEntity();
+            snapshotPacker.pack(netUpdate, 
+                                viewer != null ? viewer.getCenterPos() : null, 
+                                viewer != null ? viewer.getId() : -1, 
+                                this.snapshotBudget);
+        }
+        
+        /* only the ids that have held an entity, so the bit array stays sparse */
+        int persistantIdsInUse = this.entityTable.getPersistantIdsInUse();
+        for(int i = 0; i < persistantIdsInUse; i++) {
+            if(this.entityTable.isDead(i)) {
                 netUpdate.deadPersistantEntities.setBit(i);
             }
         }
         
         netUpdate.time = (int)time;        
         netUpdate.spectatingPlayerId = player.getSpectatingPlayerId();
+        
+        PlayerInputBuffer inputBuffer = getInputBuffer(playerId);
+        if(inputBuffer != null) {
+            netUpdate.lastInputSequence = inputBuffer.getLastConsumedSequence();
+        }
+        return netUpdate;
+    }
+    
+    /**
+     * @return the update a pure spectator would receive, with all of the entities and sounds
+     * and not bound by any bandwidth budget
+     */
+    public NetGameUpdate getNetGameUpdateForSpectator() {
+        NetGameUpdate netUpdate =  new NetGameUpdate();
+        NetEntity.toNetEntities(this.entityTable.getSlots(), netUpdate.entities);
+        netUpdate.setNetSounds(NetSound.toNetSounds(soundEvents));
+        
+        /* only the ids that have held an entity, so the bit array stays sparse */
+        int persistantIdsInUse = this.entityTable.getPersistantIdsInUse();
+        for(int i = 0; i < persistantIdsInUse; i++) {
+            if(this.entityTable.isDead(i)) {
+                netUpdate.deadPersistantEntities.setBit(i);
+            }
+        }
+        
+        netUpdate.time = (int)time;
         return netUpdate;
     }
         
@@ -2520,7 +2850,7 @@ public class Game implements GameInfo, Debugable, Updatable {
     @Override
     public DebugInformation getDebugInformation() {
         DebugInformation me = new DebugInformation();
-        me.add("entities", this.entities)
+        me.add("entities", this.entityTable.getSlots())
           .add("bombTargets", this.bombTargets)
           .add("map", this.map)
           .add("game_type", this.gameType)
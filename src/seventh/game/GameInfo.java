@@ -7,9 +7,11 @@ import java.util.List;
 import java.util.Random;
 
 import seventh.ai.AISystem;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.entities.BombTarget;
 import seventh.game.entities.Door;
 import seventh.game.entities.Entity;
+import seventh.game.entities.Entity.Type;
 import seventh.game.entities.Flag;
 import seventh.game.entities.PlayerEntity;
 import seventh.game.entities.vehicles.Vehicle;
@@ -127,6 +129,18 @@ public interface GameInfo {
      * @return the entities
      */
     public abstract Entity[] getEntities();
+    
+    /**
+     * @param type
+     * @return the dense list of live entities of the supplied type
+     */
+    public abstract EntityList getEntitiesOfType(Type type);
+    
+    /**
+     * @param handle the handle of the entity (see {@link Entity#getEntityHandle()})
+     * @return the entity referenced by the handle, or null if it has since been removed
+     */
+    public abstract Entity getEntityByHandle(long handle);
 
     /**
      * @return the playerEntities
@@ -136,7 +150,7 @@ public interface GameInfo {
     /**
      * @return the graph
      */
-    public abstract MapGraph<Void> getGraph();
+    public abstract MapGraph getGraph();
 
     /**
      * @return the bomb targets
@@ -227,6 +241,26 @@ public interface GameInfo {
      * @return true if it does.
      */
     public abstract boolean doesTouchPlayers(Entity ent, Vector2f origin, Vector2f dir);
+    
+    /**
+     * Determines if the supplied entity touches a player as the player was 
+     * viewLag milliseconds ago (see {@link PlayerHistory}).  If the {@link Entity#onTouch} 
+     * listener is implemented, it will invoke it.
+     * 
+     * @param ent
+     * @param origin
+     * @param dir
+     * @param viewLag the amount of time, in milliseconds, to rewind the players by
+     * @return true if it does.
+     */
+    public abstract boolean doesTouchPlayers(Entity ent, Vector2f origin, Vector2f dir, long viewLag);
+    
+    /**
+     * @param shooter
+     * @return the amount of time, in milliseconds, that the world the supplied entity sees lags 
+     * behind the server.  This is zero for bots or if lag compensation is disabled.
+     */
+    public abstract long getViewLag(Entity shooter);
 
     
     /**
@@ -0,0 +1,69 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import harenet.ByteCounterIOBuffer;
+import seventh.game.net.NetEntity;
+import seventh.shared.SeventhConstants;
+
+/**
+ * The serialized sizes of the {@link NetEntity}s of the current frame.  An entity does not change between
+ * the updates sent to each client in a frame, so its size is measured once per frame and shared by the
+ * {@link SnapshotPacker}s of every client, rather than every entity being serialized once per client.
+ *
+ * <p>
+ * A size is remembered along with the {@link NetEntity} it was measured from, as the same entity may be
+ * sent in more than one form (e.g. the full state of a clients own player and the partial state everyone
+ * else gets).
+ *
+ * @author Tony
+ *
+ */
+public class NetEntitySizes {
+
+    private int[] sizes;
+    private NetEntity[] measuredEntities;
+    private long[] measuredFrames;
+
+    private long frame;
+
+    private ByteCounterIOBuffer byteCounter;
+
+    /**
+     *
+     */
+    public NetEntitySizes() {
+        this.sizes = new int[SeventhConstants.MAX_ENTITIES];
+        this.measuredEntities = new NetEntity[SeventhConstants.MAX_ENTITIES];
+        this.measuredFrames = new long[SeventhConstants.MAX_ENTITIES];
+        this.byteCounter = new ByteCounterIOBuffer();
+
+        this.frame = 1;
+    }
+
+    /**
+     * Forgets the sizes of the previous frame, should be called once per game update
+     */
+    public void nextFrame() {
+        this.frame++;
+    }
+
+    /**
+     * @param id the id of the entity
+     * @param entity the net state of the entity
+     * @return the number of bytes the entity takes up when written
+     */
+    public int sizeOf(int id, NetEntity entity) {
+        if(this.measuredFrames[id] != this.frame || this.measuredEntities[id] != entity) {
+            this.byteCounter.clear();
+            entity.write(this.byteCounter);
+
+            this.sizes[id] = this.byteCounter.capacity();
+            this.measuredEntities[id] = entity;
+            this.measuredFrames[id] = this.frame;
+        }
+
+        return this.sizes[id];
+    }
+}
@@ -83,7 +83,6 @@ public class Player implements PlayerInfo, Debugable {
         this.isBot = isBot;
         this.isDummy = isDummy;
         this.name = name;
-        this.joinTime = System.currentTimeMillis();
         this.stats = new NetPlayerStat();
         this.stats.playerId = id;
         
@@ -109,7 +108,6 @@ public class Player implements PlayerInfo, Debugable {
         this.assists = 0;
         this.hitPercentage = 0;
         
-        this.joinTime = System.currentTimeMillis();
         this.team = Team.SPECTATOR;
         // DO NOT RESET teamId, this is used for map_restarts to keep
         // people on the same team
@@ -358,6 +356,13 @@ public class Player implements PlayerInfo, Debugable {
         return this.isDummy;
     }
     
+    /**
+     * @param joinTime the wall time, in epoch milliseconds, the player joined the game
+     */
+    public void setJoinTime(long joinTime) {
+        this.joinTime = joinTime;
+    }
+    
     /* (non-Javadoc)
      * @see seventh.game.PlayerInfo#getJoinTime()
      */
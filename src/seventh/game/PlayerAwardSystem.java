@@ -72,6 +72,11 @@ public class PlayerAwardSystem {
     }
     
 
+    /**
+     * The game time, in milliseconds, the kills of a kill roll must be within of each other
+     */
+    private static final long KILL_ROLL_TIME = 3000;
+    
     private static class PlayerStats {
         
         int kills;
@@ -88,11 +93,12 @@ public class PlayerAwardSystem {
         public PlayerStats(Player player, EventDispatcher dispatcher) {
             this.player = player;
             this.dispatcher = dispatcher;
+            this.lastKillTime = -KILL_ROLL_TIME;
         }
                 
         public void roundReset() {
             this.killStreak = 0;
-            this.lastKillTime = 0;
+            this.lastKillTime = -KILL_ROLL_TIME;
         }
         
         public void roundEnded() {
@@ -139,7 +145,7 @@ public class PlayerAwardSystem {
             
         }
         
-        public void addKill() {                        
+        public void addKill(long killTime) {                        
             this.killStreak++;
             if(this.killStreak > this.highestKillStreak) {
                 this.highestKillStreak = this.killStreak;
@@ -155,9 +161,7 @@ public class PlayerAwardSystem {
                     break;                
             }
             
-            // TODO - use game time, instead of wall time
-            long killTime = System.currentTimeMillis();            
-            if(killTime-this.lastKillTime < 3000) {
+            if(killTime-this.lastKillTime < KILL_ROLL_TIME) {
                 this.killRoll++;
                 
                 // if we have multiple kills within the kill time frame,
@@ -188,7 +192,7 @@ public class PlayerAwardSystem {
     /**
      * 
      */
-    public PlayerAwardSystem(Game game) {
+    public PlayerAwardSystem(final Game game) {
         this.stats = new PlayerStats[SeventhConstants.MAX_PLAYERS];
         
         final EventDispatcher dispatcher = game.getDispatcher();
@@ -218,7 +222,7 @@ public class PlayerAwardSystem {
                 int killerId = event.getKillerId();
                 if(isValidPlayerId(killerId)) {
                     if(killed!=null && !killed.isTeammateWith(killerId)) {                    
-                        stats[killerId].addKill();
+                        stats[killerId].addKill(game.getGameClock());
                         
                         if(firstBlood) {                            
                             dispatcher.queueEvent(new PlayerAwardEvent(this, stats[killerId].player, Award.FirstBlood));
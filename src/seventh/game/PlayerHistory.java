@@ -0,0 +1,190 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import seventh.game.entities.PlayerEntity;
+import seventh.math.Rectangle;
+
+/**
+ * Records the bounds and height mask of every player for the last {@link #getHistoryTime()} milliseconds
+ * of game time.  This allows the server to rewind players to the point in time a remote client saw them, so
+ * that a high latency client does not have to lead its targets by its full return trip time (aka lag compensation).
+ *
+ * <p>
+ * The history is stored as a ring buffer of frames, each frame having a slot for every possible player.  The
+ * state is kept in parallel primitive arrays so that recording a frame and rewinding a player are cheap enough
+ * to be done per bullet, per frame.
+ *
+ * @author Tony
+ *
+ */
+public class PlayerHistory {
+
+    /**
+     * The default amount of game time that is kept, in milliseconds
+     */
+    public static final long DEFAULT_HISTORY_TIME = 500;
+
+    private final int maxPlayers;
+    private final long historyTime;
+
+    private int numberOfFrames;
+    private int head;
+    private int size;
+
+    private long[] frameTimes;
+
+    private boolean[] present;
+    private int[] x, y, width, height;
+    private int[] heightMasks;
+
+    /**
+     * @param maxPlayers the maximum number of players
+     * @param historyTime the amount of game time to keep, in milliseconds
+     * @param frameTime the time of a game frame, in milliseconds
+     */
+    public PlayerHistory(int maxPlayers, long historyTime, long frameTime) {
+        this.maxPlayers = maxPlayers;
+        this.historyTime = historyTime;
+        
+        this.numberOfFrames = (int)(historyTime / Math.max(1, frameTime)) + 2;
+
+        int length = this.numberOfFrames * this.maxPlayers;
+
+        this.frameTimes = new long[this.numberOfFrames];
+        this.present = new boolean[length];
+        this.x = new int[length];
+        this.y = new int[length];
+        this.width = new int[length];
+        this.height = new int[length];
+        this.heightMasks = new int[length];
+
+        this.head = -1;
+        this.size = 0;
+    }
+
+    /**
+     * @return the amount of game time that is kept, in milliseconds
+     */
+    public long getHistoryTime() {
+        return historyTime;
+    }
+
+    /**
+     * Clears out the history
+     */
+    public void clear() {
+        this.head = -1;
+        this.size = 0;
+    }
+
+    /**
+     * @return the game time of the last recorded frame
+     */
+    public long getLatestTime() {
+        return this.size > 0 ? this.frameTimes[this.head] : 0;
+    }
+
+    /**
+     * @return the game time of the oldest recorded frame
+     */
+    public long getOldestTime() {
+        return this.size > 0 ? this.frameTimes[frameIndex(this.size-1)] : 0;
+    }
+
+    /**
+     * Records the current state of the players.  This should be invoked once per game frame, after
+     * the players have moved.
+     *
+     * @param gameClock the current game time
+     * @param playerEntities the player entities, indexed by player id
+     */
+    public void record(long gameClock, PlayerEntity[] playerEntities) {
+        this.head = (this.head + 1) % this.numberOfFrames;
+        if(this.size < this.numberOfFrames) {
+            this.size++;
+        }
+
+        this.frameTimes[this.head] = gameClock;
+
+        int offset = this.head * this.maxPlayers;
+        for(int i = 0; i < this.maxPlayers; i++) {
+            PlayerEntity ent = playerEntities[i];
+            int index = offset + i;
+
+            if(ent != null && ent.isAlive()) {
+                Rectangle bounds = ent.getBounds();
+                this.present[index] = true;
+                this.x[index] = bounds.x;
+                this.y[index] = bounds.y;
+                this.width[index] = bounds.width;
+                this.height[index] = bounds.height;
+                this.heightMasks[index] = ent.getHeightMask();
+            }
+            else {
+                this.present[index] = false;
+            }
+        }
+    }
+
+    /**
+     * @param age the number of frames back from the latest frame
+     * @return the index into the frame ring buffer
+     */
+    private int frameIndex(int age) {
+        int index = this.head - age;
+        if(index < 0) {
+            index += this.numberOfFrames;
+        }
+        return index;
+    }
+
+    /**
+     * Rewinds the supplied player to the state they were in at the supplied game time.  The bounds are
+     * interpolated between the two recorded frames surrounding the time; if the time is older than the history,
+     * the oldest frame is used.
+     *
+     * @param playerId the player id
+     * @param time the game time to rewind to
+     * @param bounds the rewound bounds are stored in here
+     * @return the height mask of the player at that time, or -1 if the player was not alive at that time
+     */
+    public int rewind(int playerId, long time, Rectangle bounds) {
+        if(this.size == 0 || playerId < 0 || playerId >= this.maxPlayers) {
+            return -1;
+        }
+
+        // walk backwards until we find the frame at or before the time
+        int newer = -1;
+        int older = this.head;
+        for(int age = 0; age < this.size; age++) {
+            older = frameIndex(age);
+            if(this.frameTimes[older] <= time) {
+                break;
+            }
+            newer = older;
+        }
+
+        int olderIndex = older * this.maxPlayers + playerId;
+        if(!this.present[olderIndex]) {
+            return -1;
+        }
+
+        bounds.x = this.x[olderIndex];
+        bounds.y = this.y[olderIndex];
+        bounds.width = this.width[olderIndex];
+        bounds.height = this.height[olderIndex];
+
+        if(newer > -1 && this.frameTimes[older] < time) {
+            int newerIndex = newer * this.maxPlayers + playerId;
+            if(this.present[newerIndex]) {
+                float alpha = (float)(time - this.frameTimes[older]) / (float)(this.frameTimes[newer] - this.frameTimes[older]);
+                bounds.x += (int)((this.x[newerIndex] - bounds.x) * alpha);
+                bounds.y += (int)((this.y[newerIndex] - bounds.y) * alpha);
+            }
+        }
+
+        return this.heightMasks[olderIndex];
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import seventh.network.messages.PlayerInputMessage;
+
+/**
+ * A small jitter buffer of the inputs received from a remote player.  Inputs are queued in
+ * client tick (sequence) order, duplicates (from the redundant inputs of the {@link PlayerInputMessage}) and
+ * inputs that arrive too late are discarded.
+ *
+ * <p>
+ * Each input covers the amount of time the client simulated it for, which need not match the game tick.  The
+ * game {@link #advance(long)}s the buffer by its tick time, and then {@link #consume()}s every input that is due;
+ * an input is due once the game time that has elapsed covers it.  The input time consumed never gets ahead of
+ * the game time by more than {@link #MAX_TIME_CREDIT}, so a client sending inputs faster than real time can't
+ * move any faster for it.  The buffer is capped by time rather than by count: if more than
+ * {@link #MAX_BUFFERED_TIME} of inputs are waiting, the oldest are dropped, which bounds the delay an input can
+ * sit in the buffer.
+ *
+ * @author Tony
+ *
+ */
+public class PlayerInputBuffer {
+
+    /**
+     * The maximum amount of input time, in milliseconds, that is buffered before the oldest
+     * inputs are dropped
+     */
+    public static final long MAX_BUFFERED_TIME = 250;
+
+    /**
+     * The maximum amount of game time, in milliseconds, that builds up while no input is due, so that
+     * inputs arriving late can catch up.  This is the most the consumed input time can get ahead of the
+     * game time, and is enough to cover the longest input.
+     */
+    public static final long MAX_TIME_CREDIT = PlayerInputMessage.MAX_DURATION;
+
+    /**
+     * A hard limit on the number of buffered inputs, guarding against a client sending an
+     * absurd number of tiny inputs; inputs past this are dropped
+     */
+    public static final int MAX_BUFFERED_INPUTS = 256;
+
+    /**
+     * If a sequence this far behind the last received sequence is received, the
+     * client must have restarted its sequence
+     */
+    private static final int SEQUENCE_RESET_WINDOW = 1_000;
+
+    private int[] sequences;
+    private int[] keys;
+    private float[] orientations;
+    private int[] durations;
+
+    private int head, size;
+    private long bufferedTime;
+
+    /* the game time that has elapsed and has yet to be covered by an input */
+    private long elapsedTime;
+
+    private int lastReceivedSequence;
+    private int lastConsumedSequence;
+    private boolean hasReceived;
+
+    private int currentKeys;
+    private float currentOrientation;
+    private int currentDuration;
+
+    private int interpolationDelay;
+
+    private int numberOfDroppedInputs;
+
+    /**
+     *
+     */
+    public PlayerInputBuffer() {
+        this.sequences = new int[16];
+        this.keys = new int[16];
+        this.orientations = new float[16];
+        this.durations = new int[16];
+
+        reset();
+    }
+
+    /**
+     * Clears out the buffer, the next received input will be accepted regardless of
+     * its sequence
+     */
+    public void reset() {
+        this.head = 0;
+        this.size = 0;
+        this.bufferedTime = 0;
+        this.elapsedTime = 0;
+        this.lastReceivedSequence = 0;
+        this.lastConsumedSequence = 0;
+        this.hasReceived = false;
+        this.currentKeys = 0;
+        this.currentOrientation = 0;
+        this.currentDuration = 0;
+        this.interpolationDelay = 0;
+        this.numberOfDroppedInputs = 0;
+    }
+
+    /**
+     * Queues up the inputs of the message that haven't been received yet
+     *
+     * @param msg
+     */
+    public void receive(PlayerInputMessage msg) {
+        if(this.hasReceived && msg.sequence < this.lastReceivedSequence - SEQUENCE_RESET_WINDOW) {
+            reset();
+        }
+
+        this.interpolationDelay = msg.interpolationDelay;
+
+        // oldest first, so that the queue remains in order
+        for(int i = msg.numberOfRedundantInputs - 1; i >= 0; i--) {
+            offer(msg.sequence - (i+1), msg.redundantKeys[i], msg.redundantOrientations[i], msg.redundantDurations[i]);
+        }
+
+        offer(msg.sequence, msg.keys, msg.orientation, msg.duration);
+    }
+
+    private void offer(int sequence, int keys, float orientation, int duration) {
+        if(this.hasReceived && sequence <= this.lastReceivedSequence) {
+            return;
+        }
+
+        if(this.size == this.sequences.length) {
+            if(this.size >= MAX_BUFFERED_INPUTS) {
+                this.numberOfDroppedInputs++;
+                return;
+            }
+
+            grow();
+        }
+
+        duration = Math.max(1, Math.min(PlayerInputMessage.MAX_DURATION, duration));
+
+        int index = (this.head + this.size) % this.sequences.length;
+        this.sequences[index] = sequence;
+        this.keys[index] = keys;
+        this.orientations[index] = orientation;
+        this.durations[index] = duration;
+        this.size++;
+        this.bufferedTime += duration;
+
+        this.lastReceivedSequence = sequence;
+        this.hasReceived = true;
+
+        /* a client can't send inputs faster than they are consumed without
+         * losing the surplus, the oldest inputs are dropped */
+        while(this.size > 1 && this.bufferedTime > MAX_BUFFERED_TIME) {
+            this.lastConsumedSequence = this.sequences[this.head];
+            poll();
+            this.numberOfDroppedInputs++;
+        }
+    }
+
+    /**
+     * Removes the oldest input
+     */
+    private void poll() {
+        this.bufferedTime -= this.durations[this.head];
+        this.head = (this.head + 1) % this.sequences.length;
+        this.size--;
+    }
+
+    private void grow() {
+        int capacity = this.sequences.length;
+        int[] newSequences = new int[capacity * 2];
+        int[] newKeys = new int[capacity * 2];
+        float[] newOrientations = new float[capacity * 2];
+        int[] newDurations = new int[capacity * 2];
+
+        for(int i = 0; i < this.size; i++) {
+            int index = (this.head + i) % capacity;
+            newSequences[i] = this.sequences[index];
+            newKeys[i] = this.keys[index];
+            newOrientations[i] = this.orientations[index];
+            newDurations[i] = this.durations[index];
+        }
+
+        this.sequences = newSequences;
+        this.keys = newKeys;
+        this.orientations = newOrientations;
+        this.durations = newDurations;
+        this.head = 0;
+    }
+
+    /**
+     * Advances the game time the buffered inputs are consumed against.  While no inputs arrive
+     * the time keeps accumulating (up to {@link #MAX_TIME_CREDIT}), so that the late inputs are
+     * due once they do arrive.
+     *
+     * @param deltaTime the game tick time, in milliseconds
+     */
+    public void advance(long deltaTime) {
+        this.elapsedTime = Math.min(this.elapsedTime + deltaTime, MAX_TIME_CREDIT);
+    }
+
+    /**
+     * Consumes the next input if it is due, which is then available from {@link #getKeys()},
+     * {@link #getOrientation()} and {@link #getDuration()}.  This should be called until it returns
+     * false, once per game tick.
+     *
+     * @return true if there was an input due to consume
+     */
+    public boolean consume() {
+        if(this.size == 0) {
+            return false;
+        }
+
+        int duration = this.durations[this.head];
+        if(duration > this.elapsedTime) {
+            return false;
+        }
+
+        this.elapsedTime -= duration;
+
+        this.currentKeys = this.keys[this.head];
+        this.currentOrientation = this.orientations[this.head];
+        this.currentDuration = duration;
+        this.lastConsumedSequence = this.sequences[this.head];
+
+        poll();
+
+        return true;
+    }
+
+    /**
+     * @return the keys of the last consumed input
+     */
+    public int getKeys() {
+        return currentKeys;
+    }
+
+    /**
+     * @return the orientation of the last consumed input
+     */
+    public float getOrientation() {
+        return currentOrientation;
+    }
+
+    /**
+     * @return the time the last consumed input covers, in milliseconds
+     */
+    public int getDuration() {
+        return currentDuration;
+    }
+
+    /**
+     * @return the interpolation delay the client reported with its last message, in milliseconds
+     */
+    public int getInterpolationDelay() {
+        return interpolationDelay;
+    }
+
+    /**
+     * @return the sequence of the last consumed input, or of the last dropped input if it was dropped
+     * after that
+     */
+    public int getLastConsumedSequence() {
+        return lastConsumedSequence;
+    }
+
+    /**
+     * @return the number of inputs waiting to be consumed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the amount of input time waiting to be consumed, in milliseconds
+     */
+    public long getBufferedTime() {
+        return bufferedTime;
+    }
+
+    /**
+     * @return the number of inputs that were dropped because the buffer hit {@link #MAX_BUFFERED_INPUTS}
+     * or {@link #MAX_BUFFERED_TIME}
+     */
+    public int getNumberOfDroppedInputs() {
+        return numberOfDroppedInputs;
+    }
+}
@@ -40,25 +40,32 @@ public class PlayerStatSystem {
             this.playersWhoCausedDamage = new Player[players.maxNumberOfPlayers()];
         }
         
-        private Entity getPlayer(Entity damager) {
-            Entity player = null;
+        /**
+         * The owner ids are used rather than the owners, as the owner may have 
+         * since been removed from the game
+         * 
+         * @param damager
+         * @return the id of the player responsible for the damager, or -1 if none
+         */
+        private int getPlayerId(Entity damager) {
+            int playerId = -1;
             if(damager.isPlayer()) {
-                player = damager;
+                playerId = damager.getId();
             }
             else if(damager instanceof Bullet) {
                 Bullet bullet = (Bullet) damager;
-                player = bullet.getOwner();
+                playerId = bullet.getOwnerId();
             }
             else if(damager instanceof Explosion) {
                 Explosion explosion = (Explosion)damager;
-                player = explosion.getOwner();
+                playerId = explosion.getOwnerId();
             }
             else if(damager instanceof Fire) {
                 Fire fire = (Fire)damager;
-                player = fire.getOwner();
+                playerId = fire.getOwnerId();
             }
             
-            return player;
+            return playerId;
         }
 
         public void onBulletFired() {
@@ -66,11 +73,10 @@ public class PlayerStatSystem {
         }
         
         public void onDamaged(Entity damager) {
-            Entity player = getPlayer(damager);
+            int damagerId = getPlayerId(damager);
             
             // mark that the damager dealt damage            
-            if(player!=null) {
-                int damagerId = player.getId();
+            if(damagerId > -1) {
                 if(this.players.isValidId(damagerId)) {
                     PlayerStat stat = stats[damagerId];
                     
@@ -94,11 +100,11 @@ public class PlayerStatSystem {
         }
             
         public void onDeath(Entity killer) {
-            Entity player = getPlayer(killer);
+            int killerId = getPlayerId(killer);
             
             // don't give an assist to the killer
-            if(player!=null && this.players.isValidId(player.getId())) {
-                this.playersWhoCausedDamage[player.getId()] = null;
+            if(this.players.isValidId(killerId)) {
+                this.playersWhoCausedDamage[killerId] = null;
             }
             
             for(int i = 0; i < this.playersWhoCausedDamage.length; i++) {
@@ -31,6 +31,15 @@ public class Players implements PlayerInfos {
         this.random = new Random();
     }
     
+    /**
+     * Sets the random used for picking players, so that it can share the (seeded) random of the game
+     * 
+     * @param random
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+    
     /**
      * @param id
      * @return true if the supplied ID is valid
@@ -0,0 +1,151 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import leola.vm.types.LeoArray;
+import leola.vm.types.LeoObject;
+import leola.vm.types.LeoUserFunction;
+import seventh.game.events.EventRegistration;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
+
+/**
+ * A {@link Trigger} defined by a script object:
+ *
+ * <pre>
+ * game.addTrigger({
+ *    // optional, the name the trigger is profiled under
+ *    name -> "bridgeBlown",
+ *
+ *    checkCondition -> def(game) { ... },
+ *    execute -> def(game) { ... },
+ *
+ *    // optional, only check the condition every 500 msec
+ *    interval -> 500,
+ *
+ *    // optional, only check the condition after one of these events
+ *    events -> [ "playerkilledevent", "tileremoveevent" ],
+ * })
+ * </pre>
+ *
+ * The functions are looked up once, and the condition is skipped on the ticks where it can't
+ * have changed, so scripts with many triggers don't call into the script runtime every tick.
+ * The event listeners are only registered for as long as the trigger is, they are unregistered once
+ * it has executed or the triggers are cleared out.
+ * Time spent in the functions is reported by the {@link Scripting#getProfiler()}, under the name of the
+ * trigger.
+ *
+ * @author Tony
+ *
+ */
+public class ScriptedTrigger implements Trigger {
+
+    private final LeoObject gameObject;
+    private final LeoObject condition;
+    private final LeoObject action;
+    
+    private final ScriptProfiler.Entry conditionEntry;
+    private final ScriptProfiler.Entry actionEntry;
+
+    private final long interval;
+    private long nextCheckTime;
+
+    private EventRegistration eventRegistration;
+    private boolean isEventDriven;
+    private boolean hasEventFired;
+
+    /**
+     * @param game
+     * @param trigger the script object defining the trigger
+     */
+    public ScriptedTrigger(Game game, LeoObject trigger) {
+        this.gameObject = game.asScriptObject();
+        this.condition = trigger.getObject("checkCondition");
+        this.action = trigger.getObject("execute");
+        
+        LeoObject name = trigger.getObject("name");
+        String profileName = "trigger:" + (LeoObject.isTrue(name) ? name.toString() : "unnamed");
+        this.conditionEntry = Scripting.getProfiler().getEntry(profileName + ".checkCondition");
+        this.actionEntry = Scripting.getProfiler().getEntry(profileName + ".execute");
+
+        LeoObject interval = trigger.getObject("interval");
+        this.interval = interval.isNumber() ? interval.asLong() : 0;
+        this.nextCheckTime = game.getGameClock();
+
+        LeoObject events = trigger.getObject("events");
+        if(LeoObject.isTrue(events)) {
+            LeoObject onEvent = new LeoUserFunction() {
+                @Override
+                public LeoObject call(LeoObject event) {
+                    hasEventFired = true;
+                    return LeoObject.NULL;
+                }
+            };
+
+            this.eventRegistration = new EventRegistration(game.getDispatcher());
+            if(events.isArray()) {
+                LeoArray array = events.as();
+                for(int i = 0; i < array.size(); i++) {
+                    this.eventRegistration.addEventListener(array.get(i).toString(), onEvent);
+                }
+            }
+            else {
+                this.eventRegistration.addEventListener(events.toString(), onEvent);
+            }
+
+            this.isEventDriven = true;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.game.Trigger#checkCondition(seventh.game.Game)
+     */
+    @Override
+    public boolean checkCondition(Game game) {
+        if(this.isEventDriven && !this.hasEventFired) {
+            return false;
+        }
+
+        long gameClock = game.getGameClock();
+        if(gameClock < this.nextCheckTime) {
+            return false;
+        }
+
+        this.nextCheckTime = gameClock + this.interval;
+        this.hasEventFired = false;
+
+        this.conditionEntry.begin();
+        try {
+            return LeoObject.isTrue(this.condition.call(this.gameObject));
+        }
+        finally {
+            this.conditionEntry.end();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.game.Trigger#execute(seventh.game.Game)
+     */
+    @Override
+    public void execute(Game game) {
+        this.actionEntry.begin();
+        try {
+            this.action.call(this.gameObject);
+        }
+        finally {
+            this.actionEntry.end();
+        }
+    }
+    
+    /* (non-Javadoc)
+     * @see seventh.game.Trigger#onRemoved(seventh.game.Game)
+     */
+    @Override
+    public void onRemoved(Game game) {
+        if(this.eventRegistration != null) {
+            this.eventRegistration.unregisterListeners();
+            this.eventRegistration = null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * see license.txt
+ */
+package seventh.game;
+
+import java.util.Arrays;
+
+import seventh.game.entities.Entity.Type;
+import seventh.game.net.NetEntity;
+import seventh.game.net.NetGameUpdate;
+import seventh.math.Vector2f;
+import seventh.network.messages.BufferIO;
+import seventh.shared.SeventhConstants;
+
+/**
+ * Keeps the {@link NetGameUpdate}s of one client within a byte budget.  Each visible entity accumulates
+ * priority every update it is not sent, based on how close it is to the viewer and its type.  When all
+ * of the visible entities do not fit in the budget, the highest priority entities are sent and the rest are
+ * deferred to a later update (and keep their accumulated priority).  This way large fights degrade to a lower
+ * update rate for the less important entities, rather than the update not fitting in a packet.
+ *
+ * @author Tony
+ *
+ */
+public class SnapshotPacker {
+
+    /**
+     * Entities further than this from the viewer get no proximity bonus
+     */
+    private static final float PROXIMITY_RANGE = 1500f;
+
+    private float[] priorities;
+    private long[] sortKeys;
+    private int[] sizes;
+
+    private NetEntitySizes netEntitySizes;
+
+    private int numberOfDeferredEntities;
+
+    /**
+     * @param netEntitySizes the entity sizes of the current frame, shared by all of the clients
+     */
+    public SnapshotPacker(NetEntitySizes netEntitySizes) {
+        this.priorities = new float[SeventhConstants.MAX_ENTITIES];
+        this.sortKeys = new long[SeventhConstants.MAX_ENTITIES];
+        this.sizes = new int[SeventhConstants.MAX_ENTITIES];
+        this.netEntitySizes = netEntitySizes;
+    }
+
+    /**
+     * Clears out the accumulated priorities
+     */
+    public void reset() {
+        Arrays.fill(this.priorities, 0f);
+        this.numberOfDeferredEntities = 0;
+    }
+
+    /**
+     * @return the number of entities that were deferred in the last update
+     */
+    public int getNumberOfDeferredEntities() {
+        return numberOfDeferredEntities;
+    }
+
+    /**
+     * The importance of the type of entity.  Short lived entities get a boost so they don't
+     * time out on the client.
+     *
+     * @param type
+     * @return the weight
+     */
+    private float weightOf(Type type) {
+        if(type.isPlayer() || type.isVehicle()) {
+            return 3f;
+        }
+
+        switch(type) {
+            case BULLET:
+            case ROCKET:
+            case GRENADE:
+            case NAPALM_GRENADE:
+            case SMOKE_GRENADE:
+            case EXPLOSION:
+            case FIRE:
+                return 2f;
+            default:
+                return 1f;
+        }
+    }
+
+    /**
+     * Removes the lowest priority entities from the update until it fits within the budget.
+     *
+     * @param netUpdate the update, with all of the visible entities
+     * @param viewerPos the position of the viewer, may be null
+     * @param forcedId an entity that must always be sent (the clients own player), or -1
+     * @param budget the number of bytes available for the entities
+     */
+    public void pack(NetGameUpdate netUpdate, Vector2f viewerPos, int forcedId, int budget) {
+        NetEntity[] entities = netUpdate.entities;
+
+        int candidatesSize = 0;
+        int numberOfCandidates = 0;
+
+        /* the ids of deferred volatile entities are written out bit packed, the bits
+         * to write out every one of them (and their count) are held back from the budget, and
+         * handed back as entities are sent
+         */
+        int deferredIdBits = NetGameUpdate.DEFERRED_COUNT_BITS;
+
+        for(int i = 0; i < entities.length; i++) {
+            NetEntity entity = entities[i];
+            if(entity == null) {
+                this.priorities[i] = 0f;
+                continue;
+            }
+
+            int size = this.netEntitySizes.sizeOf(i, entity);
+            this.sizes[i] = size;
+
+            if(i == forcedId) {
+                budget -= size;
+                continue;
+            }
+
+            candidatesSize += size;
+
+            if(i >= SeventhConstants.MAX_PERSISTANT_ENTITIES) {
+                deferredIdBits += BufferIO.numEntityIdBits(i);
+            }
+
+            float proximity = 1f;
+            if(viewerPos != null) {
+                float dx = entity.posX - viewerPos.x;
+                float dy = entity.posY - viewerPos.y;
+                float distance = (float)Math.sqrt(dx * dx + dy * dy);
+                proximity += 2f * (1f - Math.min(distance, PROXIMITY_RANGE) / PROXIMITY_RANGE);
+            }
+
+            this.priorities[i] += weightOf(entity.type) * proximity;
+
+            // positive floats sort the same as their bits
+            this.sortKeys[numberOfCandidates++] = ((long)Float.floatToIntBits(this.priorities[i]) << 32) | i;
+        }
+
+        this.numberOfDeferredEntities = 0;
+
+        /* everything fits, no need to be picky */
+        if(candidatesSize <= budget) {
+            for(int i = 0; i < numberOfCandidates; i++) {
+                this.priorities[(int)this.sortKeys[i]] = 0f;
+            }
+            return;
+        }
+
+        Arrays.sort(this.sortKeys, 0, numberOfCandidates);
+
+        long budgetBits = (long)budget * 8 - deferredIdBits;
+
+        for(int i = numberOfCandidates - 1; i >= 0; i--) {
+            int id = (int)this.sortKeys[i];
+
+            int idBits = (id >= SeventhConstants.MAX_PERSISTANT_ENTITIES) ? BufferIO.numEntityIdBits(id) : 0;
+            long sizeBits = (long)this.sizes[id] * 8;
+
+            if(sizeBits <= budgetBits + idBits) {
+                budgetBits += idBits - sizeBits;
+                this.priorities[id] = 0f;
+            }
+            else {
+                entities[id] = null;
+
+                /* volatile entities are removed by the client if they are missing
+                 * from the update, so let it know they are still around (the bits
+                 * for its id were already held back)
+                 */
+                if(idBits > 0) {
+                    netUpdate.addDeferredEntity(id);
+                }
+
+                this.numberOfDeferredEntities++;
+            }
+        }
+    }
+}
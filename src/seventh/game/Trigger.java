@@ -30,4 +30,13 @@ public interface Trigger {
      * @param game
      */
     public void execute(Game game);
+    
+    /**
+     * Invoked once the {@link Trigger} is removed from the game, either because it
+     * has executed or because the triggers were cleared out.  Any resources the trigger
+     * holds on to (such as event listeners) should be released here.
+     * 
+     * @param game
+     */
+    public void onRemoved(Game game);
 }
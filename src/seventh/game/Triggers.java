@@ -6,11 +6,13 @@ package seventh.game;
 import java.util.ArrayList;
 import java.util.List;
 
+import seventh.shared.Cons;
 import seventh.shared.TimeStep;
 import seventh.shared.Updatable;
 
 /**
- * Handles management of triggers
+ * Handles management of triggers.  The triggers checked in a tick can be given a time budget, once it
+ * is spent the remaining triggers are deferred to the next tick, where they are checked first.
  * 
  * @author Tony
  *
@@ -20,6 +22,9 @@ public class Triggers implements Updatable {
     private List<Trigger> triggers, pendingTriggers;
     private Game game;
     
+    private long budgetNanos;
+    private long nextWarningTime;
+    
     /**
      * 
      */
@@ -29,17 +34,52 @@ public class Triggers implements Updatable {
         this.pendingTriggers = new ArrayList<>();
     }
     
+    /**
+     * @param budgetMsec the time in milliseconds the triggers may take each tick, 0 for no limit
+     */
+    public void setBudget(long budgetMsec) {
+        this.budgetNanos = Math.max(0, budgetMsec) * 1_000_000L;
+    }
+    
+    /**
+     * @return the time in milliseconds the triggers may take each tick, 0 for no limit
+     */
+    public long getBudget() {
+        return this.budgetNanos / 1_000_000L;
+    }
+    
     @Override
     public void update(TimeStep timeStep) {
         this.pendingTriggers.clear();
         
-        for(int i = 0; i < this.triggers.size(); i++) {
+        long startTime = System.nanoTime();
+        
+        int i = 0;
+        for(; i < this.triggers.size(); i++) {
+            if(this.budgetNanos > 0 && System.nanoTime() - startTime > this.budgetNanos) {
+                break;
+            }
+            
             Trigger trigger = this.triggers.get(i); 
             if(!trigger.checkCondition(game)) {
                 this.pendingTriggers.add(trigger);
             }
             else {
                 trigger.execute(game);
+                trigger.onRemoved(game);
+            }
+        }
+        
+        int numberOfDeferred = this.triggers.size() - i;
+        if(numberOfDeferred > 0) {
+            // the triggers that were not checked go first next tick
+            this.pendingTriggers.addAll(0, this.triggers.subList(i, this.triggers.size()));
+            
+            long gameClock = timeStep.getGameClock();
+            if(gameClock >= this.nextWarningTime) {
+                Cons.println("*** WARNING: Triggers went over the " + getBudget() + " msec budget, deferring " 
+                            + numberOfDeferred + " triggers to the next tick");
+                this.nextWarningTime = gameClock + 1_000;
             }
         }
         
@@ -58,6 +98,9 @@ public class Triggers implements Updatable {
      * @return
      */
     public Triggers removeTriggers() {
+        for(int i = 0; i < this.triggers.size(); i++) {
+            this.triggers.get(i).onRemoved(this.game);
+        }
         this.triggers.clear();
         return this;
     }
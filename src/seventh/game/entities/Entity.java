@@ -316,6 +316,7 @@ public abstract class Entity implements Debugable {
     
     private Type type;        
     protected int id;
+    private long handle;
     
     private LeoObject scriptObj;
     
@@ -331,8 +332,7 @@ public abstract class Entity implements Debugable {
     
     public int deadFrame;
     
-    private Vector2f xCollisionTilePos, yCollisionTilePos;
-    private Rectangle collisionRect;
+    private Movement movement;
     
     /**
      * @param position
@@ -378,9 +378,33 @@ public abstract class Entity implements Debugable {
        
         this.teleportPos = new Vector2f();
         
-        this.xCollisionTilePos = new Vector2f();
-        this.yCollisionTilePos = new Vector2f();
-        this.collisionRect = new Rectangle();
+        this.movement = new Movement() {
+            
+            @Override
+            protected boolean collidesAgainstEntity(Rectangle bounds) {
+                return Entity.this.collidesAgainstEntity(bounds);
+            }
+            
+            @Override
+            protected boolean collidesAgainstMapObject(Rectangle bounds) {
+                return Entity.this.collidesAgainstMapObject(bounds);
+            }
+            
+            @Override
+            protected boolean collideX(int newX, int oldX) {
+                return Entity.this.collideX(newX, oldX);
+            }
+            
+            @Override
+            protected boolean collideY(int newY, int oldY) {
+                return Entity.this.collideY(newY, oldY);
+            }
+            
+            @Override
+            protected boolean continueIfBlock() {
+                return Entity.this.continueIfBlock();
+            }
+        };
     }
     
     /**
@@ -422,6 +446,21 @@ public abstract class Entity implements Debugable {
         return id;
     }
     
+    /**
+     * @return the handle of this entity, which unlike the id is never reused by another 
+     * entity, see {@link seventh.game.EntityTable#handleOf(int)}
+     */
+    public long getEntityHandle() {
+        return handle;
+    }
+    
+    /**
+     * @param handle the handle given to this entity when it was added to the game
+     */
+    public void setEntityHandle(long handle) {
+        this.handle = handle;
+    }
+    
     /**
      * @param type the type to set
      */
@@ -618,148 +657,6 @@ public abstract class Entity implements Debugable {
         return true;
     }
     
-    /**
-     * Adjusts the y movement if the player is at the edge of a collidable tile and there
-     * is a free space
-     * 
-     * @param collisionTilePos
-     * @param deltaX
-     * @param currentX
-     * @param currentY
-     * @return the adjusted y to move
-     */
-    private int adjustY(Vector2f collisionTilePos, float deltaX, int currentX, int currentY) {
-        Map map = game.getMap();
-        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
-        if(collisionTile != null) {
-            //DebugDraw.drawRectRelative(collisionTile.getBounds(), 0xff00ff00);
-            
-            int xIndex = collisionTile.getXIndex();
-            int yIndex = collisionTile.getYIndex();
-            
-            int offset = 32;
-            
-            if(!map.checkTileBounds(xIndex, yIndex - 1) && !map.hasCollidableTile(xIndex, yIndex - 1)) {
-                if(currentY < (collisionTile.getY()-(bounds.height-offset))) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex, yIndex-1).getBounds(), 0xafff0000);
-                    return currentY - 1;
-                }
-            }
-            
-            if(!map.checkTileBounds(xIndex, yIndex + 1) && !map.hasCollidableTile(xIndex, yIndex + 1)) {
-                if(currentY > (collisionTile.getY()+(collisionTile.getHeight()-offset))) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex, yIndex+1).getBounds(), 0xaf0000ff);
-                    return currentY + 1;
-                }
-            }            
-        }
-        else {
-            // we're colliding with a map object            
-            collisionRect.set(bounds);
-            collisionRect.x = currentX;
-            collisionRect.y = currentY - 10;
-            
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentY - 1;
-            }
-            
-            collisionRect.y = currentY + 10;
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentY + 1;
-            }
-        }
-        return currentY;
-    }
-    
-    
-    /**
-     * Adjusts the x movement if the player is at the edge of a collidable tile and there
-     * is a free space
-     * 
-     * @param collisionTilePos
-     * @param deltaY
-     * @param currentX
-     * @param currentY
-     * @return the adjusted x to move
-     */
-    private int adjustX(Vector2f collisionTilePos, float deltaY, int currentX, int currentY) {
-        Map map = game.getMap();
-        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
-        if(collisionTile != null) {
-            //DebugDraw.drawRectRelative(collisionTile.getBounds(), 0xff00ff00);
-            
-            int xIndex = collisionTile.getXIndex();
-            int yIndex = collisionTile.getYIndex();
-            
-            int offset = 32;
-            
-            if(!map.checkTileBounds(xIndex-1, yIndex) && !map.hasCollidableTile(xIndex-1, yIndex)) {
-                if(currentX+bounds.width < (collisionTile.getX()+offset)) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex-1, yIndex).getBounds(), 0xafff0000);
-                    return currentX - 1;
-                }
-            }
-            
-            if(!map.checkTileBounds(xIndex+1, yIndex) && !map.hasCollidableTile(xIndex+1, yIndex)) {
-                if(currentX > (collisionTile.getX()+collisionTile.getWidth()-offset)) {
-                    //DebugDraw.drawRectRelative(map.getTile(0, xIndex+1, yIndex).getBounds(), 0xaf0000ff);
-                    return currentX + 1;
-                }
-            }            
-        }
-        else {
-            // we're colliding with a map object
-            collisionRect.set(bounds);
-            collisionRect.x = currentX - 10;
-            collisionRect.y = currentY;
-            
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentX - 1;
-            }
-            
-            collisionRect.x = currentX + 10;
-            if(!collidesAgainstMapObject(collisionRect)) {
-                return currentX + 1;
-            }
-        }
-        
-        return currentX;
-    }
-    
-    private boolean checkCollision(int newX, int newY) {
-        Map map = game.getMap();
-        
-        boolean isBlocked = false;
-        
-        bounds.x = newX;
-        if( map.rectCollides(bounds, collisionHeightMask) ) {
-            isBlocked = collideX(newX, bounds.x);
-            if(isBlocked) { 
-                bounds.x = (int)pos.x;                
-            }
-                            
-        }
-        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
-            bounds.x = (int)pos.x;            
-            isBlocked = true;            
-        }
-        
-        
-        bounds.y = newY;
-        if( map.rectCollides(bounds, collisionHeightMask)) {
-            isBlocked = collideY((int)newY, bounds.y);
-            if(isBlocked) {
-                bounds.y = (int)pos.y;                
-            }
-        }
-        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {                
-            bounds.y = (int)pos.y;            
-            isBlocked = true;            
-        }
-        
-        return isBlocked;
-    }
-    
     /**
      * @param dt
      * @return true if blocked
@@ -776,96 +673,7 @@ public abstract class Entity implements Debugable {
         }
         
         if(this.isAlive && !this.vel.isZero()) {
-            if(currentState != State.WALKING && currentState != State.SPRINTING) {
-                currentState = State.RUNNING;
-            }
-                                
-            int movementSpeed = calculateMovementSpeed();
-            
-            float dt = (float)timeStep.asFraction();            
-            float deltaX = (vel.x * movementSpeed * dt);
-            float deltaY = (vel.y * movementSpeed * dt);
-            
-            float newX = pos.x + deltaX;
-            float newY = pos.y + deltaY;
-                        
-            if(Math.abs(pos.x - newX) > 2.5) {
-                this.movementDir.x = vel.x;
-            }
-            
-            if(Math.abs(pos.y - newY) > 2.5) {
-                this.movementDir.y = vel.y;
-            }
-            
-            Map map = game.getMap();
-            
-            bounds.x = (int)newX;
-            if(map.rectCollides(bounds, collisionHeightMask, xCollisionTilePos)) {
-                isBlocked = collideX((int)newX, bounds.x);
-                if(isBlocked) { 
-                    bounds.x = (int)pos.x;
-                    newX = pos.x;    
-                }
-                                
-            }
-            else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
-                bounds.x = (int)pos.x;
-                newX = pos.x;
-                isBlocked = true;
-            }
-            
-            
-            bounds.y = (int)newY;
-            if(map.rectCollides(bounds, collisionHeightMask, yCollisionTilePos)) {
-                isBlocked = collideY((int)newY, bounds.y);
-                if(isBlocked) {
-                    bounds.y = (int)pos.y;
-                    newY = pos.y;
-                }
-            }
-            else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {                
-                bounds.y = (int)pos.y;
-                newY = pos.y;
-                isBlocked = true;
-            }
-            
-            if(isBlocked) {
-                /* some things want to stop dead it their tracks
-                 * if a component is blocked
-                 */
-                if(!continueIfBlock()) {
-                    bounds.setLocation(pos);
-                    
-                    newX = pos.x;
-                    newY = pos.y;
-                }  
-                
-                /*
-                 * Otherwise determine if the character
-                 * is a couple pixels off and is snagged on
-                 * a corner, if so auto adjust them
-                 */
-                else {
-                    if(deltaX!=0 && deltaY==0) {                
-                        newY = adjustY(xCollisionTilePos, deltaX, (int)(pos.x + deltaX), bounds.y);
-                        if(checkCollision((int)newX, (int)newY)) {
-                            newY = pos.y;
-                        }
-                    }
-                    else if(deltaX==0 && deltaY!=0) {
-                        newX = adjustX(yCollisionTilePos, deltaY, bounds.x, (int)(pos.y + deltaY));
-                        if(checkCollision((int)newX, (int)newY)) {
-                            newX = pos.x;
-                        }
-                    }
-                }
-            }
-        
-            pos.x = newX;
-            pos.y = newY;
-            vel.zeroOut();
-            
-            this.walkingTime = WALK_TIME;
+            isBlocked = move((float)timeStep.asFraction());
         }
         else {                        
             if(this.walkingTime<=0 && currentState!=State.CROUCHING) {
@@ -878,6 +686,38 @@ public abstract class Entity implements Debugable {
         return isBlocked;
     }
     
+    /**
+     * Moves this entity by its velocity, see {@link Movement}
+     * 
+     * @param dt the fraction of a second to move for
+     * @return true if blocked
+     */
+    protected boolean move(float dt) {
+        if(currentState != State.WALKING && currentState != State.SPRINTING) {
+            currentState = State.RUNNING;
+        }
+                            
+        int movementSpeed = calculateMovementSpeed();
+        
+        float deltaX = (vel.x * movementSpeed * dt);
+        float deltaY = (vel.y * movementSpeed * dt);
+        
+        if(Math.abs(deltaX) > 2.5) {
+            this.movementDir.x = vel.x;
+        }
+        
+        if(Math.abs(deltaY) > 2.5) {
+            this.movementDir.y = vel.y;
+        }
+        
+        boolean isBlocked = this.movement.move(game.getMap(), bounds, collisionHeightMask, pos, deltaX, deltaY);
+        
+        vel.zeroOut();
+        
+        this.walkingTime = WALK_TIME;
+        return isBlocked;
+    }
+    
     protected boolean collidesAgainstMapObject(Rectangle bounds) {
         List<MapObject> mapObjects = game.getCollidableMapObjects();
         for(int i = 0; i < mapObjects.size(); i++) {
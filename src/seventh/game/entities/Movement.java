@@ -0,0 +1,310 @@
+/*
+ * see license.txt
+ */
+package seventh.game.entities;
+
+import seventh.map.Map;
+import seventh.map.Tile;
+import seventh.math.Rectangle;
+import seventh.math.Vector2f;
+
+/**
+ * A single movement step through the map.  Each axis is moved and tested against the map, and then against
+ * the entities and map objects; a blocked axis is held while the other axis continues (unless
+ * {@link #continueIfBlock()} says otherwise), and an entity snagged on the corner of a tile is nudged around it.
+ *
+ * <p>
+ * The step is shared by the server ({@link Entity#update(seventh.shared.TimeStep)}) and the client side
+ * prediction, so that replaying an input on the client lands exactly where the server put it.  The
+ * collision tests that differ between the two are supplied by overriding the hooks.  A move covering more
+ * time than a server frame is split in to {@link #numberOfSteps(float)} frame sized steps by both, as only
+ * where a step ends up is tested, and one long step could carry the entity past a thin wall.
+ *
+ * @author Tony
+ *
+ */
+public abstract class Movement {
+
+    /**
+     * The most time, in seconds, a single movement step covers (the default server frame)
+     */
+    public static final float MAX_STEP_TIME = 0.02f;
+
+    private Vector2f xCollisionTilePos, yCollisionTilePos;
+    private Rectangle collisionRect;
+
+    /**
+     *
+     */
+    public Movement() {
+        this.xCollisionTilePos = new Vector2f();
+        this.yCollisionTilePos = new Vector2f();
+        this.collisionRect = new Rectangle();
+    }
+
+    /**
+     * @param dt the fraction of a second to move for
+     * @return the number of equal steps the move is split in to, so that none covers more
+     * than {@link #MAX_STEP_TIME}
+     */
+    public static int numberOfSteps(float dt) {
+        return Math.max(1, (int)Math.ceil(dt / MAX_STEP_TIME));
+    }
+
+    /**
+     * @param bounds
+     * @return true if the bounds collide with an entity that blocks movement
+     */
+    protected abstract boolean collidesAgainstEntity(Rectangle bounds);
+
+    /**
+     * @param bounds
+     * @return true if the bounds collide with a map object that blocks movement
+     */
+    protected abstract boolean collidesAgainstMapObject(Rectangle bounds);
+
+    /**
+     * Invoked when the x component collides with a map element
+     * @param newX
+     * @param oldX
+     * @return true if blocked
+     */
+    protected boolean collideX(int newX, int oldX) {
+        return true;
+    }
+
+    /**
+     * Invoked when the y component collides with a map element
+     * @param newY
+     * @param oldY
+     * @return true if blocked
+     */
+    protected boolean collideY(int newY, int oldY) {
+        return true;
+    }
+
+    /**
+     * Continue to check Y coordinate if X was blocked
+     * @return true if we should continue collision checks
+     */
+    protected boolean continueIfBlock() {
+        return true;
+    }
+
+    /**
+     * Moves the position by the supplied delta, taking into account collisions.  The bounds
+     * are moved along with the position.
+     *
+     * @param map
+     * @param bounds the bounds of the moving entity, located at the position
+     * @param heightMask the collision height mask
+     * @param pos the position to move
+     * @param deltaX
+     * @param deltaY
+     * @return true if the movement was blocked
+     */
+    public boolean move(Map map, Rectangle bounds, int heightMask, Vector2f pos, float deltaX, float deltaY) {
+        boolean isBlocked = false;
+
+        float newX = pos.x + deltaX;
+        float newY = pos.y + deltaY;
+
+        bounds.x = (int)newX;
+        if(map.rectCollides(bounds, heightMask, xCollisionTilePos)) {
+            isBlocked = collideX((int)newX, bounds.x);
+            if(isBlocked) {
+                bounds.x = (int)pos.x;
+                newX = pos.x;
+            }
+
+        }
+        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
+            bounds.x = (int)pos.x;
+            newX = pos.x;
+            isBlocked = true;
+        }
+
+
+        bounds.y = (int)newY;
+        if(map.rectCollides(bounds, heightMask, yCollisionTilePos)) {
+            isBlocked = collideY((int)newY, bounds.y);
+            if(isBlocked) {
+                bounds.y = (int)pos.y;
+                newY = pos.y;
+            }
+        }
+        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
+            bounds.y = (int)pos.y;
+            newY = pos.y;
+            isBlocked = true;
+        }
+
+        if(isBlocked) {
+            /* some things want to stop dead it their tracks
+             * if a component is blocked
+             */
+            if(!continueIfBlock()) {
+                bounds.setLocation(pos);
+
+                newX = pos.x;
+                newY = pos.y;
+            }
+
+            /*
+             * Otherwise determine if the character
+             * is a couple pixels off and is snagged on
+             * a corner, if so auto adjust them
+             */
+            else {
+                if(deltaX!=0 && deltaY==0) {
+                    newY = adjustY(map, bounds, xCollisionTilePos, (int)(pos.x + deltaX), bounds.y);
+                    if(checkCollision(map, bounds, heightMask, pos, (int)newX, (int)newY)) {
+                        newY = pos.y;
+                    }
+                }
+                else if(deltaX==0 && deltaY!=0) {
+                    newX = adjustX(map, bounds, yCollisionTilePos, bounds.x, (int)(pos.y + deltaY));
+                    if(checkCollision(map, bounds, heightMask, pos, (int)newX, (int)newY)) {
+                        newX = pos.x;
+                    }
+                }
+            }
+        }
+
+        pos.x = newX;
+        pos.y = newY;
+
+        return isBlocked;
+    }
+
+    /**
+     * Adjusts the y movement if the entity is at the edge of a collidable tile and there
+     * is a free space
+     *
+     * @param map
+     * @param bounds
+     * @param collisionTilePos
+     * @param currentX
+     * @param currentY
+     * @return the adjusted y to move
+     */
+    private int adjustY(Map map, Rectangle bounds, Vector2f collisionTilePos, int currentX, int currentY) {
+        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
+        if(collisionTile != null) {
+            int xIndex = collisionTile.getXIndex();
+            int yIndex = collisionTile.getYIndex();
+
+            int offset = 32;
+
+            if(!map.checkTileBounds(xIndex, yIndex - 1) && !map.hasCollidableTile(xIndex, yIndex - 1)) {
+                if(currentY < (collisionTile.getY()-(bounds.height-offset))) {
+                    return currentY - 1;
+                }
+            }
+
+            if(!map.checkTileBounds(xIndex, yIndex + 1) && !map.hasCollidableTile(xIndex, yIndex + 1)) {
+                if(currentY > (collisionTile.getY()+(collisionTile.getHeight()-offset))) {
+                    return currentY + 1;
+                }
+            }
+        }
+        else {
+            // we're colliding with a map object
+            collisionRect.set(bounds);
+            collisionRect.x = currentX;
+            collisionRect.y = currentY - 10;
+
+            if(!collidesAgainstMapObject(collisionRect)) {
+                return currentY - 1;
+            }
+
+            collisionRect.y = currentY + 10;
+            if(!collidesAgainstMapObject(collisionRect)) {
+                return currentY + 1;
+            }
+        }
+        return currentY;
+    }
+
+    /**
+     * Adjusts the x movement if the entity is at the edge of a collidable tile and there
+     * is a free space
+     *
+     * @param map
+     * @param bounds
+     * @param collisionTilePos
+     * @param currentX
+     * @param currentY
+     * @return the adjusted x to move
+     */
+    private int adjustX(Map map, Rectangle bounds, Vector2f collisionTilePos, int currentX, int currentY) {
+        Tile collisionTile = map.getWorldCollidableTile((int)collisionTilePos.x, (int)collisionTilePos.y);
+        if(collisionTile != null) {
+            int xIndex = collisionTile.getXIndex();
+            int yIndex = collisionTile.getYIndex();
+
+            int offset = 32;
+
+            if(!map.checkTileBounds(xIndex-1, yIndex) && !map.hasCollidableTile(xIndex-1, yIndex)) {
+                if(currentX+bounds.width < (collisionTile.getX()+offset)) {
+                    return currentX - 1;
+                }
+            }
+
+            if(!map.checkTileBounds(xIndex+1, yIndex) && !map.hasCollidableTile(xIndex+1, yIndex)) {
+                if(currentX > (collisionTile.getX()+collisionTile.getWidth()-offset)) {
+                    return currentX + 1;
+                }
+            }
+        }
+        else {
+            // we're colliding with a map object
+            collisionRect.set(bounds);
+            collisionRect.x = currentX - 10;
+            collisionRect.y = currentY;
+
+            if(!collidesAgainstMapObject(collisionRect)) {
+                return currentX - 1;
+            }
+
+            collisionRect.x = currentX + 10;
+            if(!collidesAgainstMapObject(collisionRect)) {
+                return currentX + 1;
+            }
+        }
+
+        return currentX;
+    }
+
+    private boolean checkCollision(Map map, Rectangle bounds, int heightMask, Vector2f pos, int newX, int newY) {
+        boolean isBlocked = false;
+
+        bounds.x = newX;
+        if( map.rectCollides(bounds, heightMask) ) {
+            isBlocked = collideX(newX, bounds.x);
+            if(isBlocked) {
+                bounds.x = (int)pos.x;
+            }
+
+        }
+        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
+            bounds.x = (int)pos.x;
+            isBlocked = true;
+        }
+
+
+        bounds.y = newY;
+        if( map.rectCollides(bounds, heightMask)) {
+            isBlocked = collideY(newY, bounds.y);
+            if(isBlocked) {
+                bounds.y = (int)pos.y;
+            }
+        }
+        else if(collidesAgainstEntity(bounds) || collidesAgainstMapObject(bounds)) {
+            bounds.y = (int)pos.y;
+            isBlocked = true;
+        }
+
+        return isBlocked;
+    }
+}
@@ -23,6 +23,8 @@ import static seventh.shared.SeventhConstants.WALK_SPEED_FACTOR;
 import java.util.List;
 
 import seventh.game.Controllable;
+import seventh.game.EntityTable;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.Game;
 import seventh.game.Inventory;
 import seventh.game.Player;
@@ -135,6 +137,7 @@ public class PlayerEntity extends Entity implements Controllable {
     private boolean completedRecovery;
     
     protected Vector2f inputVel;
+    private boolean isMovedByInputs;
     private boolean firing;
     private long runTime, recoveryTime;
     private boolean wasSprinting;
@@ -142,7 +145,7 @@ public class PlayerEntity extends Entity implements Controllable {
     private Vector2f enemyDir;
     
     private BombTarget bombTarget;
-    private Vehicle operating;
+    private long operatingHandle;
     
     private boolean isFlashlightOn;
     private long vehicleTime;
@@ -547,7 +550,12 @@ public class PlayerEntity extends Entity implements Controllable {
         boolean blocked = false;        
         if(!isOperatingVehicle()) {
             
-            updateVelocity(timeStep);
+            /* players driven by remote inputs have already been moved
+             * as their inputs were consumed
+             */
+            if(!this.isMovedByInputs) {
+                updateVelocity(timeStep);
+            }
             blocked = super.update(timeStep);
                     
             updateMovementSounds(timeStep);        
@@ -556,8 +564,9 @@ public class PlayerEntity extends Entity implements Controllable {
             updateBombTargetUse(timeStep);
         }
         else {
-            this.operating.operate(this);
-            moveTo(this.operating.getCenterPos());
+            Vehicle vehicle = getVehicle();
+            vehicle.operate(this);
+            moveTo(vehicle.getCenterPos());
         }
         
         /*{   
@@ -590,6 +599,27 @@ public class PlayerEntity extends Entity implements Controllable {
         this.vel.set(inputVel);
     }
     
+    /**
+     * Moves the player for the time a remote input covers.  A player driven by remote inputs is 
+     * moved as each input is consumed, by the time the client simulated that input for rather than by 
+     * the game tick, which is exactly how the client predicts (and replays) its own movement.  Once moved
+     * by an input, the player is no longer moved by the game tick.
+     * 
+     * @param duration the time the input covers, in milliseconds
+     */
+    public void moveByInput(long duration) {
+        this.isMovedByInputs = true;
+        
+        if(isAlive() && !isOperatingVehicle() && !this.inputVel.isZero()) {
+            float dt = (float)(duration / 1000.0d);
+            int numberOfSteps = Movement.numberOfSteps(dt);
+            for(int i = 0; i < numberOfSteps; i++) {
+                this.vel.set(inputVel);
+                move(dt / numberOfSteps);
+            }
+        }
+    }
+    
     /**
      * Handles the invincible time
      * @param timeStep
@@ -615,6 +645,17 @@ public class PlayerEntity extends Entity implements Controllable {
             else if(currentState == State.EXITING_VEHICLE) {
                 
                 Vehicle vehicle = getVehicle();
+                
+                /* the vehicle has since been removed from the game, 
+                 * so there is nothing left to exit
+                 */
+                if(vehicle == null) {
+                    this.operatingHandle = EntityTable.NO_HANDLE;
+                    setCanTakeDamage(true);
+                    currentState = State.IDLE;
+                    return;
+                }
+                
                 Rectangle area = new Rectangle(300, 300);
                 area.centerAround(vehicle.getCenterPos());
                 Vector2f newPos = game.findFreeRandomSpotNotIn(this, area, vehicle.getOBB());
@@ -627,8 +668,8 @@ public class PlayerEntity extends Entity implements Controllable {
                 }
                 else {
                     
-                    this.operating.stopOperating(this);
-                    this.operating = null;        
+                    vehicle.stopOperating(this);
+                    this.operatingHandle = EntityTable.NO_HANDLE;        
                     setCanTakeDamage(true);
                     
                     currentState = State.IDLE;
@@ -850,7 +891,7 @@ public class PlayerEntity extends Entity implements Controllable {
              * the vehicles
              */
             if(Keys.USE.isDown(previousKeys) && !Keys.USE.isDown(keys)) {
-                if(currentState==State.OPERATING_VEHICLE&&!this.operating.isMoving()) {
+                if(currentState==State.OPERATING_VEHICLE&&!getVehicle().isMoving()) {
                     leaveVehicle();
                 }
             }
@@ -861,7 +902,7 @@ public class PlayerEntity extends Entity implements Controllable {
                  * it
                  */
                 if(currentState==State.OPERATING_VEHICLE) {
-                    this.operating.handleUserCommand(keys, orientation);
+                    getVehicle().handleUserCommand(keys, orientation);
                 }
             }
             
@@ -1574,7 +1615,8 @@ public class PlayerEntity extends Entity implements Controllable {
      * @return true if operating a {@link Vehicle}
      */
     public boolean isOperatingVehicle() {
-        return this.operating != null && this.operating.isAlive();
+        Vehicle vehicle = getVehicle();
+        return vehicle != null && vehicle.isAlive();
     }
     
     private void beginLeaveVehicle() {
@@ -1595,18 +1637,19 @@ public class PlayerEntity extends Entity implements Controllable {
      * @param vehicle
      */
     public void operateVehicle(Vehicle vehicle) {
-        this.operating = vehicle;
-        this.operating.operate(this);
+        this.operatingHandle = vehicle.getEntityHandle();
+        vehicle.operate(this);
         this.vehicleTime = ENTERING_VEHICLE_TIME;
         this.currentState = State.ENTERING_VEHICLE;
         setCanTakeDamage(false);
     }
     
     /**
-     * @return the {@link Vehicle} this {@link PlayerEntity} is operating
+     * @return the {@link Vehicle} this {@link PlayerEntity} is operating, or null if 
+     * not operating one (or it is no longer in the game)
      */
     public Vehicle getVehicle() {
-        return this.operating;
+        return (Vehicle)game.getEntityByHandle(this.operatingHandle);
     }
     
     /**
@@ -1720,7 +1763,7 @@ public class PlayerEntity extends Entity implements Controllable {
          * Calculate all the visuals this player can see
          */
         Map map = game.getMap();
-        Entity[] entities = game.getEntities();
+        EntityList entities = game.getEntityTable().getActive();
         
         Vector2f centerPos = getCenterPos();
         this.visualBounds.centerAround(centerPos);
@@ -1733,11 +1776,8 @@ public class PlayerEntity extends Entity implements Controllable {
         }
         
         
-        for(int i = 0; i < entities.length; i++) {
-            Entity ent = entities[i];
-            if(ent==null /*|| !ent.isAlive()*/) {
-                continue;
-            }
+        for(int i = 0; i < entities.size(); i++) {
+            Entity ent = entities.get(i);
             
             Type entType = ent.getType();
             boolean isCalculatedEntity = entType==Type.PLAYER;
@@ -1886,7 +1926,7 @@ public class PlayerEntity extends Entity implements Controllable {
         
         player.isOperatingVehicle = isOperatingVehicle();
         if(player.isOperatingVehicle) {
-            player.vehicleId = this.operating.getId(); 
+            player.vehicleId = getVehicle().getId(); 
         }
         
         
@@ -1916,7 +1956,7 @@ public class PlayerEntity extends Entity implements Controllable {
         
         player.isOperatingVehicle = isOperatingVehicle();
         if(player.isOperatingVehicle) {
-            player.vehicleId = this.operating.getId(); 
+            player.vehicleId = getVehicle().getId(); 
         }
         
         Weapon weapon = inventory.currentItem();
@@ -4,6 +4,7 @@
 package seventh.game.entities.vehicles;
 
 import seventh.game.Controllable;
+import seventh.game.EntityTable;
 import seventh.game.Game;
 import seventh.game.entities.Entity;
 import seventh.game.entities.PlayerEntity;
@@ -30,7 +31,7 @@ public abstract class Vehicle extends Entity implements Controllable {
     
     protected final Vector2f center;
     protected int aabbWidth, aabbHeight;
-    private PlayerEntity operator;
+    private long operatorHandle;
     
     private Timer killTimer;
     private Entity killer;
@@ -157,14 +158,15 @@ public abstract class Vehicle extends Entity implements Controllable {
      * @return the operator
      */
     public PlayerEntity getOperator() {
-        return operator;
+        return (PlayerEntity)game.getEntityByHandle(this.operatorHandle);
     }
     
     /**
      * @return true if there is an operator
      */
     public boolean hasOperator() {
-        return this.operator != null && this.operator.isAlive();
+        PlayerEntity operator = getOperator();
+        return operator != null && operator.isAlive();
     }
     
     /**
@@ -175,7 +177,7 @@ public abstract class Vehicle extends Entity implements Controllable {
             beginOperating();
         }
         
-        this.operator = operator;
+        this.operatorHandle = operator.getEntityHandle();
     }
 
     /**
@@ -183,7 +185,7 @@ public abstract class Vehicle extends Entity implements Controllable {
      * @param operator
      */
     public void stopOperating(PlayerEntity operator) {
-        this.operator = null;
+        this.operatorHandle = EntityTable.NO_HANDLE;
         endOperating();
     }    
     
@@ -9,8 +9,11 @@ import java.util.List;
 import leola.vm.types.LeoObject;
 import seventh.math.Pair;
 import seventh.shared.Cons;
+import seventh.shared.Event;
 import seventh.shared.EventDispatcher;
 import seventh.shared.EventListener;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
 
 /**
  * Registers {@link EventListener}s to events for scripting
@@ -31,9 +34,17 @@ public class EventRegistration {
         this.registeredListeners = new ArrayList<>();
     }
 
-    private void callFunction(String eventName, LeoObject function, Object event) {
+    private void callFunction(String eventName, ScriptProfiler.Entry entry, LeoObject function, Event event) {
         if(function!=null) {
-            LeoObject result = function.call(LeoObject.valueOf(event));
+            LeoObject result = null;
+            entry.begin();
+            try {
+                result = function.call(event.asScriptObject());
+            }
+            finally {
+                entry.end();
+            }
+            
             if(result.isError()) {
                 Cons.println("*** ERROR: Calling '" + eventName + "' event listener - " + result.toString());
             }
@@ -63,13 +74,14 @@ public class EventRegistration {
      * @param function the listener
      */
     public void addEventListener(final String eventName, final LeoObject function) {
+        final ScriptProfiler.Entry entry = Scripting.getProfiler().getEntry("event:" + eventName.toLowerCase());
         switch(eventName.toLowerCase()) {
             case "bombdisarmedevent": {
                 addEventListener(BombDisarmedEvent.class, new BombDisarmedListener() {
                     
                     @Override
                     public void onBombDisarmedEvent(BombDisarmedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -78,7 +90,7 @@ public class EventRegistration {
                 addEventListener(BombExplodedEvent.class, new BombExplodedListener() {                    
                     @Override
                     public void onBombExplodedEvent(BombExplodedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -87,7 +99,7 @@ public class EventRegistration {
                 addEventListener(BombPlantedEvent.class, new BombPlantedListener() {                    
                     @Override
                     public void onBombPlanted(BombPlantedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -96,7 +108,7 @@ public class EventRegistration {
                 addEventListener(FlagCapturedEvent.class, new FlagCapturedListener() {                                    
                     @Override
                     public void onFlagCapturedEvent(FlagCapturedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -105,7 +117,7 @@ public class EventRegistration {
                 addEventListener(FlagReturnedEvent.class, new FlagReturnedListener() {                                        
                     @Override
                     public void onFlagReturnedEvent(FlagReturnedEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -114,7 +126,7 @@ public class EventRegistration {
                 addEventListener(FlagStolenEvent.class, new FlagStolenListener() {                                        
                     @Override
                     public void onFlagStolenEvent(FlagStolenEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -123,7 +135,7 @@ public class EventRegistration {
                 addEventListener(GameEndEvent.class, new GameEndListener() {                                        
                     @Override
                     public void onGameEnd(GameEndEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -132,7 +144,7 @@ public class EventRegistration {
                 addEventListener(KillRollEvent.class, new KillRollListener() {                                        
                     @Override
                     public void onKillRoll(KillRollEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -141,7 +153,7 @@ public class EventRegistration {
                 addEventListener(KillStreakEvent.class, new KillStreakListener() {                                        
                     @Override
                     public void onKillStreak(KillStreakEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -150,7 +162,7 @@ public class EventRegistration {
                 addEventListener(PlayerAwardEvent.class, new PlayerAwardListener() {                                        
                     @Override
                     public void onPlayerAward(PlayerAwardEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -159,7 +171,7 @@ public class EventRegistration {
                 addEventListener(PlayerJoinedEvent.class, new PlayerJoinedListener() {                                        
                     @Override
                     public void onPlayerJoined(PlayerJoinedEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -168,7 +180,7 @@ public class EventRegistration {
                 addEventListener(PlayerKilledEvent.class, new PlayerKilledListener() {                                        
                     @Override
                     public void onPlayerKilled(PlayerKilledEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -177,7 +189,7 @@ public class EventRegistration {
                 addEventListener(PlayerLeftEvent.class, new PlayerLeftListener() {                                        
                     @Override
                     public void onPlayerLeft(PlayerLeftEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -186,7 +198,7 @@ public class EventRegistration {
                 addEventListener(PlayerSpawnedEvent.class, new PlayerSpawnedListener() {                                        
                     @Override
                     public void onPlayerSpawned(PlayerSpawnedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -195,7 +207,7 @@ public class EventRegistration {
                 addEventListener(RoundEndedEvent.class, new RoundEndedListener() {                    
                     @Override
                     public void onRoundEnded(RoundEndedEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -204,7 +216,7 @@ public class EventRegistration {
                 addEventListener(RoundStartedEvent.class, new RoundStartedListener() {                                        
                     @Override
                     public void onRoundStarted(RoundStartedEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -213,7 +225,7 @@ public class EventRegistration {
                 addEventListener(SoundEmittedEvent.class, new SoundEmitterListener() {                    
                     @Override
                     public void onSoundEmitted(SoundEmittedEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -222,7 +234,7 @@ public class EventRegistration {
                 addEventListener(GameEvent.class, new GameEventListener() {                    
                     @Override
                     public void onGameEvent(GameEvent event) {
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
@@ -231,7 +243,7 @@ public class EventRegistration {
                 addEventListener(TileRemovedEvent.class, new TileRemovedListener() {                                        
                     @Override
                     public void onTileRemoved(TileRemovedEvent event) {                    
-                        callFunction(eventName, function, event);
+                        callFunction(eventName, entry, function, event);
                     }
                 });
                 break;
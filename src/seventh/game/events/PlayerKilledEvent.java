@@ -36,12 +36,35 @@ public class PlayerKilledEvent extends Event {
      */
     public PlayerKilledEvent(Object source, Player player, Entity killedBy, Vector2f pos) {
         super(source);
-                
+        
+        this.pos = new Vector2f();
+        set(source, player, killedBy, pos);
+    }
+    
+    /**
+     * For pooling
+     */
+    public PlayerKilledEvent() {
+        super(null);
+        this.pos = new Vector2f();
+    }
+    
+    /**
+     * @param source
+     * @param player
+     * @param killedBy
+     * @param pos
+     * @return this event
+     */
+    public PlayerKilledEvent set(Object source, Player player, Entity killedBy, Vector2f pos) {
+        setSource(source);
+        
         this.player = player;
         this.killedBy = killedBy;
-        this.pos = new Vector2f(pos);
+        this.pos.set(pos);
         
         this.mod = calculateMeansOfDeath();
+        return this;
     }
     
     /**
@@ -126,34 +149,24 @@ public class PlayerKilledEvent extends Event {
                 case GRENADE:
                 case BULLET: {
                     Bullet bullet = (Bullet)killer;
-                    Entity owner = bullet.getOwner();
-                    if(owner!=null) {
-                        killerId = owner.getId();
-                    }
+                    killerId = bullet.getOwnerId();
                     break;
                 }                
                 case FIRE: {
                     Fire fire = (Fire) killer;
-                    Entity owner = fire.getOwner();
-                    if(owner!=null) {
-                        killerId = owner.getId();
-                    }
+                    killerId = fire.getOwnerId();
                     break;
                 }
                 case EXPLOSION: {
                     Explosion explosion = (Explosion)killer;
-                    Entity owner = explosion.getOwner();
-                    if(owner!=null) {
-                        killerId = owner.getId();
+                    if(explosion.getOwnerId() > -1) {
+                        killerId = explosion.getOwnerId();
                     }
                     break;
                 }                        
                 case ROCKET: {
                     Rocket rocket = (Rocket)killer;
-                    Entity owner = rocket.getOwner();
-                    if(owner!=null) {
-                        killerId = owner.getId();
-                    }
+                    killerId = rocket.getOwnerId();
                     break;
                 }                        
                 default: {
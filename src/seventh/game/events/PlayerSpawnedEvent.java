@@ -21,9 +21,27 @@ public class PlayerSpawnedEvent extends Event {
      */
     public PlayerSpawnedEvent(Object source, Player player, Vector2f position) {
         super(source);
-        
+        set(source, player, position);
+    }
+    
+    /**
+     * For pooling
+     */
+    public PlayerSpawnedEvent() {
+        super(null);
+    }
+    
+    /**
+     * @param source
+     * @param player
+     * @param position
+     * @return this event
+     */
+    public PlayerSpawnedEvent set(Object source, Player player, Vector2f position) {
+        setSource(source);
         this.player = player;
         this.spawnLocation = position;
+        return this;
     }
     
     /**
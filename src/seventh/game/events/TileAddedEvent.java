@@ -18,9 +18,29 @@ public class TileAddedEvent extends Event {
      */
     public TileAddedEvent(Object source, int type, int x, int y) {
         super(source);
+        set(source, type, x, y);
+    }
+
+    /**
+     * For pooling
+     */
+    public TileAddedEvent() {
+        super(null);
+    }
+
+    /**
+     * @param source
+     * @param type
+     * @param x
+     * @param y
+     * @return this event
+     */
+    public TileAddedEvent set(Object source, int type, int x, int y) {
+        setSource(source);
         this.type = type;
         this.x = x;
         this.y = y;
+        return this;
     }
     
     /**
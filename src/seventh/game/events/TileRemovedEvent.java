@@ -18,8 +18,27 @@ public class TileRemovedEvent extends Event {
      */
     public TileRemovedEvent(Object source, int x, int y) {
         super(source);
+        set(source, x, y);
+    }
+
+    /**
+     * For pooling
+     */
+    public TileRemovedEvent() {
+        super(null);
+    }
+
+    /**
+     * @param source
+     * @param x
+     * @param y
+     * @return this event
+     */
+    public TileRemovedEvent set(Object source, int x, int y) {
+        setSource(source);
         this.x = x;
         this.y = y;
+        return this;
     }
     
     /**
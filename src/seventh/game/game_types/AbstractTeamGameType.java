@@ -146,6 +146,9 @@ public abstract class AbstractTeamGameType implements GameType {
         this.game = game;
         this.dispatcher = dispatcher;
         
+        /* share the game's random, so that seeding the game seeds the team picks and spawns */
+        this.random = game.getRandom();
+        
         dispatcher.addEventListener(RoundEndedEvent.class, new RoundEndedListener() {
             @Override
             public void onRoundEnded(RoundEndedEvent event) {
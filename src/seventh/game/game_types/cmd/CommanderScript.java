@@ -14,6 +14,7 @@ import seventh.game.game_types.AbstractGameTypeScript;
 import seventh.game.game_types.GameType;
 import seventh.math.Vector2f;
 import seventh.shared.Cons;
+import seventh.shared.Scripting;
 
 /**
  * Loads an Commander rules script
@@ -49,7 +50,7 @@ public class CommanderScript extends AbstractGameTypeScript {
             Cons.println("*** ERROR -> No associated script file for Commander game type.  Looking for: " + scriptFile.getName());
         }
         else {
-            config = getRuntime().eval(scriptFile);
+            config = Scripting.eval(getRuntime(), scriptFile);
             if(LeoObject.isTrue(config)) {
                                 
                 alliedSpawnPoints = loadSpawnPoint(config, "alliedSpawnPoints");
@@ -14,6 +14,7 @@ import seventh.game.game_types.GameType;
 import seventh.math.Rectangle;
 import seventh.math.Vector2f;
 import seventh.shared.Cons;
+import seventh.shared.Scripting;
 
 /**
  * Loads an Capture The Flag rules script
@@ -55,7 +56,7 @@ public class CaptureTheFlagScript extends AbstractGameTypeScript {
             Cons.println("*** ERROR -> No associated script file for 'Capture The Flag' game type.  Looking for: " + scriptFile.getName());
         }
         else {
-            LeoObject config = getRuntime().eval(scriptFile);
+            LeoObject config = Scripting.eval(getRuntime(), scriptFile);
             if(LeoObject.isTrue(config)) {
                                 
                 alliedSpawnPoints = loadSpawnPoint(config, "alliedSpawnPoints");
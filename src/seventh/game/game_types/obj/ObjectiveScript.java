@@ -16,6 +16,7 @@ import seventh.game.game_types.AbstractGameTypeScript;
 import seventh.game.game_types.GameType;
 import seventh.math.Vector2f;
 import seventh.shared.Cons;
+import seventh.shared.Scripting;
 
 /**
  * Loads an {@link Objective} script
@@ -51,7 +52,7 @@ public class ObjectiveScript extends AbstractGameTypeScript {
             Cons.println("*** ERROR -> No associated script file for objective game type.  Looking for: " + scriptFile.getName());
         }
         else {
-            LeoObject config = getRuntime().eval(scriptFile);
+            LeoObject config = Scripting.eval(getRuntime(), scriptFile);
             if(LeoObject.isTrue(config)) {
                 LeoObject scriptedObjectives = config.getObject("objectives");                                
                 if(LeoObject.isTrue(scriptedObjectives)) {
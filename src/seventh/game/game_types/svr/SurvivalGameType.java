@@ -204,7 +204,7 @@ public class SurvivalGameType extends AbstractTeamGameType {
         
         this.joinAllies = false;
         
-        for(int i = getAxisTeam().getTeamSize(); i < SeventhConstants.MAX_PLAYERS - maxAlliedTeamSize; i++) {
+        for(int i = getAxisTeam().getTeamSize(); i < SeventhConstants.DEFAULT_MAX_PLAYERS - maxAlliedTeamSize; i++) {
             int id = game.addBot("[b] Axis Soldier");
             if(id > -1) {
                 game.playerSwitchedTeam(id, Team.AXIS_TEAM_ID);
@@ -13,6 +13,7 @@ import seventh.game.game_types.AbstractGameTypeScript;
 import seventh.game.game_types.GameType;
 import seventh.math.Vector2f;
 import seventh.shared.Cons;
+import seventh.shared.Scripting;
 
 /**
  * Loads Survivor rules script
@@ -47,7 +48,7 @@ public class SurvivorScript extends AbstractGameTypeScript {
             Cons.println("*** ERROR -> No associated script file for Survivor game type.  Looking for: " + scriptFile.getName());
         }
         else {
-            LeoObject config = getRuntime().eval(scriptFile);
+            LeoObject config = Scripting.eval(getRuntime(), scriptFile);
             if(LeoObject.isTrue(config)) {
                                 
                 alliedSpawnPoints = loadSpawnPoint(config, "alliedSpawnPoints");
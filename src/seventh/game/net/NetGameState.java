@@ -34,14 +34,11 @@ public class NetGameState  implements NetMessage {
     protected byte bits;
     
     private BitArray bitArray;
-    private int numberOfBytes;
     
     
     public NetGameState() {
         bitArray = new BitArray(SeventhConstants.MAX_ENTITIES);
         entities = new NetEntity[SeventhConstants.MAX_ENTITIES];
-        
-        numberOfBytes = bitArray.numberOfBytes();
     }
     
     /* (non-Javadoc)
@@ -57,11 +54,10 @@ public class NetGameState  implements NetMessage {
         
         if( (bits & FL_ENTITIES) != 0) {
             
-            for(int i = 0; i < numberOfBytes; i++) {
-                bitArray.setDataElement(i, buffer.getByte());
-            }
+            bitArray.read(buffer);
             
-            for(int i = 0; i < entities.length; i++) {
+            int numberOfIds = Math.min(bitArray.numberOfBytesInUse() * 8, entities.length);
+            for(int i = 0; i < numberOfIds; i++) {
                 if(bitArray.getBit(i)) {
                     entities[i] = BufferIO.readEntity(buffer);    
                     entities[i].id = i;
@@ -131,10 +127,7 @@ public class NetGameState  implements NetMessage {
                 }
             }
             
-            byte[] data = bitArray.getData();
-            for(int i = 0; i < data.length; i++) {
-                buffer.putByte(data[i]);
-            }
+            bitArray.write(buffer);
             
             for(int i = 0; i < entities.length; i++) {
                 if(entities[i]!=null) {
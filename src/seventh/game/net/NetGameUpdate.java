@@ -18,6 +18,13 @@ public class NetGameUpdate implements NetMessage {
     public static final int SOUND_MASK = (1<<1);
     public static final int DEAD_ENTS_MASK = (1<<2);
     public static final int SPEC_MASK = (1<<3);
+    public static final int INPUT_ACK_MASK = (1<<4);
+    public static final int DEFERRED_ENTS_MASK = (1<<5);
+    
+    /**
+     * The number of bits the count of deferred entities is written in
+     */
+    public static final int DEFERRED_COUNT_BITS = 32 - Integer.numberOfLeadingZeros(SeventhConstants.MAX_ENTITIES);
     
     public NetEntity[] entities;
     public NetSound[] sounds;
@@ -26,10 +33,23 @@ public class NetGameUpdate implements NetMessage {
     public int time;
     public int spectatingPlayerId = -1;
     
+    /**
+     * The sequence of the last {@link seventh.network.messages.PlayerInputMessage} input 
+     * the server applied for this player, used for client side prediction 
+     */
+    public int lastInputSequence;
+    
+    /**
+     * The entities that are still in view, but were left out of this update
+     * because it would have gone over the clients bandwidth budget
+     */
+    private int[] deferredEntityIds;
+    private int numberOfDeferredEntities;
+    private BitArray deferredEntities;
+    
 
     private BitArray entityBitArray;
     public BitArray deadPersistantEntities;
-    private int numberOfBytes;
     
     private boolean hasDeadEntities;
     
@@ -45,8 +65,6 @@ public class NetGameUpdate implements NetMessage {
         
         deadPersistantEntities = new BitArray(SeventhConstants.MAX_PERSISTANT_ENTITIES);
         hasDeadEntities = true;
-        
-        numberOfBytes = entityBitArray.numberOfBytes();        
     }
     
     /* (non-Javadoc)
@@ -56,11 +74,10 @@ public class NetGameUpdate implements NetMessage {
     public void read(IOBuffer buffer) {
         bits = buffer.getByte();
         if( (bits & ENTITIES_MASK) != 0) {
-            for(int i = 0; i < numberOfBytes; i++) {
-                entityBitArray.setDataElement(i, buffer.getByte());
-            }
+            entityBitArray.read(buffer);
             
-            for(int i = 0; i < entities.length; i++) {
+            int numberOfIds = Math.min(entityBitArray.numberOfBytesInUse() * 8, entities.length);
+            for(int i = 0; i < numberOfIds; i++) {
                 if(entityBitArray.getBit(i)) {
                     entities[i] = BufferIO.readEntity(buffer);    
                     entities[i].id = i;
@@ -78,15 +95,25 @@ public class NetGameUpdate implements NetMessage {
         
         if( (bits & DEAD_ENTS_MASK) != 0) {            
             hasDeadEntities = true;
-            for(int i = 0; i < deadPersistantEntities.numberOfBytes(); i++) {
-                deadPersistantEntities.setDataElement(i, buffer.getByte());
-            }
+            deadPersistantEntities.read(buffer);
         }
         
         if( (bits & SPEC_MASK) != 0) {
             spectatingPlayerId = buffer.getUnsignedByte();
         }
         
+        if( (bits & INPUT_ACK_MASK) != 0) {
+            lastInputSequence = buffer.getInt();
+        }
+        
+        if( (bits & DEFERRED_ENTS_MASK) != 0) {
+            deferredEntities = new BitArray(SeventhConstants.MAX_ENTITIES);
+            numberOfDeferredEntities = buffer.getIntBits(DEFERRED_COUNT_BITS);
+            for(int i = 0; i < numberOfDeferredEntities; i++) {
+                deferredEntities.setBit(BufferIO.readEntityId(buffer));
+            }
+        }
+        
         time = buffer.getInt();
         
     }
@@ -113,6 +140,14 @@ public class NetGameUpdate implements NetMessage {
         if(spectatingPlayerId > -1) {
             bits |= SPEC_MASK;
         }
+        
+        if(lastInputSequence > 0) {
+            bits |= INPUT_ACK_MASK;
+        }
+        
+        if(numberOfDeferredEntities > 0) {
+            bits |= DEFERRED_ENTS_MASK;
+        }
     
         buffer.putByte(bits);
         
@@ -125,12 +160,9 @@ public class NetGameUpdate implements NetMessage {
                 }
             }
             
-            byte[] data = entityBitArray.getData();
-            for(int i = 0; i < data.length; i++) {
-                buffer.putByte(data[i]);
-            }
+            entityBitArray.write(buffer);
             
-            for(short i = 0; i < entities.length; i++) {
+            for(int i = 0; i < entities.length; i++) {
                 if(entities[i]!=null) {
                     entities[i].write(buffer);
                 }
@@ -145,20 +177,57 @@ public class NetGameUpdate implements NetMessage {
         }
         
         if(hasDeadEntities) {
-            byte[] data = deadPersistantEntities.getData();
-            for(int i = 0; i < data.length; i++) {
-                buffer.putByte(data[i]);
-            }
+            deadPersistantEntities.write(buffer);
         }
         
         if(spectatingPlayerId > -1) {
             buffer.putUnsignedByte(spectatingPlayerId);
         }
         
+        if(lastInputSequence > 0) {
+            buffer.putInt(lastInputSequence);
+        }
+        
+        if(numberOfDeferredEntities > 0) {
+            buffer.putIntBits(numberOfDeferredEntities, DEFERRED_COUNT_BITS);
+            for(int i = 0; i < numberOfDeferredEntities; i++) {
+                BufferIO.writeEntityId(buffer, deferredEntityIds[i]);
+            }
+        }
+        
         buffer.putInt(this.time);
         
     }
     
+    /**
+     * Marks the entity as still being in view, even though it is not 
+     * part of this update
+     * 
+     * @param entityId
+     */
+    public void addDeferredEntity(int entityId) {
+        if(deferredEntityIds == null) {
+            deferredEntityIds = new int[SeventhConstants.MAX_ENTITIES];
+        }
+        
+        deferredEntityIds[numberOfDeferredEntities++] = entityId;
+    }
+    
+    /**
+     * @return the number of entities deferred to a later update
+     */
+    public int getNumberOfDeferredEntities() {
+        return numberOfDeferredEntities;
+    }
+    
+    /**
+     * @param entityId
+     * @return true if the entity is still in view, but its state was deferred to a later update
+     */
+    public boolean isDeferred(int entityId) {
+        return deferredEntities != null && deferredEntities.getBit(entityId);
+    }
+    
     /**
      * Set the number of sounds 
      * 
@@ -75,7 +75,7 @@ public class NetPlayer extends NetEntity {
                 
         if((bits & IS_OPERATING_VEHICLE) != 0) {
             isOperatingVehicle = true;
-            vehicleId = buffer.getUnsignedByte();
+            vehicleId = BufferIO.readEntityId(buffer);
         }        
         
         if((bits & IS_SMOKE_GRENADES) != 0) {
@@ -104,7 +104,7 @@ public class NetPlayer extends NetEntity {
         }
         
         if(isOperatingVehicle) {
-            buffer.putUnsignedByte(vehicleId);
+            BufferIO.writeEntityId(buffer, vehicleId);
         }
     }
 }
@@ -47,7 +47,7 @@ public class NetPlayerPartial extends NetEntity {
          */        
         if(state.isVehicleState()) {
             isOperatingVehicle = true;
-            vehicleId = buffer.getUnsignedByte();
+            vehicleId = BufferIO.readEntityId(buffer);
         }
         else {            
             readWeapon(buffer);
@@ -81,7 +81,7 @@ public class NetPlayerPartial extends NetEntity {
          * weapon information
          */        
         if(state.isVehicleState()) {
-            buffer.putUnsignedByte(vehicleId);
+            BufferIO.writeEntityId(buffer, vehicleId);
         }
         else {            
             writeWeapon(buffer);
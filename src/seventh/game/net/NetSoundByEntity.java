@@ -4,6 +4,7 @@
 package seventh.game.net;
 
 import harenet.IOBuffer;
+import seventh.network.messages.BufferIO;
 import seventh.math.Vector2f;
 
 /**
@@ -34,7 +35,7 @@ public class NetSoundByEntity extends NetSound {
     @Override
     public void read(IOBuffer buffer) {    
         super.read(buffer);
-        this.entityId = buffer.getUnsignedByte();
+        this.entityId = BufferIO.readEntityId(buffer);
     }
     
     /* (non-Javadoc)
@@ -43,6 +44,6 @@ public class NetSoundByEntity extends NetSound {
     @Override
     public void write(IOBuffer buffer) {
         super.write(buffer);
-        buffer.putUnsignedByte(this.entityId);
+        BufferIO.writeEntityId(buffer, this.entityId);
     }        
 }
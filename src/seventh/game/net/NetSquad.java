@@ -3,6 +3,7 @@
  */
 package seventh.game.net;
 
+import harenet.BitArray;
 import harenet.IOBuffer;
 import harenet.messages.NetMessage;
 import seventh.game.PlayerClass;
@@ -22,12 +23,14 @@ public class NetSquad implements NetMessage {
     
     // The array index relates the player players ID    
     public PlayerClass[] playerClasses = new PlayerClass[SeventhConstants.MAX_PLAYERS];
+    
+    private BitArray playerIndexBits = new BitArray(SeventhConstants.MAX_PLAYERS);
         
     @Override
     public void read(IOBuffer buffer) {            
-        int playerIndexBits = buffer.getIntBits(SeventhConstants.MAX_PLAYERS);
+        playerIndexBits.read(buffer);
         for(int i = 0; i < SeventhConstants.MAX_PLAYERS; i++) {
-            if(((playerIndexBits >> i) & 1) == 1) {                
+            if(playerIndexBits.getBit(i)) {                
                 playerClasses[i] = BufferIO.readPlayerClassType(buffer); 
             }
         }
@@ -36,15 +39,16 @@ public class NetSquad implements NetMessage {
     
     @Override
     public void write(IOBuffer buffer) {
+        playerIndexBits.clear();
+        
         if(playerClasses != null) {
-            int playerIndexBits = 0;
             for(int i = 0; i < playerClasses.length; i++) {
                 if(playerClasses[i] != null) {
-                    playerIndexBits = (playerIndexBits << i) | 1;
+                    playerIndexBits.setBit(i);
                 }
             }
             
-            buffer.putIntBits(playerIndexBits, SeventhConstants.MAX_PLAYERS);
+            playerIndexBits.write(buffer);
             
             for(int i = 0; i < playerClasses.length; i++) {
                 if(playerClasses[i] != null) {
@@ -53,7 +57,7 @@ public class NetSquad implements NetMessage {
             }
         }
         else {
-            buffer.putIntBits(0, SeventhConstants.MAX_PLAYERS);
+            playerIndexBits.write(buffer);
         }
     }
 }
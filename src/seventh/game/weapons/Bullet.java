@@ -22,7 +22,8 @@ import seventh.shared.TimeStep;
  */
 public class Bullet extends Entity {
 
-    private Entity owner;
+    private long ownerHandle;
+    private int ownerId;
     protected Vector2f targetVel;
     private Vector2f previousPos, delta, origin;
     private int damage;
@@ -34,6 +35,8 @@ public class Bullet extends Entity {
     private boolean piercing;
     private Entity lastEntityTouched;
     
+    private long viewLag;
+    
     private static class BulletOnTouchListener implements Entity.OnTouchListener {
                 
         @Override
@@ -72,7 +75,7 @@ public class Bullet extends Entity {
     public Bullet(Vector2f position, int speed, final Game game, Entity owner, Vector2f targetVel, int damage, boolean isPiercing) {
         super(position, speed, game, Type.BULLET);
         
-        this.owner = owner;
+        setOwner(owner);
         this.targetVel = targetVel;
         this.damage = damage;
         
@@ -97,6 +100,9 @@ public class Bullet extends Entity {
         this.piercing = isPiercing;
         
         this.maxDistance = 5000;
+        
+        /* test against the players as the shooter saw them */
+        this.viewLag = game.getViewLag(owner);
     }
     
     /**
@@ -153,17 +159,33 @@ public class Bullet extends Entity {
     }
     
     /**
-     * @return the owner
+     * @return the owner, or null if the owner is no longer in the game
      */
     public Entity getOwner() {
-        return owner;
+        return game.getEntityByHandle(ownerHandle);
+    }
+    
+    /**
+     * @return the position the bullet was fired from
+     */
+    public Vector2f getOrigin() {
+        return origin;
+    }
+    
+    /**
+     * @return the id the owner had when this bullet was fired, this remains 
+     * valid (i.e., for kill credit) even after the owner has been removed
+     */
+    public int getOwnerId() {
+        return ownerId;
     }
     
     /**
      * @param owner the owner to set
      */
     public void setOwner(Entity owner) {
-        this.owner = owner;
+        this.ownerHandle = owner.getEntityHandle();
+        this.ownerId = owner.getId();
     }
     
     /**
@@ -312,7 +334,7 @@ public class Bullet extends Entity {
     
     @Override
     protected boolean collidesAgainstEntity(Rectangle bounds) {
-        if(game.doesTouchPlayers(this, origin, targetVel) && !this.piercing) {
+        if(game.doesTouchPlayers(this, origin, targetVel, viewLag) && !this.piercing) {
             return true;
         }            
         if(game.doesTouchVehicles(this)) {
@@ -343,7 +365,7 @@ public class Bullet extends Entity {
      */
     @Override
     public boolean isTouching(Entity other) {
-        if(other==owner) {
+        if(other.getEntityHandle()==ownerHandle) {
             return false;
         }
         return super.isTouching(other);
@@ -364,7 +386,7 @@ public class Bullet extends Entity {
         setNetEntity(netBullet);
                     
         netBullet.damage = (byte)this.damage;        
-        netBullet.ownerId = this.owner.getId();
+        netBullet.ownerId = this.ownerId;
                 
 //        netBullet.targetVelX = this.targetVel.x;
 //        netBullet.targetVelY = this.targetVel.y;
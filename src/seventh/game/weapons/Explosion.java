@@ -3,6 +3,7 @@
  */
 package seventh.game.weapons;
 
+import seventh.game.EntityTable;
 import seventh.game.Game;
 import seventh.game.entities.Entity;
 import seventh.game.net.NetEntity;
@@ -19,7 +20,8 @@ import seventh.shared.TimeStep;
 public class Explosion extends Entity {
 
     private int damage;
-    private Entity owner;
+    private long ownerHandle;
+    private int ownerId;
     private NetExplosion netEntity;
     private long explositionTime;
     
@@ -45,7 +47,14 @@ public class Explosion extends Entity {
         center.centerAround(position);
         
         this.damage = damage;
-        this.owner = owner;
+        if(owner != null) {
+            this.ownerHandle = owner.getEntityHandle();
+            this.ownerId = owner.getId();
+        }
+        else {
+            this.ownerHandle = EntityTable.NO_HANDLE;
+            this.ownerId = -1;
+        }
         
         game.emitSound(getId(), SoundType.EXPLOSION, getCenterPos());
         
@@ -78,10 +87,17 @@ public class Explosion extends Entity {
     }
     
     /**
-     * @return the owner
+     * @return the owner, or null if there is none or it is no longer in the game
      */
     public Entity getOwner() {
-        return owner;
+        return game.getEntityByHandle(ownerHandle);
+    }
+    
+    /**
+     * @return the id the owner had when this explosion was created, or -1 if there is no owner
+     */
+    public int getOwnerId() {
+        return ownerId;
     }
     
     /**
@@ -127,8 +143,8 @@ public class Explosion extends Entity {
         setNetEntity(netEntity);
         
 //        this.netEntity.damage = (byte)this.damage;
-        if(this.owner!=null) {
-            this.netEntity.ownerId = this.owner.getId();
+        if(this.ownerId > -1) {
+            this.netEntity.ownerId = this.ownerId;
         }
         
         return this.netEntity;
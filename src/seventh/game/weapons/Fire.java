@@ -19,7 +19,8 @@ import seventh.shared.TimeStep;
 public class Fire extends Entity {
     
     private int damage;
-    private Entity owner;
+    private long ownerHandle;
+    private int ownerId;
     private NetFire netEntity;
     private long torchTime;
     private Vector2f targetVel;
@@ -37,7 +38,8 @@ public class Fire extends Entity {
         bounds.height = 8;        
         
         this.damage = damage;
-        this.owner = owner;
+        this.ownerHandle = owner.getEntityHandle();
+        this.ownerId = owner.getId();
         
         this.torchTime = 3_000;
         this.targetVel = targetVel;
@@ -60,10 +62,17 @@ public class Fire extends Entity {
     }
     
     /**
-     * @return the owner
+     * @return the owner, or null if it is no longer in the game
      */
     public Entity getOwner() {
-        return owner;
+        return game.getEntityByHandle(ownerHandle);
+    }
+    
+    /**
+     * @return the id the owner had when this fire was created
+     */
+    public int getOwnerId() {
+        return ownerId;
     }
     
     /**
@@ -173,7 +182,7 @@ public class Fire extends Entity {
     
     public NetEntity getNetFireEntity() {
         setNetEntity(netEntity);        
-        this.netEntity.ownerId = this.owner.getId();        
+        this.netEntity.ownerId = this.ownerId;        
         return this.netEntity;
     }
 }
@@ -103,7 +103,7 @@ public abstract class Weapon {
         this.owner = owner;
         this.netWeapon = new NetWeapon();
         this.netWeapon.type = type;
-        this.random = new Random();
+        this.random = game.getRandom();
         this.weaponState = WeaponState.READY;    
         
         this.gunSwing = new GunSwing(game, owner);        
@@ -0,0 +1,479 @@
+/*
+ * see license.txt
+ */
+package seventh.map;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import leola.vm.types.LeoArray;
+import leola.vm.types.LeoMap;
+import leola.vm.types.LeoObject;
+import leola.vm.types.LeoString;
+
+/**
+ * The contents of a "Tiled" map file, flattened into plain arrays so that it can be written out
+ * to and read back from a compact binary file.  Parsing the JSON map file means evaluating it as
+ * a script, so the compiled file is written next to it on the first load and is used from then
+ * on, for as long as the hash of the JSON file matches the one it was compiled from.
+ *
+ * @author Tony
+ *
+ */
+public class CompiledMap {
+
+    /**
+     * 'SMAP'
+     */
+    private static final int MAGIC = 0x534D4150;
+    private static final int VERSION = 1;
+
+    /**
+     * The extension appended to the map file name for its compiled file
+     */
+    public static final String EXTENSION = ".cmap";
+
+    public static final int COLLIDABLE   = 1 << 0;
+    public static final int FOREGROUND   = 1 << 1;
+    public static final int DESTRUCTABLE = 1 << 2;
+    public static final int VISIBLE      = 1 << 3;
+    public static final int SURFACES     = 1 << 4;
+
+    /**
+     * A tileset definition
+     *
+     * @author Tony
+     *
+     */
+    public static class TilesetData {
+        public int firstgid;
+        public int margin, spacing;
+        public int tileWidth, tileHeight;
+        public String image;
+        public LeoMap properties;
+    }
+
+    /**
+     * A tile layer, or the surface types if it has the {@link CompiledMap#SURFACES} flag
+     *
+     * @author Tony
+     *
+     */
+    public static class LayerData {
+        public String name;
+        public int flags;
+        public int heightMask;
+        public int width, height;
+
+        /**
+         * The raw tile ids, including the flip bits, row by row
+         */
+        public int[] tiles;
+
+        public boolean is(int flag) {
+            return (this.flags & flag) != 0;
+        }
+    }
+
+    public int width, height;
+    public int tileWidth, tileHeight;
+
+    public TilesetData[] tilesets;
+    public LayerData[] layers;
+    public MapObjectData[] objects;
+
+    /**
+     * The hash of the JSON map file this was compiled from
+     */
+    public byte[] sourceHash;
+
+    /**
+     * @param mapFile
+     * @return the compiled file of the supplied map file
+     */
+    public static File getCacheFile(File mapFile) {
+        return new File(mapFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * @param contents
+     * @return the hash of the supplied map file contents
+     */
+    public static byte[] hash(byte[] contents) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(contents);
+        }
+        catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compiles the parsed JSON of a "Tiled" map
+     *
+     * @param map
+     * @param sourceHash the hash of the JSON map file
+     * @return the compiled map
+     */
+    public static CompiledMap compile(LeoMap map, byte[] sourceHash) {
+        CompiledMap compiled = new CompiledMap();
+        compiled.sourceHash = sourceHash;
+
+        compiled.width = map.getInt("width");
+        compiled.height = map.getInt("height");
+        compiled.tileWidth = map.getInt("tilewidth");
+        compiled.tileHeight = map.getInt("tileheight");
+
+        LeoArray tilesets = map.getByString("tilesets").as();
+        compiled.tilesets = new TilesetData[tilesets.size()];
+        for(int i = 0; i < tilesets.size(); i++) {
+            compiled.tilesets[i] = compileTileset(tilesets.get(i).as());
+        }
+
+        LeoArray layers = map.getByString("layers").as();
+
+        int numberOfLayers = 0;
+        int numberOfObjects = 0;
+        for(LeoObject l : layers) {
+            LeoMap layer = l.as();
+            String layerType = layer.getString("type");
+            if("tilelayer".equalsIgnoreCase(layerType)) {
+                numberOfLayers++;
+            }
+            else if("objectgroup".equalsIgnoreCase(layerType)) {
+                numberOfObjects += layer.getArray("objects").size();
+            }
+        }
+
+        compiled.layers = new LayerData[numberOfLayers];
+        compiled.objects = new MapObjectData[numberOfObjects];
+
+        int layerIndex = 0;
+        int objectIndex = 0;
+        for(LeoObject l : layers) {
+            LeoMap layer = l.as();
+            String layerType = layer.getString("type");
+            if("tilelayer".equalsIgnoreCase(layerType)) {
+                compiled.layers[layerIndex++] = compileLayer(layer);
+            }
+            else if("objectgroup".equalsIgnoreCase(layerType)) {
+                LeoArray objects = layer.getArray("objects");
+                for(LeoObject obj : objects) {
+                    compiled.objects[objectIndex++] = LeoObject.fromLeoObject(obj, MapObjectData.class);
+                }
+            }
+        }
+
+        return compiled;
+    }
+
+    private static TilesetData compileTileset(LeoMap tileset) {
+        // skip the sourced tilesets
+        if(tileset.hasObject("source")) {
+            // HACK: Updated version of Tiled which no longer supports inlining
+            // shared tilests (lame)
+            String source = tileset.getString("source");
+            if(source.endsWith("collidables.tsx")) {
+                tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/collision_tileset.png"));
+                tileset.putByString("name", LeoString.valueOf("collidables"));
+            }
+            else if(source.endsWith("city.tsx")) {
+                tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/cs2dnorm.png"));
+                tileset.putByString("name", LeoString.valueOf("city"));
+            }
+            else if(source.endsWith("surface_types.tsx")) {
+                tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/surface_types.png"));
+                tileset.putByString("name", LeoString.valueOf("surfaces"));
+            }
+
+            tileset.putByString("tilewidth", LeoObject.valueOf(32));
+            tileset.putByString("tileheight", LeoObject.valueOf(32));
+        }
+
+        TilesetData data = new TilesetData();
+        data.firstgid = tileset.getInt("firstgid");
+        data.margin = tileset.getInt("margin");
+        data.spacing = tileset.getInt("spacing");
+        data.tileWidth = tileset.getInt("tilewidth");
+        data.tileHeight = tileset.getInt("tileheight");
+        data.image = tileset.getString("image");
+
+        LeoObject props = tileset.getByString("tileproperties");
+        if(LeoObject.isTrue(props) && props.isMap()) {
+            data.properties = props.as();
+        }
+
+        return data;
+    }
+
+    private static LayerData compileLayer(LeoMap layer) {
+        LayerData data = new LayerData();
+        data.name = layer.getString("name");
+        data.width = layer.getInt("width");
+        data.height = layer.getInt("height");
+
+        if(layer.getBoolean("visible")) {
+            data.flags |= VISIBLE;
+        }
+
+        if (layer.has(LeoString.valueOf("properties"))) {
+            LeoMap properties = layer.getByString("properties").as();
+            if(properties.getString("collidable").equals("true")) {
+                data.flags |= COLLIDABLE;
+            }
+            if(properties.getString("foreground").equals("true")) {
+                data.flags |= FOREGROUND;
+            }
+            if(properties.getString("destructable").equals("true")) {
+                data.flags |= DESTRUCTABLE;
+            }
+
+            if(properties.containsKeyByString("heightMask")) {
+                String strMask = properties.getString("heightMask");
+                data.heightMask = Integer.parseInt(strMask);
+            }
+
+            if(properties.containsKeyByString("surfaces")) {
+                data.flags |= SURFACES;
+            }
+        }
+
+        LeoArray tiles = layer.getByString("data").as();
+        data.tiles = new int[tiles.size()];
+        for(int i = 0; i < data.tiles.length; i++) {
+            data.tiles[i] = tiles.get(i).asInt();
+        }
+
+        return data;
+    }
+
+    /**
+     * Writes out the compiled map.  It is written to a temporary file first, so a reader never
+     * sees a partially written file.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeBytes(out, this.sourceHash);
+
+                out.writeInt(this.width);
+                out.writeInt(this.height);
+                out.writeInt(this.tileWidth);
+                out.writeInt(this.tileHeight);
+
+                out.writeInt(this.tilesets.length);
+                for(int i = 0; i < this.tilesets.length; i++) {
+                    TilesetData tileset = this.tilesets[i];
+                    out.writeInt(tileset.firstgid);
+                    out.writeInt(tileset.margin);
+                    out.writeInt(tileset.spacing);
+                    out.writeInt(tileset.tileWidth);
+                    out.writeInt(tileset.tileHeight);
+                    writeString(out, tileset.image);
+                    writeMap(out, tileset.properties);
+                }
+
+                out.writeInt(this.layers.length);
+                for(int i = 0; i < this.layers.length; i++) {
+                    LayerData layer = this.layers[i];
+                    writeString(out, layer.name);
+                    out.writeInt(layer.flags);
+                    out.writeInt(layer.heightMask);
+                    out.writeInt(layer.width);
+                    out.writeInt(layer.height);
+                    out.writeInt(layer.tiles.length);
+                    for(int j = 0; j < layer.tiles.length; j++) {
+                        out.writeInt(layer.tiles[j]);
+                    }
+                }
+
+                out.writeInt(this.objects.length);
+                for(int i = 0; i < this.objects.length; i++) {
+                    MapObjectData object = this.objects[i];
+                    writeString(out, object.id);
+                    writeString(out, object.type);
+                    writeString(out, object.name);
+                    out.writeFloat(object.rotation);
+                    out.writeFloat(object.x);
+                    out.writeFloat(object.y);
+                    out.writeFloat(object.width);
+                    out.writeFloat(object.height);
+                    writeMap(out, object.properties);
+                }
+            }
+
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Reads in a compiled map.  The file is read into a heap buffer rather than memory mapped, as a
+     * mapping holds the file open until it is garbage collected, which on Windows keeps {@link #write(File)}
+     * from replacing it.
+     *
+     * @param file
+     * @param sourceHash the hash of the current JSON map file
+     * @return the compiled map, or null if it is from an older format or was compiled from a
+     * different version of the JSON map file
+     * @throws IOException
+     */
+    public static CompiledMap read(File file, byte[] sourceHash) throws IOException {
+        ByteBuffer buffer = null;
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            buffer = ByteBuffer.allocate((int)size);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+
+        if(buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        CompiledMap compiled = new CompiledMap();
+        compiled.sourceHash = readBytes(buffer);
+        if(!Arrays.equals(compiled.sourceHash, sourceHash)) {
+            return null;
+        }
+
+        compiled.width = buffer.getInt();
+        compiled.height = buffer.getInt();
+        compiled.tileWidth = buffer.getInt();
+        compiled.tileHeight = buffer.getInt();
+
+        compiled.tilesets = new TilesetData[buffer.getInt()];
+        for(int i = 0; i < compiled.tilesets.length; i++) {
+            TilesetData tileset = new TilesetData();
+            tileset.firstgid = buffer.getInt();
+            tileset.margin = buffer.getInt();
+            tileset.spacing = buffer.getInt();
+            tileset.tileWidth = buffer.getInt();
+            tileset.tileHeight = buffer.getInt();
+            tileset.image = readString(buffer);
+            tileset.properties = readMap(buffer);
+
+            compiled.tilesets[i] = tileset;
+        }
+
+        compiled.layers = new LayerData[buffer.getInt()];
+        for(int i = 0; i < compiled.layers.length; i++) {
+            LayerData layer = new LayerData();
+            layer.name = readString(buffer);
+            layer.flags = buffer.getInt();
+            layer.heightMask = buffer.getInt();
+            layer.width = buffer.getInt();
+            layer.height = buffer.getInt();
+            layer.tiles = new int[buffer.getInt()];
+
+            /* bulk copy the tiles straight out of the buffer */
+            buffer.asIntBuffer().get(layer.tiles);
+            buffer.position(buffer.position() + layer.tiles.length * 4);
+
+            compiled.layers[i] = layer;
+        }
+
+        compiled.objects = new MapObjectData[buffer.getInt()];
+        for(int i = 0; i < compiled.objects.length; i++) {
+            MapObjectData object = new MapObjectData();
+            object.id = readString(buffer);
+            object.type = readString(buffer);
+            object.name = readString(buffer);
+            object.rotation = buffer.getFloat();
+            object.x = buffer.getFloat();
+            object.y = buffer.getFloat();
+            object.width = buffer.getFloat();
+            object.height = buffer.getFloat();
+            object.properties = readMap(buffer);
+
+            compiled.objects[i] = object;
+        }
+
+        return compiled;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if(bytes == null) {
+            out.writeInt(-1);
+        }
+        else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        writeBytes(out, str != null ? str.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = readBytes(buffer);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * The property maps are small and free form, so they are written with Leola's own
+     * serialization
+     */
+    private static void writeMap(DataOutputStream out, LeoMap map) throws IOException {
+        byte[] bytes = null;
+        if(map != null) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            map.write(new DataOutputStream(bos));
+            bytes = bos.toByteArray();
+        }
+
+        writeBytes(out, bytes);
+    }
+
+    private static LeoMap readMap(ByteBuffer buffer) throws IOException {
+        byte[] bytes = readBytes(buffer);
+        if(bytes == null) {
+            return null;
+        }
+
+        return LeoObject.read(null, new DataInputStream(new ByteArrayInputStream(bytes))).as();
+    }
+}
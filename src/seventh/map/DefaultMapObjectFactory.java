@@ -31,6 +31,8 @@ import seventh.math.Rectangle;
 import seventh.math.Vector2f;
 import seventh.shared.Cons;
 import seventh.shared.JSON;
+import seventh.shared.ScriptProfiler;
+import seventh.shared.Scripting;
 
 /**
  * @author Tony
@@ -71,6 +73,8 @@ public class DefaultMapObjectFactory implements MapObjectFactory {
     
     private static class DefaultMapObject extends MapObject {
         
+        private static final ScriptProfiler.Entry onTouchedProfile = Scripting.getProfiler().getEntry("mapobject:onTouched");
+        
         private OBB obb;        
         private int heightMask;
         private boolean isCollidable;
@@ -297,7 +301,10 @@ public class DefaultMapObjectFactory implements MapObjectFactory {
                 }
                 
                 if(func!=null) {
+                    onTouchedProfile.begin();
                     LeoObject result = func.call(game.asScriptObject(), ent.asScriptObject(), asScriptObject());
+                    onTouchedProfile.end();
+                    
                     if(result.isError()) {
                         Cons.println("*** ERROR: Error touching MapObject: " + result);
                     }
@@ -9,7 +9,6 @@ import java.util.List;
 import seventh.client.gfx.Camera;
 import seventh.client.gfx.Canvas;
 import seventh.client.gfx.Renderable;
-import seventh.graph.GraphNode;
 import seventh.map.Tile.SurfaceType;
 import seventh.math.OBB;
 import seventh.math.Rectangle;
@@ -477,12 +476,9 @@ public abstract interface Map extends Renderable, Debugable {
     
     /**
      * Creates a new {@link MapGraph}
-     * @param factory
      * @return the new {@link MapGraph}
      */
-    public <E> MapGraph<E> createMapGraph(GraphNodeFactory<E> factory);
-    @SuppressWarnings("rawtypes")
-    public <E> void addNode(GraphNodeFactory<E> factory, GraphNode[][] nodes, GraphNode<Tile, E> node, int x, int y);
+    public MapGraph createMapGraph();
     
     /**
      * Convert world coordinates to tile coordinates
@@ -602,6 +598,11 @@ public abstract interface Map extends Renderable, Debugable {
     
     public abstract void removeAddedTiles();
     
+    /**
+     * @return the journal of the tiles that changed since it was last flushed
+     */
+    public abstract MapChangeJournal getChangeJournal();
+    
     public abstract TilesetAtlas geTilesetAtlas();
     public abstract MapObjectFactory getMapObjectFactory();
 }
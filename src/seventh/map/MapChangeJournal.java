@@ -0,0 +1,133 @@
+/*
+ * see license.txt
+ */
+package seventh.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the tiles of a {@link Map} whose collision changed, from tiles being destroyed, added or
+ * restored.  Rather than each structure derived from the map (the navigation graph, zones, cover) being
+ * told about changes piecemeal, they subscribe as a {@link MapChangeListener}, and once a tick the journal
+ * is flushed to them.  Each listener then only has to update the region around the changed tiles.
+ *
+ * <p>
+ * A tile is only recorded once between flushes, no matter how many times it changed, so a journal never
+ * holds more entries than the map has tiles.
+ *
+ * @author Tony
+ *
+ */
+public class MapChangeJournal {
+
+    private final int width, height;
+
+    private int[] changedTiles;
+    private int numberOfChangedTiles;
+    private boolean[] isRecorded;
+
+    private List<MapChangeListener> listeners;
+
+    /**
+     * @param width the number of tile columns
+     * @param height the number of tile rows
+     */
+    public MapChangeJournal(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        this.changedTiles = new int[64];
+        this.isRecorded = new boolean[width * height];
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * @param listener the listener to be notified of the changed tiles on each flush
+     */
+    public void addListener(MapChangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     */
+    public void removeListener(MapChangeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Records that the tile at the supplied tile index has changed
+     *
+     * @param tileX
+     * @param tileY
+     */
+    public void tileChanged(int tileX, int tileY) {
+        if(tileX < 0 || tileY < 0 || tileX >= this.width || tileY >= this.height) {
+            return;
+        }
+
+        int index = tileY * this.width + tileX;
+        if(this.isRecorded[index]) {
+            return;
+        }
+
+        if(this.numberOfChangedTiles >= this.changedTiles.length) {
+            int[] newChangedTiles = new int[this.changedTiles.length * 2];
+            System.arraycopy(this.changedTiles, 0, newChangedTiles, 0, this.numberOfChangedTiles);
+            this.changedTiles = newChangedTiles;
+        }
+
+        this.changedTiles[this.numberOfChangedTiles++] = index;
+        this.isRecorded[index] = true;
+    }
+
+    /**
+     * Notifies the listeners of the tiles that changed since the last flush, and
+     * clears the journal
+     */
+    public void flush() {
+        if(this.numberOfChangedTiles == 0) {
+            return;
+        }
+
+        for(int i = 0; i < this.listeners.size(); i++) {
+            this.listeners.get(i).onMapChanged(this);
+        }
+
+        for(int i = 0; i < this.numberOfChangedTiles; i++) {
+            this.isRecorded[this.changedTiles[i]] = false;
+        }
+        this.numberOfChangedTiles = 0;
+    }
+
+    /**
+     * @return true if no tiles have changed since the last flush
+     */
+    public boolean isEmpty() {
+        return this.numberOfChangedTiles == 0;
+    }
+
+    /**
+     * @return the number of tiles that have changed since the last flush
+     */
+    public int getNumberOfChangedTiles() {
+        return this.numberOfChangedTiles;
+    }
+
+    /**
+     * @param i the index of the change, must be less than {@link #getNumberOfChangedTiles()}
+     * @return the x tile index of the changed tile
+     */
+    public int getTileX(int i) {
+        return this.changedTiles[i] % this.width;
+    }
+
+    /**
+     * @param i the index of the change, must be less than {@link #getNumberOfChangedTiles()}
+     * @return the y tile index of the changed tile
+     */
+    public int getTileY(int i) {
+        return this.changedTiles[i] / this.width;
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * see license.txt
+ */
+package seventh.map;
+
+/**
+ * Listens for the tiles of a {@link Map} that changed, see {@link MapChangeJournal}
+ *
+ * @author Tony
+ *
+ */
+public interface MapChangeListener {
+
+    /**
+     * The tiles recorded in the journal have changed since the last time
+     * the journal was flushed
+     *
+     * @param changes
+     */
+    public void onMapChanged(MapChangeJournal changes);
+}
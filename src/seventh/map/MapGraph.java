@@ -1,191 +1,1003 @@
 /*
- *    leola-live 
+ *    leola-live
  *  see license.txt
  */
 package seventh.map;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
 import seventh.ai.basic.Zone;
-import seventh.game.Game;
-import seventh.graph.AStarGraphSearch;
-import seventh.graph.GraphNode;
-import seventh.graph.GraphSearchPath;
+import seventh.graph.Edges.Directions;
 import seventh.math.Vector2f;
 
 /**
- * A {@link GraphNode} of the {@link Map}
- * 
+ * The navigation graph of a {@link Map}.  Every tile is a node, identified by the id
+ * <code>y * width + x</code>.
+ *
+ * <p>
+ * Rather than node and edge objects, the graph is kept in primitive arrays: the flags of each node, and
+ * a mask of which of the eight {@link Directions} lead to a walkable neighbor.  The neighbor in a direction
+ * is the node id plus the offset of that direction, so removing or adding a node only has to update the
+ * node and its eight neighbors.
+ *
+ * <p>
+ * Searches use scratch arrays kept by the graph, which are reset by stamping them with the search number
+ * rather than clearing them.  This means the graph must only be searched from the game thread.
+ *
+ * <p>
+ * The graph follows the {@link MapChangeJournal} of the map, only the nodes of the changed tiles
+ * are updated.  Each change to the walkable nodes bumps the {@link #getVersion()}, so that anything
+ * holding on to a path can tell when it needs to be checked again.
+ *
+ * <p>
+ * Each walkable node is labeled with the connected component (region) it belongs to, so a search
+ * between two regions that are walled off from each other is rejected without exploring the graph.
+ * Adding a node merges the regions around it, relabeling the smaller ones.  Removing a node only
+ * relabels everything when its neighbors can no longer reach each other around it, which is when the
+ * region may have been split; the labels are then rebuilt on the next query.  Each region also keeps a
+ * list of its nodes, so that a random node the entity can reach is picked directly, rather than by
+ * picking random nodes until one happens to be in the same region.
+ *
  * @author Tony
  *
  */
-@SuppressWarnings("all")
-public class MapGraph<T> {
+public class MapGraph implements MapChangeListener {
+
+    /**
+     * Id used when there isn't a node
+     */
+    public static final int NO_NODE = -1;
+
+    /**
+     * Node flag denoting the node can be walked on
+     */
+    public static final int WALKABLE = 1<<0;
+
+    /**
+     * Component label of a node that isn't walkable
+     */
+    public static final int NO_COMPONENT = -1;
+
+    /**
+     * The cost returned by {@link #pathCost(Vector2f, Vector2f)} when there is no path
+     */
+    public static final int NO_PATH_COST = Integer.MAX_VALUE;
+
+    /**
+     * The extra cost, in tiles, of stepping on to a node inside of a zone that is
+     * being avoided
+     */
+    private static final int AVOID_ZONE_TILES = 16;
 
-    public GraphNode[][] graph;
-    private seventh.map.Map map;
+    private static final int NUMBER_OF_DIRECTIONS = 8;
+
+    /**
+     * Tile offsets of each direction, indexed by {@link Directions#ordinal()}
+     */
+    private static final int[] DX = { 0, 1, 0, -1,  1, 1, -1, -1 };
+    private static final int[] DY = { -1, 0, 1, 0, -1, 1,  1, -1 };
+
+    /**
+     * The diagonals that can't be taken if the cardinal direction is blocked, so
+     * that paths don't cut corners
+     */
+    private static final int[] CORNER_MASKS = {
+        Directions.NE.getMask() | Directions.NW.getMask(),
+        Directions.NE.getMask() | Directions.SE.getMask(),
+        Directions.SE.getMask() | Directions.SW.getMask(),
+        Directions.NW.getMask() | Directions.SW.getMask(),
+    };
+
+    /**
+     * The direction of each cell of the 3x3 neighborhood, indexed by <code>(dy + 1) * 3 + (dx + 1)</code>,
+     * -1 for the center
+     */
+    private static final int[] NEIGHBOR_DIRECTIONS = {
+        Directions.NW.ordinal(), Directions.N.ordinal(), Directions.NE.ordinal(),
+        Directions.W.ordinal(),  -1,                     Directions.E.ordinal(),
+        Directions.SW.ordinal(), Directions.S.ordinal(), Directions.SE.ordinal(),
+    };
+
+    private Map map;
     private Random random;
     private int width, height;
-    private GraphSearchPath<Tile, T> defaultSearchPath;
+
+    private byte[] flags;
+    private byte[] edges;
+    private int version;
+
+    /* Connected component labels, rebuilt lazily when dirty.  The nodes of each component are kept in
+     * a list, along with the index of each node within the list of its component */
+    private int[] components;
+    private int[][] componentNodes;
+    private int[] componentSizes;
+    private int[] componentSlots;
+    private int numberOfComponents;
+    private boolean componentsDirty;
+    private int[] componentQueue;
+
+    /**
+     * The node id offset and cost of moving in each direction.  The costs are the distance
+     * between the tile centers in world units, the same units the heuristics estimate in
+     */
+    private int[] neighborOffsets;
+    private int[] costs;
+    private int avoidZoneCost;
+
+    private MapGraphSearch defaultSearchPath;
+
+    /* Search scratch space, allocated on the first search */
+    private int[] gScores;
+    private int[] cameFrom;
+    private int[] openStamps;
+    private int[] closedStamps;
+    private long[] openHeap;
+    private int openSize;
+    private int searchStamp;
+
     /**
-     * 
+     * Creates a graph without any walkable nodes
+     *
+     * @param map
+     * @param width the number of tile columns
+     * @param height the number of tile rows
      */
-    public MapGraph(Map map, GraphNode[][] graph) {
+    public MapGraph(Map map, int width, int height) {
         this.map = map;
-        this.graph = graph;
-        
-        this.height = graph.length;
-        this.width = graph[0].length;
-        
+        this.width = width;
+        this.height = height;
+
+        this.flags = new byte[width * height];
+        this.edges = new byte[width * height];
+
+        this.components = new int[width * height];
+        this.componentNodes = new int[16][];
+        this.componentSizes = new int[16];
+        this.componentSlots = new int[width * height];
+        this.componentQueue = new int[width * height];
+        this.componentsDirty = true;
+
+        this.neighborOffsets = new int[NUMBER_OF_DIRECTIONS];
+        this.costs = new int[NUMBER_OF_DIRECTIONS];
+        int tileWidth = map.getTileWidth();
+        int tileHeight = map.getTileHeight();
+        for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+            this.neighborOffsets[i] = DY[i] * width + DX[i];
+
+            int dx = DX[i] * tileWidth;
+            int dy = DY[i] * tileHeight;
+            this.costs[i] = (int)Math.round(Math.sqrt(dx * dx + dy * dy));
+        }
+        this.avoidZoneCost = AVOID_ZONE_TILES * Math.max(tileWidth, tileHeight);
+
         this.random = new Random();
-        
-        this.defaultSearchPath = new AStarGraphSearch<>();
+
+        this.defaultSearchPath = new MapGraphSearch();
     }
-    
+
+    /**
+     * Seeds the random number generator used for picking random nodes, so that
+     * the picks can be reproduced
+     *
+     * @param seed
+     */
+    public void setRandomSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    /**
+     * @return the number of tile columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the number of tile rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
     /**
      * Removes a node, when removing this will make that tile
      * not walkable.
-     * 
+     *
      * @param x the tileX position
      * @param y the tileY position
      */
     public void removeNode(int x, int y) {
-        GraphNode<Tile, T> node = graph[y][x];
-        if(node != null) {
-            node.edges().removeEdges();
-            graph[y][x] = null;
+        if(isWalkable(x, y)) {
+            int node = y * width + x;
+            int oldEdges = this.edges[node] & 0xff;
+
+            this.flags[node] &= ~WALKABLE;
+            updateEdgesAround(x, y);
+            this.version++;
+
+            if(!this.componentsDirty) {
+                splitComponent(node, oldEdges);
+            }
         }
     }
-    
-    
+
+
     /**
      * Adds a node, making this tile walkable
-     * 
+     *
      * @param x the tileX position
      * @param y the tileY position
      */
     public void addNode(int x, int y) {
         Tile tile = this.map.getTile(0, x, y);
-        if(tile != null) {
-            GraphNode<Tile, T> node = new GraphNode<Tile, T>(tile);
-            graph[y][x] = node;
-            this.map.addNode(null, graph, node, x, y);
+        if(tile != null && !isWalkable(x, y)) {
+            int node = y * width + x;
+
+            this.flags[node] |= WALKABLE;
+            updateEdgesAround(x, y);
+            this.version++;
+
+            if(!this.componentsDirty) {
+                joinComponents(node);
+            }
+        }
+    }
+
+    /**
+     * Labels the added node with the largest component next to it, and merges the
+     * other components next to it into that one
+     *
+     * @param node
+     */
+    private void joinComponents(int node) {
+        int edgeMask = this.edges[node] & 0xff;
+
+        int label = NO_COMPONENT;
+        for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+            if((edgeMask & (1 << i)) != 0) {
+                int neighborLabel = this.components[node + this.neighborOffsets[i]];
+                if(label == NO_COMPONENT || this.componentSizes[neighborLabel] > this.componentSizes[label]) {
+                    label = neighborLabel;
+                }
+            }
+        }
+
+        if(label == NO_COMPONENT) {
+            label = newComponent();
+        }
+
+        addToComponent(label, node);
+
+        for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+            if((edgeMask & (1 << i)) != 0) {
+                int neighbor = node + this.neighborOffsets[i];
+                int neighborLabel = this.components[neighbor];
+                if(neighborLabel != label) {
+                    fillComponent(neighbor, neighborLabel, label);
+
+                    /* every node of the neighboring component was moved over */
+                    this.componentSizes[neighborLabel] = 0;
+                    this.componentNodes[neighborLabel] = null;
+                }
+            }
         }
     }
+
+    /**
+     * Unlabels the removed node, and determines if its component may have been split.  If the neighbors
+     * it was linked to can still reach each other without leaving the 3x3 neighborhood, the component is
+     * still whole; otherwise the labels are rebuilt on the next query.
+     *
+     * @param node
+     * @param oldEdges the edges the node had before it was removed
+     */
+    private void splitComponent(int node, int oldEdges) {
+        removeFromComponent(node);
+
+        if(oldEdges == 0) {
+            return;
+        }
+
+        int x = getNodeX(node);
+        int y = getNodeY(node);
+
+        /* flood fill the ring around the node, starting from any of its old neighbors */
+        int visited = oldEdges & -oldEdges;
+        int open = visited;
+        while(open != 0) {
+            int dir = Integer.numberOfTrailingZeros(open);
+            open &= open - 1;
+
+            int ringX = x + DX[dir];
+            int ringY = y + DY[dir];
+            int ringNode = ringY * this.width + ringX;
+            int edgeMask = this.edges[ringNode] & 0xff;
+            for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+                if((edgeMask & (1 << i)) == 0) {
+                    continue;
+                }
+
+                int dx = ringX + DX[i] - x;
+                int dy = ringY + DY[i] - y;
+                if(dx < -1 || dx > 1 || dy < -1 || dy > 1) {
+                    continue;
+                }
+
+                int ringDir = NEIGHBOR_DIRECTIONS[(dy + 1) * 3 + (dx + 1)];
+                if(ringDir >= 0 && (visited & (1 << ringDir)) == 0) {
+                    visited |= (1 << ringDir);
+                    open |= (1 << ringDir);
+                }
+            }
+        }
+
+        if((visited & oldEdges) != oldEdges) {
+            this.componentsDirty = true;
+        }
+    }
+
+    private int newComponent() {
+        if(this.numberOfComponents == this.componentSizes.length) {
+            this.componentSizes = Arrays.copyOf(this.componentSizes, this.numberOfComponents * 2);
+            this.componentNodes = Arrays.copyOf(this.componentNodes, this.numberOfComponents * 2);
+        }
+
+        this.componentSizes[this.numberOfComponents] = 0;
+        return this.numberOfComponents++;
+    }
+
+    /**
+     * Labels the node, and appends it to the node list of the component
+     *
+     * @param label
+     * @param node
+     */
+    private void addToComponent(int label, int node) {
+        int[] nodes = this.componentNodes[label];
+        int size = this.componentSizes[label];
+        if(nodes == null) {
+            nodes = new int[16];
+            this.componentNodes[label] = nodes;
+        }
+        else if(size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            this.componentNodes[label] = nodes;
+        }
+
+        nodes[size] = node;
+        this.componentSlots[node] = size;
+        this.componentSizes[label] = size + 1;
+        this.components[node] = label;
+    }
+
+    /**
+     * Unlabels the node, and removes it from the node list of its component by moving
+     * the last node of the list in to its slot
+     *
+     * @param node
+     */
+    private void removeFromComponent(int node) {
+        int label = this.components[node];
+        int[] nodes = this.componentNodes[label];
+        int last = nodes[--this.componentSizes[label]];
+
+        int slot = this.componentSlots[node];
+        nodes[slot] = last;
+        this.componentSlots[last] = slot;
+
+        this.components[node] = NO_COMPONENT;
+    }
+
+    /**
+     * Relabels the nodes linked to the start node that have the 'from' label, moving
+     * them to the node list of the 'to' label
+     *
+     * @param start
+     * @param fromLabel
+     * @param toLabel
+     * @return the number of nodes relabeled
+     */
+    private int fillComponent(int start, int fromLabel, int toLabel) {
+        int head = 0, tail = 0;
+        addToComponent(toLabel, start);
+        this.componentQueue[tail++] = start;
+
+        while(head < tail) {
+            int node = this.componentQueue[head++];
+            int edgeMask = this.edges[node] & 0xff;
+            for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+                if((edgeMask & (1 << i)) != 0) {
+                    int neighbor = node + this.neighborOffsets[i];
+                    if(this.components[neighbor] == fromLabel) {
+                        addToComponent(toLabel, neighbor);
+                        this.componentQueue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        return tail;
+    }
+
+    /**
+     * Rebuilds the component labels if they are out of date
+     */
+    private void ensureComponents() {
+        if(!this.componentsDirty) {
+            return;
+        }
+
+        Arrays.fill(this.components, NO_COMPONENT);
+        this.numberOfComponents = 0;
+
+        for(int node = 0; node < this.components.length; node++) {
+            if((this.flags[node] & WALKABLE) != 0 && this.components[node] == NO_COMPONENT) {
+                fillComponent(node, NO_COMPONENT, newComponent());
+            }
+        }
+
+        this.componentsDirty = false;
+    }
+
+    /**
+     * @param node
+     * @return the label of the connected component the node belongs to, or {@link #NO_COMPONENT}
+     * if the node isn't walkable
+     */
+    public int getComponent(int node) {
+        if(node == NO_NODE) {
+            return NO_COMPONENT;
+        }
+
+        ensureComponents();
+        return this.components[node];
+    }
+
+    /**
+     * Determines if there can be a path between the two nodes, this doesn't search the graph
+     *
+     * @param start
+     * @param goal
+     * @return true if both nodes are in the same connected component
+     */
+    public boolean isReachable(int start, int goal) {
+        int component = getComponent(start);
+        return component != NO_COMPONENT && component == getComponent(goal);
+    }
+
+    /**
+     * Determines if there can be a path between the two world positions, this doesn't search the graph
+     *
+     * @param start
+     * @param destination
+     * @return true if the nodes nearest to the positions are in the same connected component
+     */
+    public boolean isReachable(Vector2f start, Vector2f destination) {
+        return isReachable(getNearestNodeByWorld(start), getNearestNodeByWorld(destination));
+    }
+
+    /**
+     * @param component
+     * @return the number of nodes in the connected component
+     */
+    public int getComponentSize(int component) {
+        ensureComponents();
+        return (component < 0 || component >= this.numberOfComponents) ? 0 : this.componentSizes[component];
+    }
+
+    /**
+     * @param component
+     * @return a random node of the connected component, or {@link #NO_NODE} if the component is empty
+     */
+    public int getRandomNode(int component) {
+        int size = getComponentSize(component);
+        if(size == 0) {
+            return NO_NODE;
+        }
+
+        return this.componentNodes[component][this.random.nextInt(size)];
+    }
+
+    /**
+     * Picks a random node of the connected component that lies within the supplied tile bounds.  Whichever
+     * is smaller, the tiles in the bounds or the nodes of the component, is the one walked over.
+     *
+     * @param component
+     * @param tileX
+     * @param tileY
+     * @param tileWidth
+     * @param tileHeight
+     * @return a random node of the connected component within the bounds, or {@link #NO_NODE} if there
+     * isn't one
+     */
+    public int getRandomNode(int component, int tileX, int tileY, int tileWidth, int tileHeight) {
+        int size = getComponentSize(component);
+
+        int minX = Math.max(tileX, 0);
+        int minY = Math.max(tileY, 0);
+        int maxX = Math.min(tileX + tileWidth, this.width);
+        int maxY = Math.min(tileY + tileHeight, this.height);
+
+        if(size == 0 || minX >= maxX || minY >= maxY) {
+            return NO_NODE;
+        }
+
+        /* reservoir sample the matching nodes, so that each has the same odds */
+        int picked = NO_NODE;
+        int numberOfMatches = 0;
+
+        if((maxX - minX) * (maxY - minY) < size) {
+            for(int y = minY; y < maxY; y++) {
+                for(int x = minX; x < maxX; x++) {
+                    int node = y * this.width + x;
+                    if(this.components[node] == component && this.random.nextInt(++numberOfMatches) == 0) {
+                        picked = node;
+                    }
+                }
+            }
+        }
+        else {
+            int[] nodes = this.componentNodes[component];
+            for(int i = 0; i < size; i++) {
+                int node = nodes[i];
+                int x = node % this.width;
+                int y = node / this.width;
+                if(x >= minX && x < maxX && y >= minY && y < maxY && this.random.nextInt(++numberOfMatches) == 0) {
+                    picked = node;
+                }
+            }
+        }
+
+        return picked;
+    }
     
     /**
+     * @return the number of times the walkable nodes have changed
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.map.MapChangeListener#onMapChanged(seventh.map.MapChangeJournal)
+     */
+    @Override
+    public void onMapChanged(MapChangeJournal changes) {
+        for(int i = 0; i < changes.getNumberOfChangedTiles(); i++) {
+            int x = changes.getTileX(i);
+            int y = changes.getTileY(i);
+            if(x >= this.width || y >= this.height) {
+                continue;
+            }
+
+            if(this.map.hasCollidableTile(x, y)) {
+                removeNode(x, y);
+            }
+            else {
+                addNode(x, y);
+            }
+        }
+    }
+
+    /**
+     * Updates the edges of the node and its neighbors, the only ones that
+     * can link to the node
+     *
      * @param x
      * @param y
-     * @return get the {@link GraphNode} by the x and y index (not world coordinates)
      */
-    public GraphNode<Tile, T> getNodeByIndex(int x, int y) {
-        return (GraphNode<Tile, T>)graph[y][x];
+    private void updateEdgesAround(int x, int y) {
+        for(int yy = y - 1; yy <= y + 1; yy++) {
+            for(int xx = x - 1; xx <= x + 1; xx++) {
+                if(xx >= 0 && yy >= 0 && xx < width && yy < height) {
+                    updateEdges(xx, yy);
+                }
+            }
+        }
     }
-    
+
+    private void updateEdges(int x, int y) {
+        int mask = 0;
+        if(isWalkable(x, y)) {
+            for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if(!isWalkable(nx, ny)) {
+                    continue;
+                }
+
+                // diagonals need one of the two tiles beside them to be walkable
+                if(Directions.isInterCardinal(i) && !isWalkable(nx, y) && !isWalkable(x, ny)) {
+                    continue;
+                }
+
+                mask |= (1 << i);
+            }
+        }
+
+        this.edges[y * width + x] = (byte)mask;
+    }
+
+    /**
+     * @param x the tileX position
+     * @param y the tileY position
+     * @return true if there is a walkable node at the tile position
+     */
+    public boolean isWalkable(int x, int y) {
+        if(x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+
+        return (this.flags[y * width + x] & WALKABLE) != 0;
+    }
+
+    /**
+     * @param node
+     * @return true if the node is walkable
+     */
+    public boolean isWalkable(int node) {
+        return node != NO_NODE && (this.flags[node] & WALKABLE) != 0;
+    }
+
+    /**
+     * @param node
+     * @return the tileX position of the node
+     */
+    public int getNodeX(int node) {
+        return node % width;
+    }
+
+    /**
+     * @param node
+     * @return the tileY position of the node
+     */
+    public int getNodeY(int node) {
+        return node / width;
+    }
+
+    /**
+     * @param node
+     * @return the {@link Tile} of the node
+     */
+    public Tile getTile(int node) {
+        return this.map.getTile(0, node % width, node / width);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return get the walkable node id by the x and y index (not world coordinates), or {@link #NO_NODE}
+     */
+    public int getNodeByIndex(int x, int y) {
+        return isWalkable(x, y) ? y * width + x : NO_NODE;
+    }
+
     /**
      * @param wx
      * @param wy
-     * @return the graph node at a world coordinate
+     * @return the walkable node id at a world coordinate, or {@link #NO_NODE}
      */
-    public GraphNode<Tile, T> getNodeByWorld(int wx, int wy) {                
-        int tileOffset_x = 0;// (wx % map.getTileWidth());
-        int x = (tileOffset_x + wx) / map.getTileWidth();
+    public int getNodeByWorld(int wx, int wy) {
+        int x = wx / map.getTileWidth();
+        int y = wy / map.getTileHeight();
 
-        int tileOffset_y = 0; //(wy % map.getTileHeight());
-        int y = (tileOffset_y + wy) / map.getTileHeight();
-        
         if(map.checkTileBounds(x, y)) {
-            return null;
+            return NO_NODE;
         }
-        
-        return x<width && y<height ? (GraphNode<Tile, T>)graph[y][x] : null;
+
+        return getNodeByIndex(x, y);
     }
-    
-    public GraphNode<Tile, T> getNearestNodeByWorld(Vector2f pos) {
+
+    public int getNearestNodeByWorld(Vector2f pos) {
         return getNearestNodeByWorld((int)pos.x, (int)pos.y);
     }
-    
-    public GraphNode<Tile, T> getNearestNodeByWorld(int wx, int wy) {
-        GraphNode<Tile, T> node = getNodeByWorld(wx, wy);
-        
-        if(node != null) return node;
-        
+
+    public int getNearestNodeByWorld(int wx, int wy) {
+        int node = getNodeByWorld(wx, wy);
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx+map.getTileHeight(), wy);
-                
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx-map.getTileHeight(), wy);
-        
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx, wy + map.getTileWidth());
-        
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx, wy - map.getTileWidth());
-        
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx + map.getTileHeight(), wy + map.getTileWidth());
-        
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx - map.getTileHeight(), wy - map.getTileWidth());
-        
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx - map.getTileHeight(), wy + map.getTileWidth());
-    
-        if(node != null) return node;
-        
+
+        if(node != NO_NODE) return node;
+
         node = getNodeByWorld(wx + map.getTileHeight(), wy - map.getTileWidth());
-        
+
         return node;
     }
 
-    
+
     /**
-     * Calculate the estimated cost of the path from the start to destination
-     * 
+     * Calculate the cost of the shortest path from the start to destination
+     *
      * @param start
      * @param destination
-     * @return the estimated cost of moving from start to destination
+     * @return the cost, in world units, of moving from start to destination, or {@link #NO_PATH_COST}
+     * if there is no path
      */
     public int pathCost(Vector2f start, Vector2f destination) {
-        List<GraphNode<Tile, T>> newPath = this.findPath(this.defaultSearchPath, start, destination);
-        int cost = newPath.size() * 32;
-        return cost;
+        int startNode = getNearestNodeByWorld(start);
+        int destNode = getNearestNodeByWorld(destination);
+        return pathCost(startNode, destNode);
     }
-    
+
+    /**
+     * Calculate the cost of the shortest path between the start and goal node
+     *
+     * @param start
+     * @param goal
+     * @return the cost, in world units, of moving from start to goal, or {@link #NO_PATH_COST}
+     * if there is no path
+     */
+    public int pathCost(int start, int goal) {
+        if(search(this.defaultSearchPath, start, goal) == null) {
+            return NO_PATH_COST;
+        }
+
+        return this.gScores[goal];
+    }
+
     /**
-     * Finds a path, avoiding the supplied {@link Zone}s
-     * 
-     * 
+     * Finds a path, avoiding the supplied {@link Zone}s.  The zones are not walled off, rather every
+     * step on to a tile within one of them costs extra; so the path only goes through them if there
+     * is no reasonable way around (or if the start or destination is in one).
+     *
+     *
      * @param start
      * @param destination
      * @param zonesToAvoid
-     * @return the list of node to travel to reach the destination
+     * @return the list of tiles to travel to reach the destination
      */
-    public List<GraphNode<Tile, T>> findPathAvoidZones(GraphSearchPath<Tile, T> searchPath, Vector2f start, Vector2f destination, final List<Zone> zonesToAvoid) {                        
-        GraphNode<Tile, T> startNode = getNearestNodeByWorld(start);
-        GraphNode<Tile, T> destNode = getNearestNodeByWorld(destination);
-        List<GraphNode<Tile, T>> resultPath = searchPath.search(startNode, destNode);
-        return resultPath; 
+    public List<Tile> findPathAvoidZones(MapGraphSearch searchPath, Vector2f start, Vector2f destination, final List<Zone> zonesToAvoid) {
+        int startNode = getNearestNodeByWorld(start);
+        int destNode = getNearestNodeByWorld(destination);
+        return search(searchPath, startNode, destNode, zonesToAvoid);
     }
-    
+
     /**
      * Finds a fuzzy (meaning not necessarily the most optimal but different) path between the start and end point
-     * 
+     *
      * @param start
      * @param destination
-     * @return the list of node to travel to reach the destination
+     * @return the list of tiles to travel to reach the destination
+     */
+    public List<Tile> findPath(MapGraphSearch searchPath, Vector2f start, Vector2f destination) {
+        int startNode = getNearestNodeByWorld(start);
+        int destNode = getNearestNodeByWorld(destination);
+        return search(searchPath, startNode, destNode);
+    }
+
+    /**
+     * Searches for a path between the start and goal node with the A* (A-Star) algorithm, using the
+     * heuristics of the supplied {@link MapGraphSearch}
+     *
+     * @param searchPath
+     * @param start
+     * @param goal
+     * @return the tiles to travel to reach the goal, not including the start.  null if no path was found
+     */
+    public List<Tile> search(MapGraphSearch searchPath, int start, int goal) {
+        return search(searchPath, start, goal, null);
+    }
+
+    /**
+     * Searches for a path between the start and goal node with the A* (A-Star) algorithm, using the
+     * heuristics of the supplied {@link MapGraphSearch}, stepping on to the tiles of the zones to avoid
+     * costs extra
+     *
+     * @param searchPath
+     * @param start
+     * @param goal
+     * @param zonesToAvoid the zones to avoid, may be null
+     * @return the tiles to travel to reach the goal, not including the start.  null if no path was found
+     */
+    public List<Tile> search(MapGraphSearch searchPath, int start, int goal, List<Zone> zonesToAvoid) {
+        if(start == NO_NODE || goal == NO_NODE) {
+            return null;
+        }
+
+        /* walled off from each other, no need to exhaust the graph to find that out */
+        if(start != goal && !isReachable(start, goal)) {
+            return null;
+        }
+
+        int stamp = nextSearchStamp();
+
+        Tile startTile = getTile(start);
+        Tile goalTile = getTile(goal);
+
+        this.gScores[start] = 0;
+        this.cameFrom[start] = NO_NODE;
+        this.openStamps[start] = stamp;
+        pushOpen(start, searchPath.heuristicEstimateDistance(startTile, startTile, goalTile));
+
+        while(this.openSize > 0) {
+            int x = popOpen();
+
+            /* a node can be in the heap more than once if a better path was found to it */
+            if(this.closedStamps[x] == stamp) {
+                continue;
+            }
+
+            if(x == goal) {
+                return reconstructPath(goal);
+            }
+
+            this.closedStamps[x] = stamp;
+
+            int edgeMask = this.edges[x] & 0xff;
+            int skipMask = 0;
+
+            /* the cardinal directions come first, so the skip mask is complete before the diagonals are visited */
+            for(int i = 0; i < NUMBER_OF_DIRECTIONS; i++) {
+                int dirMask = 1 << i;
+                if((edgeMask & dirMask) == 0) {
+                    continue;
+                }
+
+                int y = x + this.neighborOffsets[i];
+                if(this.closedStamps[y] == stamp) {
+                    continue;
+                }
+
+                Tile tile = getTile(y);
+                if(searchPath.shouldIgnore(tile)) {
+                    if(Directions.isCardinal(i)) {
+                        skipMask |= CORNER_MASKS[i];
+                    }
+                    continue;
+                }
+
+                if((dirMask & skipMask) != 0) {
+                    continue;
+                }
+
+                int tentativeGscore = this.gScores[x] + this.costs[i];
+                if(zonesToAvoid != null && isInZone(tile, zonesToAvoid)) {
+                    tentativeGscore += this.avoidZoneCost;
+                }
+                if(this.openStamps[y] != stamp) {
+                    this.openStamps[y] = stamp;
+                }
+                else if(tentativeGscore >= this.gScores[y]) {
+                    continue;
+                }
+
+                this.cameFrom[y] = x;
+                this.gScores[y] = tentativeGscore;
+                pushOpen(y, (long)tentativeGscore + searchPath.heuristicEstimateDistance(startTile, tile, goalTile));
+            }
+        }
+
+        return null; /* No path found */
+    }
+
+    private boolean isInZone(Tile tile, List<Zone> zones) {
+        for(int i = 0; i < zones.size(); i++) {
+            if(zones.get(i).getBounds().intersects(tile.getBounds())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Tile> reconstructPath(int goal) {
+        List<Tile> path = new ArrayList<Tile>();
+        for(int node = goal; this.cameFrom[node] != NO_NODE; node = this.cameFrom[node]) {
+            path.add(getTile(node));
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Starts a new search, the scratch arrays don't need to be cleared as any stamp
+     * from a previous search is stale
+     *
+     * @return the stamp of this search
      */
-    public List<GraphNode<Tile, T>> findPath(GraphSearchPath<Tile, T> searchPath, Vector2f start, Vector2f destination) {                            
-        GraphNode<Tile, T> startNode = getNearestNodeByWorld(start);        
-        GraphNode<Tile, T> destNode = getNearestNodeByWorld(destination);
-        List<GraphNode<Tile, T>> resultPath = searchPath.search(startNode, destNode);
-        return resultPath; 
+    private int nextSearchStamp() {
+        if(this.gScores == null) {
+            int size = this.width * this.height;
+            this.gScores = new int[size];
+            this.cameFrom = new int[size];
+            this.openStamps = new int[size];
+            this.closedStamps = new int[size];
+            this.openHeap = new long[64];
+        }
+
+        if(this.searchStamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.openStamps, 0);
+            Arrays.fill(this.closedStamps, 0);
+            this.searchStamp = 0;
+        }
+
+        this.openSize = 0;
+        return ++this.searchStamp;
+    }
+
+    /**
+     * Pushes the node on to the open binary heap.  The score and node are packed into one
+     * long, so the heap orders by score and then by node id
+     *
+     * @param node
+     * @param score
+     */
+    private void pushOpen(int node, long score) {
+        if(score > Integer.MAX_VALUE) {
+            score = Integer.MAX_VALUE;
+        }
+
+        if(this.openSize == this.openHeap.length) {
+            this.openHeap = Arrays.copyOf(this.openHeap, this.openSize * 2);
+        }
+
+        long entry = (score << 32) | node;
+        int index = this.openSize++;
+        while(index > 0) {
+            int parent = (index - 1) >> 1;
+            if(this.openHeap[parent] <= entry) {
+                break;
+            }
+
+            this.openHeap[index] = this.openHeap[parent];
+            index = parent;
+        }
+
+        this.openHeap[index] = entry;
+    }
+
+    private int popOpen() {
+        long top = this.openHeap[0];
+        long last = this.openHeap[--this.openSize];
+
+        int index = 0;
+        int half = this.openSize >> 1;
+        while(index < half) {
+            int child = (index << 1) + 1;
+            if(child + 1 < this.openSize && this.openHeap[child + 1] < this.openHeap[child]) {
+                child++;
+            }
+
+            if(last <= this.openHeap[child]) {
+                break;
+            }
+
+            this.openHeap[index] = this.openHeap[child];
+            index = child;
+        }
+
+        this.openHeap[index] = last;
+        return (int)top;
     }
 
 }
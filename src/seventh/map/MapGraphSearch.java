@@ -0,0 +1,37 @@
+/*
+ * see license.txt
+ */
+package seventh.map;
+
+/**
+ * The heuristics of a search over a {@link MapGraph}, the search itself is done by
+ * {@link MapGraph#search(MapGraphSearch, int, int)}.  As is, this makes the search Dijkstra's
+ * algorithm; override {@link #heuristicEstimateDistance(Tile, Tile, Tile)} to guide it.
+ *
+ * @author Tony
+ *
+ */
+public class MapGraphSearch {
+
+    /**
+     * Calculate the heuristic distance between the current tile and the goal tile.
+     *
+     * @param startTile
+     * @param currentTile
+     * @param goalTile
+     * @return the estimated distance
+     */
+    protected int heuristicEstimateDistance(Tile startTile, Tile currentTile, Tile goalTile) {
+        return 0;
+    }
+
+    /**
+     * If this tile should be ignored
+     *
+     * @param tile
+     * @return true if this tile should be ignored
+     */
+    protected boolean shouldIgnore(Tile tile) {
+        return false;
+    }
+}
@@ -4,10 +4,12 @@
 package seventh.map;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 
 import leola.vm.Leola;
 import leola.vm.types.LeoMap;
+import seventh.shared.Cons;
 import seventh.shared.JSON;
 
 /**
@@ -19,7 +21,8 @@ import seventh.shared.JSON;
 public class MapLoaderUtil {
 
     /**
-     * Loads a {@link Map}
+     * Loads a {@link Map}.  The map is loaded from its {@link CompiledMap} if it has one that
+     * is up to date, otherwise the JSON map file is parsed and compiled for the next time.
      * 
      * @param runtime
      * @param mapFile the map file
@@ -29,13 +32,50 @@ public class MapLoaderUtil {
      */
     public static Map loadMap(Leola runtime, String mapFile, boolean loadAssets) throws Exception {
         File file = new File(mapFile);        
-        String contents = new String(Files.readAllBytes(file.toPath()));
+        byte[] contents = Files.readAllBytes(file.toPath());
         
         MapObjectFactory factory = new DefaultMapObjectFactory(runtime, mapFile, loadAssets);
         
-        LeoMap mapData = JSON.parseJson(runtime, contents).as();
-        MapLoader mapLoader = new TiledMapLoader();
+        CompiledMap mapData = loadCompiledMap(runtime, file, contents);
+        TiledMapLoader mapLoader = new TiledMapLoader();
         Map map = mapLoader.loadMap(mapData, factory, loadAssets);
         return map;
     }
+    
+    /**
+     * Reads the {@link CompiledMap} of the map file, compiling it if it's missing or out of date
+     * 
+     * @param runtime
+     * @param file
+     * @param contents the contents of the JSON map file
+     * @return the {@link CompiledMap}
+     * @throws Exception
+     */
+    private static CompiledMap loadCompiledMap(Leola runtime, File file, byte[] contents) throws Exception {
+        byte[] hash = CompiledMap.hash(contents);
+        File cacheFile = CompiledMap.getCacheFile(file);
+        
+        if(cacheFile.exists()) {
+            try {
+                CompiledMap compiledMap = CompiledMap.read(cacheFile, hash);
+                if(compiledMap != null) {
+                    return compiledMap;
+                }
+            }
+            catch(Exception e) {
+                Cons.println("*** Unable to read the compiled map: " + cacheFile + " -> " + e);
+            }
+        }
+        
+        LeoMap mapData = JSON.parseJson(runtime, new String(contents)).as();
+        CompiledMap compiledMap = CompiledMap.compile(mapData, hash);
+        try {
+            compiledMap.write(cacheFile);
+        }
+        catch(IOException e) {
+            Cons.println("*** Unable to write the compiled map: " + cacheFile + " -> " + e);
+        }
+        
+        return compiledMap;
+    }
 }
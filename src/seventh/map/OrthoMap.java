@@ -13,9 +13,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import seventh.client.gfx.Camera;
 import seventh.client.gfx.Canvas;
 import seventh.client.gfx.effects.ShadeTiles;
-import seventh.graph.Edge;
-import seventh.graph.Edges.Directions;
-import seventh.graph.GraphNode;
 import seventh.map.Tile.SurfaceType;
 import seventh.math.OBB;
 import seventh.math.Rectangle;
@@ -74,6 +71,7 @@ public class OrthoMap implements Map {
     //private boolean[][] originalLayer;
     private List<Tile> destroyedTiles;
     private List<Tile> addedTiles;
+    private MapChangeJournal changeJournal;
     
     /**
      * The current frames viewport
@@ -782,6 +780,8 @@ public class OrthoMap implements Map {
 
         this.tileWidth = info.getTileWidth();
         this.tileHeight = info.getTileHeight();
+        
+        this.changeJournal = new MapChangeJournal(this.maxX, this.maxY);
 
         Vector2f worldCoordinates = tileToWorld(this.maxX, this.maxY);
         this.mapWidth = (int)worldCoordinates.x;
@@ -853,20 +853,14 @@ public class OrthoMap implements Map {
     }
 
     /* (non-Javadoc)
-     * @see leola.live.game.Map#createMapGraph(leola.live.game.GraphNodeFactory)
+     * @see seventh.map.Map#createMapGraph()
      */
     @Override
-    @SuppressWarnings("all")
-    public <E> MapGraph<E> createMapGraph(GraphNodeFactory<E> factory) {        
+    public MapGraph createMapGraph() {
         int numberOfRows = backgroundLayers[0].numberOfRows();
         int numberOfColumns = backgroundLayers[0].getRow(0).length;
         
-        GraphNode[][] nodes = new GraphNode[numberOfRows][numberOfColumns];
-        for(int i = 0; i < numberOfRows; i++) {
-            nodes[i] = new GraphNode[numberOfColumns];
-        }
-        
-        // first build all graph nodes.
+        MapGraph graph = new MapGraph(this, numberOfColumns, numberOfRows);
         for(int y = 0; y < numberOfRows; y++) {
             for(int x = 0; x < numberOfColumns; x++ ) {
                 boolean isCollidable = false;
@@ -880,99 +874,13 @@ public class OrthoMap implements Map {
                     }
                 }
                 
-                if(!isCollidable) {                    
-                    Tile tile = this.getTile(0, x, y);
-                    if(tile != null) {
-                        GraphNode<Tile, E> node = new GraphNode<Tile, E>(tile);
-                        nodes[y][x] = node;
-                    }
+                if(!isCollidable) {
+                    graph.addNode(x, y);
                 }
             }
         }
         
-        
-        // now let's build the edge nodes
-        for(int y = 0; y < numberOfRows; y++) {
-            for(int x = 0; x < numberOfColumns; x++ ) {    
-                GraphNode<Tile, E> node = nodes[y][x];
-                if(node == null) continue;
-                
-                addNode(factory, nodes, node, x, y, false);
-            }
-        }            
-        return new MapGraph<E>(this, nodes);
-    }
-    
-    @SuppressWarnings("all")
-    @Override
-    public <E> void addNode(GraphNodeFactory<E> factory, GraphNode[][] nodes, GraphNode<Tile, E> node, int x, int y) {
-        addNode(factory, nodes, node, x, y, true);
-    }
-    
-    @SuppressWarnings("all")
-    private <E> void addNode(GraphNodeFactory<E> factory, GraphNode[][] nodes, GraphNode<Tile, E> node, int x, int y, boolean addAdjacent) {
-        int numberOfRows = backgroundLayers[0].numberOfRows();
-        int numberOfColumns = backgroundLayers[0].getRow(0).length;
-        
-        
-        nodes[y][x] = node;
-        
-        GraphNode<Tile, E> nw = null;
-        if(y > 0 && x > 0) nw = nodes[y - 1][x - 1];
-        
-        GraphNode<Tile, E> n = null;
-        if(y > 0) n = nodes[y - 1][x];
-        
-        GraphNode<Tile, E> ne = null;
-        if(y > 0 && x < numberOfColumns - 1) ne = nodes[y - 1][x + 1];
-        
-        GraphNode<Tile, E> e = null;
-        if(x < numberOfColumns - 1) e = nodes[y][x + 1];
-        
-        GraphNode<Tile, E> se = null;
-        if(y < numberOfRows - 1 && x < numberOfColumns - 1) se = nodes[y + 1][x + 1];
-        
-        GraphNode<Tile, E> s = null;
-        if(y < numberOfRows - 1) s = nodes[y + 1][x];
-        
-        GraphNode<Tile, E> sw = null;
-        if(y < numberOfRows - 1 && x > 0) sw = nodes[y + 1][x - 1];
-        
-        GraphNode<Tile, E> w = null;
-        if(x > 0) w = nodes[y][x - 1];
-        
-        if (n != null) {
-            node.addEdge(Directions.N, new Edge<Tile, E>(node, n, factory == null? null:factory.createEdgeData(this, node, n)));
-            if(addAdjacent) n.addEdge(Directions.N.invertedDirection(), new Edge<Tile, E>(n, node, factory == null? null:factory.createEdgeData(this, n, node)));
-        }
-        if (ne != null && (n != null || e != null)) {
-            node.addEdge(Directions.NE, new Edge<Tile, E>(node, ne, factory == null? null:factory.createEdgeData(this, node, ne)));
-            if(addAdjacent) ne.addEdge(Directions.NE.invertedDirection(), new Edge<Tile, E>(ne, node, factory == null? null:factory.createEdgeData(this, ne, node)));
-        }
-        if (e != null) {
-            node.addEdge(Directions.E, new Edge<Tile, E>(node, e, factory == null? null:factory.createEdgeData(this, node, e)));
-            if(addAdjacent) e.addEdge(Directions.E.invertedDirection(), new Edge<Tile, E>(e, node, factory == null? null:factory.createEdgeData(this, e, node)));
-        }
-        if (se != null && (s != null || e != null)) {
-            node.addEdge(Directions.SE, new Edge<Tile, E>(node, se, factory == null? null:factory.createEdgeData(this, node, se)));
-            if(addAdjacent) se.addEdge(Directions.SE.invertedDirection(), new Edge<Tile, E>(se, node, factory == null? null:factory.createEdgeData(this, se, node)));
-        }
-        if (s != null) {
-            node.addEdge(Directions.S, new Edge<Tile, E>(node, s, factory == null? null:factory.createEdgeData(this, node, s)));
-            if(addAdjacent) s.addEdge(Directions.S.invertedDirection(), new Edge<Tile, E>(s, node, factory == null? null:factory.createEdgeData(this, s, node)));
-        }
-        if (sw != null && (s != null || w != null)) {
-            node.addEdge(Directions.SW, new Edge<Tile, E>(node, sw, factory == null? null:factory.createEdgeData(this, node, sw)));
-            if(addAdjacent) sw.addEdge(Directions.SW.invertedDirection(), new Edge<Tile, E>(sw, node, factory == null? null:factory.createEdgeData(this, sw, node)));
-        }
-        if (w != null) {
-            node.addEdge(Directions.W, new Edge<Tile, E>(node, w, factory == null? null:factory.createEdgeData(this, node, w)));
-            if(addAdjacent) w.addEdge(Directions.W.invertedDirection(), new Edge<Tile, E>(w, node, factory == null? null:factory.createEdgeData(this, w, node)));
-        }
-        if (nw != null && (n != null || w != null) ) {
-            node.addEdge(Directions.NW, new Edge<Tile, E>(node, nw, factory == null? null:factory.createEdgeData(this, node, nw)));
-            if(addAdjacent) nw.addEdge(Directions.NW.invertedDirection(), new Edge<Tile, E>(nw, node, factory==null? null:factory.createEdgeData(this, nw, node)));
-        }
+        return graph;
     }
     
     /* (non-Javadoc)
@@ -1463,6 +1371,10 @@ public class OrthoMap implements Map {
             }
         }
         
+        if(wasRemoved) {
+            this.changeJournal.tileChanged(tileX, tileY);
+        }
+        
         return wasRemoved;
     }
     
@@ -1477,6 +1389,7 @@ public class OrthoMap implements Map {
             layer.addTile(tile);
             
             tile.setDestroyed(false);            
+            this.changeJournal.tileChanged(tile.getXIndex(), tile.getYIndex());
         }
         
         this.destroyedTiles.clear();
@@ -1498,6 +1411,8 @@ public class OrthoMap implements Map {
             
             this.collisionLayerToAddTiles.addTile(collisionTile);
         }
+        
+        this.changeJournal.tileChanged(tile.getXIndex(), tile.getYIndex());
     }
     
     @Override
@@ -1515,11 +1430,21 @@ public class OrthoMap implements Map {
             if(this.destructableLayer.length > 0) {
                 this.destructableLayer[0].removeTile(tile);
             }
+            
+            this.changeJournal.tileChanged(tile.getXIndex(), tile.getYIndex());
         }
         
         this.addedTiles.clear();
     }
     
+    /* (non-Javadoc)
+     * @see seventh.map.Map#getChangeJournal()
+     */
+    @Override
+    public MapChangeJournal getChangeJournal() {
+        return this.changeJournal;
+    }
+    
     @Override
     public TilesetAtlas geTilesetAtlas() {    
         return this.atlas;
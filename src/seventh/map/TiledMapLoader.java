@@ -12,11 +12,10 @@ import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.Texture.TextureWrap;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
-import leola.vm.types.LeoArray;
 import leola.vm.types.LeoMap;
-import leola.vm.types.LeoObject;
-import leola.vm.types.LeoString;
 import seventh.client.gfx.TextureUtil;
+import seventh.map.CompiledMap.LayerData;
+import seventh.map.CompiledMap.TilesetData;
 import seventh.map.Map.SceneDef;
 import seventh.map.Tile.SurfaceType;
 
@@ -38,13 +37,26 @@ public class TiledMapLoader implements MapLoader {
      * @throws Exception
      */
     public Map loadMap(LeoMap map, MapObjectFactory mapObjectsFactory, boolean loadAssets) throws Exception {
+        return loadMap(CompiledMap.compile(map, null), mapObjectsFactory, loadAssets);
+    }
+    
+    /**
+     * Loads an {@link OrthoMap} from a {@link CompiledMap}
+     * 
+     * @param map
+     * @param mapObjectsFactory
+     * @param loadAssets
+     * @return the {@link Map}
+     * @throws Exception
+     */
+    public Map loadMap(CompiledMap map, MapObjectFactory mapObjectsFactory, boolean loadAssets) throws Exception {
         SceneDef def = new SceneDef();
         
-        int width = map.getInt("width");
-        int height = map.getInt("height");
+        int width = map.width;
+        int height = map.height;
         
-        int tileWidth = map.getInt("tilewidth");
-        int tileHeight = map.getInt("tileheight");
+        int tileWidth = map.tileWidth;
+        int tileHeight = map.tileHeight;
         
         def.setDimensionX(width);
         def.setDimensionY(height);
@@ -55,13 +67,10 @@ public class TiledMapLoader implements MapLoader {
         SurfaceType[][] surfaces = new SurfaceType[height][width];
         def.setSurfaces(surfaces);
         
-        LeoArray tilesets = map.getByString("tilesets").as();
-        TilesetAtlas atlas = parseTilesets(tilesets, loadAssets);
-        
+        TilesetAtlas atlas = parseTilesets(map.tilesets, loadAssets);
         
-        LeoArray layers = map.getByString("layers").as();
-        List<Layer> mapLayers = parseLayers(layers, atlas, loadAssets, tileWidth, tileHeight, surfaces);
-        List<MapObject> mapObjects = parseMapObjects(layers, mapObjectsFactory);
+        List<Layer> mapLayers = parseLayers(map.layers, atlas, loadAssets, tileWidth, tileHeight, surfaces);
+        List<MapObject> mapObjects = parseMapObjects(map.objects, mapObjectsFactory);
         
         List<Layer> backgroundLayers = new ArrayList<Layer>();
         List<Layer> foregroundLayers = new ArrayList<Layer>();
@@ -96,15 +105,15 @@ public class TiledMapLoader implements MapLoader {
      * @param tileWidth
      * @param tileHeight
      */
-    private void parseSurfaces(SurfaceType[][] surfaces, TilesetAtlas atlas, LeoArray data, int width, int tileWidth, int tileHeight) {
+    private void parseSurfaces(SurfaceType[][] surfaces, TilesetAtlas atlas, int[] data, int width, int tileWidth, int tileHeight) {
         int y = -1; // account for zero
-        for(int x = 0; x < data.size(); x++) {
+        for(int x = 0; x < data.length; x++) {
                         
             if(x % width == 0) {                                    
                 y++;
             }
             
-            int tileId = data.get(x).asInt();
+            int tileId = data[x];
             int surfaceId = atlas.getTileId(tileId) - 1; /* minus one to get back to zero based */
             surfaces[y][x % width] = SurfaceType.fromId(surfaceId);
         }
@@ -112,80 +121,50 @@ public class TiledMapLoader implements MapLoader {
     
     
     
-    private List<Layer> parseLayers(LeoArray layers,TilesetAtlas atlas, boolean loadImages, int tileWidth, int tileHeight, SurfaceType[][] surfaces) throws Exception {
+    private List<Layer> parseLayers(LayerData[] layers,TilesetAtlas atlas, boolean loadImages, int tileWidth, int tileHeight, SurfaceType[][] surfaces) throws Exception {
         
-        List<Layer> mapLayers = new ArrayList<Layer>(layers.size());
+        List<Layer> mapLayers = new ArrayList<Layer>(layers.length);
         
         int index = 0;
-        for(LeoObject l : layers) {            
-            LeoMap layer = l.as();
-            
-            String layerType = layer.getString("type");
-            if("tilelayer".equalsIgnoreCase(layerType)) {
-                Layer mapLayer = parseLayer(layer, index, atlas, loadImages, tileWidth, tileHeight, surfaces);
-                if(mapLayer != null) {
-                    mapLayers.add(mapLayer);
-                    
-                    if(!mapLayer.isForeground()) {
-                        index++;
-                    }
+        for(LayerData layer : layers) {            
+            Layer mapLayer = parseLayer(layer, index, atlas, loadImages, tileWidth, tileHeight, surfaces);
+            if(mapLayer != null) {
+                mapLayers.add(mapLayer);
+                
+                if(!mapLayer.isForeground()) {
+                    index++;
                 }
-            }                        
+            }
         }
         
         return mapLayers;
     }
     
-    private List<MapObject> parseMapObjects(LeoArray layers, MapObjectFactory mapObjectsFactory) {
+    private List<MapObject> parseMapObjects(MapObjectData[] objects, MapObjectFactory mapObjectsFactory) {
         List<MapObject> mapObjects = new ArrayList<>();
         
-        for(LeoObject l : layers) {            
-            LeoMap layer = l.as();
-            
-            String layerType = layer.getString("type");
-            if ("objectgroup".equalsIgnoreCase(layerType)) {
-                LeoArray objects = layer.getArray("objects");
-                for(LeoObject obj : objects) {
-                    MapObjectData data = LeoObject.fromLeoObject(obj, MapObjectData.class);
-                    MapObject object = mapObjectsFactory.createMapObject(data);
-                    if(object != null) {
-                        mapObjects.add(object);
-                    }
-                }
+        for(MapObjectData data : objects) {
+            MapObject object = mapObjectsFactory.createMapObject(data);
+            if(object != null) {
+                mapObjects.add(object);
             }
         }
         
         return mapObjects;
     }
     
-    private Layer parseLayer(LeoMap layer, int index, TilesetAtlas atlas, boolean loadImages, int tileWidth, int tileHeight, SurfaceType[][] surfaces) {
-        LeoArray data = layer.getByString("data").as();
-        int width = layer.getInt("width");    
-        int height = layer.getInt("height");
+    private Layer parseLayer(LayerData layer, int index, TilesetAtlas atlas, boolean loadImages, int tileWidth, int tileHeight, SurfaceType[][] surfaces) {
+        int[] data = layer.tiles;
+        int width = layer.width;    
+        int height = layer.height;
         
-        boolean isCollidable = false;
-        boolean isForeground = false;
-        boolean isSurfaceTypes = false;
-        boolean isDestructable = false;
-        boolean isVisible = layer.getBoolean("visible");
+        boolean isCollidable = layer.is(CompiledMap.COLLIDABLE);
+        boolean isForeground = layer.is(CompiledMap.FOREGROUND);
+        boolean isSurfaceTypes = layer.is(CompiledMap.SURFACES);
+        boolean isDestructable = layer.is(CompiledMap.DESTRUCTABLE);
+        boolean isVisible = layer.is(CompiledMap.VISIBLE);
         
-        int heightMask = 0;
-        if (layer.has(LeoString.valueOf("properties"))) {
-            LeoMap properties = layer.getByString("properties").as();            
-            isCollidable = properties.getString("collidable").equals("true");
-            isForeground = properties.getString("foreground").equals("true");
-            isDestructable = properties.getString("destructable").equals("true");
-            
-            if(properties.containsKeyByString("heightMask")) {
-                String strMask = properties.getString("heightMask");
-                heightMask = Integer.parseInt(strMask);
-            }
-            
-            if(properties.containsKeyByString("surfaces")) {
-                isSurfaceTypes = true;
-            }
-                            
-        }
+        int heightMask = layer.heightMask;
         
         // surface sounds are not a proper layer, so therefore we return
         // null to indicate that this wasn't a normal layer and shouldn't be
@@ -195,7 +174,7 @@ public class TiledMapLoader implements MapLoader {
             return null;
         }
         
-        Layer mapLayer = new Layer(layer.getString("name"),
+        Layer mapLayer = new Layer(layer.name,
                                    isCollidable, 
                                    isForeground, 
                                    isDestructable, 
@@ -208,8 +187,8 @@ public class TiledMapLoader implements MapLoader {
         
         int y = -tileHeight; // account for zero
         int rowIndex = 0;
-        for(int x = 0; x < data.size(); x++) {
-            int tileId = data.get(x).asInt();
+        for(int x = 0; x < data.length; x++) {
+            int tileId = data[x];
             boolean flippedHorizontally = (tileId & FLIPPED_HORIZONTALLY_FLAG) != 0;
             boolean flippedVertically = (tileId & FLIPPED_VERTICALLY_FLAG) != 0; 
             boolean flippedDiagonally = (tileId & FLIPPED_DIAGONALLY_FLAG) != 0;
@@ -279,54 +258,26 @@ public class TiledMapLoader implements MapLoader {
         return mapLayer;
     }
     
-    private TilesetAtlas parseTilesets(LeoArray tilesets, boolean loadImages) throws Exception {
-        if(tilesets.isEmpty()) {
+    private TilesetAtlas parseTilesets(TilesetData[] tilesets, boolean loadImages) throws Exception {
+        if(tilesets.length == 0) {
             throw new IllegalArgumentException("There must be at least 1 tileset");
         }
         
         TilesetAtlas atlas = new  TilesetAtlas();
-        for(LeoObject t : tilesets) {
-            LeoMap tileset = t.as();
-                        
-            // skip the sourced tilesets
-            if(t.hasObject("source")) {
-                // HACK: Updated version of Tiled which no longer supports inlining
-                // shared tilests (lame)
-                String source = tileset.getString("source");
-                if(source.endsWith("collidables.tsx")) {
-                    tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/collision_tileset.png"));
-                    tileset.putByString("name", LeoString.valueOf("collidables"));
-                }
-                else if(source.endsWith("city.tsx")) {
-                    tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/cs2dnorm.png"));
-                    tileset.putByString("name", LeoString.valueOf("city"));
-                }
-                else if(source.endsWith("surface_types.tsx")) {
-                    tileset.putByString("image", LeoString.valueOf("./assets/gfx/tiles/surface_types.png"));
-                    tileset.putByString("name", LeoString.valueOf("surfaces"));
-                }
-                
-                tileset.putByString("tilewidth", LeoObject.valueOf(32));
-                tileset.putByString("tileheight", LeoObject.valueOf(32));
-            }
-            
-            int firstgid = tileset.getInt("firstgid");            
-            int margin = tileset.getInt("margin");
-            int spacing = tileset.getInt("spacing");
-            int tilewidth = tileset.getInt("tilewidth");
-            int tileheight = tileset.getInt("tileheight");
+        for(TilesetData tileset : tilesets) {
+            int firstgid = tileset.firstgid;            
+            int margin = tileset.margin;
+            int spacing = tileset.spacing;
+            int tilewidth = tileset.tileWidth;
+            int tileheight = tileset.tileHeight;
             
-            LeoMap tilesetprops = null;
-            LeoObject props = tileset.getByString("tileproperties");
-            if(LeoObject.isTrue(props) && props.isMap()) {
-                tilesetprops = props.as();
-            }
+            LeoMap tilesetprops = tileset.properties;
 
             TextureRegion image = null;
             TextureRegion[] images = null;
                                                 
             if(loadImages) {
-                String imagePath = tileset.getString("image");
+                String imagePath = tileset.image;
                 
                 // override to local assets tile directory
                 if(!new File(imagePath).exists()) {
@@ -31,7 +31,7 @@ public class BombDisarmedMessage extends AbstractNetMessage {
     @Override
     public void read(IOBuffer buffer) {    
         super.read(buffer);
-        bombTargetId = buffer.getUnsignedByte();
+        bombTargetId = BufferIO.readEntityId(buffer);
     }
     
     /* (non-Javadoc)
@@ -40,6 +40,6 @@ public class BombDisarmedMessage extends AbstractNetMessage {
     @Override
     public void write(IOBuffer buffer) {    
         super.write(buffer);
-        buffer.putUnsignedByte(bombTargetId);
+        BufferIO.writeEntityId(buffer, bombTargetId);
     }
 }
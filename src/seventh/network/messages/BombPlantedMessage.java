@@ -36,7 +36,7 @@ public class BombPlantedMessage extends AbstractNetMessage {
     @Override
     public void read(IOBuffer buffer) {    
         super.read(buffer);
-        bombTargetId = buffer.getUnsignedByte();
+        bombTargetId = BufferIO.readEntityId(buffer);
     }
     
     /* (non-Javadoc)
@@ -45,6 +45,6 @@ public class BombPlantedMessage extends AbstractNetMessage {
     @Override
     public void write(IOBuffer buffer) {    
         super.write(buffer);
-        buffer.putUnsignedByte(bombTargetId);
+        BufferIO.writeEntityId(buffer, bombTargetId);
     }
 }
@@ -27,6 +27,7 @@ import seventh.game.net.NetTank;
 import seventh.game.weapons.Weapon.WeaponState;
 import seventh.math.Rectangle;
 import seventh.math.Vector2f;
+import seventh.shared.SeventhConstants;
 
 /**
  * Some {@link IOBuffer} utilities
@@ -238,8 +239,58 @@ public class BufferIO {
         return Type.fromNet(type);
     }
     
+    /**
+     * The number of bits needed to encode a player id, including the
+     * {@link SeventhConstants#INVALID_PLAYER_ID}
+     */
+    private static final int PLAYER_ID_BITS = 32 - Integer.numberOfLeadingZeros(SeventhConstants.INVALID_PLAYER_ID);
+    
+    /**
+     * The number of bits needed to encode the largest entity id
+     */
+    private static final int ENTITY_ID_BITS = 32 - Integer.numberOfLeadingZeros(SeventhConstants.MAX_ENTITIES - 1);
+    
+    /**
+     * Entity ids below this are encoded in a single byte
+     */
+    private static final int SMALL_ENTITY_ID_BITS = 7;
+    private static final int SMALL_ENTITY_ID = (1 << SMALL_ENTITY_ID_BITS);
+    
     public static int numPlayerIdBits() {
-        return 5;
+        return PLAYER_ID_BITS;
+    }
+    
+    /**
+     * Writes out an entity id.  Small ids (the players and most persistent entities) are 
+     * encoded in one byte, larger ids are encoded with just enough bits for {@link SeventhConstants#MAX_ENTITIES}
+     * 
+     * @param buffer
+     * @param entityId
+     */
+    public static void writeEntityId(IOBuffer buffer, int entityId) {
+        if(entityId < SMALL_ENTITY_ID) {
+            buffer.putBooleanBit(false);
+            buffer.putIntBits(entityId, SMALL_ENTITY_ID_BITS);
+        }
+        else {
+            buffer.putBooleanBit(true);
+            buffer.putIntBits(entityId, ENTITY_ID_BITS);
+        }
+    }
+    
+    /**
+     * @param entityId
+     * @return the number of bits {@link #writeEntityId(IOBuffer, int)} writes the entity id in
+     */
+    public static int numEntityIdBits(int entityId) {
+        return 1 + (entityId < SMALL_ENTITY_ID ? SMALL_ENTITY_ID_BITS : ENTITY_ID_BITS);
+    }
+    
+    public static int readEntityId(IOBuffer buffer) {
+        if(buffer.getBooleanBit()) {
+            return buffer.getIntBits(ENTITY_ID_BITS);
+        }
+        return buffer.getIntBits(SMALL_ENTITY_ID_BITS);
     }
     
     public static void writePlayerId(IOBuffer buffer, int playerId) {
@@ -26,7 +26,7 @@ public class FlagReturnedMessage extends AbstractNetMessage {
     @Override
     public void read(IOBuffer buffer) {    
         super.read(buffer);
-        this.flagId = buffer.getUnsignedByte();
+        this.flagId = BufferIO.readEntityId(buffer);
         this.returnedBy = buffer.getUnsignedByte();
     }
     
@@ -36,7 +36,7 @@ public class FlagReturnedMessage extends AbstractNetMessage {
     @Override
     public void write(IOBuffer buffer) {    
         super.write(buffer);
-        buffer.putUnsignedByte(flagId);
+        BufferIO.writeEntityId(buffer, flagId);
         buffer.putUnsignedByte(returnedBy);
     }
 }
@@ -25,7 +25,7 @@ public class FlagStolenMessage extends AbstractNetMessage {
     @Override
     public void read(IOBuffer buffer) {    
         super.read(buffer);
-        this.flagId = buffer.getUnsignedByte();
+        this.flagId = BufferIO.readEntityId(buffer);
         this.stolenBy = buffer.getUnsignedByte();
     }
     
@@ -35,7 +35,7 @@ public class FlagStolenMessage extends AbstractNetMessage {
     @Override
     public void write(IOBuffer buffer) {    
         super.write(buffer);
-        buffer.putUnsignedByte(flagId);
+        BufferIO.writeEntityId(buffer, flagId);
         buffer.putUnsignedByte(stolenBy);
     }
 }
@@ -1,42 +1,183 @@
 /*
- * see license.txt 
+ * see license.txt
  */
 package seventh.network.messages;
 
 import harenet.IOBuffer;
 
 /**
+ * The inputs of a player.  Each input is tagged with the client tick (sequence) it was
+ * generated on and the amount of time that tick simulated, and the last {@link #MAX_REDUNDANT_INPUTS} inputs are sent along with it so
+ * that a lost packet does not result in a lost input.  The redundant inputs are delta encoded
+ * against the input that follows them, so an unchanged input only costs a couple of bits.
+ *
  * @author Tony
  *
  */
 public class PlayerInputMessage extends AbstractNetMessage {
+
+    /**
+     * The maximum number of previous inputs sent with each message
+     */
+    public static final int MAX_REDUNDANT_INPUTS = 3;
+
+    /**
+     * The largest interpolation delay that can be sent, in milliseconds
+     */
+    public static final int MAX_INTERPOLATION_DELAY = 511;
+
+    /**
+     * The longest time a single input may cover, in milliseconds
+     */
+    public static final int MAX_DURATION = 255;
+
+    private static final int KEY_BITS = 16;
+    private static final int REDUNDANT_BITS = 2;
+    private static final int INTERPOLATION_DELAY_BITS = 9;
+    private static final int DURATION_BITS = 8;
+
+    /**
+     * The client tick of the {@link #keys} and {@link #orientation}
+     */
+    public int sequence;
     public int keys;
     public float orientation;
-    
+
+    /**
+     * The amount of time the client simulated with this input, in milliseconds
+     */
+    public int duration;
+
+    /**
+     * How far behind the latest snapshot the client is rendering the remote entities, in 
+     * milliseconds; the server rewinds the players by this much on top of the ping
+     */
+    public int interpolationDelay;
+
+    /**
+     * The previous inputs, index 0 being the input of sequence-1,
+     * index 1 of sequence-2 and so on
+     */
+    public int numberOfRedundantInputs;
+    public int[] redundantKeys;
+    public float[] redundantOrientations;
+    public int[] redundantDurations;
+
     /**
-     * 
+     *
      */
     public PlayerInputMessage() {
         super(BufferIO.PLAYER_INPUT);
+
+        this.redundantKeys = new int[MAX_REDUNDANT_INPUTS];
+        this.redundantOrientations = new float[MAX_REDUNDANT_INPUTS];
+        this.redundantDurations = new int[MAX_REDUNDANT_INPUTS];
     }
-    
+
+    /**
+     * Moves the current input into the redundant inputs and sets the input of the
+     * next client tick
+     *
+     * @param keys
+     * @param orientation
+     * @param duration the amount of time the input is simulated for, in milliseconds
+     */
+    public void nextInput(int keys, float orientation, int duration) {
+        for(int i = MAX_REDUNDANT_INPUTS - 1; i > 0; i--) {
+            this.redundantKeys[i] = this.redundantKeys[i-1];
+            this.redundantOrientations[i] = this.redundantOrientations[i-1];
+            this.redundantDurations[i] = this.redundantDurations[i-1];
+        }
+
+        this.redundantKeys[0] = this.keys;
+        this.redundantOrientations[0] = this.orientation;
+        this.redundantDurations[0] = this.duration;
+
+        if(this.sequence > 0 && this.numberOfRedundantInputs < MAX_REDUNDANT_INPUTS) {
+            this.numberOfRedundantInputs++;
+        }
+
+        this.sequence++;
+        this.keys = keys;
+        this.orientation = orientation;
+        this.duration = Math.max(1, Math.min(MAX_DURATION, duration));
+    }
+
     /* (non-Javadoc)
      * @see seventh.network.messages.AbstractNetMessage#read(java.nio.ByteBuffer)
      */
     @Override
-    public void read(IOBuffer buffer) {    
+    public void read(IOBuffer buffer) {
         super.read(buffer);
-        keys = buffer.getInt();
+        sequence = buffer.getInt();
+        keys = buffer.getIntBits(KEY_BITS);
         orientation = buffer.getFloat();
+        duration = buffer.getIntBits(DURATION_BITS);
+        interpolationDelay = buffer.getIntBits(INTERPOLATION_DELAY_BITS);
+
+        numberOfRedundantInputs = buffer.getIntBits(REDUNDANT_BITS);
+
+        int previousKeys = keys;
+        float previousOrientation = orientation;
+        int previousDuration = duration;
+        for(int i = 0; i < numberOfRedundantInputs; i++) {
+            if(!buffer.getBooleanBit()) {
+                previousKeys = buffer.getIntBits(KEY_BITS);
+            }
+
+            if(!buffer.getBooleanBit()) {
+                previousOrientation = buffer.getFloat();
+            }
+
+            if(!buffer.getBooleanBit()) {
+                previousDuration = buffer.getIntBits(DURATION_BITS);
+            }
+
+            redundantKeys[i] = previousKeys;
+            redundantOrientations[i] = previousOrientation;
+            redundantDurations[i] = previousDuration;
+        }
     }
-    
+
     /* (non-Javadoc)
      * @see seventh.network.messages.AbstractNetMessage#write(java.nio.ByteBuffer)
      */
     @Override
-    public void write(IOBuffer buffer) {    
+    public void write(IOBuffer buffer) {
         super.write(buffer);
-        buffer.putInt(keys);
+        buffer.putInt(sequence);
+        buffer.putIntBits(keys, KEY_BITS);
         buffer.putFloat(orientation);
+        buffer.putIntBits(duration, DURATION_BITS);
+        buffer.putIntBits(Math.max(0, Math.min(MAX_INTERPOLATION_DELAY, interpolationDelay)), INTERPOLATION_DELAY_BITS);
+
+        buffer.putIntBits(numberOfRedundantInputs, REDUNDANT_BITS);
+
+        int previousKeys = keys;
+        float previousOrientation = orientation;
+        int previousDuration = duration;
+        for(int i = 0; i < numberOfRedundantInputs; i++) {
+            boolean sameKeys = redundantKeys[i] == previousKeys;
+            buffer.putBooleanBit(sameKeys);
+            if(!sameKeys) {
+                buffer.putIntBits(redundantKeys[i], KEY_BITS);
+            }
+
+            boolean sameOrientation = redundantOrientations[i] == previousOrientation;
+            buffer.putBooleanBit(sameOrientation);
+            if(!sameOrientation) {
+                buffer.putFloat(redundantOrientations[i]);
+            }
+
+            boolean sameDuration = redundantDurations[i] == previousDuration;
+            buffer.putBooleanBit(sameDuration);
+            if(!sameDuration) {
+                buffer.putIntBits(redundantDurations[i], DURATION_BITS);
+            }
+
+            previousKeys = redundantKeys[i];
+            previousOrientation = redundantOrientations[i];
+            previousDuration = redundantDurations[i];
+        }
     }
 }
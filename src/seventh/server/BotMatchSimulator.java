@@ -0,0 +1,252 @@
+/*
+ * see license.txt
+ */
+package seventh.server;
+
+import java.io.PrintStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import harenet.IOBuffer;
+import leola.vm.Leola;
+import seventh.game.Game;
+import seventh.game.Player;
+import seventh.game.Players;
+import seventh.game.entities.PlayerEntity;
+import seventh.game.net.NetGameUpdate;
+import seventh.network.messages.GameUpdateMessage;
+import seventh.shared.MapList.MapEntry;
+import seventh.shared.TimeStep;
+
+/**
+ * Plays out a match between bots without any networking or clients, stepping the {@link Game}
+ * as fast as it will go.  The game is seeded, so the same map, bots and seed play out the same
+ * match, which makes the timings comparable between runs.  To that end nothing in the match may depend
+ * on the wall clock: the wall clock of the game is fixed, and the trigger time budget (which would defer
+ * triggers depending on how fast the machine is) is disabled.
+ *
+ * @author Tony
+ *
+ */
+public class BotMatchSimulator {
+
+    /**
+     * The size of the buffer the game updates are written to
+     */
+    private static final int MAX_UPDATE_SIZE = 64 * 1024;
+
+    /**
+     * The timings of a simulation run
+     *
+     * @author Tony
+     *
+     */
+    public static class Results {
+        public int ticks;
+        public long totalTime;
+        public long entityTime;
+        public long aiTime;
+        public long snapshotTime;
+        public long snapshotBytes;
+        
+        /**
+         * A hash of the state of the players at the end of the run; the same map, bots and
+         * seed result in the same checksum
+         */
+        public long checksum;
+
+        /**
+         * @return the number of ticks simulated per second of wall time
+         */
+        public double getTicksPerSecond() {
+            return this.totalTime > 0 ? (this.ticks * 1_000_000_000.0) / this.totalTime : 0;
+        }
+
+        /**
+         * @return the time spent on everything besides the entities, AI and snapshots (game type,
+         * triggers, timers, event dispatching), in nanoseconds
+         */
+        public long getOtherTime() {
+            return Math.max(0, this.totalTime - this.entityTime - this.aiTime - this.snapshotTime);
+        }
+
+        /**
+         * Prints out a summary of the run
+         *
+         * @param out
+         */
+        public void print(PrintStream out) {
+            out.printf("%d ticks in %.1f ms, %.1f ticks/sec%n", this.ticks, this.totalTime / 1_000_000.0, getTicksPerSecond());
+            print(out, "entities", this.entityTime);
+            print(out, "ai", this.aiTime);
+            print(out, "snapshots", this.snapshotTime);
+            print(out, "other", getOtherTime());
+            out.printf("%-10s %.1f bytes/tick%n", "bytes", this.ticks > 0 ? this.snapshotBytes / (double)this.ticks : 0);
+            out.printf("%-10s %016x%n", "checksum", this.checksum);
+        }
+
+        private void print(PrintStream out, String name, long time) {
+            double percent = this.totalTime > 0 ? (time * 100.0) / this.totalTime : 0;
+            double perTick = this.ticks > 0 ? (time / 1000.0) / this.ticks : 0;
+            out.printf("%-10s %5.1f%% %10.1f us/tick%n", name, percent, perTick);
+        }
+    }
+
+    private GameSession gameSession;
+    private Game game;
+
+    private TimeStep timeStep;
+    private long netUpdateRate;
+    private long nextGameUpdate;
+
+    private GameUpdateMessage updateMessage;
+    private IOBuffer updateBuffer;
+
+    /**
+     * @param config
+     * @param runtime
+     * @param mapFile
+     * @param numberOfBots
+     * @param seed
+     * @throws Exception if the map or game type fails to load
+     */
+    public BotMatchSimulator(ServerSeventhConfig config, Leola runtime, String mapFile, int numberOfBots, long seed) throws Exception {
+        PreparedMap map = PreparedMap.load(config, runtime, new MapEntry(mapFile));
+
+        this.gameSession = new GameSession(config, map.getGameMap(), map.getGameType(), new Players());
+        this.game = this.gameSession.getGame();
+        this.game.setRandomSeed(seed);
+        this.game.setWallClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        this.game.getTriggers().setBudget(0);
+
+        final long netRate = Math.abs(config.getServerNetUpdateRate());
+        this.netUpdateRate = 1000 / netRate == 0 ? 20 : netRate;
+
+        /* same budget the InGameState gives each client */
+        final int packetBudget = config.getNetConfig().getMtu() - InGameState.SNAPSHOT_RESERVED_BYTES;
+        final int bandwidthBudget = (int)(config.getClientBandwidth() * this.netUpdateRate / 1000);
+        this.game.setSnapshotBudget(Math.max(0, Math.min(packetBudget, bandwidthBudget)));
+
+        int maxBots = Math.min(numberOfBots, config.getMaxPlayers());
+        for(int i = 0; i < maxBots; i++) {
+            this.game.addBot("Bot" + i);
+        }
+
+        this.game.startGame();
+
+        this.timeStep = new TimeStep();
+        this.nextGameUpdate = this.netUpdateRate;
+
+        this.updateMessage = new GameUpdateMessage();
+        this.updateBuffer = IOBuffer.Factory.allocate(MAX_UPDATE_SIZE);
+    }
+
+    /**
+     * @return the game being simulated
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Simulates the supplied number of ticks, each one being the server frame time
+     *
+     * @param ticks
+     * @param frameTime the game time of each tick, in milliseconds
+     * @return the timings of the run
+     */
+    public Results run(int ticks, long frameTime) {
+        Results results = new Results();
+
+        long startTime = System.nanoTime();
+        for(int i = 0; i < ticks; i++) {
+            this.timeStep.setDeltaTime(frameTime);
+            this.timeStep.setGameClock(this.timeStep.getGameClock() + frameTime);
+
+            this.game.update(this.timeStep);
+            this.gameSession.getEventDispatcher().processQueue();
+
+            results.entityTime += this.game.getEntityUpdateTime();
+            results.aiTime += this.game.getAIUpdateTime();
+
+            this.nextGameUpdate -= frameTime;
+            if(this.nextGameUpdate <= 0) {
+                long snapshotStartTime = System.nanoTime();
+                results.snapshotBytes += writeGameUpdates();
+                results.snapshotTime += System.nanoTime() - snapshotStartTime;
+
+                this.nextGameUpdate = this.netUpdateRate;
+            }
+
+            this.game.postUpdate();
+        }
+
+        results.totalTime = System.nanoTime() - startTime;
+        results.ticks = ticks;
+        results.checksum = checksum();
+        return results;
+    }
+    
+    /**
+     * @return a hash of the scores and positions of the players
+     */
+    private long checksum() {
+        long checksum = 17;
+        
+        Players players = this.gameSession.getPlayers();
+        for(int i = 0; i < players.maxNumberOfPlayers(); i++) {
+            Player player = players.getPlayer(i);
+            if(player == null) {
+                continue;
+            }
+            
+            checksum = 31 * checksum + player.getId();
+            checksum = 31 * checksum + player.getKills();
+            checksum = 31 * checksum + player.getDeaths();
+            
+            PlayerEntity entity = player.getEntity();
+            if(entity != null) {
+                checksum = 31 * checksum + Float.floatToIntBits(entity.getPos().x);
+                checksum = 31 * checksum + Float.floatToIntBits(entity.getPos().y);
+                checksum = 31 * checksum + entity.getHealth();
+            }
+        }
+        
+        return checksum;
+    }
+
+    /**
+     * Builds and serializes the update for every bot, as if each was a remote client
+     *
+     * @return the number of bytes written
+     */
+    private int writeGameUpdates() {
+        int bytes = 0;
+
+        Players players = this.gameSession.getPlayers();
+        for(int i = 0; i < players.maxNumberOfPlayers(); i++) {
+            if(!players.hasPlayer(i)) {
+                continue;
+            }
+
+            NetGameUpdate netUpdate = this.game.getNetGameUpdateFor(i);
+            if(netUpdate != null) {
+                this.updateMessage.netUpdate = netUpdate;
+
+                this.updateBuffer.clear();
+                this.updateMessage.write(this.updateBuffer);
+                bytes += this.updateBuffer.sendSync().asByteBuffer().position();
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Destroys the game
+     */
+    public void destroy() {
+        this.gameSession.destroy();
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * see license.txt
+ */
+package seventh.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import harenet.IOBuffer;
+import harenet.messages.NetMessage;
+import seventh.game.Game;
+import seventh.network.messages.GameReadyMessage;
+import seventh.network.messages.GameUpdateMessage;
+import seventh.shared.Cons;
+import seventh.shared.DemoFormat;
+import seventh.shared.TimeStep;
+
+/**
+ * Records the spectator view of a match to a demo file (see {@link DemoFormat}).
+ *
+ * <p>
+ * The game thread only serializes the messages into a batch buffer; full batches (or batches older
+ * than {@link #FLUSH_INTERVAL}) are handed off to a writer thread, which appends them to the file.  If the
+ * disk can not keep up and all of the batches are in use, records are dropped rather than stalling the game.
+ * A keyframe with the full game state is recorded every keyframe interval so that playback can seek.
+ *
+ * <p>
+ * All of the record methods must be called from the game thread.
+ *
+ * @author Tony
+ *
+ */
+public class DemoRecorder {
+
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int MAX_BATCHES = 32;
+    private static final int MAX_MESSAGE_SIZE = 256 * 1024;
+
+    /**
+     * The maximum amount of time (in game time) a record waits in a batch before being handed
+     * off to the writer
+     */
+    private static final long FLUSH_INTERVAL = 1_000;
+
+    /**
+     * Marks the end of the batches
+     */
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    private final File file;
+    private final long keyframeInterval;
+
+    private final BlockingQueue<ByteBuffer> pendingBatches;
+    private final Queue<ByteBuffer> freeBatches;
+    private int numberOfBatches;
+
+    private ByteBuffer batch;
+    private IOBuffer messageBuffer;
+
+    private Thread writerThread;
+    private volatile boolean failed;
+
+    private long time;
+    private long nextKeyframeTime;
+    private long nextFlushTime;
+
+    /**
+     * Number of bytes handed off to the writer
+     */
+    private long bytesQueued;
+
+    private int[] keyframeTimes;
+    private long[] keyframeOffsets;
+    private int numberOfKeyframes;
+
+    private int numberOfDroppedRecords;
+
+    private GameUpdateMessage updateMessage;
+    private GameReadyMessage keyframeMessage;
+
+    /**
+     * @param file the demo file to write to
+     * @param keyframeInterval the time between keyframes, in milliseconds
+     */
+    public DemoRecorder(File file, long keyframeInterval) {
+        this.file = file;
+        this.keyframeInterval = Math.max(1_000, keyframeInterval);
+
+        this.pendingBatches = new LinkedBlockingQueue<>();
+        this.freeBatches = new ConcurrentLinkedQueue<>();
+
+        this.messageBuffer = IOBuffer.Factory.allocate(MAX_MESSAGE_SIZE);
+
+        this.keyframeTimes = new int[64];
+        this.keyframeOffsets = new long[64];
+
+        this.updateMessage = new GameUpdateMessage();
+        this.keyframeMessage = new GameReadyMessage();
+    }
+
+    /**
+     * @return the demo file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of records that could not be recorded
+     */
+    public int getNumberOfDroppedRecords() {
+        return numberOfDroppedRecords;
+    }
+
+    /**
+     * @return the number of bytes recorded so far
+     */
+    public long getNumberOfBytesRecorded() {
+        return this.bytesQueued + (this.batch != null ? this.batch.position() : 0);
+    }
+
+    /**
+     * @return true if the recording is running
+     */
+    public boolean isRecording() {
+        return this.writerThread != null && !this.failed;
+    }
+
+    /**
+     * Opens the demo file and starts the writer thread
+     *
+     * @param mapFileName the map being played
+     * @param netUpdateRate the time between updates, in milliseconds
+     * @throws IOException
+     */
+    public void start(String mapFileName, long netUpdateRate) throws IOException {
+        File dir = this.file.getAbsoluteFile().getParentFile();
+        if(dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable to create the demo directory: " + dir);
+        }
+
+        final FileChannel channel = FileChannel.open(this.file.toPath(),
+                                                     StandardOpenOption.CREATE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING,
+                                                     StandardOpenOption.WRITE);
+
+        this.writerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeBatches(channel);
+            }
+        }, "demo-recorder");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        byte[] mapName = (mapFileName != null ? mapFileName : "").getBytes(StandardCharsets.UTF_8);
+        if(reserve(4 + 4 + 4 + 8 + 2 + mapName.length)) {
+            this.batch.putInt(DemoFormat.MAGIC);
+            this.batch.putInt(DemoFormat.VERSION);
+            this.batch.putInt((int)netUpdateRate);
+            this.batch.putLong(System.currentTimeMillis());
+            this.batch.putShort((short)mapName.length);
+            this.batch.put(mapName);
+        }
+    }
+
+    /**
+     * Writes out the keyframe index, flushes out any remaining records and waits
+     * for the writer thread to finish
+     */
+    public void stop() {
+        if(this.writerThread == null) {
+            return;
+        }
+
+        long indexOffset = getNumberOfBytesRecorded();
+        int indexSize = 4 + (this.numberOfKeyframes * DemoFormat.INDEX_ENTRY_SIZE);
+        if(reserve(DemoFormat.RECORD_HEADER_SIZE + indexSize + DemoFormat.TRAILER_SIZE)) {
+            indexOffset = getNumberOfBytesRecorded();
+
+            this.batch.put(DemoFormat.RECORD_INDEX);
+            this.batch.putInt((int)this.time);
+            this.batch.putInt(indexSize);
+            this.batch.putInt(this.numberOfKeyframes);
+            for(int i = 0; i < this.numberOfKeyframes; i++) {
+                this.batch.putInt(this.keyframeTimes[i]);
+                this.batch.putLong(this.keyframeOffsets[i]);
+            }
+
+            this.batch.putLong(indexOffset);
+            this.batch.putInt(DemoFormat.MAGIC);
+        }
+
+        flush();
+        this.pendingBatches.add(END_OF_STREAM);
+
+        try {
+            this.writerThread.join(5_000);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.writerThread = null;
+
+        Cons.println("Stopped recording demo " + this.file + ": " + this.bytesQueued + " bytes, "
+                + this.numberOfKeyframes + " keyframes, " + this.numberOfDroppedRecords + " dropped records");
+    }
+
+    /**
+     * Advances the recording clock, handing off the current batch if it
+     * has been waiting for too long
+     *
+     * @param timeStep
+     */
+    public void update(TimeStep timeStep) {
+        this.time += timeStep.getDeltaTime();
+
+        if(this.time >= this.nextFlushTime) {
+            flush();
+        }
+    }
+
+    /**
+     * Records the spectator view of the game, and a keyframe if one is due
+     *
+     * @param game
+     */
+    public void recordUpdate(Game game) {
+        if(this.time >= this.nextKeyframeTime) {
+            this.keyframeMessage.gameState = game.getNetGameState();
+            long offset = record(DemoFormat.RECORD_KEYFRAME, this.keyframeMessage);
+            this.keyframeMessage.gameState = null;
+
+            if(offset > -1) {
+                addKeyframe(offset);
+                this.nextKeyframeTime = this.time + this.keyframeInterval;
+            }
+        }
+
+        this.updateMessage.netUpdate = game.getNetGameUpdateForSpectator();
+        record(DemoFormat.RECORD_UPDATE, this.updateMessage);
+        this.updateMessage.netUpdate = null;
+    }
+
+    /**
+     * Records a reliable message that was broadcast to all clients
+     *
+     * @param msg
+     */
+    public void recordEvent(NetMessage msg) {
+        record(DemoFormat.RECORD_EVENT, msg);
+    }
+
+    private void addKeyframe(long offset) {
+        if(this.numberOfKeyframes == this.keyframeTimes.length) {
+            this.keyframeTimes = Arrays.copyOf(this.keyframeTimes, this.numberOfKeyframes * 2);
+            this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.numberOfKeyframes * 2);
+        }
+
+        this.keyframeTimes[this.numberOfKeyframes] = (int)this.time;
+        this.keyframeOffsets[this.numberOfKeyframes] = offset;
+        this.numberOfKeyframes++;
+    }
+
+    /**
+     * Serializes the message into the current batch
+     *
+     * @param type
+     * @param msg
+     * @return the file offset of the record, or -1 if it was dropped
+     */
+    private long record(byte type, NetMessage msg) {
+        if(this.writerThread == null || this.failed) {
+            return -1;
+        }
+
+        ByteBuffer bytes = null;
+        try {
+            this.messageBuffer.clear();
+            msg.write(this.messageBuffer);
+
+            bytes = this.messageBuffer.sendSync().asByteBuffer();
+            bytes.flip();
+        }
+        catch(RuntimeException e) {
+            Cons.println("*** ERROR: Unable to record demo message: " + e);
+            this.numberOfDroppedRecords++;
+            return -1;
+        }
+
+        int length = bytes.remaining();
+        if(!reserve(DemoFormat.RECORD_HEADER_SIZE + length)) {
+            this.numberOfDroppedRecords++;
+            return -1;
+        }
+
+        long offset = getNumberOfBytesRecorded();
+
+        this.batch.put(type);
+        this.batch.putInt((int)this.time);
+        this.batch.putInt(length);
+        this.batch.put(bytes);
+
+        return offset;
+    }
+
+    /**
+     * Makes sure the current batch has room for the number of bytes
+     *
+     * @param size
+     * @return false if there is no batch available
+     */
+    private boolean reserve(int size) {
+        if(this.batch != null && this.batch.remaining() >= size) {
+            return true;
+        }
+
+        flush();
+
+        /* records larger than a batch get a batch of their own,
+         * which is not put back in the pool
+         */
+        if(size > BATCH_SIZE) {
+            this.batch = ByteBuffer.allocate(size);
+            return true;
+        }
+
+        this.batch = this.freeBatches.poll();
+        if(this.batch == null && this.numberOfBatches < MAX_BATCHES) {
+            this.batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+            this.numberOfBatches++;
+        }
+
+        return this.batch != null;
+    }
+
+    /**
+     * Hands off the current batch to the writer thread
+     */
+    private void flush() {
+        this.nextFlushTime = this.time + FLUSH_INTERVAL;
+
+        if(this.batch != null) {
+            if(this.batch.position() > 0) {
+                this.bytesQueued += this.batch.position();
+                this.batch.flip();
+                this.pendingBatches.add(this.batch);
+                this.batch = null;
+            }
+        }
+    }
+
+    /**
+     * The writer thread, appends the batches to the file until the end of stream marker
+     *
+     * @param channel
+     */
+    private void writeBatches(FileChannel channel) {
+        try {
+            while(true) {
+                ByteBuffer buffer = this.pendingBatches.take();
+                if(buffer == END_OF_STREAM) {
+                    break;
+                }
+
+                if(!this.failed) {
+                    try {
+                        while(buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                    catch(IOException e) {
+                        Cons.println("*** ERROR: Unable to write to demo file " + this.file + ": " + e);
+                        this.failed = true;
+                    }
+                }
+
+                if(buffer.capacity() == BATCH_SIZE) {
+                    buffer.clear();
+                    this.freeBatches.add(buffer);
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            try {
+                channel.close();
+            }
+            catch(IOException e) {
+                Cons.println("*** ERROR: Unable to close demo file " + this.file + ": " + e);
+            }
+        }
+    }
+}
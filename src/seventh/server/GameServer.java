@@ -13,6 +13,9 @@ import java.util.TimeZone;
 import harenet.api.Server;
 import leola.vm.Leola;
 import leola.vm.util.Classpath;
+import seventh.ai.basic.Brain;
+import seventh.ai.basic.DefaultAISystem;
+import seventh.ai.basic.EvaluatorProfile;
 import seventh.game.Game;
 import seventh.game.GameInfo;
 import seventh.game.PlayerInfo;
@@ -21,7 +24,9 @@ import seventh.game.PlayerInfos.PlayerInfoIterator;
 import seventh.game.game_types.GameType;
 import seventh.game.Players;
 import seventh.game.Team;
+import seventh.game.Triggers;
 import seventh.game.net.NetGameStats;
+import seventh.server.ServerFrameProfiler.Phase;
 import seventh.shared.Command;
 import seventh.shared.CommonCommands;
 import seventh.shared.Config;
@@ -30,6 +35,7 @@ import seventh.shared.Console;
 import seventh.shared.Debugable.DebugableListener;
 import seventh.shared.LANServerRegistration;
 import seventh.shared.MapList.MapEntry;
+import seventh.shared.ScriptProfiler;
 import seventh.shared.Scripting;
 import seventh.shared.State;
 import seventh.shared.StateMachine;
@@ -194,6 +200,9 @@ public class GameServer {
         
         this.serverContext = new ServerContext(this, config, runtime, this.console);
         
+        /* scripts only keep their line numbers if asked for */
+        Scripting.setDebugMode(config.isScriptDebugMode());
+        runtime.getArgs().setDebugMode(config.isScriptDebugMode());
                         
         /* load some helper functions for objective scripts */
         runtime.loadStatics(SeventhScriptingCommonLibrary.class);
@@ -678,6 +687,127 @@ public class GameServer {
                 }                
             }
         });
+        
+        console.addCommand(new Command("sv_profile") {
+            
+            @Override
+            public void execute(Console console, String... args) {
+                ServerFrameProfiler profiler = serverContext.getFrameProfiler();
+                String option = args.length > 0 ? args[0] : "";
+                
+                if(option.equalsIgnoreCase("reset")) {
+                    profiler.reset();
+                }
+                else if(option.equalsIgnoreCase("budget")) {
+                    if(args.length > 1) {
+                        profiler.setBudget(Long.parseLong(args[1]));
+                    }
+                    console.println("sv_profile budget: " + profiler.getBudget() + " ms");
+                }
+                else if(option.equalsIgnoreCase("entities")) {
+                    profiler.printEntityTypes(console);
+                }
+                else if(option.equalsIgnoreCase("hist")) {
+                    Phase phase = null;
+                    if(args.length > 1 && !args[1].equalsIgnoreCase("total")) {
+                        phase = Phase.fromName(args[1]);
+                        if(phase == null) {
+                            console.println("*** Unknown phase: " + args[1] + ", expected one of " + Arrays.toString(Phase.values()));
+                            return;
+                        }
+                    }
+                    profiler.printHistogram(console, phase);
+                }
+                else {
+                    profiler.printSummary(console);
+                }
+            }
+        });
+        
+        console.addCommand(new Command("sv_scripts") {
+            
+            @Override
+            public void execute(Console console, String... args) {
+                ScriptProfiler profiler = Scripting.getProfiler();
+                String option = args.length > 0 ? args[0] : "";
+                
+                if(option.equalsIgnoreCase("reset")) {
+                    profiler.reset();
+                }
+                else if(option.equalsIgnoreCase("alloc")) {
+                    if(args.length > 1) {
+                        profiler.setTrackAllocations(args[1].equalsIgnoreCase("on") || args[1].equals("1"));
+                    }
+                    console.println("sv_scripts alloc: " + (profiler.isTrackingAllocations() ? "on" : "off"));
+                }
+                else if(option.equalsIgnoreCase("budget")) {
+                    if(!serverContext.hasGameSession()) {
+                        console.println("*** No game is running");
+                        return;
+                    }
+                    
+                    Triggers triggers = serverContext.getGameSession().getGame().getTriggers();
+                    if(args.length > 1) {
+                        triggers.setBudget(Long.parseLong(args[1]));
+                    }
+                    console.println("sv_scripts budget: " + triggers.getBudget() + " ms");
+                }
+                else {
+                    profiler.printSummary(console);
+                }
+            }
+        });
+        
+        console.addCommand(new Command("ai_evaluators") {
+            
+            private void printProfile(Console console, PlayerInfo bot, EvaluatorProfile profile) {
+                console.printf("%s (%d) - total %d us\n", bot.getName(), bot.getId(), profile.getTotalTimeNanos() / 1000L);
+                console.println("\tEvaluator                      Scores     Cached    Total(us)   Max(us)");
+                console.println("\t======================================================================");
+                for(EvaluatorProfile.Entry entry : profile.getEntries()) {
+                    console.printf("\t%-30s %6d %10d %12d %9d\n", entry.getName(), entry.getNumberOfScores(), entry.getNumberOfCacheHits()
+                            , entry.getTotalTimeNanos() / 1000L, entry.getMaxTimeNanos() / 1000L);
+                }
+                console.println("\n");
+            }
+            
+            @Override
+            public void execute(final Console console, String... args) {
+                GameInfo game = serverContext.getGameSession().getGame();
+                if(game != null && game.getAISystem() instanceof DefaultAISystem) {
+                    final DefaultAISystem aiSystem = (DefaultAISystem)game.getAISystem();
+                    final boolean reset = args.length > 0 && args[0].equalsIgnoreCase("reset");
+                    
+                    if(args.length > 0 && !reset) {
+                        int id = Integer.parseInt(args[0]);
+                        Brain brain = aiSystem.getBrain(id);
+                        if(brain != null) {
+                            printProfile(console, brain.getPlayer(), brain.getEvaluatorProfile());
+                        }
+                        else {
+                            console.println("*** No bot found with playerId: " + id);
+                        }
+                    }
+                    else {
+                        game.getPlayerInfos().forEachPlayerInfo(new PlayerInfoIterator() {
+                            
+                            @Override
+                            public void onPlayerInfo(PlayerInfo p) {
+                                Brain brain = aiSystem.getBrain(p);
+                                if(brain != null) {
+                                    if(reset) {
+                                        brain.getEvaluatorProfile().reset();
+                                    }
+                                    else {
+                                        printProfile(console, p, brain.getEvaluatorProfile());
+                                    }
+                                }
+                            }
+                        });
+                    }
+                }
+            }
+        });
     }
     
     /**
@@ -816,6 +946,7 @@ public class GameServer {
             server.close();
             this.registration.shutdown();
             this.lanRegistration.shutdown();
+            this.serverContext.getMapLoader().shutdownNow();
             
             if(this.debugListener != null) {
                 this.debugListener.shutdown();
@@ -837,8 +968,14 @@ public class GameServer {
      * @param timeStep
      */
     private void serverFrame(StateMachine<State> sm, TimeStep timeStep) {    
+        ServerFrameProfiler profiler = this.serverContext.getFrameProfiler();
+        profiler.startFrame();
+        
         updateConsole(timeStep);        
+        profiler.lap(Phase.CONSOLE);
+        
         sm.update(timeStep);
+        profiler.endFrame();
     }
     
     /**
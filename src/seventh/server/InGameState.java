@@ -3,7 +3,10 @@
  */
 package seventh.server;
 
+import java.io.File;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 import harenet.api.Connection;
 import seventh.game.Game;
@@ -69,9 +72,11 @@ import seventh.network.messages.GameEventMessage;
 import seventh.network.messages.TileAddedMessage;
 import seventh.network.messages.TileRemovedMessage;
 import seventh.server.RemoteClients.RemoteClientIterator;
+import seventh.server.ServerFrameProfiler.Phase;
 import seventh.shared.Command;
 import seventh.shared.Cons;
 import seventh.shared.Console;
+import seventh.shared.DemoFormat;
 import seventh.shared.EventDispatcher;
 import seventh.shared.EventMethod;
 import seventh.shared.State;
@@ -93,6 +98,11 @@ public class InGameState implements State {
      */
     private static final long GAME_END_DELAY = 20_000;
     
+    /**
+     * Bytes of each packet not available for entity states
+     */
+    static final int SNAPSHOT_RESERVED_BYTES = 300;
+    
     private Game game;
     private GameSession gameSession;
     private ServerContext serverContext;
@@ -120,6 +130,9 @@ public class InGameState implements State {
     private RemoteClientIterator clientIterator;
     
     private ServerNetworkProtocol protocol;
+    private ServerFrameProfiler profiler;
+    
+    private DemoRecorder demoRecorder;
 
     /**
      * @param serverContext
@@ -133,6 +146,7 @@ public class InGameState implements State {
         this.players = gameSession.getPlayers();        
         this.clients = serverContext.getClients();        
         this.protocol = serverContext.getServerProtocol();
+        this.profiler = serverContext.getFrameProfiler();
         
         this.dispatcher = gameSession.getEventDispatcher();                
         this.game = gameSession.getGame();
@@ -144,6 +158,13 @@ public class InGameState implements State {
         final long netRate = Math.abs(config.getServerNetUpdateRate());        
         this.netUpdateRate = 1000 / netRate == 0 ? 20 : netRate;
         
+        /* the entity states of each update must fit within the clients bandwidth
+         * and a single packet, leaving room for sounds and reliable messages
+         */
+        final int packetBudget = config.getNetConfig().getMtu() - SNAPSHOT_RESERVED_BYTES;
+        final int bandwidthBudget = (int)(config.getClientBandwidth() * this.netUpdateRate / 1000);
+        this.game.setSnapshotBudget(Math.max(0, Math.min(packetBudget, bandwidthBudget)));
+        
         this.nextGameStatUpdate = 2_000; // first big update, wait only 2 seconds
         this.nextGamePartialStatUpdate = this.netPartialStatDelay;
         this.nextGameUpdate = this.netUpdateRate;
@@ -399,6 +420,24 @@ public class InGameState implements State {
             }
         });
         
+        this.serverContext.getConsole().addCommand(new Command("sv_record") {
+            
+            @Override
+            public void execute(Console console, String... args) {
+                if(args.length > 0) {
+                    int enabled = Integer.parseInt(args[0]);
+                    if(enabled != 0) {
+                        startDemoRecording();
+                    }
+                    else {
+                        stopDemoRecording();
+                    }
+                }
+                
+                console.println("sv_record: " + (demoRecorder != null ? demoRecorder.getFile() : 0));
+            }
+        });
+        
         this.gameEnded = false;
         this.gameEndTime = 0;
                         
@@ -413,8 +452,16 @@ public class InGameState implements State {
         
         this.game.startGame();
         
+        if(this.serverContext.getConfig().isDemoRecording()) {
+            startDemoRecording();
+        }
+        
         sendReadyMessage();
         
+        if(this.serverContext.getConfig().isMapPrefetch()) {
+            this.serverContext.getMapCycle().prefetchNextMap(this.serverContext);
+        }
+        
         Cons.println("Server InGameState initialiazed and ready for players");
     }
 
@@ -423,8 +470,56 @@ public class InGameState implements State {
      */
     @Override
     public void exit() {        
+        stopDemoRecording();
+        
         this.gameSession.destroy();        
         this.serverContext.getConsole().removeCommand("sv_fow");
+        this.serverContext.getConsole().removeCommand("sv_record");
+    }
+    
+    /**
+     * Starts recording the match to a demo file, if not already recording
+     */
+    private void startDemoRecording() {
+        if(this.demoRecorder != null) {
+            return;
+        }
+        
+        ServerSeventhConfig config = this.serverContext.getConfig();
+        
+        String mapFileName = this.gameSession.getMap().getMapFileName();
+        String mapName = new File(mapFileName).getName();
+        int extIndex = mapName.lastIndexOf('.');
+        if(extIndex > 0) {
+            mapName = mapName.substring(0, extIndex);
+        }
+        
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        File demoFile = new File(config.getDemoDirectory(), timestamp + "_" + mapName + DemoFormat.EXTENSION);
+        
+        DemoRecorder recorder = new DemoRecorder(demoFile, config.getDemoKeyframeInterval());
+        try {
+            recorder.start(mapFileName, this.netUpdateRate);
+            
+            this.demoRecorder = recorder;
+            this.protocol.setDemoRecorder(recorder);
+            
+            Cons.println("Recording demo to " + demoFile);
+        }
+        catch(IOException e) {
+            Cons.println("*** ERROR: Unable to record demo to " + demoFile + ": " + e);
+        }
+    }
+    
+    /**
+     * Stops the demo recording, if recording
+     */
+    private void stopDemoRecording() {
+        if(this.demoRecorder != null) {
+            this.protocol.setDemoRecorder(null);
+            this.demoRecorder.stop();
+            this.demoRecorder = null;
+        }
     }
     
     /* (non-Javadoc)
@@ -432,10 +527,20 @@ public class InGameState implements State {
      */
     @Override
     public void update(TimeStep timeStep) {                
+        if(this.demoRecorder != null) {
+            this.demoRecorder.update(timeStep);
+            this.profiler.lap(Phase.DEMO);
+        }
+        
         this.protocol.updateNetwork(timeStep);
+        this.profiler.lap(Phase.NETWORK);
+        
         this.game.update(timeStep);
+        this.profiler.lapGameUpdate(this.game);
         
         this.dispatcher.processQueue();
+        this.profiler.lap(Phase.EVENTS);
+        
         this.protocol.postQueuedMessages();
         
         /* only send a partial update if we did NOT send
@@ -444,10 +549,12 @@ public class InGameState implements State {
         if ( ! sendGameStatMessage(timeStep) ) {
             sendGamePartialStatMessage(timeStep);
         }
+        this.profiler.lap(Phase.MESSAGES);
         
         sendClientGameUpdates(timeStep);
         
         this.game.postUpdate();
+        this.profiler.lap(Phase.GAME);
         
         // check for game end
         if(gameEnded) {
@@ -469,6 +576,11 @@ public class InGameState implements State {
         if(this.nextGameUpdate <= 0) {
             this.clients.foreach(this.clientIterator);
             
+            if(this.demoRecorder != null) {
+                this.demoRecorder.recordUpdate(this.game);
+                this.profiler.lap(Phase.DEMO);
+            }
+            
             this.nextGameUpdate = this.netUpdateRate;
         }
     }
@@ -504,6 +616,8 @@ public class InGameState implements State {
      */
     private void sendGameUpdateMessage(int clientId) {
         NetGameUpdate netUpdate = this.game.getNetGameUpdateFor(clientId);
+        this.profiler.lap(Phase.SNAPSHOT_BUILD);
+        
         if(netUpdate != null) {
             
             GameUpdateMessage updateMessage = new GameUpdateMessage();
@@ -515,6 +629,8 @@ public class InGameState implements State {
             catch(Exception e) {
                 Cons.println("*** Error sending game update to client: " + e);
             }
+            
+            this.profiler.lap(Phase.SNAPSHOT_SEND);
         }
     }
     
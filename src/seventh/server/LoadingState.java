@@ -3,25 +3,21 @@
  */
 package seventh.server;
 
-import leola.vm.Leola;
-import seventh.game.GameMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import seventh.game.Players;
-import seventh.game.game_types.AbstractGameTypeScript;
-import seventh.game.game_types.GameType;
-import seventh.game.game_types.cmd.CommanderScript;
-import seventh.game.game_types.ctf.CaptureTheFlagScript;
-import seventh.game.game_types.obj.ObjectiveScript;
-import seventh.game.game_types.svr.SurvivorScript;
-import seventh.game.game_types.tdm.TeamDeathMatchScript;
 import seventh.map.Map;
-import seventh.map.MapLoaderUtil;
 import seventh.shared.Cons;
 import seventh.shared.MapList.MapEntry;
 import seventh.shared.State;
 import seventh.shared.TimeStep;
 
 /**
- * Responsible for loading maps
+ * Responsible for loading maps.  The map, game type and {@link GameSession} are loaded on the
+ * map loader thread, using the map prefetched by the {@link MapCycle} if there is one; in the
+ * meantime the server keeps running frames and sending out the queued messages.
  * 
  * @author Tony
  *
@@ -29,11 +25,13 @@ import seventh.shared.TimeStep;
 public class LoadingState implements State {
     
     private ServerContext serverContext;
-    private Leola runtime;
     private GameSession gameSession;
     private Players players;
     private MapEntry mapFile;
     
+    private Future<GameSession> loading;
+    private long loadingStartTime;
+    
     private GameSessionListener gameSessionListener;
     
     /**
@@ -47,65 +45,37 @@ public class LoadingState implements State {
                 
         this.mapFile = mapFile;
         
-        this.runtime = serverContext.newRuntime();
-        
         /* indicates we haven't successfully loaded the map */
         this.gameSession = null;
     }
 
     /**
-     * Loads a new {@link Map}
-     * 
-     * @param file
-     * @throws Exception
-     */
-    private GameMap loadMap(MapEntry file) throws Exception {        
-        Cons.println("Loading " + file.getFileName() + " map...");
-        
-        Map map = MapLoaderUtil.loadMap(this.runtime, file.getFileName(), false);
-        GameMap gameMap = new GameMap(file.getFileName(), "Unknown", map);
-        Cons.println("Successfully loaded!");
-        return gameMap;            
-    }
-
-    /**
-     * Loads a game type
+     * Loads a new {@link Map} and its game type, waiting on the prefetched
+     * one if there is one
      * 
-     * @param mapFile
-     * @param script
-     * @return the {@link GameType}
+     * @param prefetched the prefetched map, may be null
+     * @return the loaded map
      * @throws Exception
      */
-    private GameType loadGameType(MapEntry mapFile, AbstractGameTypeScript script) throws Exception {        
+    private PreparedMap loadMap(Future<PreparedMap> prefetched) throws Exception {
         ServerSeventhConfig config = this.serverContext.getConfig();
         
-        int maxKills = config.getMaxScore();
-        long matchTime = config.getMatchTime() * 60L * 1000L;
+        if(prefetched != null) {
+            try {
+                PreparedMap map = prefetched.get();
+                if(map.isPreparedFor(config)) {
+                    Cons.println("Using the prefetched " + this.mapFile.getFileName() + " map");
+                    return map;
+                }
+            }
+            catch(Exception e) {
+                Cons.println("*** Unable to use the prefetched map: " + this.mapFile + " -> " + e);
+            }
+        }
         
-        return script.loadGameType(mapFile.getFileName(), maxKills, matchTime);
-    }
-    
-    private GameType loadTDMGameType(MapEntry mapFile) throws Exception {
-        return loadGameType(mapFile, new TeamDeathMatchScript(runtime));
-    }
-    
-    private GameType loadObjGameType(MapEntry mapFile) throws Exception {
-        return loadGameType(mapFile, new ObjectiveScript(runtime));
-    }
-
-    private GameType loadCTFGameType(MapEntry mapFile) throws Exception {
-        return loadGameType(mapFile, new CaptureTheFlagScript(runtime));
-    }
-    
-    private GameType loadCMDGameType(MapEntry mapFile) throws Exception {
-        return loadGameType(mapFile, new CommanderScript(runtime));
+        return PreparedMap.load(config, this.serverContext.newRuntime(), this.mapFile);
     }
     
-    private GameType loadSVRGameType(MapEntry mapFile) throws Exception {
-        return loadGameType(mapFile, new SurvivorScript(runtime));
-    }
-
-    
     /**
      * Ends the game
      */
@@ -129,45 +99,37 @@ public class LoadingState implements State {
      */
     @Override
     public void enter() {
-        try {
-
-            endGame();
-            
-            GameMap gameMap = loadMap(mapFile);
-            GameType gameType = null;
-            
-            switch(this.serverContext.getConfig().getGameType()) {
-                case OBJ: {
-                    gameType = loadObjGameType(mapFile);
-                    break;
-                }
-                case TDM: {
-                    gameType = loadTDMGameType(mapFile);
-                    break;
-                }
-                case CTF: {
-                    gameType = loadCTFGameType(mapFile);
-                    break;
-                }
-                case CMD: {
-                    gameType = loadCMDGameType(mapFile);
-                    break;                
-                }
-                case SVR: {
-                    gameType = loadSVRGameType(mapFile);
-                    break;
-                }
-                default: {
-                    throw new IllegalArgumentException
-                        ("Unknown game type: " + this.serverContext.getConfig().getGameType());
-                }
-            }            
+        endGame();
+        
+        final Future<PreparedMap> prefetched = this.serverContext.getMapCycle().takePrefetchedMap(this.mapFile);
+        
+        this.loadingStartTime = System.currentTimeMillis();
+        this.loading = this.serverContext.getMapLoader().submit(new Callable<GameSession>() {
             
-            this.gameSession = new GameSession(serverContext.getConfig(), gameMap, gameType, players);                                    
+            @Override
+            public GameSession call() throws Exception {
+                PreparedMap map = loadMap(prefetched);
+                return new GameSession(serverContext.getConfig(), map.getGameMap(), map.getGameType(), players);
+            }
+        });
+    }
+    
+    /**
+     * Waits for the map to finish loading
+     */
+    private void finishLoading() {
+        try {
+            this.gameSession = this.loading.get();
+            Cons.println("Loaded " + this.mapFile.getFileName() + " in " + (System.currentTimeMillis() - this.loadingStartTime) + " ms");
+        }
+        catch(ExecutionException e) {
+            Cons.println("*** Unable to load map: " + this.mapFile + " -> " + e.getCause());
         }
-        catch(Exception e) {
+        catch(InterruptedException e) {
             Cons.println("*** Unable to load map: " + this.mapFile + " -> " + e);
         }
+        
+        this.loading = null;
     }
 
     /* (non-Javadoc)
@@ -175,6 +137,16 @@ public class LoadingState implements State {
      */
     @Override
     public void update(TimeStep timeStep) {
+        if(!this.loading.isDone()) {
+            /* the clients messages are left queued until the game is loaded, but
+             * anything queued for them goes out now
+             */
+            this.serverContext.getServerProtocol().postQueuedMessages();
+            return;
+        }
+        
+        finishLoading();
+        
         if(this.gameSession != null) {
             Cons.println("Server loading the InGameState...");                                
             this.gameSessionListener.onGameSessionCreated(gameSession);            
@@ -190,6 +162,16 @@ public class LoadingState implements State {
      */
     @Override
     public void exit() {
+        /* if another map is requested while this one is still loading, finish
+         * it up so that the next state picks up its players
+         */
+        if(this.loading != null) {
+            finishLoading();
+            
+            if(this.gameSession != null) {
+                this.gameSessionListener.onGameSessionCreated(this.gameSession);
+            }
+        }
     }
 
 }
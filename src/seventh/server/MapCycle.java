@@ -4,13 +4,17 @@
 package seventh.server;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
+import seventh.shared.Cons;
 import seventh.shared.Command;
 import seventh.shared.Console;
 import seventh.shared.MapList.MapEntry;
 
 /**
- * The play list for maps.
+ * The play list for maps.  The next map in the cycle can be prefetched in the background
+ * while the current one is being played, see {@link #prefetchNextMap(ServerContext)}.
  * 
  * @author Tony
  *
@@ -20,6 +24,9 @@ public class MapCycle {
     private List<MapEntry> maps;
     private int currentMap;
     
+    private MapEntry prefetchedMap;
+    private Future<PreparedMap> prefetched;
+    
     /**
      * @param maps
      */
@@ -143,6 +150,69 @@ public class MapCycle {
         }
     }
     
+    /**
+     * @return the next map, without moving to it
+     */
+    public MapEntry peekNextMap() {
+        return this.maps.get((this.currentMap + 1) % maps.size());
+    }
+    
+    /**
+     * Starts loading the next map in the cycle on the map loader, so that it is ready
+     * by the time the current match ends.  Any previously prefetched map is dropped.
+     * 
+     * @param serverContext
+     */
+    public void prefetchNextMap(final ServerContext serverContext) {
+        cancelPrefetch();
+        
+        final MapEntry nextMap = peekNextMap();
+        final ServerSeventhConfig config = serverContext.getConfig();
+        
+        this.prefetchedMap = nextMap;
+        this.prefetched = serverContext.getMapLoader().submit(new Callable<PreparedMap>() {
+            
+            @Override
+            public PreparedMap call() throws Exception {
+                return PreparedMap.load(config, serverContext.newRuntime(), nextMap);
+            }
+        });
+    }
+    
+    /**
+     * Takes the prefetched map, if it was prefetched for the supplied map.  The returned
+     * map may still be loading.
+     * 
+     * @param map
+     * @return the prefetched map, or null if the supplied map wasn't the one prefetched
+     */
+    public Future<PreparedMap> takePrefetchedMap(MapEntry map) {
+        Future<PreparedMap> result = null;
+        if(this.prefetched != null && this.prefetchedMap.equals(map)) {
+            result = this.prefetched;
+            this.prefetched = null;
+            this.prefetchedMap = null;
+        }
+        else {
+            cancelPrefetch();
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Drops the prefetched map, if any
+     */
+    public void cancelPrefetch() {
+        if(this.prefetched != null) {
+            Cons.println("Dropping the prefetched map: " + this.prefetchedMap);
+            this.prefetched.cancel(true);
+        }
+        
+        this.prefetched = null;
+        this.prefetchedMap = null;
+    }
+    
     /**
      * @return the next map
      */
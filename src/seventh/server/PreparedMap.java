@@ -0,0 +1,118 @@
+/*
+ * see license.txt
+ */
+package seventh.server;
+
+import leola.vm.Leola;
+import seventh.game.GameMap;
+import seventh.game.game_types.AbstractGameTypeScript;
+import seventh.game.game_types.GameType;
+import seventh.game.game_types.cmd.CommanderScript;
+import seventh.game.game_types.ctf.CaptureTheFlagScript;
+import seventh.game.game_types.obj.ObjectiveScript;
+import seventh.game.game_types.svr.SurvivorScript;
+import seventh.game.game_types.tdm.TeamDeathMatchScript;
+import seventh.map.Map;
+import seventh.map.MapLoaderUtil;
+import seventh.shared.Cons;
+import seventh.shared.MapList.MapEntry;
+
+/**
+ * A map and its game type, loaded and ready to be handed to a {@link GameSession}.  Loading
+ * one does not touch any server state, so it can be done off of the game thread.  Each
+ * {@link PreparedMap} is meant to be used by one {@link GameSession} only, as the game changes
+ * the map.
+ *
+ * @author Tony
+ *
+ */
+public class PreparedMap {
+
+    /**
+     * Loads the map and the game type of the supplied configuration
+     *
+     * @param config
+     * @param runtime the runtime the game type scripts are loaded into
+     * @param mapFile
+     * @return the prepared map
+     * @throws Exception if the map or game type fails to load
+     */
+    public static PreparedMap load(ServerSeventhConfig config, Leola runtime, MapEntry mapFile) throws Exception {
+        GameType.Type type = config.getGameType();
+        int maxScore = config.getMaxScore();
+        long matchTime = config.getMatchTime() * 60L * 1000L;
+
+        Cons.println("Loading " + mapFile.getFileName() + " map...");
+
+        Map map = MapLoaderUtil.loadMap(runtime, mapFile.getFileName(), false);
+        GameMap gameMap = new GameMap(mapFile.getFileName(), "Unknown", map);
+
+        GameType gameType = newGameTypeScript(type, runtime).loadGameType(mapFile.getFileName(), maxScore, matchTime);
+
+        Cons.println("Successfully loaded!");
+        return new PreparedMap(mapFile, type, maxScore, matchTime, gameMap, gameType);
+    }
+
+    private static AbstractGameTypeScript newGameTypeScript(GameType.Type type, Leola runtime) {
+        switch(type) {
+            case OBJ: return new ObjectiveScript(runtime);
+            case TDM: return new TeamDeathMatchScript(runtime);
+            case CTF: return new CaptureTheFlagScript(runtime);
+            case CMD: return new CommanderScript(runtime);
+            case SVR: return new SurvivorScript(runtime);
+            default:
+                throw new IllegalArgumentException("Unknown game type: " + type);
+        }
+    }
+
+    private final MapEntry mapFile;
+    private final GameType.Type type;
+    private final int maxScore;
+    private final long matchTime;
+
+    private final GameMap gameMap;
+    private final GameType gameType;
+
+    private PreparedMap(MapEntry mapFile, GameType.Type type, int maxScore, long matchTime, GameMap gameMap, GameType gameType) {
+        this.mapFile = mapFile;
+        this.type = type;
+        this.maxScore = maxScore;
+        this.matchTime = matchTime;
+        this.gameMap = gameMap;
+        this.gameType = gameType;
+    }
+
+    /**
+     * @return the map file
+     */
+    public MapEntry getMapFile() {
+        return mapFile;
+    }
+
+    /**
+     * @return the loaded map
+     */
+    public GameMap getGameMap() {
+        return gameMap;
+    }
+
+    /**
+     * @return the loaded game type
+     */
+    public GameType getGameType() {
+        return gameType;
+    }
+
+    /**
+     * Determines if this was loaded with the same settings the supplied configuration
+     * currently has, they may have been changed from the console since
+     *
+     * @param config
+     * @return true if this can be used for the current configuration
+     */
+    public boolean isPreparedFor(ServerSeventhConfig config) {
+        return this.type == config.getGameType() &&
+               this.maxScore == config.getMaxScore() &&
+               this.matchTime == config.getMatchTime() * 60L * 1000L;
+    }
+}
@@ -6,6 +6,9 @@ package seventh.server;
 import java.util.List;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicReference;
 
 import harenet.NetConfig;
@@ -45,6 +48,8 @@ public class ServerContext {
 
     private MapCycle mapCycle;
     private ServerSeventhConfig config;
+    private ServerFrameProfiler frameProfiler;
+    private ExecutorService mapLoader;
     
     private Random random;
     
@@ -104,6 +109,18 @@ public class ServerContext {
         
         this.gameSession = new AtomicReference<>();
         this.mapCycle = new MapCycle(config.getMapListings());
+        this.frameProfiler = new ServerFrameProfiler(config.getServerFrameBudget());
+        
+        this.mapLoader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "map-loader");
+                thread.setDaemon(true);
+                
+                return thread;
+            }
+        });
     }
     
     /**
@@ -208,6 +225,20 @@ public class ServerContext {
         return mapCycle;
     }
     
+    /**
+     * @return the background thread maps are loaded on
+     */
+    public ExecutorService getMapLoader() {
+        return mapLoader;
+    }
+    
+    /**
+     * @return the profiler of the server frames
+     */
+    public ServerFrameProfiler getFrameProfiler() {
+        return frameProfiler;
+    }
+    
     /**
      * @return the random
      */
@@ -0,0 +1,367 @@
+/*
+ * see license.txt
+ */
+package seventh.server;
+
+import java.util.Arrays;
+
+import seventh.game.Game;
+import seventh.game.entities.Entity.Type;
+import seventh.shared.Cons;
+import seventh.shared.Console;
+
+/**
+ * Breaks down where the time of each server frame goes.  The frame is split into {@link Phase}s by
+ * marking the end of each one with {@link #lap(Phase)}; the last frames are kept in a ring buffer,
+ * and every frame is added to a histogram per phase.  A frame that goes over its budget is logged
+ * along with its breakdown.
+ *
+ * <p>
+ * This is always on, so the cost is kept to a {@link System#nanoTime()} call per phase (and one per
+ * entity, see {@link Game#getEntityUpdateTime(Type)}).
+ *
+ * @author Tony
+ *
+ */
+public class ServerFrameProfiler {
+
+    /**
+     * The parts of a server frame
+     *
+     * @author Tony
+     *
+     */
+    public static enum Phase {
+        /** Executing console and rcon commands */
+        CONSOLE,
+
+        /** Processing the messages received from the clients */
+        NETWORK,
+
+        /** Updating the entities */
+        ENTITIES,
+
+        /** Updating the bots */
+        AI,
+
+        /** The rest of the game update: game type, timers, triggers */
+        GAME,
+
+        /** Dispatching the queued game events */
+        EVENTS,
+
+        /** Posting the queued reliable messages and stats */
+        MESSAGES,
+
+        /** Building the game update of each client */
+        SNAPSHOT_BUILD,
+
+        /** Serializing and queueing the game update of each client */
+        SNAPSHOT_SEND,
+
+        /** Recording the demo */
+        DEMO,
+
+        /** Anything not covered by the other phases */
+        OTHER,
+        ;
+
+        private static final Phase[] values = values();
+
+        /**
+         * @param name
+         * @return the phase by name, or null if not found
+         */
+        public static Phase fromName(String name) {
+            for(int i = 0; i < values.length; i++) {
+                if(values[i].name().equalsIgnoreCase(name)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The number of frames kept, about 10 seconds at the default frame rate
+     */
+    private static final int HISTORY_SIZE = 512;
+
+    /**
+     * Power of two buckets in microseconds, the first holds anything under
+     * a microsecond and the last anything over 16 milliseconds
+     */
+    private static final int NUMBER_OF_BUCKETS = 16;
+
+    private static final Phase[] PHASES = Phase.values;
+    private static final Type[] TYPES = Type.values();
+
+    /**
+     * The index of the frame's total time, after the phases
+     */
+    private static final int TOTAL = PHASES.length;
+
+    private long[] frame;
+    private long[] frameEntityTypeTimes;
+    private long frameStartTime;
+    private long lapStartTime;
+
+    private long[] history;
+    private int historyIndex;
+    private int historySize;
+
+    private long[][] histograms;
+    private long[] entityTypeTimes;
+
+    private long numberOfFrames;
+    private long numberOfSlowFrames;
+    private long budgetNanos;
+
+    /**
+     * @param budget the time a frame is expected to fit in, in milliseconds
+     */
+    public ServerFrameProfiler(long budget) {
+        this.frame = new long[PHASES.length + 1];
+        this.frameEntityTypeTimes = new long[TYPES.length];
+
+        this.history = new long[HISTORY_SIZE * this.frame.length];
+        this.histograms = new long[this.frame.length][NUMBER_OF_BUCKETS];
+        this.entityTypeTimes = new long[TYPES.length];
+
+        setBudget(budget);
+    }
+
+    /**
+     * @param budget the time a frame is expected to fit in, in milliseconds
+     */
+    public void setBudget(long budget) {
+        this.budgetNanos = Math.max(1, budget) * 1_000_000L;
+    }
+
+    /**
+     * @return the time a frame is expected to fit in, in milliseconds
+     */
+    public long getBudget() {
+        return this.budgetNanos / 1_000_000L;
+    }
+
+    /**
+     * Marks the start of a server frame
+     */
+    public void startFrame() {
+        Arrays.fill(this.frame, 0);
+        Arrays.fill(this.frameEntityTypeTimes, 0);
+
+        this.frameStartTime = System.nanoTime();
+        this.lapStartTime = this.frameStartTime;
+    }
+
+    /**
+     * Marks the end of the supplied phase, attributing the time since the
+     * last lap to it
+     *
+     * @param phase
+     */
+    public void lap(Phase phase) {
+        long now = System.nanoTime();
+        this.frame[phase.ordinal()] += now - this.lapStartTime;
+        this.lapStartTime = now;
+    }
+
+    /**
+     * Marks the end of {@link Game#update(seventh.shared.TimeStep)}, splitting its time into
+     * the entity, AI and game phases
+     *
+     * @param game
+     */
+    public void lapGameUpdate(Game game) {
+        long now = System.nanoTime();
+        long elapsed = now - this.lapStartTime;
+        this.lapStartTime = now;
+
+        long entityTime = game.getEntityUpdateTime();
+        long aiTime = game.getAIUpdateTime();
+
+        this.frame[Phase.ENTITIES.ordinal()] += entityTime;
+        this.frame[Phase.AI.ordinal()] += aiTime;
+        this.frame[Phase.GAME.ordinal()] += Math.max(0, elapsed - entityTime - aiTime);
+
+        for(int i = 0; i < TYPES.length; i++) {
+            this.frameEntityTypeTimes[i] += game.getEntityUpdateTime(TYPES[i]);
+        }
+    }
+
+    /**
+     * Marks the end of the server frame, recording it and logging it if it
+     * went over budget
+     */
+    public void endFrame() {
+        long now = System.nanoTime();
+        this.frame[Phase.OTHER.ordinal()] += now - this.lapStartTime;
+        this.frame[TOTAL] = now - this.frameStartTime;
+
+        int offset = this.historyIndex * this.frame.length;
+        for(int i = 0; i < this.frame.length; i++) {
+            this.history[offset + i] = this.frame[i];
+            this.histograms[i][bucketOf(this.frame[i])]++;
+        }
+
+        for(int i = 0; i < TYPES.length; i++) {
+            this.entityTypeTimes[i] += this.frameEntityTypeTimes[i];
+        }
+
+        this.historyIndex = (this.historyIndex + 1) % HISTORY_SIZE;
+        this.historySize = Math.min(this.historySize + 1, HISTORY_SIZE);
+        this.numberOfFrames++;
+
+        if(this.frame[TOTAL] > this.budgetNanos) {
+            this.numberOfSlowFrames++;
+            Cons.println("*** Slow server frame: " + breakdown());
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000L;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, NUMBER_OF_BUCKETS - 1);
+    }
+
+    /**
+     * @return the current frame's time, phases and slowest entity types
+     */
+    private String breakdown() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(String.format("%.2f ms (budget %d ms)", this.frame[TOTAL] / 1_000_000.0, getBudget()));
+        for(int i = 0; i < PHASES.length; i++) {
+            if(this.frame[i] >= 10_000L) {
+                sb.append(String.format(" %s %.2f", PHASES[i].name().toLowerCase(), this.frame[i] / 1_000_000.0));
+            }
+        }
+
+        /* the three entity types that took the longest */
+        long lastMax = Long.MAX_VALUE;
+        for(int n = 0; n < 3; n++) {
+            int slowest = -1;
+            for(int i = 0; i < TYPES.length; i++) {
+                long time = this.frameEntityTypeTimes[i];
+                if(time > 0 && time < lastMax && (slowest < 0 || time > this.frameEntityTypeTimes[slowest])) {
+                    slowest = i;
+                }
+            }
+
+            if(slowest < 0) {
+                break;
+            }
+
+            lastMax = this.frameEntityTypeTimes[slowest];
+            sb.append(n > 0 ? ", " : " [").append(TYPES[slowest]).append(String.format(" %.2f", lastMax / 1_000_000.0));
+        }
+
+        if(lastMax != Long.MAX_VALUE) {
+            sb.append("]");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Clears all of the recorded frames
+     */
+    public void reset() {
+        Arrays.fill(this.history, 0);
+        Arrays.fill(this.entityTypeTimes, 0);
+        for(int i = 0; i < this.histograms.length; i++) {
+            Arrays.fill(this.histograms[i], 0);
+        }
+
+        this.historyIndex = 0;
+        this.historySize = 0;
+        this.numberOfFrames = 0;
+        this.numberOfSlowFrames = 0;
+    }
+
+    /**
+     * @return the number of frames recorded
+     */
+    public long getNumberOfFrames() {
+        return numberOfFrames;
+    }
+
+    /**
+     * @return the number of frames that went over budget
+     */
+    public long getNumberOfSlowFrames() {
+        return numberOfSlowFrames;
+    }
+
+    /**
+     * Prints the average, median, 99th percentile and max of each phase over the last frames
+     *
+     * @param console
+     */
+    public void printSummary(Console console) {
+        console.printf("Last %d frames, %d of %d frames over the %d ms budget\n", this.historySize,
+                this.numberOfSlowFrames, this.numberOfFrames, getBudget());
+        console.println("\tPhase              Avg(us)   P50(us)   P99(us)   Max(us)");
+        console.println("\t===========================================================");
+
+        long[] samples = new long[this.historySize];
+        for(int i = 0; i <= PHASES.length; i++) {
+            for(int j = 0; j < this.historySize; j++) {
+                samples[j] = this.history[j * this.frame.length + i];
+            }
+            Arrays.sort(samples);
+
+            long sum = 0;
+            for(int j = 0; j < samples.length; j++) {
+                sum += samples[j];
+            }
+
+            String name = i < PHASES.length ? PHASES[i].name().toLowerCase() : "total";
+            if(samples.length > 0) {
+                console.printf("\t%-16s %9d %9d %9d %9d\n", name, (sum / samples.length) / 1000L,
+                        samples[samples.length / 2] / 1000L, samples[(samples.length * 99) / 100] / 1000L,
+                        samples[samples.length - 1] / 1000L);
+            }
+        }
+        console.println("\n");
+    }
+
+    /**
+     * Prints the histogram of the supplied phase, since the last reset
+     *
+     * @param console
+     * @param phase the phase, or null for the whole frame
+     */
+    public void printHistogram(Console console, Phase phase) {
+        long[] histogram = this.histograms[phase != null ? phase.ordinal() : TOTAL];
+        console.printf("%s over %d frames\n", phase != null ? phase.name().toLowerCase() : "total", this.numberOfFrames);
+        console.println("\tTime(us)         Frames");
+        console.println("\t=======================");
+        for(int i = 0; i < histogram.length; i++) {
+            String range = (i == 0) ? "< 1"
+                         : (i == 1) ? "1"
+                         : (i == histogram.length - 1) ? ">= " + (1L << (i - 1))
+                         : (1L << (i - 1)) + " - " + ((1L << i) - 1);
+            console.printf("\t%-16s %6d\n", range, histogram[i]);
+        }
+        console.println("\n");
+    }
+
+    /**
+     * Prints the time spent updating each type of entity, since the last reset
+     *
+     * @param console
+     */
+    public void printEntityTypes(Console console) {
+        console.println("\tEntity Type        Total(us)  Avg(us)");
+        console.println("\t=======================================");
+        for(int i = 0; i < TYPES.length; i++) {
+            if(this.entityTypeTimes[i] > 0) {
+                console.printf("\t%-16s %11d %8d\n", TYPES[i], this.entityTypeTimes[i] / 1000L,
+                        (this.entityTypeTimes[i] / Math.max(1, this.numberOfFrames)) / 1000L);
+            }
+        }
+        console.println("\n");
+    }
+}
@@ -106,6 +106,8 @@ public class ServerNetworkProtocol extends NetworkProtocol implements GameSessio
     
     private Map<Integer, Logger> rconLoggers;
     
+    private DemoRecorder demoRecorder;
+    
     /**
      * @param serverContext
      */
@@ -169,6 +171,20 @@ public class ServerNetworkProtocol extends NetworkProtocol implements GameSessio
     
     private void queueSendToAll(int protocolFlags, NetMessage message) {
         this.outboundQ.add(new OutboundMessage(message, MessageType.ALL_CLIENTS, 0, protocolFlags));
+        recordEvent(protocolFlags, message);
+    }
+    
+    private void recordEvent(int protocolFlags, NetMessage message) {
+        if(this.demoRecorder != null && (protocolFlags & Endpoint.FLAG_RELIABLE) != 0) {
+            this.demoRecorder.recordEvent(message);
+        }
+    }
+    
+    /**
+     * @param demoRecorder records the reliable messages broadcast to the clients, may be null
+     */
+    public void setDemoRecorder(DemoRecorder demoRecorder) {
+        this.demoRecorder = demoRecorder;
     }
     
     private void sendTo(int protocolFlags, int clientId, NetMessage msg) {
@@ -182,6 +198,7 @@ public class ServerNetworkProtocol extends NetworkProtocol implements GameSessio
     
     private void queueSendToAllExcept(int protocolFlags, NetMessage message, int id) {
         this.outboundQ.add(new OutboundMessage(message, MessageType.ALL_EXCEPT, id, protocolFlags));
+        recordEvent(protocolFlags, message);
     }
 //    private void queueSendToClient(int protocolFlags, NetMessage message, int id) {
 //        this.outboundQ.add(new OutboundMessage(message, MessageType.ONE, id, protocolFlags));
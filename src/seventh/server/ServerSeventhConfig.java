@@ -196,7 +196,7 @@ public class ServerSeventhConfig extends SeventhConfig {
      * @return the max number of players allowed on this server
      */
     public int getMaxPlayers() {
-        return this.config.getInt(SeventhConstants.MAX_PLAYERS, "sv_maxplayers");
+        return Math.min(this.config.getInt(SeventhConstants.DEFAULT_MAX_PLAYERS, "sv_maxplayers"), SeventhConstants.MAX_PLAYERS);
     }
     
     /**
@@ -226,10 +226,60 @@ public class ServerSeventhConfig extends SeventhConfig {
         this.config.set(fps, "sv_framerate");
     }
     
+    /**
+     * @return the time a server frame is expected to fit in, in milliseconds; slower frames are logged
+     */
+    public int getServerFrameBudget() {
+        return this.config.getInt(Math.abs(getServerFrameRate()), "sv_frame_budget");
+    }
+    
+    /**
+     * @return true if the next map in the cycle should be loaded in the background during the current match
+     */
+    public boolean isMapPrefetch() {
+        return this.config.getBool(true, "sv_map_prefetch");
+    }
+    
+    /**
+     * @return true if scripts should be run in debug mode, which gives line numbers in script
+     * errors at the cost of slower scripts
+     */
+    public boolean isScriptDebugMode() {
+        return this.config.getBool(false, "sv_script_debug");
+    }
+    
     public int getServerNetUpdateRate() {
         return this.config.getInt(20, "sv_netupdaterate");
     }
     
+    /**
+     * @return the maximum number of bytes per second of game updates sent to each client
+     */
+    public int getClientBandwidth() {
+        return this.config.getInt(64_000, "sv_client_bandwidth");
+    }
+    
+    /**
+     * @return true if matches should be recorded to demo files
+     */
+    public boolean isDemoRecording() {
+        return this.config.getBool(false, "sv_demo_record");
+    }
+    
+    /**
+     * @return the directory the demo files are recorded to
+     */
+    public String getDemoDirectory() {
+        return this.config.getStr("./demos", "sv_demo_dir");
+    }
+    
+    /**
+     * @return the time between demo keyframes, in milliseconds
+     */
+    public int getDemoKeyframeInterval() {
+        return this.config.getInt(10_000, "sv_demo_keyframe_interval");
+    }
+    
     public int getServerNetFullStatDelay() {
         return this.config.getInt(20_000, "sv_netfullstatdelay");
     }
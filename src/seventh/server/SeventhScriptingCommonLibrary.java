@@ -5,6 +5,7 @@ package seventh.server;
 
 
 import leola.vm.types.LeoObject;
+import seventh.game.EntityTable.EntityList;
 import seventh.game.Game;
 import seventh.game.Trigger;
 import seventh.game.entities.Door;
@@ -170,19 +171,17 @@ public class SeventhScriptingCommonLibrary {
             
             @Override
             public boolean checkCondition(Game game) {
-                Entity[] entities = game.getEntities();
-                for(int i = 0; i < entities.length; i++) {
-                    Entity ent = entities[i];
-                    if(ent != null) {
-                        if(ent instanceof Bullet ||
-                           ent instanceof Explosion) {
-                            
-                            if(tile.getBounds().intersects(ent.getBounds())) {
-                                triggeredEntity = ent;
-                                return true;
-                            }
+                EntityList entities = game.getEntityTable().getActive();
+                for(int i = 0; i < entities.size(); i++) {
+                    Entity ent = entities.get(i);
+                    if(ent instanceof Bullet ||
+                       ent instanceof Explosion) {
+                        
+                        if(tile.getBounds().intersects(ent.getBounds())) {
+                            triggeredEntity = ent;
+                            return true;
                         }
-                    }                    
+                    }
                 }
                 return false;
             }
@@ -200,6 +199,10 @@ public class SeventhScriptingCommonLibrary {
                     }
                 }
             }
+            
+            @Override
+            public void onRemoved(Game game) {
+            }
         });
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+/**
+ * The layout of a recorded demo file.  A demo is an append-only stream of the network messages a
+ * spectator would have received, so it can be played back with the same code the client uses.
+ *
+ * <pre>
+ * header:   int MAGIC, int VERSION, int net update rate, long recording start (epoch millis),
+ *           short length + UTF-8 bytes of the map file name
+ * records:  byte type, int time (milliseconds since the start of the recording), int length, length bytes
+ * trailer:  a RECORD_INDEX record, followed by long offset of the RECORD_INDEX record and int MAGIC
+ * </pre>
+ *
+ * A {@link #RECORD_UPDATE} holds a GameUpdateMessage, a {@link #RECORD_EVENT} holds one of the reliable messages
+ * broadcast to all clients (kills, rounds, tile changes, etc.) and a {@link #RECORD_KEYFRAME} holds a GameReadyMessage with
+ * the full game state, from which playback can start.  The index lists the time and file offset of every keyframe.  The trailer
+ * is only written when the recording is stopped cleanly; if it is missing, the keyframes can still be found by
+ * walking the records.
+ *
+ * @author Tony
+ *
+ */
+public final class DemoFormat {
+
+    private DemoFormat() {
+    }
+
+    public static final int MAGIC   = 0x53374430; // S7D0
+    public static final int VERSION = 1;
+
+    public static final String EXTENSION = ".s7d";
+
+    public static final byte RECORD_UPDATE   = 1;
+    public static final byte RECORD_EVENT    = 2;
+    public static final byte RECORD_KEYFRAME = 3;
+
+    /**
+     * int number of keyframes, followed by an int time and long offset of each keyframe
+     */
+    public static final byte RECORD_INDEX    = 4;
+
+    /**
+     * type, time and length
+     */
+    public static final int RECORD_HEADER_SIZE = 1 + 4 + 4;
+
+    /**
+     * offset of the index and the magic
+     */
+    public static final int TRAILER_SIZE = 8 + 4;
+
+    /**
+     * The size of each entry in the {@link #RECORD_INDEX}
+     */
+    public static final int INDEX_ENTRY_SIZE = 4 + 8;
+}
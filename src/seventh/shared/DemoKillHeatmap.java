@@ -0,0 +1,130 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+import java.io.PrintStream;
+
+import harenet.messages.NetMessage;
+import seventh.game.net.NetEntity;
+import seventh.network.messages.GameReadyMessage;
+import seventh.network.messages.GameUpdateMessage;
+import seventh.network.messages.PlayerKilledMessage;
+
+/**
+ * Accumulates where players died, and where their killers stood, over the course of a demo.  This
+ * only looks at the recorded messages, so a whole match can be scanned without loading the map or
+ * rendering anything.
+ *
+ * @author Tony
+ *
+ */
+public class DemoKillHeatmap implements DemoPlayer.DemoListener {
+
+    /**
+     * The largest world coordinate that can be sent in a {@link PlayerKilledMessage}
+     */
+    private static final int MAX_COORDINATE = 8192;
+
+    private final int cellSize;
+    private final int gridSize;
+
+    private int[] deaths;
+    private int[] kills;
+
+    private int[] playerPosX;
+    private int[] playerPosY;
+    private boolean[] hasPlayerPos;
+
+    private int numberOfKills;
+
+    /**
+     * @param cellSize the size of each cell of the heatmap, in pixels
+     */
+    public DemoKillHeatmap(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        this.gridSize = (MAX_COORDINATE + this.cellSize - 1) / this.cellSize;
+
+        this.deaths = new int[this.gridSize * this.gridSize];
+        this.kills = new int[this.gridSize * this.gridSize];
+
+        this.playerPosX = new int[SeventhConstants.MAX_PLAYERS];
+        this.playerPosY = new int[SeventhConstants.MAX_PLAYERS];
+        this.hasPlayerPos = new boolean[SeventhConstants.MAX_PLAYERS];
+    }
+
+    /**
+     * @return the number of kills recorded
+     */
+    public int getNumberOfKills() {
+        return numberOfKills;
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.DemoPlayer.DemoListener#onKeyframe(seventh.network.messages.GameReadyMessage)
+     */
+    @Override
+    public void onKeyframe(GameReadyMessage msg) {
+        updatePlayerPositions(msg.gameState.entities);
+    }
+
+    /* (non-Javadoc)
+     * @see seventh.shared.DemoPlayer.DemoListener#onMessage(harenet.messages.NetMessage)
+     */
+    @Override
+    public void onMessage(NetMessage msg) {
+        if(msg instanceof GameUpdateMessage) {
+            updatePlayerPositions(((GameUpdateMessage)msg).netUpdate.entities);
+        }
+        else if(msg instanceof PlayerKilledMessage) {
+            PlayerKilledMessage killed = (PlayerKilledMessage)msg;
+
+            this.deaths[cellOf(killed.posX, killed.posY)]++;
+
+            int killerId = killed.killedById;
+            if(killerId != killed.playerId && killerId > -1 && killerId < this.hasPlayerPos.length && this.hasPlayerPos[killerId]) {
+                this.kills[cellOf(this.playerPosX[killerId], this.playerPosY[killerId])]++;
+            }
+
+            this.numberOfKills++;
+        }
+    }
+
+    private void updatePlayerPositions(NetEntity[] entities) {
+        if(entities == null) {
+            return;
+        }
+
+        for(int i = 0; i < this.hasPlayerPos.length; i++) {
+            NetEntity ent = entities[i];
+            if(ent != null && ent.type.isPlayer()) {
+                this.playerPosX[i] = ent.posX;
+                this.playerPosY[i] = ent.posY;
+                this.hasPlayerPos[i] = true;
+            }
+        }
+    }
+
+    private int cellOf(int x, int y) {
+        int cellX = Math.max(0, Math.min(this.gridSize - 1, x / this.cellSize));
+        int cellY = Math.max(0, Math.min(this.gridSize - 1, y / this.cellSize));
+        return (cellY * this.gridSize) + cellX;
+    }
+
+    /**
+     * Writes out the cells with any deaths or kills as CSV, with the world
+     * position of the top left corner of each cell
+     *
+     * @param out
+     */
+    public void write(PrintStream out) {
+        out.println("x,y,deaths,kills");
+        for(int i = 0; i < this.deaths.length; i++) {
+            if(this.deaths[i] > 0 || this.kills[i] > 0) {
+                int x = (i % this.gridSize) * this.cellSize;
+                int y = (i / this.gridSize) * this.cellSize;
+                out.println(x + "," + y + "," + this.deaths[i] + "," + this.kills[i]);
+            }
+        }
+    }
+}
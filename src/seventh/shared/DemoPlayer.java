@@ -0,0 +1,227 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+import harenet.messages.NetMessage;
+import seventh.network.messages.GameReadyMessage;
+
+/**
+ * Plays back a demo, handing the recorded messages to a {@link DemoListener} as the playback
+ * time reaches them.  The playback can run at any speed, and seeking starts from the nearest
+ * keyframe rather than from the beginning of the recording.
+ *
+ * @author Tony
+ *
+ */
+public class DemoPlayer {
+
+    public static final float MIN_SPEED = 0.125f;
+    public static final float MAX_SPEED = 16f;
+
+    /**
+     * Receives the recorded messages
+     *
+     * @author Tony
+     *
+     */
+    public static interface DemoListener {
+
+        /**
+         * The full game state, received when playback starts and after each seek.  Any
+         * state from before should be discarded.
+         *
+         * @param msg
+         */
+        public void onKeyframe(GameReadyMessage msg);
+
+        /**
+         * A recorded game update or reliable event
+         *
+         * @param msg
+         */
+        public void onMessage(NetMessage msg);
+    }
+
+    private DemoReader reader;
+    private DemoListener listener;
+
+    private long time;
+    private double timeRemainder;
+    private float speed;
+    private boolean paused;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param reader
+     * @param listener
+     */
+    public DemoPlayer(DemoReader reader, DemoListener listener) {
+        this.reader = reader;
+        this.listener = listener;
+        this.speed = 1f;
+    }
+
+    /**
+     * @return the reader
+     */
+    public DemoReader getReader() {
+        return reader;
+    }
+
+    /**
+     * @return the current playback time, in milliseconds since the start of the recording
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the playback speed
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @param speed the playback speed, 1 being real time
+     */
+    public void setSpeed(float speed) {
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    /**
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @param paused
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * @return true if all of the records have been played
+     */
+    public boolean isFinished() {
+        return this.finished || !this.reader.hasNext();
+    }
+
+    /**
+     * Scales the elapsed time by the playback speed
+     *
+     * @param timeStep
+     * @return the amount of playback time that elapsed, in milliseconds
+     */
+    public long elapsedPlaybackTime(TimeStep timeStep) {
+        if(this.paused) {
+            return 0;
+        }
+
+        double elapsed = (timeStep.getDeltaTime() * this.speed) + this.timeRemainder;
+        long playbackTime = (long)elapsed;
+        this.timeRemainder = elapsed - playbackTime;
+
+        return playbackTime;
+    }
+
+    /**
+     * Advances the playback time, handing off any records up to the new time
+     *
+     * @param playbackTime
+     */
+    public void advance(long playbackTime) {
+        if(!this.started) {
+            seek(0);
+        }
+
+        this.time += playbackTime;
+
+        while(!this.finished && this.reader.hasNext() && this.reader.peekTime() <= this.time) {
+            dispatchNext();
+        }
+    }
+
+    /**
+     * Plays back all of the remaining records as fast as possible
+     */
+    public void playToEnd() {
+        if(!this.started) {
+            seek(0);
+        }
+
+        while(!this.finished && this.reader.hasNext()) {
+            dispatchNext();
+        }
+
+        this.time = this.reader.getDuration();
+    }
+
+    /**
+     * Jumps to the supplied time.  The closest keyframe before the time is applied, followed by the
+     * events leading up to the time and the last game update before it; the game updates in between
+     * are skipped, as each one holds the full spectator view.
+     *
+     * @param seekTime the time to jump to, in milliseconds since the start of the recording
+     */
+    public void seek(long seekTime) {
+        seekTime = Math.max(0, Math.min(seekTime, this.reader.getDuration()));
+
+        int keyframeTime = this.reader.seek(seekTime);
+        if(keyframeTime < 0 && this.reader.getNumberOfKeyframes() > 0) {
+            keyframeTime = this.reader.seek(this.reader.getKeyframeTime(0));
+        }
+        
+        if(keyframeTime < 0) {
+            Cons.println("*** The demo does not have any keyframes, unable to play it back");
+            this.started = true;
+            this.finished = true;
+            return;
+        }
+        
+        this.started = true;
+        this.timeRemainder = 0;
+        this.time = Math.max(seekTime, keyframeTime);
+
+        this.listener.onKeyframe((GameReadyMessage)this.reader.next());
+
+        int lastUpdate = -1;
+        while(this.reader.hasNext() && this.reader.peekTime() <= this.time) {
+            switch(this.reader.peekType()) {
+                case DemoFormat.RECORD_UPDATE:
+                    lastUpdate = this.reader.getPosition();
+                    this.reader.skip();
+                    break;
+                case DemoFormat.RECORD_EVENT:
+                    this.listener.onMessage(this.reader.next());
+                    break;
+                default:
+                    this.reader.skip();
+            }
+        }
+
+        if(lastUpdate > -1) {
+            int position = this.reader.getPosition();
+            this.reader.setPosition(lastUpdate);
+            this.listener.onMessage(this.reader.next());
+            this.reader.setPosition(position);
+        }
+    }
+
+    private void dispatchNext() {
+        switch(this.reader.peekType()) {
+            case DemoFormat.RECORD_UPDATE:
+            case DemoFormat.RECORD_EVENT:
+                this.listener.onMessage(this.reader.next());
+                break;
+            default:
+                /* the keyframes are only needed for seeking */
+                this.reader.skip();
+        }
+    }
+}
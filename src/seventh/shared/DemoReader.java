@@ -0,0 +1,332 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import harenet.IOBuffer;
+import harenet.messages.NetMessage;
+import seventh.network.messages.BufferIO.SeventhNetMessageFactory;
+
+/**
+ * Reads the records of a demo file (see {@link DemoFormat}).  The file is memory mapped, so jumping
+ * to any keyframe only costs a lookup in the keyframe index, and records that are skipped are never
+ * decoded.
+ *
+ * @author Tony
+ *
+ */
+public class DemoReader implements Closeable {
+
+    private static final int MAX_MESSAGE_SIZE = 256 * 1024;
+
+    private FileChannel channel;
+    private MappedByteBuffer data;
+
+    private String mapFileName;
+    private int netUpdateRate;
+    private long recordingStartTime;
+
+    private int firstRecord;
+    private int endOfRecords;
+    private int duration;
+
+    private int[] keyframeTimes;
+    private int[] keyframeOffsets;
+    private int numberOfKeyframes;
+
+    private int position;
+
+    private IOBuffer messageBuffer;
+    private SeventhNetMessageFactory messageFactory;
+
+    /**
+     * @param file
+     * @throws IOException if the file is not a demo file
+     */
+    public DemoReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            long size = this.channel.size();
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("Demo file is too large: " + file);
+            }
+
+            this.data = this.channel.map(MapMode.READ_ONLY, 0, size);
+
+            readHeader(file);
+            if(!readIndex()) {
+                scanIndex();
+            }
+        }
+        catch(IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        this.messageBuffer = IOBuffer.Factory.allocate(MAX_MESSAGE_SIZE);
+        this.messageFactory = new SeventhNetMessageFactory();
+
+        this.position = this.firstRecord;
+    }
+
+    private void readHeader(File file) throws IOException {
+        if(this.data.limit() < 4 + 4 + 4 + 8 + 2 || this.data.getInt(0) != DemoFormat.MAGIC) {
+            throw new IOException("Not a demo file: " + file);
+        }
+
+        int version = this.data.getInt(4);
+        if(version != DemoFormat.VERSION) {
+            throw new IOException("Unsupported demo version " + version + ": " + file);
+        }
+
+        this.netUpdateRate = this.data.getInt(8);
+        this.recordingStartTime = this.data.getLong(12);
+
+        int nameLength = this.data.getShort(20) & 0xFFFF;
+        byte[] name = new byte[nameLength];
+        ByteBuffer header = this.data.duplicate();
+        header.position(22);
+        header.get(name);
+
+        this.mapFileName = new String(name, StandardCharsets.UTF_8);
+        this.firstRecord = 22 + nameLength;
+    }
+
+    /**
+     * Reads in the keyframe index written at the end of the recording
+     *
+     * @return false if there is no index (the recording did not stop cleanly)
+     */
+    private boolean readIndex() {
+        int size = this.data.limit();
+        if(size - this.firstRecord < DemoFormat.RECORD_HEADER_SIZE + 4 + DemoFormat.TRAILER_SIZE
+           || this.data.getInt(size - 4) != DemoFormat.MAGIC) {
+            return false;
+        }
+
+        long indexOffset = this.data.getLong(size - DemoFormat.TRAILER_SIZE);
+        if(indexOffset < this.firstRecord || indexOffset > size - DemoFormat.TRAILER_SIZE - DemoFormat.RECORD_HEADER_SIZE
+           || this.data.get((int)indexOffset) != DemoFormat.RECORD_INDEX) {
+            return false;
+        }
+
+        int index = (int)indexOffset;
+        this.endOfRecords = index;
+        this.duration = this.data.getInt(index + 1);
+
+        int entry = index + DemoFormat.RECORD_HEADER_SIZE;
+        this.numberOfKeyframes = this.data.getInt(entry);
+        this.keyframeTimes = new int[this.numberOfKeyframes];
+        this.keyframeOffsets = new int[this.numberOfKeyframes];
+
+        entry += 4;
+        for(int i = 0; i < this.numberOfKeyframes; i++, entry += DemoFormat.INDEX_ENTRY_SIZE) {
+            this.keyframeTimes[i] = this.data.getInt(entry);
+            this.keyframeOffsets[i] = (int)this.data.getLong(entry + 4);
+        }
+
+        return true;
+    }
+
+    /**
+     * Walks the records to find the keyframes, stopping at the first incomplete record
+     */
+    private void scanIndex() {
+        this.keyframeTimes = new int[64];
+        this.keyframeOffsets = new int[64];
+        this.numberOfKeyframes = 0;
+
+        int size = this.data.limit();
+        int offset = this.firstRecord;
+        while(offset + DemoFormat.RECORD_HEADER_SIZE <= size) {
+            byte type = this.data.get(offset);
+            int time = this.data.getInt(offset + 1);
+            int length = this.data.getInt(offset + 5);
+            if(type == DemoFormat.RECORD_INDEX || length < 0 || offset + DemoFormat.RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+
+            if(type == DemoFormat.RECORD_KEYFRAME) {
+                if(this.numberOfKeyframes == this.keyframeTimes.length) {
+                    this.keyframeTimes = Arrays.copyOf(this.keyframeTimes, this.numberOfKeyframes * 2);
+                    this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.numberOfKeyframes * 2);
+                }
+
+                this.keyframeTimes[this.numberOfKeyframes] = time;
+                this.keyframeOffsets[this.numberOfKeyframes] = offset;
+                this.numberOfKeyframes++;
+            }
+
+            this.duration = time;
+            offset += DemoFormat.RECORD_HEADER_SIZE + length;
+        }
+
+        this.endOfRecords = offset;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        this.data = null;
+        this.channel.close();
+    }
+
+    /**
+     * @return the file name of the map that was played
+     */
+    public String getMapFileName() {
+        return mapFileName;
+    }
+
+    /**
+     * @return the time between the recorded updates, in milliseconds
+     */
+    public int getNetUpdateRate() {
+        return netUpdateRate;
+    }
+
+    /**
+     * @return when the recording started, in epoch milliseconds
+     */
+    public long getRecordingStartTime() {
+        return recordingStartTime;
+    }
+
+    /**
+     * @return the length of the recording, in milliseconds
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the number of keyframes
+     */
+    public int getNumberOfKeyframes() {
+        return numberOfKeyframes;
+    }
+
+    /**
+     * @param index
+     * @return the time of the keyframe
+     */
+    public int getKeyframeTime(int index) {
+        return this.keyframeTimes[index];
+    }
+
+    /**
+     * @return the current position in the file, which can be returned to with {@link #setPosition(int)}
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @param position a position previously returned by {@link #getPosition()}
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * @return true if there are more records
+     */
+    public boolean hasNext() {
+        return this.position + DemoFormat.RECORD_HEADER_SIZE <= this.endOfRecords;
+    }
+
+    /**
+     * @return the type of the next record
+     */
+    public byte peekType() {
+        return this.data.get(this.position);
+    }
+
+    /**
+     * @return the time of the next record
+     */
+    public int peekTime() {
+        return this.data.getInt(this.position + 1);
+    }
+
+    /**
+     * Skips over the next record without decoding it
+     */
+    public void skip() {
+        int length = this.data.getInt(this.position + 5);
+        this.position += DemoFormat.RECORD_HEADER_SIZE + length;
+    }
+
+    /**
+     * Decodes the next record
+     *
+     * @return the recorded message
+     */
+    public NetMessage next() {
+        int length = this.data.getInt(this.position + 5);
+        int start = this.position + DemoFormat.RECORD_HEADER_SIZE;
+
+        ByteBuffer src = this.data.duplicate();
+        src.limit(start + length);
+        src.position(start);
+
+        this.messageBuffer.clear();
+
+        ByteBuffer dst = this.messageBuffer.asByteBuffer();
+        dst.clear();
+        dst.put(src);
+        dst.flip();
+
+        this.messageBuffer.receiveSync();
+
+        this.position = start + length;
+
+        return this.messageFactory.readNetMessage(this.messageBuffer);
+    }
+
+    /**
+     * Moves to the last keyframe at or before the supplied time.  Keyframes are recorded at
+     * a fixed interval, so the keyframe is found by its expected index rather than by searching.
+     *
+     * @param time
+     * @return the time of the keyframe, or -1 if there are no keyframes at or before the time
+     */
+    public int seek(long time) {
+        if(this.numberOfKeyframes == 0 || time < this.keyframeTimes[0]) {
+            return -1;
+        }
+
+        int last = this.numberOfKeyframes - 1;
+        int span = this.keyframeTimes[last] - this.keyframeTimes[0];
+
+        int index = last;
+        if(span > 0 && time < this.keyframeTimes[last]) {
+            index = (int)(((time - this.keyframeTimes[0]) * last) / span);
+        }
+
+        while(index < last && this.keyframeTimes[index + 1] <= time) {
+            index++;
+        }
+
+        while(index > 0 && this.keyframeTimes[index] > time) {
+            index--;
+        }
+
+        this.position = this.keyframeOffsets[index];
+        return this.keyframeTimes[index];
+    }
+}
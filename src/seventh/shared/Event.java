@@ -5,6 +5,7 @@
 */
 package seventh.shared;
 
+import leola.vm.types.LeoObject;
 
 /**
  * A consumable event of interest.
@@ -25,6 +26,17 @@ public abstract class Event {
      */
     private boolean consumed;
 
+    /**
+     * The pool this event is returned to once it has been
+     * dispatched, null if it isn't pooled
+     */
+    EventPool<?> pool;
+    
+    /**
+     * This event as a script object, kept for when the event is pooled
+     */
+    private LeoObject scriptObj;
+
     /**
      * Time the event was created.
      */
@@ -86,6 +98,16 @@ public abstract class Event {
     public void setSource(Object source) {
         this.source = source;
     }        
+    
+    /**
+     * @return this {@link Event} as a {@link LeoObject}
+     */
+    public LeoObject asScriptObject() {
+        if(this.scriptObj == null) {
+            this.scriptObj = LeoObject.valueOf(this);
+        }
+        return this.scriptObj;
+    }
         
 }
 
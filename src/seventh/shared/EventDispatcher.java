@@ -5,8 +5,14 @@
 */
 package seventh.shared;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.Collection;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -16,173 +22,197 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import leola.vm.util.ClassUtil;
 
 /**
- * Dispatches events.  This implementation is thread safe. 
- * 
+ * Dispatches events.  This implementation is thread safe.
+ *
+ * <p>
+ * The {@link EventMethod} of a listener is looked up once when the listener is added, and bound
+ * to an {@link Invoker} that calls it directly.  The listeners of each event class are kept in
+ * an array that is copied on every add or remove, so sending an event is a plain loop over
+ * that array without any locking or reflection.
+ *
+ * <p>
+ * Queued events are kept in a ring buffer that belongs to the thread processing the queue (the
+ * first thread to call {@link #processQueue()}), so queueing from the game thread doesn't allocate.
+ * Events queued from any other thread go through a concurrent queue, and are moved over to the
+ * ring buffer at the start of the next {@link #processQueue()}.  Events taken from an
+ * {@link EventPool} are returned to it once they have been dispatched.
+ *
  * @author Tony
  *
  */
 public class EventDispatcher {
 
     /**
-     * Handle to all listeners
+     * Calls the {@link EventMethod} of a listener
+     *
+     * @author Tony
+     *
      */
-    private Map<Class<?>, Collection<EventListener>> eventListenerMap;
-    
+    static interface Invoker {
+        void invoke(EventListener listener, Event event);
+    }
+
     /**
-     * Queue of events
+     * A listener and the {@link Invoker} of its {@link EventMethod}
+     *
+     * @author Tony
+     *
      */
-    private Queue<Event> eventQueue;        
-    
+    private static final class Binding {
+        final EventListener listener;
+        final Invoker invoker;
+
+        Binding(EventListener listener, Invoker invoker) {
+            this.listener = listener;
+            this.invoker = invoker;
+        }
+    }
+
+    private static final Binding[] NO_BINDINGS = {};
+
+    private static final int INITIAL_QUEUE_SIZE = 64;
+
     /**
-     * Cache for method look up.
+     * The signature of {@link Invoker#invoke(EventListener, Event)}
      */
-    private Map<Class<?>, EventMethodEntry> eventMethodMap;
-    
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, EventListener.class, Event.class);
+
     /**
-     * @author Tony
+     * Handle to all listeners, copied on write
      */
-    private class EventMethodEntry {        
-        Map<Class<?>, Method> invokables;
-                
-        /**
-         * @param aListenerClass
-         * @param eventMethod
-         */
-        EventMethodEntry() {
-            this.invokables = new ConcurrentHashMap<Class<?>, Method>();
-        }
-        
-        /**
-         * Adds an event listener.
-         * 
-         * @param aListenerClass
-         * @param eventType
-         */
-        void addListener(Class<?> aListenerClass, Class<?> eventType) {
-            scan(aListenerClass, eventType);
-        }
-        
-        /**
-         * Remove a listener type
-         * @param aListenerClass
-         * @param eventType
-         */
-        void removeListener(Class<?> eventType) {
-            this.invokables.remove(eventType);
-        }
-        
-        /**
-         * Scan the listener class for EventMethods.
-         * 
-         * @param aListenerClass
-         */
-        void scan(Class<?> aListenerClass, Class<?> eventType) {            
-            /* Only get the public members */
-            Method[] methods = aListenerClass.getDeclaredMethods();            
-            if ( methods.length > 0 ) {                            
-                for ( Method method : methods) {
-                    /* Query for the event method annotation */
-                    EventMethod eventMethod = ClassUtil.getAnnotation(EventMethod.class, aListenerClass, method);
-                    if ( eventMethod != null ) {
-
-                        /* Verify this only has one parameter, the Event */
-                        Class<?>[] paramTypes = method.getParameterTypes();
-                        if ( paramTypes.length == 1 && paramTypes[0].equals(eventType) ) { 
-                             //ClassUtil.inheritsFrom(paramTypes[0], eventType) ) {
-                            method.setAccessible(true);
-                            this.invokables.put(eventType, method);
-                            break;
-                        }
-                    }
-                    
-                }
-            }
-            
-        }
-        
-        /**
-         * Invoke the method
-         * 
-         * @param event
-         */
-        void invoke(EventListener aListener, Event event) {
-            try {
-                Method method = this.invokables.get(event.getClass());
-                if ( method != null ) {
-                    method.invoke(aListener, event);
-                }
-            }
-            catch(Exception e) {        
-                System.err.println("Error invoking listener method - " + e);
-                e.printStackTrace(System.err);
-            }
-        }
-    }
-    
+    private Map<Class<?>, Binding[]> eventListenerMap;
+
+    /**
+     * Ring buffer of events queued by the owner thread
+     */
+    private Event[] events;
+    private int head;
+    private int size;
+
+    /**
+     * Queue of events queued by any other thread
+     */
+    private Queue<Event> eventQueue;
+
+    /**
+     * The thread that processes the queue
+     */
+    private volatile Thread ownerThread;
+
+    /**
+     * Cache of the bound {@link Invoker}s, by listener class and then event class
+     */
+    private Map<Class<?>, Map<Class<?>, Invoker>> eventMethodMap;
+
     /**
      */
     public EventDispatcher() {
-        this.eventListenerMap = new ConcurrentHashMap<Class<?>, Collection<EventListener>>();
-        this.eventMethodMap = new ConcurrentHashMap<Class<?>, EventMethodEntry>();
+        this.eventListenerMap = new ConcurrentHashMap<Class<?>, Binding[]>();
+        this.eventMethodMap = new ConcurrentHashMap<Class<?>, Map<Class<?>, Invoker>>();
         this.eventQueue = new ConcurrentLinkedQueue<Event>();
+        this.events = new Event[INITIAL_QUEUE_SIZE];
     }
-    
-    
+
+
     /**
      * Queues the {@link Event}
      * @param event
      */
     public void queueEvent(Event event) {
-        this.eventQueue.add(event);
+        if ( Thread.currentThread() == this.ownerThread ) {
+            push(event);
+        }
+        else {
+            this.eventQueue.add(event);
+        }
+    }
+
+    private void push(Event event) {
+        if ( this.size == this.events.length ) {
+            Event[] newEvents = new Event[this.events.length * 2];
+            for(int i = 0; i < this.size; i++) {
+                newEvents[i] = this.events[(this.head + i) % this.events.length];
+            }
+
+            this.events = newEvents;
+            this.head = 0;
+        }
+
+        this.events[(this.head + this.size) % this.events.length] = event;
+        this.size++;
+    }
+
+    private Event pop() {
+        Event event = this.events[this.head];
+        this.events[this.head] = null;
+        this.head = (this.head + 1) % this.events.length;
+        this.size--;
+        return event;
     }
-    
+
     /**
-     * Clear the event queue
+     * Clear the event queue.  This should only be called from the thread processing
+     * the queue, or once that thread is done with it.
      */
     public void clearQueue() {
         this.eventQueue.clear();
+        while ( this.size > 0 ) {
+            pop();
+        }
     }
-    
+
     /**
-     * Processes the next event in the event queue.
-     * 
+     * Processes the events in the event queue, events queued by the listeners are left
+     * for the next call.
+     *
      * @return true processed an event, false if no events where processed (due to
      * the queue being empty).
      */
     public boolean processQueue() {
-        boolean eventProcessed = false;
-        
-        /* Poll from the queue */
-        Event event = this.eventQueue.poll();
-        if ( event != null ) {
+        if ( this.ownerThread == null ) {
+            this.ownerThread = Thread.currentThread();
+        }
+
+        /* Move over the events from the other threads */
+        Event event = null;
+        while( (event = this.eventQueue.poll()) != null ) {
+            push(event);
+        }
+
+        int numberOfEvents = this.size;
+        for(int i = 0; i < numberOfEvents; i++) {
+            event = pop();
+
             /* Send the event to the listeners */
             sendNow(event);
-            
-            eventProcessed = true;
+
+            if ( event.pool != null ) {
+                event.pool.free(event);
+            }
         }
-        
-        return eventProcessed;
+
+        return numberOfEvents > 0;
     }
-    
+
     /**
      * Sends the supplied event now, bypassing the queue.
      * @param event
      */
     public <E extends Event> void sendNow(E event) {
-        Class<?> eventClass = event.getClass();
-        if ( this.eventListenerMap.containsKey(eventClass)) {
-            Collection<EventListener> eventListeners = this.eventListenerMap.get(eventClass);
-            for(EventListener listener : eventListeners) {
-                Class<?> listenerClass = listener.getClass();                
-                
-                /* Get the method lookup cache */
-                EventMethodEntry entry = this.eventMethodMap.get(listenerClass);
-                
+        Binding[] bindings = this.eventListenerMap.get(event.getClass());
+        if ( bindings != null ) {
+            for(int i = 0; i < bindings.length; i++) {
+                Binding binding = bindings[i];
+
                 /* Send out the event */
-                if(entry != null) {
-                    entry.invoke(listener, event);
+                try {
+                    binding.invoker.invoke(binding.listener, event);
+                }
+                catch(Exception e) {
+                    System.err.println("Error invoking listener method - " + e);
+                    e.printStackTrace(System.err);
                 }
-                
+
                 /* If its been consumed, don't continue */
                 if ( event.isConsumed() ) {
                     break;
@@ -190,69 +220,208 @@ public class EventDispatcher {
             }
         }
     }
-        
+
     /**
      * Add an {@link EventListener}.
-     * 
+     *
      * @param eventClass
      * @param eventListener
      */
-    public void addEventListener(Class<?> eventClass, EventListener eventListener) {         
-        if ( ! this.eventListenerMap.containsKey(eventClass)) {
-            this.eventListenerMap.put(eventClass, new ConcurrentLinkedQueue<EventListener>());
-        }
-        
-        /* Place the method lookup cache in place */
-        Class<?> listenerClass = eventListener.getClass();
-        if ( ! this.eventMethodMap.containsKey(listenerClass) ) {
-            this.eventMethodMap.put(listenerClass, new EventMethodEntry());    
+    public synchronized void addEventListener(Class<?> eventClass, EventListener eventListener) {
+        Invoker invoker = getInvoker(eventListener.getClass(), eventClass);
+
+        Binding[] bindings = this.eventListenerMap.get(eventClass);
+        if ( bindings == null ) {
+            bindings = NO_BINDINGS;
         }
-        
-        EventMethodEntry methodEntry = this.eventMethodMap.get(listenerClass);
-        methodEntry.addListener(listenerClass, eventClass);
-        
-        /* Add the listener object */
-        Collection<EventListener> eventListeners = this.eventListenerMap.get(eventClass);
-        eventListeners.add(eventListener);                
+
+        /* Listeners without an event method for this event are kept so they can be removed
+         * as before, they just never get called
+         */
+        Binding[] newBindings = Arrays.copyOf(bindings, bindings.length + 1);
+        newBindings[bindings.length] = new Binding(eventListener, invoker != null ? invoker : NO_OP);
+
+        this.eventListenerMap.put(eventClass, newBindings);
     }
-    
+
     /**
      * Removes an {@link EventListener}
-     * 
+     *
      * @param eventClass
      * @param eventListener
      */
-    public void removeEventListener(Class<?> eventClass, EventListener eventListener) {         
-        if ( this.eventListenerMap.containsKey(eventClass)) {
-            Collection<EventListener> eventListeners = this.eventListenerMap.get(eventClass);
-            eventListeners.remove(eventListener);
-            
-            Class<?> listenerClass = eventListener.getClass();
-            
-            EventMethodEntry methodEntry = this.eventMethodMap.get(listenerClass);
-            if ( methodEntry != null ) {
-                methodEntry.removeListener(eventClass);
+    public synchronized void removeEventListener(Class<?> eventClass, EventListener eventListener) {
+        Binding[] bindings = this.eventListenerMap.get(eventClass);
+        if ( bindings != null ) {
+            for(int i = 0; i < bindings.length; i++) {
+                if ( bindings[i].listener.equals(eventListener) ) {
+                    if ( bindings.length == 1 ) {
+                        this.eventListenerMap.remove(eventClass);
+                    }
+                    else {
+                        Binding[] newBindings = new Binding[bindings.length - 1];
+                        System.arraycopy(bindings, 0, newBindings, 0, i);
+                        System.arraycopy(bindings, i + 1, newBindings, i, bindings.length - i - 1);
+
+                        this.eventListenerMap.put(eventClass, newBindings);
+                    }
+                    break;
+                }
             }
-        }            
+        }
     }
-    
+
     /**
      * Remove all the {@link EventListener}s
-     * 
+     *
      */
-    public void removeAllEventListeners() {
+    public synchronized void removeAllEventListeners() {
         this.eventListenerMap.clear();
         this.eventMethodMap.clear();
     }
-    
+
     /**
      * Get all the {@link Event} classes that currently have listeners.
-     * 
+     *
      * @return the set of event classes
      */
     public Set<Class<?>> getEventClasses() {
         return this.eventListenerMap.keySet();
     }
 
-}
+    /**
+     * Used for listeners that do not have an {@link EventMethod} for the event
+     */
+    private static final Invoker NO_OP = (listener, event) -> {};
 
+    /**
+     * Gets the cached {@link Invoker} for the listener class and event class, binding it
+     * if this is the first time the pair has been seen
+     *
+     * @param listenerClass
+     * @param eventClass
+     * @return the invoker, or null if the listener does not have an {@link EventMethod}
+     * for the event
+     */
+    private Invoker getInvoker(Class<?> listenerClass, Class<?> eventClass) {
+        Map<Class<?>, Invoker> invokers = this.eventMethodMap.get(listenerClass);
+        if ( invokers == null ) {
+            invokers = new ConcurrentHashMap<Class<?>, Invoker>();
+            this.eventMethodMap.put(listenerClass, invokers);
+        }
+
+        Invoker invoker = invokers.get(eventClass);
+        if ( invoker == null ) {
+            Method method = findEventMethod(listenerClass, eventClass);
+            if ( method != null ) {
+                invoker = bind(method, eventClass);
+                invokers.put(eventClass, invoker);
+            }
+        }
+
+        return invoker;
+    }
+
+    /**
+     * Scan the listener class for an {@link EventMethod} that takes the event
+     *
+     * @param aListenerClass
+     * @param eventType
+     * @return the method, or null if there isn't one
+     */
+    private static Method findEventMethod(Class<?> aListenerClass, Class<?> eventType) {
+        Method[] methods = aListenerClass.getDeclaredMethods();
+        for ( Method method : methods) {
+            /* Query for the event method annotation */
+            EventMethod eventMethod = ClassUtil.getAnnotation(EventMethod.class, aListenerClass, method);
+            if ( eventMethod != null ) {
+
+                /* Verify this only has one parameter, the Event */
+                Class<?>[] paramTypes = method.getParameterTypes();
+                if ( paramTypes.length == 1 && paramTypes[0].equals(eventType) ) {
+                    return method;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the public interface method the supplied method implements, so that anonymous or
+     * otherwise non public listener classes can still be called without reflection
+     *
+     * @param type
+     * @param method
+     * @return the interface method, or null if there isn't a public one
+     */
+    private static Method findInterfaceMethod(Class<?> type, Method method) {
+        for(Class<?> iface : type.getInterfaces()) {
+            if ( Modifier.isPublic(iface.getModifiers()) ) {
+                try {
+                    return iface.getMethod(method.getName(), method.getParameterTypes());
+                }
+                catch(NoSuchMethodException e) {
+                }
+            }
+
+            Method ifaceMethod = findInterfaceMethod(iface, method);
+            if ( ifaceMethod != null ) {
+                return ifaceMethod;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Binds the event method into an {@link Invoker}.  This is done with a generated
+     * class when the method is publicly reachable, otherwise it falls back to a {@link MethodHandle}
+     *
+     * @param method
+     * @param eventClass
+     * @return the invoker
+     */
+    private static Invoker bind(Method method, Class<?> eventClass) {
+        Method target = method;
+        if ( !Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers()) ) {
+            Method ifaceMethod = findInterfaceMethod(method.getDeclaringClass(), method);
+            if ( ifaceMethod != null ) {
+                target = ifaceMethod;
+            }
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle handle = lookup.unreflect(target);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(Invoker.class),
+                    INVOKER_TYPE, handle, MethodType.methodType(void.class, target.getDeclaringClass(), eventClass));
+
+            return (Invoker) site.getTarget().invokeExact();
+        }
+        catch(Throwable e) {
+            /* not reachable from here, so fall back to a method handle */
+        }
+
+        try {
+            method.setAccessible(true);
+            final MethodHandle handle = lookup.unreflect(method).asType(INVOKER_TYPE);
+            return (listener, event) -> {
+                try {
+                    handle.invokeExact(listener, event);
+                }
+                catch(RuntimeException | Error e) {
+                    throw e;
+                }
+                catch(Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+        catch(IllegalAccessException e) {
+            Cons.println("*** Unable to bind the event method: " + method + " - " + e);
+            return NO_OP;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+/**
+ * A pool of {@link Event}s of one type, so that frequent events don't need to be allocated
+ * each time.  An event taken from the pool with {@link #obtain()} and queued with
+ * {@link EventDispatcher#queueEvent(Event)} is returned to this pool once it has been
+ * dispatched, so listeners must not hold on to it.
+ *
+ * <p>
+ * This is not thread safe, events must be obtained on the thread that processes the
+ * {@link EventDispatcher}s queue.
+ *
+ * @author Tony
+ *
+ */
+public class EventPool<E extends Event> {
+
+    /**
+     * Creates the events of the pool
+     *
+     * @author Tony
+     *
+     * @param <E>
+     */
+    public static interface EventFactory<E extends Event> {
+        E newEvent();
+    }
+
+    private Event[] events;
+    private int size;
+    private EventFactory<E> factory;
+
+    /**
+     * @param capacity the number of free events kept
+     * @param factory
+     */
+    public EventPool(int capacity, EventFactory<E> factory) {
+        this.factory = factory;
+        this.events = new Event[capacity];
+        for(int i = 0; i < capacity; i++) {
+            this.events[i] = factory.newEvent();
+        }
+        this.size = capacity;
+    }
+
+    /**
+     * Takes a free event from the pool, allocating a new one if the pool has
+     * been exhausted
+     *
+     * @return the event
+     */
+    @SuppressWarnings("unchecked")
+    public E obtain() {
+        E event = (this.size > 0) ? (E)this.events[--this.size] : this.factory.newEvent();
+        this.events[this.size] = null;
+
+        event.unconsume();
+        event.pool = this;
+        return event;
+    }
+
+    /**
+     * Returns the event to the pool, if the pool is full it is left
+     * for the garbage collector
+     *
+     * @param event
+     */
+    void free(Event event) {
+        event.pool = null;
+        if(this.size < this.events.length) {
+            this.events[this.size++] = event;
+        }
+    }
+
+    /**
+     * @return the number of free events
+     */
+    public int numberOfFreeEvents() {
+        return this.size;
+    }
+}
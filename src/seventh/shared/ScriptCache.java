@@ -0,0 +1,137 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import leola.vm.Leola;
+import leola.vm.compiler.Bytecode;
+import leola.vm.types.LeoObject;
+
+/**
+ * Keeps the compiled {@link Bytecode} of script files, keyed by a hash of the file contents, so that a
+ * script evaluated every round (or by every new runtime) is only parsed and compiled once.  A changed file
+ * hashes differently and is compiled again, so edited scripts are still picked up.
+ *
+ * <p>
+ * The compiled {@link Bytecode} is shared by every runtime that executes it, it only holds the instructions
+ * and constants of the script.  Scripts compiled in debug mode are kept apart from those compiled without it.
+ *
+ * @author Tony
+ *
+ */
+public class ScriptCache {
+
+    private final Map<String, Bytecode> cache;
+    private long hits, misses;
+
+    /**
+     * @param maxEntries the max number of compiled scripts kept, the least recently used
+     * are dropped first
+     */
+    public ScriptCache(final int maxEntries) {
+        this.cache = new LinkedHashMap<String, Bytecode>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bytecode> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Evaluates the script file in the global namespace of the runtime, as {@link Leola#eval(File)} does,
+     * compiling the script only if its contents have not been compiled before
+     *
+     * @param runtime
+     * @param file
+     * @return the result of the script
+     * @throws Exception
+     */
+    public LeoObject eval(Leola runtime, File file) throws Exception {
+        Bytecode code = compile(runtime, file);
+        return runtime.execute(runtime.getOrCreateNamespace(Leola.GLOBAL_SCOPE_NAME), code);
+    }
+
+    /**
+     * Gets the compiled script file, compiling it if its contents have not been compiled before
+     *
+     * @param runtime the runtime used to compile the script
+     * @param file
+     * @return the compiled script
+     * @throws Exception
+     */
+    public Bytecode compile(Leola runtime, File file) throws Exception {
+        byte[] contents = Files.readAllBytes(file.toPath());
+        String key = hash(contents) + (runtime.getArgs().isDebugMode() ? ":debug" : "");
+
+        synchronized (this) {
+            Bytecode code = this.cache.get(key);
+            if(code != null) {
+                this.hits++;
+                return code;
+            }
+            this.misses++;
+        }
+
+        Bytecode code = null;
+        try(Reader reader = new InputStreamReader(new ByteArrayInputStream(contents))) {
+            code = runtime.compile(reader);
+        }
+        code.setSourceFile(file);
+
+        synchronized (this) {
+            this.cache.put(key, code);
+        }
+
+        return code;
+    }
+
+    /**
+     * Removes all of the compiled scripts
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * @return the number of compiled scripts kept
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return the number of times a script did not have to be compiled
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return the number of times a script had to be compiled
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    private static String hash(byte[] contents) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] hash = digest.digest(contents);
+
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for(int i = 0; i < hash.length; i++) {
+            sb.append(String.format("%02x", hash[i]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * see license.txt
+ */
+package seventh.shared;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accounts for the time spent in script functions called from the game.  Each call site gets an
+ * {@link Entry} up front, and brackets the script call with {@link Entry#begin()} and {@link Entry#end()}:
+ *
+ * <pre>
+ * entry.begin();
+ * LeoObject result = function.call(arg);
+ * entry.end();
+ * </pre>
+ *
+ * Timing is always on and costs two {@link System#nanoTime()} calls.  The allocations of a call can also be
+ * estimated from the bytes the thread allocated during it, this is more expensive so it must be turned
+ * on with {@link #setTrackAllocations(boolean)}.
+ *
+ * <p>
+ * Entries are meant to be used from the game thread.
+ *
+ * @author Tony
+ *
+ */
+public class ScriptProfiler {
+
+    /**
+     * The accounting of a script function
+     *
+     * @author Tony
+     *
+     */
+    public static class Entry {
+        private final ScriptProfiler profiler;
+        private final String name;
+
+        private long numberOfCalls;
+        private long totalTimeNanos;
+        private long maxTimeNanos;
+        private long allocatedBytes;
+
+        private int depth;
+        private long startTime;
+        private long startAllocatedBytes;
+
+        Entry(ScriptProfiler profiler, String name) {
+            this.profiler = profiler;
+            this.name = name;
+        }
+
+        /**
+         * Marks the start of a call
+         */
+        public void begin() {
+            if(this.depth++ == 0) {
+                this.startAllocatedBytes = this.profiler.allocatedBytes();
+                this.startTime = System.nanoTime();
+            }
+        }
+
+        /**
+         * Marks the end of a call
+         */
+        public void end() {
+            if(--this.depth == 0) {
+                long time = System.nanoTime() - this.startTime;
+                this.numberOfCalls++;
+                this.totalTimeNanos += time;
+                if(time > this.maxTimeNanos) {
+                    this.maxTimeNanos = time;
+                }
+
+                if(this.startAllocatedBytes >= 0) {
+                    long allocated = this.profiler.allocatedBytes();
+                    if(allocated >= 0) {
+                        this.allocatedBytes += allocated - this.startAllocatedBytes;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of calls
+         */
+        public long getNumberOfCalls() {
+            return numberOfCalls;
+        }
+
+        /**
+         * @return the total time spent in the calls
+         */
+        public long getTotalTimeNanos() {
+            return totalTimeNanos;
+        }
+
+        /**
+         * @return the longest call
+         */
+        public long getMaxTimeNanos() {
+            return maxTimeNanos;
+        }
+
+        /**
+         * @return the estimated bytes allocated by the calls, only counted while
+         * allocations are tracked
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        void reset() {
+            this.numberOfCalls = 0;
+            this.totalTimeNanos = 0;
+            this.maxTimeNanos = 0;
+            this.allocatedBytes = 0;
+        }
+    }
+
+    private Map<String, Entry> entries;
+    private ThreadMXBean threadBean;
+    private volatile boolean trackAllocations;
+
+    /**
+     */
+    public ScriptProfiler() {
+        this.entries = new HashMap<String, Entry>();
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            this.threadBean = bean;
+        }
+    }
+
+    /**
+     * Gets the {@link Entry} by name, creating it if this is the first time
+     *
+     * @param name
+     * @return the entry
+     */
+    public synchronized Entry getEntry(String name) {
+        Entry entry = this.entries.get(name);
+        if(entry == null) {
+            entry = new Entry(this, name);
+            this.entries.put(name, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @param trackAllocations true if the bytes allocated by each call should be estimated
+     */
+    public void setTrackAllocations(boolean trackAllocations) {
+        this.trackAllocations = trackAllocations && this.threadBean != null;
+    }
+
+    /**
+     * @return true if the bytes allocated by each call are estimated
+     */
+    public boolean isTrackingAllocations() {
+        return trackAllocations;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if not tracked
+     */
+    private long allocatedBytes() {
+        if(!this.trackAllocations) {
+            return -1;
+        }
+
+        return ((com.sun.management.ThreadMXBean)this.threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Clears all of the recorded calls
+     */
+    public synchronized void reset() {
+        for(Entry entry : this.entries.values()) {
+            entry.reset();
+        }
+    }
+
+    /**
+     * @return the entries that have been called, the most expensive first
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<Entry>();
+        for(Entry entry : this.entries.values()) {
+            if(entry.numberOfCalls > 0) {
+                result.add(entry);
+            }
+        }
+
+        Collections.sort(result, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return Long.compare(b.totalTimeNanos, a.totalTimeNanos);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Prints the time, calls and allocations of each script function
+     *
+     * @param console
+     */
+    public void printSummary(Console console) {
+        console.println("\tScript                                 Calls    Total(us)   Avg(us)   Max(us)   Alloc(KB)");
+        console.println("\t========================================================================================");
+        for(Entry entry : getEntries()) {
+            console.printf("\t%-34s %10d %12d %9d %9d %11s\n", entry.getName(), entry.getNumberOfCalls()
+                    , entry.getTotalTimeNanos() / 1000L, (entry.getTotalTimeNanos() / entry.getNumberOfCalls()) / 1000L
+                    , entry.getMaxTimeNanos() / 1000L
+                    , this.trackAllocations ? Long.toString(entry.getAllocatedBytes() / 1024L) : "-");
+        }
+        console.println("\n");
+    }
+}
@@ -19,6 +19,63 @@ import seventh.server.SeventhScriptingCommonLibrary;
  */
 public class Scripting {
 
+    /**
+     * Compiled scripts shared by all of the runtimes
+     */
+    private static final ScriptCache scriptCache = new ScriptCache(64);
+    
+    /**
+     * Accounts for the time spent in script functions called by the game
+     */
+    private static final ScriptProfiler profiler = new ScriptProfiler();
+    
+    /**
+     * If new runtimes are created in debug mode, which keeps line numbers for
+     * error messages at the cost of slower scripts
+     */
+    private static volatile boolean debugMode = false;
+    
+    /**
+     * @param debug true if new runtimes should be created in debug mode
+     */
+    public static void setDebugMode(boolean debug) {
+        debugMode = debug;
+    }
+    
+    /**
+     * @return true if new runtimes are created in debug mode
+     */
+    public static boolean isDebugMode() {
+        return debugMode;
+    }
+    
+    /**
+     * @return the cache of compiled scripts
+     */
+    public static ScriptCache getScriptCache() {
+        return scriptCache;
+    }
+    
+    /**
+     * @return the profiler of the script functions called by the game
+     */
+    public static ScriptProfiler getProfiler() {
+        return profiler;
+    }
+    
+    /**
+     * Evaluates the script file, only compiling it if it hasn't been compiled before
+     * 
+     * @see ScriptCache#eval(Leola, File)
+     * @param runtime
+     * @param scriptFile
+     * @return the result of the script
+     * @throws Exception
+     */
+    public static LeoObject eval(Leola runtime, File scriptFile) throws Exception {
+        return scriptCache.eval(runtime, scriptFile);
+    }
+    
     public static void execute(LeoObject function) {
         if(function != null) {
             LeoObject result = function.call();
@@ -38,7 +95,7 @@ public class Scripting {
         File file = new File(scriptFile);
         if(file.exists()) {
             try {                
-                return runtime.eval(file);
+                return eval(runtime, file);
             }
             catch(Exception e) {
                 Cons.println("*** ERROR -> Loading " + file.getName() + ": " + e);
@@ -56,7 +113,7 @@ public class Scripting {
     public static Leola newSandboxedRuntime() {        
         Leola runtime = Args.builder()
                             .setAllowThreadLocals(false)
-                            .setIsDebugMode(true)
+                            .setIsDebugMode(debugMode)
                             .setBarebones(true)
                             .setSandboxed(false) // TODO
                             .newRuntime();
@@ -78,7 +135,7 @@ public class Scripting {
      */
     public static Leola newRuntime() {                
         Leola runtime = Args.builder()
-                            .setIsDebugMode(true)
+                            .setIsDebugMode(debugMode)
                             .setAllowThreadLocals(false)
                             .newRuntime();
         
@@ -18,9 +18,17 @@ public interface SeventhConstants {
     
     public static final int MAX_PRIMARY_WEAPONS = 2;
     public static final int MAX_TIMERS = 32;    
-    public static final int MAX_ENTITIES = 256;
-    public static final int MAX_PLAYERS = 24;
-    public static final int MAX_PERSISTANT_ENTITIES = 64;
+    
+    /**
+     * The upper bounds of the entity table, the table starts out at 
+     * {@link #INITIAL_ENTITY_CAPACITY} and grows as needed
+     */
+    public static final int MAX_ENTITIES = 2048;
+    public static final int INITIAL_ENTITY_CAPACITY = 512;
+    
+    public static final int MAX_PLAYERS = 64;
+    public static final int DEFAULT_MAX_PLAYERS = 24;
+    public static final int MAX_PERSISTANT_ENTITIES = 160;
     
     public static final int MAX_SOUNDS = 32;
 
@@ -4,6 +4,8 @@
  */
 package seventh.shared;
 
+import leola.vm.types.LeoObject;
+
 /**
  * @author Tony
  *
@@ -12,6 +14,8 @@ public class TimeStep {
 
     private long gameClock;
     private long deltaTime;
+    private LeoObject scriptObj;
+    
     /**
      * @return the gameClock
      */
@@ -43,5 +47,15 @@ public class TimeStep {
     public void setDeltaTime(long deltaTime) {
         this.deltaTime = deltaTime;
     }        
+    
+    /**
+     * @return this {@link TimeStep} as a {@link LeoObject}
+     */
+    public LeoObject asScriptObject() {
+        if(this.scriptObj == null) {
+            this.scriptObj = LeoObject.valueOf(this);
+        }
+        return this.scriptObj;
+    }
 }
 
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 import harenet.BitArray;
+import harenet.IOBuffer;
 
 public class BitArrayTest {
     /**
@@ -1054,4 +1055,45 @@ public class BitArrayTest {
                 
         assertEquals(bitArray.getBit(8),true);
     }
+  
+    /**
+    * Purpose: Test that numberOfBytesInUse only counts up to the last set bit.
+    * Input: BitArray(256), setBit => 10
+    * Expected:
+    * numberOfBytesInUse == 2
+    */    
+    @Test
+    public void testNumberOfBytesInUse() {
+        BitArray bitArray = new BitArray(256);
+        assertEquals(0, bitArray.numberOfBytesInUse());
+        
+        bitArray.setBit(10);
+        assertEquals(2, bitArray.numberOfBytesInUse());
+    }
+    
+    /**
+    * Purpose: Test that a sparse bit array survives a write/read round trip.
+    * Input: BitArray(2048), setBit => 3, 70
+    * Expected:
+    * only bits 3 and 70 are set after reading, stale bits are cleared
+    */    
+    @Test
+    public void testWriteRead() {
+        BitArray bitArray = new BitArray(2048);
+        bitArray.setBit(3);
+        bitArray.setBit(70);
+        
+        IOBuffer buffer = IOBuffer.Factory.allocate(512);
+        bitArray.write(buffer);
+        buffer.flip();
+        
+        BitArray result = new BitArray(2048);
+        result.setBit(1000);
+        result.read(buffer);
+        
+        assertTrue(result.getBit(3));
+        assertTrue(result.getBit(70));
+        assertFalse(result.getBit(1000));
+        assertEquals(bitArray.numberOfBytesInUse(), result.numberOfBytesInUse());
+    }
 }
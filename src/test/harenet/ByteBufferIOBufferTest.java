@@ -89,6 +89,59 @@ public class ByteBufferIOBufferTest {
         }
     }
 
+    @Test
+    public void testCompressed() {
+        IOBuffer writeBuffer = IOBuffer.Factory.allocate(1500);
+        Protocol writeProtocol = new Protocol(500, 1500);
+        Protocol readProtocol = new Protocol(500, 1500);
+        IOBuffer readBuffer = IOBuffer.Factory.allocate(1500);
+
+        byte[] payload = new byte[1000];
+        for(int i = 0; i < payload.length; i++) {
+            payload[i] = (byte)(i % 16);
+        }
+
+        int attempts = 3;
+        while(attempts --> 0) {
+            writeBuffer.clear();
+            writeProtocol.reset();
+            writeBuffer.position(writeProtocol.size());
+            writeBuffer.putBytes(payload);
+
+            writeProtocol.setPeerId((byte)10);
+            writeProtocol.setNumberOfMessages((byte)attempts);
+            writeProtocol.setSendSequence(12);
+            writeProtocol.writeTo(writeBuffer);
+            assertTrue(writeProtocol.getNumberOfBytesCompressed() > 0);
+
+            ByteBuffer out = writeBuffer.sendSync().asByteBuffer();
+            out.flip();
+            assertTrue(out.limit() < writeProtocol.size() + payload.length);
+
+            ByteBuffer in = readBuffer.clear().asByteBuffer();
+            in.clear();
+            in.put(out.array(), 0, out.limit());
+            in.flip();
+            readBuffer.receiveSync();
+
+            readProtocol.reset();
+            readProtocol.readFrom(readBuffer, new NetMessageFactory() {
+
+                @Override
+                public NetMessage readNetMessage(IOBuffer buffer) {
+                    return null;
+                }
+            });
+
+            assertEquals(writeProtocol.getPeerId(), readProtocol.getPeerId());
+            assertEquals(writeProtocol.getNumberOfMessages(), readProtocol.getNumberOfMessages());
+            assertEquals(writeProtocol.getSendSequence(), readProtocol.getSendSequence());
+            for(int i = 0; i < payload.length; i++) {
+                assertEquals(payload[i], readBuffer.getByte());
+            }
+        }
+    }
+
     @Test
     public void testShort() {
         IOBuffer writeBuffer = IOBuffer.Factory.allocate(1500);
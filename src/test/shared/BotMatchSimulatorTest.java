@@ -0,0 +1,53 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import leola.vm.Leola;
+import seventh.server.BotMatchSimulator;
+import seventh.server.BotMatchSimulator.Results;
+import seventh.server.ServerSeventhConfig;
+import seventh.shared.Config;
+import seventh.shared.MapList;
+import seventh.shared.MapList.MapEntry;
+import seventh.shared.Scripting;
+
+public class BotMatchSimulatorTest {
+
+    private static Results simulate(String mapFile, long seed) throws Exception {
+        Leola runtime = Scripting.newRuntime();
+        ServerSeventhConfig config = new ServerSeventhConfig(new Config("./assets/server_config.leola", "server_config", runtime));
+
+        BotMatchSimulator simulator = new BotMatchSimulator(config, runtime, mapFile, 8, seed);
+        try {
+            return simulator.run(1_500, 20);
+        }
+        finally {
+            simulator.destroy();
+        }
+    }
+
+    /*
+     * Purpose: the same match plays out the same way
+     * Input: simulate a bot match on the same map with the same seed twice
+     * Expected:
+     *             both runs end in the same state and send the same number of bytes
+     */
+    @Test
+    public void testSameSeedSameMatch() throws Exception {
+        List<MapEntry> maps = MapList.getMapListing();
+        assertFalse(maps.isEmpty());
+
+        String mapFile = maps.get(0).getFileName();
+
+        Results first = simulate(mapFile, 7L);
+        Results second = simulate(mapFile, 7L);
+
+        assertEquals(first.ticks, second.ticks);
+        assertEquals(first.checksum, second.checksum);
+        assertEquals(first.snapshotBytes, second.snapshotBytes);
+    }
+}
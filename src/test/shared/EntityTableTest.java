@@ -0,0 +1,196 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import seventh.game.EntityTable;
+import seventh.game.entities.Entity;
+import seventh.game.entities.Entity.Type;
+import seventh.game.net.NetEntity;
+import seventh.math.Vector2f;
+
+public class EntityTableTest {
+
+    private static final int FIRST_PERSISTANT_ID = 2;
+    private static final int END_PERSISTANT_ID = 6;
+    private static final int FIRST_VOLATILE_ID = 8;
+
+    private static class TestEntity extends Entity {
+        TestEntity(int id) {
+            super(id, new Vector2f(), 0, null, Type.BULLET);
+        }
+
+        @Override
+        public NetEntity getNetEntity() {
+            return null;
+        }
+    }
+
+    private static EntityTable newTable() {
+        return new EntityTable(8, 64, FIRST_PERSISTANT_ID, END_PERSISTANT_ID, FIRST_VOLATILE_ID);
+    }
+
+    /*
+     * Purpose: a freed volatile id is only reused once it has been dead for the reuse delay
+     * Input: add an entity, remove it, then step the frames
+     * Expected:
+     *             a new id until the delay has passed, then the freed id
+     */
+    @Test
+    public void testVolatileIdReuse() throws Exception {
+        EntityTable table = newTable();
+
+        int id = table.nextVolatileId();
+        assertEquals(FIRST_VOLATILE_ID, id);
+        table.add(new TestEntity(id));
+        table.remove(id);
+
+        assertEquals(FIRST_VOLATILE_ID + 1, table.nextVolatileId());
+
+        for(int i = 0; i <= EntityTable.ID_REUSE_DELAY; i++) {
+            table.nextFrame();
+        }
+        assertEquals(id, table.nextVolatileId());
+    }
+
+    /*
+     * Purpose: persistent ids are reused straight away, lowest first
+     * Input: claim two persistent ids, free the first
+     * Expected:
+     *             the first id is handed out again
+     */
+    @Test
+    public void testPersistantIdReuse() throws Exception {
+        EntityTable table = newTable();
+
+        int first = table.nextPersistantId();
+        assertEquals(FIRST_PERSISTANT_ID, first);
+        table.add(new TestEntity(first));
+
+        int second = table.nextPersistantId();
+        assertEquals(FIRST_PERSISTANT_ID + 1, second);
+        table.add(new TestEntity(second));
+
+        table.remove(first);
+        assertEquals(first, table.nextPersistantId());
+    }
+
+    /*
+     * Purpose: only the persistent ids that have held an entity need to be reported as dead
+     * Input: claim two persistent ids and a volatile id, free one, then clear the table
+     * Expected:
+     *             the ids in use end after the highest persistent id claimed, volatile ids don't
+     *             count, and freeing or clearing doesn't pull it back in
+     */
+    @Test
+    public void testPersistantIdsInUse() throws Exception {
+        EntityTable table = newTable();
+        assertEquals(0, table.getPersistantIdsInUse());
+
+        int first = table.nextPersistantId();
+        table.add(new TestEntity(first));
+        int second = table.nextPersistantId();
+        table.add(new TestEntity(second));
+        table.add(new TestEntity(table.nextVolatileId()));
+        assertEquals(second + 1, table.getPersistantIdsInUse());
+
+        table.remove(second);
+        assertEquals(second + 1, table.getPersistantIdsInUse());
+
+        table.clear();
+        assertEquals(second + 1, table.getPersistantIdsInUse());
+    }
+
+    /*
+     * Purpose: freeing an id twice does not hand it out twice
+     * Input: remove the same persistent entity twice, and re-add an entity with a freed id
+     * Expected:
+     *             the id is handed out once, and every persistent id is eventually handed out
+     */
+    @Test
+    public void testDoubleFree() throws Exception {
+        EntityTable table = newTable();
+
+        int id = table.nextPersistantId();
+        table.add(new TestEntity(id));
+        table.remove(id);
+        table.remove(id);
+
+        /* an entity added directly with a free id claims it */
+        table.add(new TestEntity(END_PERSISTANT_ID - 1));
+        table.remove(END_PERSISTANT_ID - 1);
+        table.remove(END_PERSISTANT_ID - 1);
+
+        boolean[] handedOut = new boolean[END_PERSISTANT_ID];
+        for(int i = FIRST_PERSISTANT_ID; i < END_PERSISTANT_ID; i++) {
+            int next = table.nextPersistantId();
+            assertTrue(next >= FIRST_PERSISTANT_ID && next < END_PERSISTANT_ID);
+            assertFalse(handedOut[next]);
+
+            handedOut[next] = true;
+            table.add(new TestEntity(next));
+        }
+
+        assertEquals(-1, table.nextPersistantId());
+    }
+
+    /*
+     * Purpose: the generation of a slot is bumped every time an entity is placed in it
+     * Input: add, remove and re-add an entity with the same id
+     * Expected:
+     *             each entity gets its own handle, which differs only by the generation
+     */
+    @Test
+    public void testGenerations() throws Exception {
+        EntityTable table = newTable();
+
+        Entity first = new TestEntity(FIRST_VOLATILE_ID);
+        table.add(first);
+        long firstHandle = table.handleOf(FIRST_VOLATILE_ID);
+        assertEquals(firstHandle, first.getEntityHandle());
+        assertTrue(firstHandle != EntityTable.NO_HANDLE);
+
+        table.remove(FIRST_VOLATILE_ID);
+
+        Entity second = new TestEntity(FIRST_VOLATILE_ID);
+        table.add(second);
+        long secondHandle = second.getEntityHandle();
+
+        assertTrue(firstHandle != secondHandle);
+        assertEquals((int)firstHandle, (int)secondHandle);
+        assertEquals((firstHandle >>> 32) + 1, secondHandle >>> 32);
+
+        /* adding the same entity again is not a new placement */
+        table.add(second);
+        assertEquals(secondHandle, second.getEntityHandle());
+    }
+
+    /*
+     * Purpose: a handle to a removed entity does not resolve, even once its id is reused
+     * Input: resolve a handle before and after its entity is removed and replaced
+     * Expected:
+     *             the entity, then null, while the new entity resolves from its own handle
+     */
+    @Test
+    public void testStaleHandles() throws Exception {
+        EntityTable table = newTable();
+
+        int id = table.nextPersistantId();
+        Entity first = new TestEntity(id);
+        table.add(first);
+        long handle = first.getEntityHandle();
+        assertSame(first, table.getByHandle(handle));
+
+        table.remove(id);
+        assertNull(table.getByHandle(handle));
+
+        Entity second = new TestEntity(table.nextPersistantId());
+        assertEquals(id, second.getId());
+        table.add(second);
+
+        assertNull(table.getByHandle(handle));
+        assertSame(second, table.getByHandle(second.getEntityHandle()));
+        assertNull(table.getByHandle(EntityTable.NO_HANDLE));
+    }
+}
@@ -0,0 +1,138 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import seventh.game.events.TileRemovedEvent;
+import seventh.game.events.TileRemovedListener;
+import seventh.shared.EventDispatcher;
+import seventh.shared.EventPool;
+import seventh.shared.EventPool.EventFactory;
+
+public class EventDispatcherTest {
+
+    private static class CountingListener implements TileRemovedListener {
+        int sum;
+
+        @Override
+        public void onTileRemoved(TileRemovedEvent event) {
+            sum += event.getTileX();
+        }
+    }
+
+    private static EventPool<TileRemovedEvent> newPool(int size) {
+        return new EventPool<TileRemovedEvent>(size, new EventFactory<TileRemovedEvent>() {
+            @Override
+            public TileRemovedEvent newEvent() {
+                return new TileRemovedEvent();
+            }
+        });
+    }
+
+    /*
+     * Purpose: events are sent to every listener of the event class,
+     *          including anonymous and non public listener classes
+     * Input: an anonymous listener and a private listener class
+     * Expected:
+     *             both listeners receive the event
+     */
+    @Test
+    public void testSendNow() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        final int[] anonymous = {0};
+        dispatcher.addEventListener(TileRemovedEvent.class, new TileRemovedListener() {
+            @Override
+            public void onTileRemoved(TileRemovedEvent event) {
+                anonymous[0] += event.getTileX();
+            }
+        });
+
+        CountingListener listener = new CountingListener();
+        dispatcher.addEventListener(TileRemovedEvent.class, listener);
+
+        dispatcher.sendNow(new TileRemovedEvent(this, 3, 0));
+        assertEquals(3, anonymous[0]);
+        assertEquals(3, listener.sum);
+    }
+
+    /*
+     * Purpose: removing a listener only removes that instance
+     * Input: two listeners of the same class, one removed
+     * Expected:
+     *             the remaining listener still receives the event
+     */
+    @Test
+    public void testRemoveListener() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        CountingListener a = new CountingListener();
+        CountingListener b = new CountingListener();
+        dispatcher.addEventListener(TileRemovedEvent.class, a);
+        dispatcher.addEventListener(TileRemovedEvent.class, b);
+        dispatcher.removeEventListener(TileRemovedEvent.class, a);
+
+        dispatcher.sendNow(new TileRemovedEvent(this, 5, 0));
+        assertEquals(0, a.sum);
+        assertEquals(5, b.sum);
+
+        dispatcher.removeEventListener(TileRemovedEvent.class, b);
+        assertTrue(dispatcher.getEventClasses().isEmpty());
+    }
+
+    /*
+     * Purpose: a consumed event isn't sent to the remaining listeners
+     * Input: first listener consumes the event
+     * Expected:
+     *             second listener doesn't receive it
+     */
+    @Test
+    public void testConsumedEvent() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        dispatcher.addEventListener(TileRemovedEvent.class, new TileRemovedListener() {
+            @Override
+            public void onTileRemoved(TileRemovedEvent event) {
+                event.consume();
+            }
+        });
+        CountingListener listener = new CountingListener();
+        dispatcher.addEventListener(TileRemovedEvent.class, listener);
+
+        dispatcher.sendNow(new TileRemovedEvent(this, 5, 0));
+        assertEquals(0, listener.sum);
+    }
+
+    /*
+     * Purpose: queued events, from this and other threads, are all dispatched
+     *          by processQueue, and pooled events are returned to their pool
+     * Input: more queued events than the initial queue size
+     * Expected:
+     *             every event is dispatched once, the pool is full again
+     */
+    @Test
+    public void testProcessQueue() throws Exception {
+        final EventDispatcher dispatcher = new EventDispatcher();
+        CountingListener listener = new CountingListener();
+        dispatcher.addEventListener(TileRemovedEvent.class, listener);
+        assertFalse(dispatcher.processQueue());
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatcher.queueEvent(new TileRemovedEvent(this, 1000, 0));
+            }
+        });
+        thread.start();
+        thread.join();
+
+        EventPool<TileRemovedEvent> pool = newPool(8);
+        for(int i = 1; i <= 100; i++) {
+            dispatcher.queueEvent(pool.obtain().set(this, i, 0));
+        }
+        assertEquals(0, pool.numberOfFreeEvents());
+
+        assertTrue(dispatcher.processQueue());
+        assertEquals(1000 + 5050, listener.sum);
+        assertEquals(8, pool.numberOfFreeEvents());
+        assertFalse(dispatcher.processQueue());
+    }
+}
@@ -0,0 +1,538 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import seventh.ai.basic.Zone;
+import seventh.map.Layer;
+import seventh.map.Map;
+import seventh.map.Map.SceneDef;
+import seventh.map.MapGraph;
+import seventh.map.MapGraphSearch;
+import seventh.map.MapObject;
+import seventh.map.OrthoMap;
+import seventh.map.Tile;
+import seventh.map.Tile.CollisionMask;
+import seventh.map.Tile.SurfaceType;
+import seventh.math.Rectangle;
+import seventh.math.Vector2f;
+
+public class MapGraphTest {
+
+    private static final int TILE_SIZE = 32;
+    private static final int CARDINAL_COST = 32;
+    private static final int DIAGONAL_COST = 45;
+
+    private static final int[] DX = { 0, 1, 0, -1,  1, 1, -1, -1 };
+    private static final int[] DY = { -1, 0, 1, 0, -1, 1,  1, -1 };
+
+    /**
+     * Builds a map from rows of text, 'x' is a wall and anything else is walkable
+     */
+    private static Map newMap(String ... rows) throws Exception {
+        int width = rows[0].length();
+        int height = rows.length;
+
+        Layer ground = new Layer("ground", false, false, false, true, 0, 0, height);
+        Layer walls = new Layer("walls", true, false, true, true, 1, 0, height);
+
+        SurfaceType[][] surfaces = new SurfaceType[height][width];
+        for(int y = 0; y < height; y++) {
+            Tile[] groundRow = new Tile[width];
+            Tile[] wallRow = new Tile[width];
+            for(int x = 0; x < width; x++) {
+                groundRow[x] = newTile(1, 0, x, y);
+                surfaces[y][x] = SurfaceType.CEMENT;
+
+                if(rows[y].charAt(x) == 'x') {
+                    wallRow[x] = newTile(2, 1, x, y);
+                    wallRow[x].setCollisionMask(CollisionMask.ALL_SOLID);
+                }
+            }
+            ground.addRow(y, groundRow);
+            walls.addRow(y, wallRow);
+        }
+
+        SceneDef def = new SceneDef();
+        def.setDimensionX(width);
+        def.setDimensionY(height);
+        def.setTileWidth(TILE_SIZE);
+        def.setTileHeight(TILE_SIZE);
+        def.setSurfaces(surfaces);
+        def.setBackgroundLayers(new Layer[] { ground, walls });
+        def.setForegroundLayers(new Layer[0]);
+        def.setMapObjects(new ArrayList<MapObject>());
+
+        OrthoMap map = new OrthoMap(false);
+        map.init(def);
+        return map;
+    }
+
+    private static Tile newTile(int tileId, int layer, int x, int y) {
+        Tile tile = new Tile(null, tileId, layer, TILE_SIZE, TILE_SIZE);
+        tile.setPosition(x * TILE_SIZE, y * TILE_SIZE);
+        return tile;
+    }
+
+    private static String[] randomRows(int width, int height, float wallDensity, long seed) {
+        Random random = new Random(seed);
+        String[] rows = new String[height];
+        for(int y = 0; y < height; y++) {
+            StringBuilder row = new StringBuilder();
+            for(int x = 0; x < width; x++) {
+                boolean isBorder = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                row.append(isBorder || random.nextFloat() < wallDensity ? 'x' : '.');
+            }
+            rows[y] = row.toString();
+        }
+        return rows;
+    }
+
+    /**
+     * A step is allowed on to a walkable tile, diagonals only if they don't squeeze between two walls
+     */
+    private static boolean canStep(MapGraph graph, int x, int y, int dir) {
+        int nx = x + DX[dir];
+        int ny = y + DY[dir];
+        if(!graph.isWalkable(nx, ny)) {
+            return false;
+        }
+
+        return dir < 4 || graph.isWalkable(nx, y) || graph.isWalkable(x, ny);
+    }
+
+    /**
+     * @return the number of steps from the start to every node, -1 if unreachable
+     */
+    private static int[] bfs(MapGraph graph, int start) {
+        int width = graph.getWidth();
+        int[] hops = new int[width * graph.getHeight()];
+        Arrays.fill(hops, -1);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        hops[start] = 0;
+        queue.add(start);
+        while(!queue.isEmpty()) {
+            int node = queue.poll();
+            int x = node % width, y = node / width;
+            for(int i = 0; i < 8; i++) {
+                if(canStep(graph, x, y, i)) {
+                    int neighbor = (y + DY[i]) * width + (x + DX[i]);
+                    if(hops[neighbor] < 0) {
+                        hops[neighbor] = hops[node] + 1;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * @return the cost of the cheapest path from the start to every node, -1 if unreachable
+     */
+    private static int[] dijkstra(MapGraph graph, int start) {
+        int width = graph.getWidth();
+        int size = width * graph.getHeight();
+        int[] costs = new int[size];
+        boolean[] done = new boolean[size];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        costs[start] = 0;
+
+        while(true) {
+            int node = -1;
+            for(int i = 0; i < size; i++) {
+                if(!done[i] && costs[i] != Integer.MAX_VALUE && (node < 0 || costs[i] < costs[node])) {
+                    node = i;
+                }
+            }
+            if(node < 0) {
+                break;
+            }
+
+            done[node] = true;
+            int x = node % width, y = node / width;
+            for(int i = 0; i < 8; i++) {
+                if(canStep(graph, x, y, i)) {
+                    int neighbor = (y + DY[i]) * width + (x + DX[i]);
+                    int cost = costs[node] + (i < 4 ? CARDINAL_COST : DIAGONAL_COST);
+                    if(cost < costs[neighbor]) {
+                        costs[neighbor] = cost;
+                    }
+                }
+            }
+        }
+
+        for(int i = 0; i < size; i++) {
+            if(costs[i] == Integer.MAX_VALUE) {
+                costs[i] = -1;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Checks each step of the path is a legal move, and that it ends at the goal
+     *
+     * @return the cost of the path
+     */
+    private static int walk(MapGraph graph, int start, int goal, List<Tile> path) {
+        int x = graph.getNodeX(start);
+        int y = graph.getNodeY(start);
+        int cost = 0;
+        for(int i = 0; i < path.size(); i++) {
+            Tile tile = path.get(i);
+            int dx = tile.getXIndex() - x;
+            int dy = tile.getYIndex() - y;
+
+            int dir = -1;
+            for(int d = 0; d < 8; d++) {
+                if(DX[d] == dx && DY[d] == dy) {
+                    dir = d;
+                }
+            }
+            assertTrue(dir >= 0);
+            assertTrue(canStep(graph, x, y, dir));
+
+            cost += dir < 4 ? CARDINAL_COST : DIAGONAL_COST;
+            x = tile.getXIndex();
+            y = tile.getYIndex();
+        }
+
+        assertEquals(graph.getNodeX(goal), x);
+        assertEquals(graph.getNodeY(goal), y);
+        return cost;
+    }
+
+    /*
+     * Purpose: the default search finds the cheapest path
+     * Input: every pair of walkable nodes of a small map with scattered walls
+     * Expected:
+     *             a path exactly when a BFS reaches the goal, made of legal steps, no shorter than the
+     *             BFS and costing the same as Dijkstra's algorithm, which pathCost reports
+     */
+    @Test
+    public void testPathsAgainstReference() throws Exception {
+        Map map = newMap(randomRows(12, 10, 0.3f, 11));
+        MapGraph graph = map.createMapGraph();
+        MapGraphSearch search = new MapGraphSearch();
+
+        int numberOfPaths = 0, numberOfUnreachable = 0;
+        int size = graph.getWidth() * graph.getHeight();
+        for(int start = 0; start < size; start++) {
+            if(!graph.isWalkable(start)) {
+                continue;
+            }
+
+            int[] hops = bfs(graph, start);
+            int[] costs = dijkstra(graph, start);
+            for(int goal = 0; goal < size; goal++) {
+                if(!graph.isWalkable(goal)) {
+                    continue;
+                }
+
+                List<Tile> path = graph.search(search, start, goal);
+                if(hops[goal] < 0) {
+                    assertNull(path);
+                    assertEquals(MapGraph.NO_PATH_COST, graph.pathCost(start, goal));
+                    numberOfUnreachable++;
+                    continue;
+                }
+
+                assertNotNull(path);
+                assertTrue(path.size() >= hops[goal]);
+                assertEquals(costs[goal], walk(graph, start, goal, path));
+                assertEquals(costs[goal], graph.pathCost(start, goal));
+                numberOfPaths++;
+            }
+        }
+
+        assertTrue(numberOfPaths > 0);
+        assertTrue(numberOfUnreachable > 0);
+    }
+
+    /*
+     * Purpose: paths don't squeeze diagonally between two walls
+     * Input: two rooms only touching through a diagonal gap between walls
+     * Expected:
+     *             no path and no cost between the rooms, while a path within a room is
+     *             as short as the BFS
+     */
+    @Test
+    public void testDiagonalCornerBlocking() throws Exception {
+        Map map = newMap(
+            "xxxxxxx",
+            "x..x..x",
+            "x...x.x",
+            "xxxxxxx"
+        );
+        MapGraph graph = map.createMapGraph();
+        MapGraphSearch search = new MapGraphSearch();
+
+        int left = graph.getNodeByIndex(1, 1);
+        int gap = graph.getNodeByIndex(3, 2);
+        int right = graph.getNodeByIndex(4, 1);
+
+        assertNull(graph.search(search, left, right));
+        assertNull(graph.search(search, gap, right));
+        assertEquals(MapGraph.NO_PATH_COST, graph.pathCost(gap, right));
+
+        List<Tile> path = graph.search(search, left, gap);
+        assertNotNull(path);
+        assertEquals(bfs(graph, left)[gap], path.size());
+        assertEquals(CARDINAL_COST + DIAGONAL_COST, graph.pathCost(left, gap));
+    }
+
+    /*
+     * Purpose: the cost of a path to or from nowhere is the sentinel, not an exception
+     * Input: a position off of the map, and a position inside a wall with no walkable neighbors
+     * Expected:
+     *             NO_PATH_COST
+     */
+    @Test
+    public void testNoPathCost() throws Exception {
+        Map map = newMap(
+            "xxxxxxx",
+            "x.....x",
+            "xxxxxxx",
+            "xxxxxxx",
+            "xxxxxxx"
+        );
+        MapGraph graph = map.createMapGraph();
+
+        Vector2f start = new Vector2f(TILE_SIZE + 4, TILE_SIZE + 4);
+        assertEquals(0, graph.pathCost(start, start));
+        assertEquals(4 * CARDINAL_COST, graph.pathCost(start, new Vector2f(5 * TILE_SIZE + 4, TILE_SIZE + 4)));
+
+        assertEquals(MapGraph.NO_PATH_COST, graph.pathCost(start, new Vector2f(-1000, -1000)));
+        assertEquals(MapGraph.NO_PATH_COST, graph.pathCost(start, new Vector2f(3 * TILE_SIZE + 4, 3 * TILE_SIZE + 4)));
+        assertEquals(MapGraph.NO_PATH_COST, graph.pathCost(MapGraph.NO_NODE, MapGraph.NO_NODE));
+    }
+
+    /*
+     * Purpose: a path avoiding zones goes around them when it can, and through them when it can't
+     * Input: a room with a zone in the middle, and a corridor with a zone across it
+     * Expected:
+     *             the path around the zone in the room, and the only path through the corridor
+     */
+    @Test
+    public void testAvoidZones() throws Exception {
+        Map map = newMap(
+            "xxxxxxxxx",
+            "x.......x",
+            "x.......x",
+            "x.......x",
+            "x.......x",
+            "x.......x",
+            "xxxxxxxxx"
+        );
+        MapGraph graph = map.createMapGraph();
+        MapGraphSearch search = new MapGraphSearch();
+
+        Vector2f start = new Vector2f(TILE_SIZE + 4, 3 * TILE_SIZE + 4);
+        Vector2f destination = new Vector2f(7 * TILE_SIZE + 4, 3 * TILE_SIZE + 4);
+
+        List<Zone> zones = new ArrayList<>();
+        zones.add(new Zone(0, new Rectangle(3 * TILE_SIZE + 4, 2 * TILE_SIZE + 4, 3 * TILE_SIZE - 8, TILE_SIZE * 3 - 8), true));
+
+        List<Tile> direct = graph.findPath(search, start, destination);
+        assertEquals(6, direct.size());
+
+        List<Tile> path = graph.findPathAvoidZones(search, start, destination, zones);
+        assertNotNull(path);
+        for(int i = 0; i < path.size(); i++) {
+            assertFalse(zones.get(0).getBounds().intersects(path.get(i).getBounds()));
+        }
+
+        Map corridor = newMap(
+            "xxxxxxxxx",
+            "x.......x",
+            "xxxxxxxxx"
+        );
+        MapGraph corridorGraph = corridor.createMapGraph();
+        Vector2f corridorStart = new Vector2f(TILE_SIZE + 4, TILE_SIZE + 4);
+        Vector2f corridorDestination = new Vector2f(7 * TILE_SIZE + 4, TILE_SIZE + 4);
+
+        List<Zone> corridorZones = new ArrayList<>();
+        corridorZones.add(new Zone(0, new Rectangle(3 * TILE_SIZE + 4, TILE_SIZE + 4, 2 * TILE_SIZE - 8, TILE_SIZE - 8), true));
+
+        List<Tile> corridorPath = corridorGraph.findPathAvoidZones(search, corridorStart, corridorDestination, corridorZones);
+        assertNotNull(corridorPath);
+        assertEquals(6, corridorPath.size());
+    }
+
+    /**
+     * @return the component label of every node found by flood filling, -1 if not walkable
+     */
+    private static int[] floodFill(MapGraph graph) {
+        int size = graph.getWidth() * graph.getHeight();
+        int[] labels = new int[size];
+        Arrays.fill(labels, -1);
+
+        int label = 0;
+        for(int node = 0; node < size; node++) {
+            if(graph.isWalkable(node) && labels[node] < 0) {
+                int[] hops = bfs(graph, node);
+                for(int i = 0; i < size; i++) {
+                    if(hops[i] >= 0) {
+                        labels[i] = label;
+                    }
+                }
+                label++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Checks the components of the graph match the flood filled ones, and that random nodes
+     * are picked from the requested component
+     */
+    private static void checkComponents(Map map, MapGraph graph, Random random) {
+        int width = graph.getWidth();
+        int size = width * graph.getHeight();
+        int[] labels = floodFill(graph);
+
+        int numberOfLabels = 0;
+        for(int node = 0; node < size; node++) {
+            assertEquals(!map.hasCollidableTile(node % width, node / width), graph.isWalkable(node));
+            numberOfLabels = Math.max(numberOfLabels, labels[node] + 1);
+        }
+
+        int[] labelComponents = new int[numberOfLabels];
+        int[] labelSizes = new int[numberOfLabels];
+        Arrays.fill(labelComponents, MapGraph.NO_COMPONENT);
+        for(int node = 0; node < size; node++) {
+            int component = graph.getComponent(node);
+            if(labels[node] < 0) {
+                assertEquals(MapGraph.NO_COMPONENT, component);
+                continue;
+            }
+
+            assertTrue(component != MapGraph.NO_COMPONENT);
+            if(labelComponents[labels[node]] == MapGraph.NO_COMPONENT) {
+                labelComponents[labels[node]] = component;
+            }
+            assertEquals(labelComponents[labels[node]], component);
+            labelSizes[labels[node]]++;
+        }
+
+        for(int label = 0; label < numberOfLabels; label++) {
+            int component = labelComponents[label];
+            for(int other = 0; other < label; other++) {
+                assertTrue(labelComponents[other] != component);
+            }
+            assertEquals(labelSizes[label], graph.getComponentSize(component));
+
+            for(int i = 0; i < 4 * labelSizes[label]; i++) {
+                int node = graph.getRandomNode(component);
+                assertEquals(label, labels[node]);
+            }
+
+            int tileX = random.nextInt(width);
+            int tileY = random.nextInt(graph.getHeight());
+            int tileWidth = 1 + random.nextInt(6);
+            int tileHeight = 1 + random.nextInt(6);
+
+            boolean hasNodeInBounds = false;
+            for(int node = 0; node < size; node++) {
+                int x = node % width, y = node / width;
+                if(labels[node] == label && x >= tileX && x < tileX + tileWidth && y >= tileY && y < tileY + tileHeight) {
+                    hasNodeInBounds = true;
+                }
+            }
+
+            int node = graph.getRandomNode(component, tileX, tileY, tileWidth, tileHeight);
+            if(!hasNodeInBounds) {
+                assertEquals(MapGraph.NO_NODE, node);
+                continue;
+            }
+
+            assertEquals(label, labels[node]);
+            int x = graph.getNodeX(node), y = graph.getNodeY(node);
+            assertTrue(x >= tileX && x < tileX + tileWidth && y >= tileY && y < tileY + tileHeight);
+        }
+    }
+
+    /**
+     * Walls off random interior tiles or destroys their walls through the map change journal, restoring
+     * the destroyed walls from time to time, and checks the components after every change
+     *
+     * @return the number of changes that joined and that split components
+     */
+    private static int[] changeWalls(Map map, int numberOfChanges, long seed) {
+        MapGraph graph = map.createMapGraph();
+        graph.setRandomSeed(seed);
+        map.getChangeJournal().addListener(graph);
+
+        Random random = new Random(seed);
+        checkComponents(map, graph, random);
+
+        int width = graph.getWidth(), height = graph.getHeight();
+        int numberOfJoins = 0, numberOfSplits = 0;
+        for(int i = 0; i < numberOfChanges; i++) {
+            int numberOfComponents = countComponents(graph);
+
+            if(i % 50 == 49) {
+                map.restoreDestroyedTiles();
+            }
+            else {
+                int x = 1 + random.nextInt(width - 2);
+                int y = 1 + random.nextInt(height - 2);
+                if(graph.isWalkable(x, y)) {
+                    Tile wall = newTile(2, 1, x, y);
+                    wall.setCollisionMask(CollisionMask.ALL_SOLID);
+                    map.addTile(wall);
+                }
+                else {
+                    map.removeDestructableTileAt(x, y);
+                }
+            }
+            map.getChangeJournal().flush();
+
+            checkComponents(map, graph, random);
+
+            int change = countComponents(graph) - numberOfComponents;
+            if(change < 0) numberOfJoins++;
+            if(change > 0) numberOfSplits++;
+        }
+
+        return new int[] { numberOfJoins, numberOfSplits };
+    }
+
+    private static int countComponents(MapGraph graph) {
+        int[] labels = floodFill(graph);
+        int numberOfLabels = 0;
+        for(int i = 0; i < labels.length; i++) {
+            numberOfLabels = Math.max(numberOfLabels, labels[i] + 1);
+        }
+        return numberOfLabels;
+    }
+
+    /*
+     * Purpose: the components are kept up to date as walls are built and destroyed
+     * Input: a map with many scattered walls and a mostly open map, random interior tiles are
+     *             walled off or have their wall destroyed through the map change journal, and the
+     *             destroyed walls are restored from time to time
+     * Expected:
+     *             after every change the components match a flood fill, both regions merging and
+     *             splitting happen, and random nodes only come from the requested component
+     */
+    @Test
+    public void testComponentsAgainstFloodFill() throws Exception {
+        int[] dense = changeWalls(newMap(randomRows(14, 12, 0.4f, 23)), 400, 17);
+        assertTrue(dense[0] > 0);
+        assertTrue(dense[1] > 0);
+
+        int[] open = changeWalls(newMap(randomRows(14, 12, 0.1f, 29)), 400, 31);
+        assertTrue(open[0] > 0);
+        assertTrue(open[1] > 0);
+    }
+}
@@ -0,0 +1,181 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import seventh.game.PlayerInputBuffer;
+import seventh.network.messages.PlayerInputMessage;
+
+public class PlayerInputBufferTest {
+
+    private static void send(PlayerInputBuffer buffer, PlayerInputMessage msg, int keys, int duration) {
+        msg.nextInput(keys, 0, duration);
+        buffer.receive(msg);
+    }
+
+    private static int consumeAll(PlayerInputBuffer buffer) {
+        int consumed = 0;
+        while(buffer.consume()) {
+            consumed++;
+        }
+        return consumed;
+    }
+
+    /*
+     * Purpose: inputs are consumed as the game time they cover elapses
+     * Input: 33ms client inputs consumed against 20ms game ticks
+     * Expected:
+     *             an input is only consumed once 33ms have elapsed, and over time
+     *             the consumed inputs keep up with the game time
+     */
+    @Test
+    public void testConsumeByElapsedTime() throws Exception {
+        PlayerInputBuffer buffer = new PlayerInputBuffer();
+        PlayerInputMessage msg = new PlayerInputMessage();
+
+        for(int i = 0; i < 6; i++) {
+            send(buffer, msg, i, 33);
+        }
+
+        buffer.advance(20);
+        assertEquals(0, consumeAll(buffer));
+
+        buffer.advance(20);
+        assertEquals(1, consumeAll(buffer));
+        assertEquals(1, buffer.getLastConsumedSequence());
+        assertEquals(33, buffer.getDuration());
+
+        /* 200ms of game time covers 6 inputs */
+        for(int i = 0; i < 8; i++) {
+            buffer.advance(20);
+            consumeAll(buffer);
+        }
+        assertEquals(6, buffer.getLastConsumedSequence());
+        assertEquals(5, buffer.getKeys());
+        assertEquals(0, buffer.size());
+    }
+
+    /*
+     * Purpose: every due input is consumed in the same tick, in order
+     * Input: inputs arrive late, after the game time they cover has elapsed
+     * Expected:
+     *             all of the late inputs are consumed in the next tick
+     */
+    @Test
+    public void testConsumeLateInputs() throws Exception {
+        PlayerInputBuffer buffer = new PlayerInputBuffer();
+        PlayerInputMessage msg = new PlayerInputMessage();
+
+        for(int i = 0; i < 5; i++) {
+            buffer.advance(20);
+            assertEquals(0, consumeAll(buffer));
+        }
+
+        for(int i = 0; i < 4; i++) {
+            send(buffer, msg, i, 20);
+        }
+
+        buffer.advance(20);
+        int sequence = 0;
+        while(buffer.consume()) {
+            assertEquals(++sequence, buffer.getLastConsumedSequence());
+        }
+        assertEquals(4, sequence);
+    }
+
+    /*
+     * Purpose: the buffer is capped by time, by dropping the oldest inputs
+     * Input: more input time than the cap arrives at once
+     * Expected:
+     *             the oldest surplus inputs are dropped rather than consumed, and the
+     *             rest wait for the game time to cover them
+     */
+    @Test
+    public void testTimeCap() throws Exception {
+        PlayerInputBuffer buffer = new PlayerInputBuffer();
+        PlayerInputMessage msg = new PlayerInputMessage();
+
+        int numberOfInputs = (int)(PlayerInputBuffer.MAX_BUFFERED_TIME / 10) + 5;
+        for(int i = 0; i < numberOfInputs; i++) {
+            send(buffer, msg, i, 10);
+        }
+        assertEquals(PlayerInputBuffer.MAX_BUFFERED_TIME, buffer.getBufferedTime());
+        assertEquals(5, buffer.getNumberOfDroppedInputs());
+        assertEquals(5, buffer.getLastConsumedSequence());
+
+        assertEquals(0, consumeAll(buffer));
+
+        buffer.advance(10);
+        assertEquals(1, consumeAll(buffer));
+        assertEquals(6, buffer.getLastConsumedSequence());
+        assertEquals(5, buffer.getKeys());
+    }
+
+    /*
+     * Purpose: a client sending inputs faster than real time can't move faster (a speedhack)
+     * Input: inputs sent at 2x and 10x real time, consumed against 20ms game ticks
+     * Expected:
+     *             the input time consumed, which the player is moved by, never gets ahead of the
+     *             elapsed game time by more than the time credit, and the surplus is dropped
+     */
+    @Test
+    public void testInputsFasterThanRealTime() throws Exception {
+        int[] speedUps = { 2, 10 };
+        for(int s = 0; s < speedUps.length; s++) {
+            PlayerInputBuffer buffer = new PlayerInputBuffer();
+            PlayerInputMessage msg = new PlayerInputMessage();
+
+            long elapsedTime = 0;
+            long movedTime = 0;
+            for(int tick = 0; tick < 200; tick++) {
+                /* 20ms of game time passes, but the client claims speedUp * 20ms of inputs */
+                for(int i = 0; i < speedUps[s]; i++) {
+                    send(buffer, msg, 1, 20);
+                }
+
+                buffer.advance(20);
+                elapsedTime += 20;
+
+                long tickTime = 0;
+                while(buffer.consume()) {
+                    tickTime += buffer.getDuration();
+                }
+                movedTime += tickTime;
+
+                assertTrue(tickTime <= 20 + PlayerInputBuffer.MAX_TIME_CREDIT);
+                assertTrue(movedTime <= elapsedTime);
+            }
+
+            assertTrue(movedTime >= elapsedTime - PlayerInputBuffer.MAX_TIME_CREDIT);
+            assertTrue(buffer.getNumberOfDroppedInputs() > 0);
+        }
+    }
+
+    /*
+     * Purpose: redundant inputs fill in for lost packets, and duplicates are ignored
+     * Input: a message is lost, the next message carries it as a redundant input
+     * Expected:
+     *             every sequence is consumed exactly once
+     */
+    @Test
+    public void testRedundantInputs() throws Exception {
+        PlayerInputBuffer buffer = new PlayerInputBuffer();
+        PlayerInputMessage msg = new PlayerInputMessage();
+
+        send(buffer, msg, 1, 20);
+        msg.nextInput(2, 0, 20); // lost
+        send(buffer, msg, 3, 20);
+        buffer.receive(msg); // duplicate
+
+        assertEquals(3, buffer.size());
+
+        buffer.advance(60);
+        int sequence = 0;
+        while(buffer.consume()) {
+            assertEquals(++sequence, buffer.getLastConsumedSequence());
+            assertEquals(sequence, buffer.getKeys());
+        }
+        assertEquals(3, sequence);
+    }
+}
@@ -0,0 +1,95 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+
+import org.junit.Test;
+
+import leola.vm.Args;
+import leola.vm.Leola;
+import leola.vm.types.LeoObject;
+import seventh.shared.ScriptCache;
+
+public class ScriptCacheTest {
+
+    private static Leola newRuntime() {
+        return Args.builder().setAllowThreadLocals(false).setBarebones(true).newRuntime();
+    }
+
+    private static void write(File file, String script) throws Exception {
+        try(FileWriter writer = new FileWriter(file)) {
+            writer.write(script);
+        }
+    }
+
+    /*
+     * Purpose: a script is compiled once, and the compiled script can be run
+     *          by other runtimes
+     * Input: the same script evaluated by two runtimes
+     * Expected:
+     *             one miss then one hit, both runtimes get the result and globals
+     */
+    @Test
+    public void testCompiledOnce() throws Exception {
+        File file = File.createTempFile("script", ".leola");
+        file.deleteOnExit();
+        write(file, "var x = 3 \n return x * 2");
+
+        ScriptCache cache = new ScriptCache(4);
+
+        Leola first = newRuntime();
+        assertEquals(6, cache.eval(first, file).asInt());
+        assertEquals(3, first.get("x").asInt());
+
+        Leola second = newRuntime();
+        LeoObject result = cache.eval(second, file);
+        assertEquals(6, result.asInt());
+        assertEquals(3, second.get("x").asInt());
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    /*
+     * Purpose: a changed script is compiled again
+     * Input: the script file is rewritten between evaluations
+     * Expected:
+     *             the new script is run
+     */
+    @Test
+    public void testChangedScript() throws Exception {
+        File file = File.createTempFile("script", ".leola");
+        file.deleteOnExit();
+        write(file, "return 1");
+
+        ScriptCache cache = new ScriptCache(4);
+        assertEquals(1, cache.eval(newRuntime(), file).asInt());
+
+        write(file, "return 2");
+        assertEquals(2, cache.eval(newRuntime(), file).asInt());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /*
+     * Purpose: the cache is bounded
+     * Input: more scripts than the cache size
+     * Expected:
+     *             only the max number of scripts are kept
+     */
+    @Test
+    public void testMaxEntries() throws Exception {
+        ScriptCache cache = new ScriptCache(2);
+        for(int i = 0; i < 4; i++) {
+            File file = File.createTempFile("script", ".leola");
+            file.deleteOnExit();
+            write(file, "return " + i);
+
+            assertEquals(i, cache.eval(newRuntime(), file).asInt());
+        }
+
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,90 @@
+package test.shared;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import seventh.shared.ScriptProfiler;
+
+public class ScriptProfilerTest {
+
+    /*
+     * Purpose: calls are counted once, even when the function calls back into itself
+     * Input: two calls, one of them nested
+     * Expected:
+     *             two calls are recorded
+     */
+    @Test
+    public void testCalls() throws Exception {
+        ScriptProfiler profiler = new ScriptProfiler();
+        ScriptProfiler.Entry entry = profiler.getEntry("trigger");
+
+        entry.begin();
+        entry.end();
+
+        entry.begin();
+        entry.begin();
+        entry.end();
+        entry.end();
+
+        assertSame(entry, profiler.getEntry("trigger"));
+        assertEquals(2, entry.getNumberOfCalls());
+        assertTrue(entry.getMaxTimeNanos() <= entry.getTotalTimeNanos());
+    }
+
+    /*
+     * Purpose: entries are reported most expensive first, and only if called
+     * Input: a slow entry, a fast entry and an entry never called
+     * Expected:
+     *             the slow entry then the fast entry, and nothing after a reset
+     */
+    @Test
+    public void testEntries() throws Exception {
+        ScriptProfiler profiler = new ScriptProfiler();
+        ScriptProfiler.Entry fast = profiler.getEntry("fast");
+        ScriptProfiler.Entry slow = profiler.getEntry("slow");
+        profiler.getEntry("unused");
+
+        fast.begin();
+        fast.end();
+
+        slow.begin();
+        Thread.sleep(5);
+        slow.end();
+
+        List<ScriptProfiler.Entry> entries = profiler.getEntries();
+        assertEquals(2, entries.size());
+        assertSame(slow, entries.get(0));
+        assertSame(fast, entries.get(1));
+
+        profiler.reset();
+        assertTrue(profiler.getEntries().isEmpty());
+    }
+
+    /*
+     * Purpose: allocations are only estimated when asked for
+     * Input: an allocating call with tracking off, then on
+     * Expected:
+     *             no bytes counted with tracking off, some with it on (where the JVM supports it)
+     */
+    @Test
+    public void testAllocations() throws Exception {
+        ScriptProfiler profiler = new ScriptProfiler();
+        ScriptProfiler.Entry entry = profiler.getEntry("alloc");
+
+        entry.begin();
+        byte[] garbage = new byte[64 * 1024];
+        entry.end();
+        assertEquals(0, entry.getAllocatedBytes());
+
+        profiler.setTrackAllocations(true);
+        if(profiler.isTrackingAllocations()) {
+            entry.begin();
+            garbage = new byte[64 * 1024];
+            entry.end();
+            assertTrue(entry.getAllocatedBytes() >= garbage.length);
+        }
+    }
+}